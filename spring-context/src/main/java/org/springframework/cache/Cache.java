@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.springframework.lang.Nullable;
@@ -136,6 +139,44 @@ public interface Cache {
 	@Nullable
 	ValueWrapper putIfAbsent(Object key, @Nullable Object value);
 
+	/**
+	 * Return the values to which this cache maps the specified keys.
+	 * <p>The returned map contains an entry for each key that this cache
+	 * holds a mapping for, in the iteration order of the given keys, with the
+	 * cached value (which may be {@code null} itself) contained within a
+	 * {@link ValueWrapper}. Keys without a mapping are not contained at all.
+	 * <p>The default implementation performs an individual {@link #get(Object)}
+	 * call for each key. Cache providers with native bulk access may override
+	 * this in order to retrieve all values in a single round trip.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each cached key to its value
+	 * @since 5.0.16
+	 * @see #get(Object)
+	 */
+	default Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Associate each of the specified values with its key in this cache.
+	 * <p>The default implementation performs an individual {@link #put}
+	 * call for each entry. Cache providers with native bulk access may override
+	 * this in order to store all values in a single round trip.
+	 * @param entries the keys and values to be stored
+	 * @since 5.0.16
+	 * @see #put(Object, Object)
+	 */
+	default void putAll(Map<?, ?> entries) {
+		entries.forEach(this::put);
+	}
+
 	/**
 	 * Evict the mapping for this key from this cache if it is present.
 	 * @param key the key whose mapping is to be removed from the cache
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,4 +179,48 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * The period (in milliseconds) after which a cached value gets reloaded
+	 * asynchronously on access, through the annotated method and on the
+	 * {@linkplain org.springframework.cache.interceptor.CacheAspectSupport#setRefreshExecutor
+	 * refresh executor} of the cache aspect, while callers keep receiving the
+	 * stale value until the reloaded value has been stored. The refresh executor
+	 * needs to be set explicitly; the reloading invocation does not see any
+	 * thread-bound state of the triggering caller, such as its transaction or
+	 * its security context.
+	 * <p>Typically set to a period shorter than the expiration period of the
+	 * cache, so that frequently accessed entries never expire. Only effective
+	 * for cache providers exposing the write time of their entries through a
+	 * {@link org.springframework.cache.support.TimestampedValueWrapper}.
+	 * <p>Default is -1, not refreshing cached values ahead of their expiration.
+	 * @since 5.0.16
+	 */
+	long refreshAfterWrite() default -1;
+
+	/**
+	 * Cache each element of a collection argument individually, for methods
+	 * such as {@code Map<Long, Item> findByIds(Collection<Long> ids)}.
+	 * <p>The elements of the first {@link java.util.Collection} parameter are
+	 * looked up in bulk via {@link org.springframework.cache.Cache#getAll}, the
+	 * cache key of each element being generated by the {@link #keyGenerator()}
+	 * as if the element was the sole method argument. The method is only invoked
+	 * for the elements not found in the cache, with a collection of the missing
+	 * elements as argument, and needs to return a {@link java.util.Map} from element
+	 * to value: those entries are stored via {@link org.springframework.cache.Cache#putAll}
+	 * and merged with the cached values in the iteration order of the original argument.
+	 * This leads to a couple of limitations:
+	 * <ol>
+	 * <li>{@link #key()} and {@link #unless()} are not supported</li>
+	 * <li>Only one cache may be specified</li>
+	 * <li>No other cache-related operation can be combined</li>
+	 * <li>The collection parameter needs to be declared as {@link java.util.Collection},
+	 * {@link java.util.List} or {@link java.util.Set}</li>
+	 * </ol>
+	 * <p>Note that the missing elements can only be passed to the method if the
+	 * invocation can proceed with different arguments, as is the case with Spring
+	 * AOP proxies; otherwise the method receives the original collection.
+	 * @since 5.0.16
+	 */
+	boolean multiKey() default false;
+
 }
@@ -0,0 +1,803 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.CacheStatistics;
+import org.springframework.cache.support.TimestampedValueWrapper;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation based on the core JDK
+ * {@code java.util.concurrent} package, bounded by a maximum number of entries
+ * or a maximum total weight and/or expiring entries after write/access.
+ *
+ * <p>Entries are kept in lock-striped segments, each of them applying its share
+ * of the overall size bound. A cache bounded by weight uses a single segment,
+ * so that any entry up to the maximum weight can be cached. The default {@link EvictionPolicy#WINDOW_TINY_LFU} policy
+ * admits new entries through a small LRU window and then lets them compete with
+ * the least recently used entry of the main space, based on a compact frequency
+ * sketch of recent accesses: this retains frequently used entries in the face of
+ * scans over rarely used keys. {@link EvictionPolicy#LRU} simply evicts the least
+ * recently used entry.
+ *
+ * <p>Expired entries are removed lazily on access and while trimming the segment
+ * on write; {@link #cleanUp()} removes all of them proactively.
+ * Hit, miss, put and eviction counts are available via {@link #getStatistics()}.
+ * Lookups expose the write time of each entry through a {@link TimestampedValueWrapper},
+ * enabling refresh-ahead for cacheable operations with a refresh-after-write period.
+ *
+ * <p>Instances are created through {@link #builder(String)}, or implicitly by a
+ * {@link ConcurrentMapCacheManager} with a size or weight limit.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ * @see ConcurrentMapCacheManager#setMaximumWeight
+ */
+public class BoundedConcurrentMapCache extends AbstractValueAdaptingCache {
+
+	private static final int MIN_SEGMENT_CAPACITY = 32;
+
+	private static final int MAX_SEGMENTS = 16;
+
+
+	private final String name;
+
+	private final Segment[] segments;
+
+	private final int segmentMask;
+
+	@Nullable
+	private final Weigher weigher;
+
+	private final long expireAfterWriteMillis;
+
+	private final long expireAfterAccessMillis;
+
+	private final Clock clock;
+
+	private final ConcurrentMap<Object, Load> loadingValues = new ConcurrentHashMap<>(16);
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder putCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name,
+	 * holding up to the given number of entries.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedConcurrentMapCache(String name, long maximumSize) {
+		this(builder(name).maximumSize(maximumSize));
+	}
+
+	private BoundedConcurrentMapCache(Builder builder) {
+		super(builder.allowNullValues);
+		Assert.state(builder.maximumSize <= 0 || builder.maximumWeight <= 0,
+				"Specify either maximumSize or maximumWeight, not both");
+		Assert.state(builder.maximumWeight <= 0 || builder.weigher != null,
+				"A Weigher is required for maximumWeight");
+		this.name = builder.name;
+		this.weigher = (builder.maximumWeight > 0 ? builder.weigher : null);
+		this.expireAfterWriteMillis = (builder.expireAfterWrite != null ? builder.expireAfterWrite.toMillis() : 0);
+		this.expireAfterAccessMillis = (builder.expireAfterAccess != null ? builder.expireAfterAccess.toMillis() : 0);
+		this.clock = builder.clock;
+
+		boolean bounded = (builder.maximumSize > 0 || builder.maximumWeight > 0);
+		long maximum = (builder.maximumSize > 0 ? builder.maximumSize :
+				(builder.maximumWeight > 0 ? builder.maximumWeight : Long.MAX_VALUE));
+		EvictionPolicy evictionPolicy = (bounded ? builder.evictionPolicy : EvictionPolicy.LRU);
+		int segmentCount = 1;
+		while (builder.maximumWeight <= 0 && segmentCount < MAX_SEGMENTS &&
+				maximum / (segmentCount * 2) >= MIN_SEGMENT_CAPACITY) {
+			segmentCount *= 2;
+		}
+		this.segments = new Segment[segmentCount];
+		this.segmentMask = segmentCount - 1;
+		for (int i = 0; i < segmentCount; i++) {
+			long segmentMaximum = maximum / segmentCount + (i < maximum % segmentCount ? 1 : 0);
+			this.segments[i] = new Segment(segmentMaximum, evictionPolicy,
+					(builder.maximumSize > 0 ? segmentMaximum : Math.min(segmentMaximum, 1 << 16)));
+		}
+	}
+
+
+	@Override
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself, since there is no
+	 * separate native store to expose.
+	 */
+	@Override
+	public final Object getNativeCache() {
+		return this;
+	}
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		Node node = lookupNode(key, currentTime());
+		return (node != null ? node.value : null);
+	}
+
+	/**
+	 * This implementation returns a {@link TimestampedValueWrapper},
+	 * exposing the time at which the entry has been written.
+	 */
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		long now = currentTime();
+		Node node = lookupNode(key, now);
+		return (node != null ? new TimestampedValueWrapper(fromStoreValue(node.value), node.writeTime, now) : null);
+	}
+
+	@Nullable
+	private Node lookupNode(Object key, long now) {
+		Node node = segmentFor(key).get(key, now, true);
+		if (node != null) {
+			this.hitCount.increment();
+		}
+		else {
+			this.missCount.increment();
+		}
+		return node;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+
+		// Let a single caller load the value, with concurrent callers waiting for it.
+		Load future = new Load();
+		Load existingFuture = this.loadingValues.putIfAbsent(key, future);
+		if (existingFuture != null) {
+			if (existingFuture.owner == Thread.currentThread()) {
+				throw new IllegalStateException("Recursive load of cache key '" + key + "' in the same thread");
+			}
+			try {
+				return (T) fromStoreValue(existingFuture.join());
+			}
+			catch (CompletionException ex) {
+				throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+			}
+		}
+		try {
+			Node node = segmentFor(key).get(key, currentTime(), false);
+			storeValue = (node != null ? node.value : null);
+			if (storeValue == null) {
+				Object value = valueLoader.call();
+				storeValue = toStoreValue(value);
+				doPut(key, value, storeValue, false);
+			}
+			future.complete(storeValue);
+			return (T) fromStoreValue(storeValue);
+		}
+		catch (Throwable ex) {
+			future.completeExceptionally(ex);
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		finally {
+			this.loadingValues.remove(key, future);
+		}
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		doPut(key, value, toStoreValue(value), false);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		return toValueWrapper(doPut(key, value, toStoreValue(value), true));
+	}
+
+	@Nullable
+	private Object doPut(Object key, @Nullable Object value, Object storeValue, boolean onlyIfAbsent) {
+		int weight = (this.weigher != null ? this.weigher.weigh(key, value) : 1);
+		Assert.state(weight >= 0, "Weigher must not return a negative weight");
+		Object existing = segmentFor(key).put(key, storeValue, weight, currentTime(), onlyIfAbsent);
+		if (!onlyIfAbsent || existing == null) {
+			this.putCount.increment();
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		segmentFor(key).remove(key);
+	}
+
+	@Override
+	public void clear() {
+		for (Segment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Remove all expired entries right away, rather than lazily on access.
+	 */
+	public void cleanUp() {
+		long now = currentTime();
+		for (Segment segment : this.segments) {
+			segment.removeExpired(now);
+		}
+	}
+
+	/**
+	 * Return the current number of entries in this cache.
+	 * <p>Note that this may include expired entries which have not been
+	 * cleaned up yet; call {@link #cleanUp()} before for an exact count.
+	 */
+	public long size() {
+		long size = 0;
+		for (Segment segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Return the current total weight of all entries in this cache,
+	 * i.e. the number of entries if no {@link Weigher} has been specified.
+	 */
+	public long weightedSize() {
+		long weight = 0;
+		for (Segment segment : this.segments) {
+			weight += segment.weight();
+		}
+		return weight;
+	}
+
+	/**
+	 * Return a snapshot of the usage statistics of this cache.
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(this.hitCount.sum(), this.missCount.sum(),
+				this.putCount.sum(), this.evictionCount.sum());
+	}
+
+
+	private Segment segmentFor(Object key) {
+		return this.segments[spread(key.hashCode()) & this.segmentMask];
+	}
+
+	private long currentTime() {
+		return this.clock.millis();
+	}
+
+	private boolean isExpired(Node node, long now) {
+		return ((this.expireAfterWriteMillis > 0 && now - node.writeTime >= this.expireAfterWriteMillis) ||
+				(this.expireAfterAccessMillis > 0 && now - node.accessTime >= this.expireAfterAccessMillis));
+	}
+
+	private static int spread(int hashCode) {
+		int h = hashCode * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+
+	/**
+	 * Create a new builder for a {@link BoundedConcurrentMapCache} with the given name.
+	 * @param name the name of the cache
+	 */
+	public static Builder builder(String name) {
+		return new Builder(name);
+	}
+
+
+	/**
+	 * Eviction policies for a {@link BoundedConcurrentMapCache}.
+	 */
+	public enum EvictionPolicy {
+
+		/**
+		 * Evict the least recently used entry.
+		 */
+		LRU,
+
+		/**
+		 * Admit new entries through a small LRU window, then retain either the
+		 * candidate or the least recently used entry of the main space, depending
+		 * on which of them has been accessed more frequently (the default).
+		 */
+		WINDOW_TINY_LFU
+	}
+
+
+	/**
+	 * Strategy for determining the weight of cache entries,
+	 * to be applied against a {@link Builder#maximumWeight maximum weight}.
+	 */
+	@FunctionalInterface
+	public interface Weigher {
+
+		/**
+		 * Return the weight of the given entry.
+		 * @param key the key of the entry
+		 * @param value the user value of the entry (may be {@code null})
+		 * @return the (non-negative) weight of the entry
+		 */
+		int weigh(Object key, @Nullable Object value);
+	}
+
+
+	/**
+	 * Builder for {@link BoundedConcurrentMapCache} instances.
+	 */
+	public static final class Builder {
+
+		private final String name;
+
+		private long maximumSize;
+
+		private long maximumWeight;
+
+		@Nullable
+		private Weigher weigher;
+
+		@Nullable
+		private Duration expireAfterWrite;
+
+		@Nullable
+		private Duration expireAfterAccess;
+
+		private EvictionPolicy evictionPolicy = EvictionPolicy.WINDOW_TINY_LFU;
+
+		private boolean allowNullValues = true;
+
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(String name) {
+			Assert.notNull(name, "Name must not be null");
+			this.name = name;
+		}
+
+		/**
+		 * Specify the maximum number of entries in the cache.
+		 */
+		public Builder maximumSize(long maximumSize) {
+			Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Specify the maximum total weight of all entries in the cache,
+		 * as determined by the given {@link Weigher}.
+		 */
+		public Builder maximumWeight(long maximumWeight, Weigher weigher) {
+			Assert.isTrue(maximumWeight > 0, "maximumWeight must be greater than 0");
+			Assert.notNull(weigher, "Weigher must not be null");
+			this.maximumWeight = maximumWeight;
+			this.weigher = weigher;
+			return this;
+		}
+
+		/**
+		 * Expire entries once the given duration has passed since they were written.
+		 */
+		public Builder expireAfterWrite(Duration expireAfterWrite) {
+			Assert.isTrue(!expireAfterWrite.isNegative() && !expireAfterWrite.isZero(),
+					"expireAfterWrite must be positive");
+			this.expireAfterWrite = expireAfterWrite;
+			return this;
+		}
+
+		/**
+		 * Expire entries once the given duration has passed since they were last read or written.
+		 */
+		public Builder expireAfterAccess(Duration expireAfterAccess) {
+			Assert.isTrue(!expireAfterAccess.isNegative() && !expireAfterAccess.isZero(),
+					"expireAfterAccess must be positive");
+			this.expireAfterAccess = expireAfterAccess;
+			return this;
+		}
+
+		/**
+		 * Specify the eviction policy to apply when the cache is full.
+		 * Default is {@link EvictionPolicy#WINDOW_TINY_LFU}.
+		 */
+		public Builder evictionPolicy(EvictionPolicy evictionPolicy) {
+			Assert.notNull(evictionPolicy, "EvictionPolicy must not be null");
+			this.evictionPolicy = evictionPolicy;
+			return this;
+		}
+
+		/**
+		 * Specify whether to accept and convert {@code null} values.
+		 * Default is "true".
+		 */
+		public Builder allowNullValues(boolean allowNullValues) {
+			this.allowNullValues = allowNullValues;
+			return this;
+		}
+
+		/**
+		 * Specify the clock to determine entry expiration against.
+		 * Default is the system clock.
+		 */
+		public Builder clock(Clock clock) {
+			Assert.notNull(clock, "Clock must not be null");
+			this.clock = clock;
+			return this;
+		}
+
+		/**
+		 * Build the {@link BoundedConcurrentMapCache} instance.
+		 * <p>Without a maximum size or weight, the cache is only bounded
+		 * by entry expiration.
+		 * @throws IllegalStateException if both maximum size and maximum
+		 * weight have been specified
+		 */
+		public BoundedConcurrentMapCache build() {
+			return new BoundedConcurrentMapCache(this);
+		}
+	}
+
+
+	/**
+	 * A load in progress, remembering the loading thread.
+	 */
+	private static final class Load extends CompletableFuture<Object> {
+
+		final Thread owner = Thread.currentThread();
+	}
+
+
+	/**
+	 * A cache entry, guarded by its segment's lock.
+	 */
+	private static final class Node {
+
+		final Object key;
+
+		final Object value;
+
+		final int weight;
+
+		final long writeTime;
+
+		long accessTime;
+
+		boolean inWindow;
+
+		Node(Object key, Object value, int weight, long now) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+	}
+
+
+	/**
+	 * A lock-protected part of the cache, holding its share of the overall bound.
+	 * With a Window TinyLFU policy, new entries go into the window space first
+	 * and compete for the main space when leaving the window.
+	 */
+	private final class Segment {
+
+		private final long maximum;
+
+		private final long windowMaximum;
+
+		private final LinkedHashMap<Object, Node> window;
+
+		private final LinkedHashMap<Object, Node> main;
+
+		@Nullable
+		private final FrequencySketch sketch;
+
+		private long windowWeight;
+
+		private long mainWeight;
+
+		Segment(long maximum, EvictionPolicy evictionPolicy, long expectedEntries) {
+			this.maximum = maximum;
+			this.window = new LinkedHashMap<>(16, 0.75f, true);
+			this.main = new LinkedHashMap<>(16, 0.75f, true);
+			if (evictionPolicy == EvictionPolicy.WINDOW_TINY_LFU) {
+				this.windowMaximum = Math.max(1, maximum / 100);
+				this.sketch = new FrequencySketch(expectedEntries);
+			}
+			else {
+				this.windowMaximum = 0;
+				this.sketch = null;
+			}
+		}
+
+		@Nullable
+		synchronized Node get(Object key, long now, boolean recordAccess) {
+			if (recordAccess && this.sketch != null) {
+				this.sketch.increment(key);
+			}
+			Node node = this.window.get(key);
+			if (node == null) {
+				node = this.main.get(key);
+			}
+			if (node == null) {
+				return null;
+			}
+			if (isExpired(node, now)) {
+				removeNode(node);
+				evictionCount.increment();
+				return null;
+			}
+			node.accessTime = now;
+			return node;
+		}
+
+		@Nullable
+		synchronized Object put(Object key, Object value, int weight, long now, boolean onlyIfAbsent) {
+			if (this.sketch != null) {
+				this.sketch.increment(key);
+			}
+			Node existing = this.window.get(key);
+			if (existing == null) {
+				existing = this.main.get(key);
+			}
+			if (existing != null) {
+				if (isExpired(existing, now)) {
+					removeNode(existing);
+					evictionCount.increment();
+					existing = null;
+				}
+				else if (onlyIfAbsent) {
+					existing.accessTime = now;
+					return existing.value;
+				}
+				else {
+					removeNode(existing);
+				}
+			}
+
+			Node node = new Node(key, value, weight, now);
+			if (weight > this.maximum) {
+				// Can never fit into the cache.
+				evictionCount.increment();
+			}
+			else if (this.sketch == null) {
+				this.main.put(key, node);
+				this.mainWeight += weight;
+				evictExpired(now);
+				while (this.mainWeight > this.maximum) {
+					evictNode(eldest(this.main));
+				}
+			}
+			else {
+				node.inWindow = true;
+				this.window.put(key, node);
+				this.windowWeight += weight;
+				evictExpired(now);
+				while (this.windowWeight > this.windowMaximum) {
+					Node candidate = eldest(this.window);
+					this.window.remove(candidate.key);
+					this.windowWeight -= candidate.weight;
+					candidate.inWindow = false;
+					admit(candidate);
+				}
+			}
+			return (existing != null ? existing.value : null);
+		}
+
+		/**
+		 * Let the given candidate from the window compete with the least recently
+		 * used entries of the main space, as long as there is no room for it.
+		 */
+		private void admit(Node candidate) {
+			FrequencySketch sketch = this.sketch;
+			Assert.state(sketch != null, "No FrequencySketch");
+			while (this.windowWeight + this.mainWeight + candidate.weight > this.maximum) {
+				Node victim = (!this.main.isEmpty() ? eldest(this.main) : null);
+				if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+					evictionCount.increment();
+					return;
+				}
+				evictNode(victim);
+			}
+			this.main.put(candidate.key, candidate);
+			this.mainWeight += candidate.weight;
+		}
+
+		synchronized void remove(Object key) {
+			Node node = this.window.get(key);
+			if (node == null) {
+				node = this.main.get(key);
+			}
+			if (node != null) {
+				removeNode(node);
+			}
+		}
+
+		synchronized void clear() {
+			this.window.clear();
+			this.main.clear();
+			this.windowWeight = 0;
+			this.mainWeight = 0;
+		}
+
+		synchronized void removeExpired(long now) {
+			removeExpired(this.window.values().iterator(), now);
+			removeExpired(this.main.values().iterator(), now);
+		}
+
+		private void removeExpired(Iterator<Node> it, long now) {
+			while (it.hasNext()) {
+				Node node = it.next();
+				if (isExpired(node, now)) {
+					it.remove();
+					reduceWeight(node);
+					evictionCount.increment();
+				}
+			}
+		}
+
+		/**
+		 * Trim expired entries from the least recently used end of each space.
+		 */
+		private void evictExpired(long now) {
+			if (expireAfterWriteMillis > 0 || expireAfterAccessMillis > 0) {
+				evictExpired(this.window, now);
+				evictExpired(this.main, now);
+			}
+		}
+
+		private void evictExpired(LinkedHashMap<Object, Node> map, long now) {
+			Iterator<Node> it = map.values().iterator();
+			while (it.hasNext()) {
+				Node node = it.next();
+				if (!isExpired(node, now)) {
+					return;
+				}
+				it.remove();
+				reduceWeight(node);
+				evictionCount.increment();
+			}
+		}
+
+		synchronized long size() {
+			return this.window.size() + this.main.size();
+		}
+
+		synchronized long weight() {
+			return this.windowWeight + this.mainWeight;
+		}
+
+		private Node eldest(LinkedHashMap<Object, Node> map) {
+			return map.values().iterator().next();
+		}
+
+		private void evictNode(Node node) {
+			removeNode(node);
+			evictionCount.increment();
+		}
+
+		private void removeNode(Node node) {
+			(node.inWindow ? this.window : this.main).remove(node.key);
+			reduceWeight(node);
+		}
+
+		private void reduceWeight(Node node) {
+			if (node.inWindow) {
+				this.windowWeight -= node.weight;
+			}
+			else {
+				this.mainWeight -= node.weight;
+			}
+		}
+	}
+
+
+	/**
+	 * A count-min sketch of 4-bit access counters, four per key, estimating the
+	 * access frequency of keys within a sample period. All counters are halved
+	 * at the end of each period, so that the sketch keeps adapting to recent
+	 * access patterns. Guarded by the lock of the owning segment.
+	 */
+	private static final class FrequencySketch {
+
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private static final int[] SEEDS = {0x97CB3127, 0xB0B57D2B, 0x8BD6F1A1, 0xD26C4A5F};
+
+		private final long[] table;
+
+		private final int tableMask;
+
+		private final long sampleSize;
+
+		private long additions;
+
+		FrequencySketch(long expectedEntries) {
+			int length = 1;
+			while (length < expectedEntries && length < (1 << 20)) {
+				length <<= 1;
+			}
+			this.table = new long[length];
+			this.tableMask = length - 1;
+			this.sampleSize = 10L * Math.max(expectedEntries, 16);
+		}
+
+		int frequency(Object key) {
+			int hash = spread(key.hashCode());
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				int h = rehash(hash, i);
+				int count = (int) ((this.table[(h >>> 4) & this.tableMask] >>> ((h & 15) << 2)) & 15L);
+				frequency = Math.min(frequency, count);
+			}
+			return frequency;
+		}
+
+		void increment(Object key) {
+			int hash = spread(key.hashCode());
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				int h = rehash(hash, i);
+				int index = (h >>> 4) & this.tableMask;
+				int offset = (h & 15) << 2;
+				if (((this.table[index] >>> offset) & 15L) != 15L) {
+					this.table[index] += (1L << offset);
+					added = true;
+				}
+			}
+			if (added && ++this.additions >= this.sampleSize) {
+				for (int i = 0; i < this.table.length; i++) {
+					this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+				}
+				this.additions /= 2;
+			}
+		}
+
+		private static int rehash(int hash, int i) {
+			int h = (hash + SEEDS[i]) * SEEDS[i];
+			return h ^ (h >>> 17);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,7 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,9 +37,14 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
- * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
+ * <p>By default, caches are unbounded. As of 5.0.16, a {@link #setMaximumSize
+ * maximum size} or {@link #setMaximumWeight maximum weight} as well as
+ * {@link #setExpireAfterWrite expiration} can be configured, with this manager
+ * creating {@link BoundedConcurrentMapCache} instances then.
+ *
+ * <p>Note: This is by no means a sophisticated CacheManager; it comes with just
+ * basic cache configuration options. However, it may be useful for testing or
+ * simple caching scenarios. For advanced local caching needs, consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager},
  * {@link org.springframework.cache.ehcache.EhCacheCacheManager},
  * {@link org.springframework.cache.caffeine.CaffeineCacheManager}.
@@ -45,6 +52,7 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.1
  * @see ConcurrentMapCache
+ * @see BoundedConcurrentMapCache
  */
 public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderAware {
 
@@ -59,6 +67,22 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	@Nullable
 	private SerializationDelegate serialization;
 
+	private long maximumSize;
+
+	private long maximumWeight;
+
+	@Nullable
+	private BoundedConcurrentMapCache.Weigher weigher;
+
+	@Nullable
+	private Duration expireAfterWrite;
+
+	@Nullable
+	private Duration expireAfterAccess;
+
+	private BoundedConcurrentMapCache.EvictionPolicy evictionPolicy =
+			BoundedConcurrentMapCache.EvictionPolicy.WINDOW_TINY_LFU;
+
 
 	/**
 	 * Construct a dynamic ConcurrentMapCacheManager,
@@ -146,6 +170,86 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries for each cache in this cache manager.
+	 * <p>Default is none, i.e. unbounded caches. A positive value leads to the
+	 * creation of {@link BoundedConcurrentMapCache} instances.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new limit.
+	 * @since 5.0.16
+	 */
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the maximum total weight of the entries of each cache in this
+	 * cache manager, as determined by the given {@link BoundedConcurrentMapCache.Weigher}.
+	 * <p>Default is none, i.e. unbounded caches. A positive value leads to the
+	 * creation of {@link BoundedConcurrentMapCache} instances.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new limit.
+	 * @since 5.0.16
+	 */
+	public void setMaximumWeight(long maximumWeight, BoundedConcurrentMapCache.Weigher weigher) {
+		Assert.notNull(weigher, "Weigher must not be null");
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify a duration after which entries expire once written,
+	 * for each cache in this cache manager.
+	 * <p>Default is none. Setting a duration leads to the creation of
+	 * {@link BoundedConcurrentMapCache} instances.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration.
+	 * @since 5.0.16
+	 */
+	public void setExpireAfterWrite(@Nullable Duration expireAfterWrite) {
+		this.expireAfterWrite = expireAfterWrite;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify a duration after which entries expire once last read or written,
+	 * for each cache in this cache manager.
+	 * <p>Default is none. Setting a duration leads to the creation of
+	 * {@link BoundedConcurrentMapCache} instances.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration.
+	 * @since 5.0.16
+	 */
+	public void setExpireAfterAccess(@Nullable Duration expireAfterAccess) {
+		this.expireAfterAccess = expireAfterAccess;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the eviction policy for bounded caches in this cache manager.
+	 * <p>Default is {@link BoundedConcurrentMapCache.EvictionPolicy#WINDOW_TINY_LFU}.
+	 * @since 5.0.16
+	 * @see #setMaximumSize
+	 * @see #setMaximumWeight
+	 */
+	public void setEvictionPolicy(BoundedConcurrentMapCache.EvictionPolicy evictionPolicy) {
+		Assert.notNull(evictionPolicy, "EvictionPolicy must not be null");
+		this.evictionPolicy = evictionPolicy;
+		recreateCaches();
+	}
+
+	/**
+	 * Return whether this cache manager creates {@link BoundedConcurrentMapCache}
+	 * instances, due to a size or weight limit or an expiration setting.
+	 * @since 5.0.16
+	 */
+	public boolean isBounded() {
+		return (this.maximumSize > 0 || this.maximumWeight > 0 ||
+				this.expireAfterWrite != null || this.expireAfterAccess != null);
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -189,10 +293,32 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 * @return the ConcurrentMapCache (or a decorator thereof)
 	 */
 	protected Cache createConcurrentMapCache(String name) {
+		if (isBounded()) {
+			return createBoundedConcurrentMapCache(name);
+		}
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
 		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256),
 				isAllowNullValues(), actualSerialization);
 
 	}
 
+	private Cache createBoundedConcurrentMapCache(String name) {
+		Assert.state(!isStoreByValue(), "Store-by-value is not supported for bounded caches");
+		BoundedConcurrentMapCache.Builder builder = BoundedConcurrentMapCache.builder(name)
+				.allowNullValues(isAllowNullValues()).evictionPolicy(this.evictionPolicy);
+		if (this.maximumSize > 0) {
+			builder.maximumSize(this.maximumSize);
+		}
+		if (this.maximumWeight > 0 && this.weigher != null) {
+			builder.maximumWeight(this.maximumWeight, this.weigher);
+		}
+		if (this.expireAfterWrite != null) {
+			builder.expireAfterWrite(this.expireAfterWrite);
+		}
+		if (this.expireAfterAccess != null) {
+			builder.expireAfterAccess(this.expireAfterAccess);
+		}
+		return builder.build();
+	}
+
 }
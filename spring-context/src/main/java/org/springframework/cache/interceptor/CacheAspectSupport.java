@@ -21,16 +21,23 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.autoproxy.AutoProxyUtils;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
@@ -39,10 +46,15 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.cache.support.TimestampedValueWrapper;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.MethodClassKey;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -51,6 +63,7 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -84,8 +97,17 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
+	private final Map<MethodClassKey, CacheOperationPlan> planCache = new ConcurrentHashMap<>(1024);
+
 	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
 
+	/**
+	 * Whether {@link #getCaches} is not overridden, i.e. whether resolved
+	 * caches may be reused without calling it for every invocation.
+	 */
+	private final boolean defaultCacheResolution = (ReflectionUtils.findMethod(getClass(), "getCaches",
+			CacheOperationInvocationContext.class, CacheResolver.class).getDeclaringClass() == CacheAspectSupport.class);
+
 	@Nullable
 	private CacheOperationSource cacheOperationSource;
 
@@ -94,6 +116,14 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private CacheResolver cacheResolver;
 
+	@Nullable
+	private CoalescingCacheLoader coalescingCacheLoader;
+
+	@Nullable
+	private Executor refreshExecutor;
+
+	private final Set<Object> refreshesInProgress = ConcurrentHashMap.newKeySet();
+
 	@Nullable
 	private BeanFactory beanFactory;
 
@@ -165,6 +195,60 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = new SimpleCacheResolver(cacheManager);
 	}
 
+	/**
+	 * Set a {@link CoalescingCacheLoader} to use for {@code @Cacheable(sync=true)},
+	 * making sure that there is only one concurrent invocation per cache key
+	 * without relying on the synchronization semantics of the cache provider.
+	 * <p>The default is none, delegating to {@link Cache#get(Object, Callable)}
+	 * and therefore to the provider's own synchronization. Specify a loader for
+	 * providers without adequate support there, or in order to bound waiting
+	 * callers through a {@link CoalescingCacheLoader#setWaitTimeout wait timeout}.
+	 * Note that a loader stores loaded values via {@link Cache#put}, bypassing
+	 * any loading-specific semantics of the provider.
+	 * @since 5.0.16
+	 * @see CoalescingCacheLoader#setWaitTimeout
+	 */
+	public void setCoalescingCacheLoader(@Nullable CoalescingCacheLoader coalescingCacheLoader) {
+		this.coalescingCacheLoader = coalescingCacheLoader;
+	}
+
+	/**
+	 * Return the {@link CoalescingCacheLoader} to use for {@code @Cacheable(sync=true)},
+	 * if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public CoalescingCacheLoader getCoalescingCacheLoader() {
+		return this.coalescingCacheLoader;
+	}
+
+	/**
+	 * Set the {@link Executor} to use for reloading cached values ahead of their
+	 * expiration, for cacheable operations with a refresh-after-write period.
+	 * <p>There is no default: an executor is required as soon as such an operation
+	 * is declared on a bean in the containing bean factory, which is checked once
+	 * all singletons have been instantiated. Use a bounded thread pool sized for
+	 * the expected number of concurrent refreshes. A refresh which the executor rejects is skipped,
+	 * leaving the stale value in place.
+	 * <p>Note that refreshes run without the thread-bound state of the caller
+	 * that triggered them, e.g. its transaction or its security context.
+	 * @since 5.0.16
+	 * @see CacheableOperation#getRefreshAfterWrite()
+	 */
+	public void setRefreshExecutor(@Nullable Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} to use for reloading cached values ahead of
+	 * their expiration, if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public Executor getRefreshExecutor() {
+		return this.refreshExecutor;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -199,9 +283,51 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 						"Register a CacheManager bean or remove the @EnableCaching annotation from your configuration.");
 			}
 		}
+		if (this.refreshExecutor == null && this.beanFactory instanceof ConfigurableListableBeanFactory) {
+			validateRefreshAfterWriteOperations((ConfigurableListableBeanFactory) this.beanFactory);
+		}
 		this.initialized = true;
 	}
 
+	/**
+	 * Check that none of the beans in the given bean factory declares a cacheable
+	 * operation with a refresh-after-write period, since no refresh executor is set.
+	 * @throws IllegalStateException if such an operation is found
+	 */
+	private void validateRefreshAfterWriteOperations(ConfigurableListableBeanFactory beanFactory) {
+		CacheOperationSource cacheOperationSource = getCacheOperationSource();
+		if (cacheOperationSource == null) {
+			return;
+		}
+		for (String beanName : beanFactory.getBeanNamesForType(Object.class, true, false)) {
+			Class<?> targetClass = null;
+			try {
+				targetClass = AutoProxyUtils.determineTargetClass(beanFactory, beanName);
+			}
+			catch (Throwable ex) {
+				// An unresolvable bean type, probably from a lazy bean - let's ignore it.
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not resolve target class for bean with name '" + beanName + "'", ex);
+				}
+			}
+			if (targetClass != null) {
+				Class<?> userClass = ClassUtils.getUserClass(targetClass);
+				ReflectionUtils.doWithMethods(userClass, method -> {
+					Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, userClass);
+					if (operations != null) {
+						for (CacheOperation operation : operations) {
+							if (operation instanceof CacheableOperation &&
+									((CacheableOperation) operation).getRefreshAfterWrite() > 0) {
+								throw new IllegalStateException("No refresh executor set on cache aspect for " +
+										"refresh-after-write on '" + operation + "' in bean '" + beanName + "'");
+							}
+						}
+					}
+				}, ReflectionUtils.USER_DECLARED_METHODS);
+			}
+		}
+	}
+
 
 	/**
 	 * Convenience method to return a String representation of this Method
@@ -277,6 +403,31 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return metadata;
 	}
 
+	/**
+	 * Return the {@link CacheOperationPlan} for the given operations on the specified
+	 * method, reusing the plan from a previous invocation for the same operations.
+	 */
+	private CacheOperationPlan getCacheOperationPlan(
+			Collection<CacheOperation> operations, Method method, Class<?> targetClass) {
+
+		MethodClassKey planKey = new MethodClassKey(method, targetClass);
+		CacheOperationPlan plan = this.planCache.get(planKey);
+		if (plan == null || !plan.isFor(operations)) {
+			List<CacheOperationMetadata> metadata = new ArrayList<>(operations.size());
+			for (CacheOperation operation : operations) {
+				if (operation instanceof CacheableOperation &&
+						((CacheableOperation) operation).getRefreshAfterWrite() > 0 && this.refreshExecutor == null) {
+					throw new IllegalStateException("No refresh executor set on cache aspect for " +
+							"refresh-after-write on '" + operation + "'");
+				}
+				metadata.add(getCacheOperationMetadata(operation, method, targetClass));
+			}
+			plan = new CacheOperationPlan(operations, metadata);
+			this.planCache.put(planKey, plan);
+		}
+		return plan;
+	}
+
 	/**
 	 * Return a bean with the specified name and type. Used to resolve services that
 	 * are referenced by name in a {@link CacheOperation}.
@@ -301,6 +452,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	 */
 	protected void clearMetadataCache() {
 		this.metadataCache.clear();
+		this.planCache.clear();
 		this.evaluator.clear();
 	}
 
@@ -313,8 +465,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (cacheOperationSource != null) {
 				Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
 				if (!CollectionUtils.isEmpty(operations)) {
-					return execute(invoker, method,
-							new CacheOperationContexts(operations, method, args, target, targetClass));
+					CacheOperationPlan plan = getCacheOperationPlan(operations, method, targetClass);
+					return execute(invoker, method, new CacheOperationContexts(plan, method, args, target));
 				}
 			}
 		}
@@ -348,13 +500,29 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
+				if (((CacheableOperation) context.metadata.operation).getRefreshAfterWrite() > 0) {
+					Cache.ValueWrapper cacheHit = cache.get(key);
+					if (cacheHit != null) {
+						if (isRefreshRequired(context, cacheHit)) {
+							refreshAsync(invoker, Collections.singletonList(new CachePutRequest(context, key)));
+						}
+						return wrapCacheValue(method, cacheHit.get());
+					}
+				}
+				Callable<Object> valueLoader = () -> unwrapReturnValue(invokeOperation(invoker));
+				CoalescingCacheLoader loader = this.coalescingCacheLoader;
 				try {
-					return wrapCacheValue(method, cache.get(key, () -> unwrapReturnValue(invokeOperation(invoker))));
+					return wrapCacheValue(method,
+							(loader != null ? loader.get(cache, key, valueLoader) : cache.get(key, valueLoader)));
 				}
 				catch (Cache.ValueRetrievalException ex) {
 					// The invoker wraps any Throwable in a ThrowableWrapper instance so we
 					// can just make sure that one bubbles up the stack.
-					throw (CacheOperationInvoker.ThrowableWrapper) ex.getCause();
+					if (ex.getCause() instanceof CacheOperationInvoker.ThrowableWrapper) {
+						throw (CacheOperationInvoker.ThrowableWrapper) ex.getCause();
+					}
+					// Otherwise a failure to wait for a concurrent load, e.g. a timeout
+					throw ex;
 				}
 			}
 			else {
@@ -364,12 +532,25 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 
+		// Special handling of multi-key invocation
+		if (contexts.isMultiKey()) {
+			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
+			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+				return executeMultiKey(invoker, context);
+			}
+			else {
+				// No caching required, only call the underlying method
+				return invokeOperation(invoker);
+			}
+		}
+
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
 				CacheOperationExpressionEvaluator.NO_RESULT);
 
 		// Check if we have a cached item matching the conditions
-		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
+		List<CachePutRequest> refreshRequests = new LinkedList<>();
+		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class), refreshRequests);
 
 		// Collect puts from any @Cacheable miss, if no cached item is found
 		List<CachePutRequest> cachePutRequests = new LinkedList<>();
@@ -385,6 +566,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			// If there are no put requests, just use the cache hit
 			cacheValue = cacheHit.get();
 			returnValue = wrapCacheValue(method, cacheValue);
+			// Reload a stale cache hit in the background, if requested
+			if (!refreshRequests.isEmpty()) {
+				refreshAsync(invoker, refreshRequests);
+			}
 		}
 		else {
 			// Invoke the method if we don't have a cache hit
@@ -406,6 +591,105 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return returnValue;
 	}
 
+	/**
+	 * Look up each element of the collection argument in the cache, invoke the
+	 * underlying method for the missing elements only, and merge the results.
+	 * <p>The cache key of each element is generated by the operation's
+	 * {@link KeyGenerator}, as if the element was the sole method argument.
+	 */
+	@SuppressWarnings("unchecked")
+	private Object executeMultiKey(CacheOperationInvoker invoker, CacheOperationContext context) {
+		Object[] args = context.args;
+		int index = getMultiKeyArgumentIndex(context.metadata.method);
+		Collection<Object> keys = (Collection<Object>) args[index];
+		if (keys == null) {
+			return invokeOperation(invoker);
+		}
+
+		// Distinct elements in iteration order, along with their cache keys
+		Map<Object, Object> cacheKeys = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			if (!cacheKeys.containsKey(key)) {
+				cacheKeys.put(key, generateElementKey(context, key));
+			}
+		}
+
+		Cache cache = context.getCaches().iterator().next();
+		Map<Object, Cache.ValueWrapper> cacheHits = doGetAll(cache, cacheKeys.values());
+		Map<?, ?> loadedValues = Collections.emptyMap();
+		Collection<Object> missingKeys = keys;
+		if (!cacheHits.isEmpty() || cacheKeys.size() < keys.size()) {
+			Class<?> parameterType = context.metadata.method.getParameterTypes()[index];
+			missingKeys = CollectionFactory.createCollection(parameterType, cacheKeys.size() - cacheHits.size());
+			for (Map.Entry<Object, Object> entry : cacheKeys.entrySet()) {
+				if (!cacheHits.containsKey(entry.getValue())) {
+					missingKeys.add(entry.getKey());
+				}
+			}
+		}
+		if (!missingKeys.isEmpty()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("No cache entries for keys " + missingKeys + " in cache " + cache.getName());
+			}
+			// Invoke the method with the missing keys only, leaving the original arguments untouched
+			Object returnValue;
+			if (missingKeys != keys) {
+				Object[] missingKeysArgs = args.clone();
+				missingKeysArgs[index] = missingKeys;
+				returnValue = invokeOperation(() -> invoker.invoke(missingKeysArgs));
+			}
+			else {
+				returnValue = invokeOperation(invoker);
+			}
+			if (returnValue != null) {
+				loadedValues = (Map<?, ?>) returnValue;
+				Map<Object, Object> entries = new LinkedHashMap<>(loadedValues.size());
+				loadedValues.forEach((key, value) -> {
+					Object cacheKey = cacheKeys.get(key);
+					entries.put(cacheKey != null ? cacheKey : generateElementKey(context, key), value);
+				});
+				doPutAll(cache, entries);
+			}
+		}
+
+		Map<Object, Object> result = new LinkedHashMap<>(cacheKeys.size());
+		for (Map.Entry<Object, Object> entry : cacheKeys.entrySet()) {
+			Object key = entry.getKey();
+			Cache.ValueWrapper cacheHit = cacheHits.get(entry.getValue());
+			if (cacheHit != null) {
+				result.put(key, cacheHit.get());
+			}
+			else if (loadedValues.containsKey(key)) {
+				result.put(key, loadedValues.get(key));
+			}
+		}
+		return result;
+	}
+
+	private Object generateElementKey(CacheOperationContext context, @Nullable Object element) {
+		Object key = context.metadata.keyGenerator.generate(context.target, context.metadata.method, element);
+		if (key == null) {
+			throw new IllegalArgumentException("Null key returned for element " + element +
+					" of cache operation " + context.metadata.operation);
+		}
+		return key;
+	}
+
+	/**
+	 * Determine the index of the first {@link Collection} parameter of the given method,
+	 * serving as the source of cache keys for a multi-key operation.
+	 * @return the parameter index, or -1 if none found
+	 */
+	private static int getMultiKeyArgumentIndex(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	@Nullable
 	private Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
 		if (method.getReturnType() == Optional.class &&
@@ -478,17 +762,24 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	/**
 	 * Find a cached item only for {@link CacheableOperation} that passes the condition.
 	 * @param contexts the cacheable operations
+	 * @param refreshRequests the collection to add a refresh request to,
+	 * in case of a cached item which is due for refresh
 	 * @return a {@link Cache.ValueWrapper} holding the cached item,
 	 * or {@code null} if none is found
 	 */
 	@Nullable
-	private Cache.ValueWrapper findCachedItem(Collection<CacheOperationContext> contexts) {
+	private Cache.ValueWrapper findCachedItem(Collection<CacheOperationContext> contexts,
+			Collection<CachePutRequest> refreshRequests) {
+
 		Object result = CacheOperationExpressionEvaluator.NO_RESULT;
 		for (CacheOperationContext context : contexts) {
 			if (isConditionPassing(context, result)) {
 				Object key = generateKey(context, result);
 				Cache.ValueWrapper cached = findInCaches(context, key);
 				if (cached != null) {
+					if (isRefreshRequired(context, cached)) {
+						refreshRequests.add(new CachePutRequest(context, key));
+					}
 					return cached;
 				}
 				else {
@@ -519,6 +810,58 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 	}
 
+	private boolean isRefreshRequired(CacheOperationContext context, Cache.ValueWrapper cached) {
+		long refreshAfterWrite = ((CacheableOperation) context.metadata.operation).getRefreshAfterWrite();
+		return (refreshAfterWrite > 0 && cached instanceof TimestampedValueWrapper &&
+				((TimestampedValueWrapper) cached).getAge() >= refreshAfterWrite);
+	}
+
+	/**
+	 * Reload the value for the given put requests on the refresh executor,
+	 * unless a refresh for the same cache entries is in progress already.
+	 * Failures are logged, leaving the stale value in place.
+	 */
+	private void refreshAsync(CacheOperationInvoker invoker, List<CachePutRequest> refreshRequests) {
+		List<Object> refreshKeys = new ArrayList<>(refreshRequests.size());
+		for (CachePutRequest request : refreshRequests) {
+			Object refreshKey = new SimpleKey(request.context.getCaches(), request.key);
+			if (this.refreshesInProgress.add(refreshKey)) {
+				refreshKeys.add(refreshKey);
+			}
+		}
+		if (refreshKeys.isEmpty()) {
+			return;
+		}
+		Executor executor = this.refreshExecutor;
+		Assert.state(executor != null, "No refresh executor set");
+		try {
+			executor.execute(() -> {
+				try {
+					Object cacheValue = unwrapReturnValue(invokeOperation(invoker));
+					for (CachePutRequest request : refreshRequests) {
+						request.apply(cacheValue);
+					}
+				}
+				catch (Throwable ex) {
+					Throwable cause = (ex instanceof CacheOperationInvoker.ThrowableWrapper ?
+							((CacheOperationInvoker.ThrowableWrapper) ex).getOriginal() : ex);
+					if (logger.isWarnEnabled()) {
+						logger.warn("Failed to refresh cache entries " + refreshKeys + " - keeping stale values", cause);
+					}
+				}
+				finally {
+					this.refreshesInProgress.removeAll(refreshKeys);
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			this.refreshesInProgress.removeAll(refreshKeys);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Refresh of cache entries " + refreshKeys + " rejected by executor", ex);
+			}
+		}
+	}
+
 	@Nullable
 	private Cache.ValueWrapper findInCaches(CacheOperationContext context, Object key) {
 		for (Cache cache : context.getCaches()) {
@@ -561,14 +904,15 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final boolean sync;
 
-		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
-				Object[] args, Object target, Class<?> targetClass) {
+		private final boolean multiKey;
 
-			this.contexts = new LinkedMultiValueMap<>(operations.size());
-			for (CacheOperation op : operations) {
-				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
+		public CacheOperationContexts(CacheOperationPlan plan, Method method, Object[] args, Object target) {
+			this.contexts = new LinkedMultiValueMap<>(plan.metadata.size());
+			for (CacheOperationMetadata metadata : plan.metadata) {
+				this.contexts.add(metadata.operation.getClass(), new CacheOperationContext(metadata, args, target));
 			}
 			this.sync = determineSyncFlag(method);
+			this.multiKey = determineMultiKeyFlag(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -580,6 +924,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.sync;
 		}
 
+		public boolean isMultiKey() {
+			return this.multiKey;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -615,6 +963,52 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			return false;
 		}
+
+		private boolean determineMultiKeyFlag(Method method) {
+			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
+			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
+				return false;
+			}
+			boolean multiKeyEnabled = false;
+			for (CacheOperationContext cacheOperationContext : cacheOperationContexts) {
+				if (((CacheableOperation) cacheOperationContext.getOperation()).isMultiKey()) {
+					multiKeyEnabled = true;
+					break;
+				}
+			}
+			if (multiKeyEnabled) {
+				if (this.contexts.size() > 1 || cacheOperationContexts.size() > 1) {
+					throw new IllegalStateException(
+							"@Cacheable(multiKey=true) cannot be combined with other cache operations on '" + method + "'");
+				}
+				CacheOperationContext cacheOperationContext = cacheOperationContexts.iterator().next();
+				CacheableOperation operation = (CacheableOperation) cacheOperationContext.getOperation();
+				if (this.sync) {
+					throw new IllegalStateException(
+							"@Cacheable(multiKey=true) cannot be combined with sync=true on '" + operation + "'");
+				}
+				if (cacheOperationContext.getCaches().size() > 1) {
+					throw new IllegalStateException(
+							"@Cacheable(multiKey=true) only allows a single cache on '" + operation + "'");
+				}
+				if (StringUtils.hasText(operation.getKey()) || StringUtils.hasText(operation.getUnless())) {
+					throw new IllegalStateException(
+							"@Cacheable(multiKey=true) does not support key and unless attributes on '" + operation + "'");
+				}
+				int index = getMultiKeyArgumentIndex(method);
+				if (index < 0 || !method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+					throw new IllegalStateException("@Cacheable(multiKey=true) requires a Collection parameter " +
+							"and a Map return type on '" + method + "'");
+				}
+				Class<?> parameterType = method.getParameterTypes()[index];
+				if (parameterType != Collection.class && parameterType != List.class && parameterType != Set.class) {
+					throw new IllegalStateException("@Cacheable(multiKey=true) requires a parameter declared as " +
+							"Collection, List or Set on '" + method + "'");
+				}
+				return true;
+			}
+			return false;
+		}
 	}
 
 
@@ -638,6 +1032,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		private final boolean staticCaches;
+
+		@Nullable
+		private volatile Collection<? extends Cache> resolvedCaches;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
@@ -649,6 +1048,32 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			this.methodKey = new AnnotatedElementKey(this.targetMethod, targetClass);
 			this.keyGenerator = keyGenerator;
 			this.cacheResolver = cacheResolver;
+			this.staticCaches = isStaticCacheResolver(cacheResolver);
+		}
+
+		/**
+		 * Determine whether the given resolver resolves the statically declared
+		 * cache names of this operation against an {@link AbstractCacheManager},
+		 * making its caches candidates for reuse across invocations.
+		 */
+		private static boolean isStaticCacheResolver(CacheResolver cacheResolver) {
+			return (cacheResolver.getClass() == SimpleCacheResolver.class &&
+					((SimpleCacheResolver) cacheResolver).getCacheManager() instanceof AbstractCacheManager);
+		}
+
+		/**
+		 * Check whether the given previously resolved caches are still the ones
+		 * exposed by the cache manager, e.g. not replaced through a subsequent
+		 * {@link AbstractCacheManager#initializeCaches()} call.
+		 */
+		private boolean isCurrent(Collection<? extends Cache> caches) {
+			CacheManager cacheManager = ((SimpleCacheResolver) this.cacheResolver).getCacheManager();
+			for (Cache cache : caches) {
+				if (cacheManager.getCache(cache.getName()) != cache) {
+					return false;
+				}
+			}
+			return true;
 		}
 	}
 
@@ -666,14 +1091,14 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final Collection<? extends Cache> caches;
 
-		private final Collection<String> cacheNames;
+		@Nullable
+		private Collection<String> cacheNames;
 
 		public CacheOperationContext(CacheOperationMetadata metadata, Object[] args, Object target) {
 			this.metadata = metadata;
 			this.args = extractArgs(metadata.method, args);
 			this.target = target;
-			this.caches = CacheAspectSupport.this.getCaches(this, metadata.cacheResolver);
-			this.cacheNames = createCacheNames(this.caches);
+			this.caches = resolveCaches(metadata);
 		}
 
 		@Override
@@ -753,7 +1178,30 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 		protected Collection<String> getCacheNames() {
-			return this.cacheNames;
+			Collection<String> cacheNames = this.cacheNames;
+			if (cacheNames == null) {
+				cacheNames = createCacheNames(this.caches);
+				this.cacheNames = cacheNames;
+			}
+			return cacheNames;
+		}
+
+		/**
+		 * Resolve the caches for this invocation, reusing the caches resolved
+		 * before in case of a static cache resolver as long as the cache manager
+		 * still exposes the same cache instances.
+		 */
+		private Collection<? extends Cache> resolveCaches(CacheOperationMetadata metadata) {
+			if (!metadata.staticCaches || !defaultCacheResolution) {
+				return CacheAspectSupport.this.getCaches(this, metadata.cacheResolver);
+			}
+			Collection<? extends Cache> caches = metadata.resolvedCaches;
+			if (caches == null || !metadata.isCurrent(caches)) {
+				caches = Collections.unmodifiableCollection(
+						CacheAspectSupport.this.getCaches(this, metadata.cacheResolver));
+				metadata.resolvedCaches = (metadata.isCurrent(caches) ? caches : null);
+			}
+			return caches;
 		}
 
 		private Collection<String> createCacheNames(Collection<? extends Cache> caches) {
@@ -787,6 +1235,43 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
+	/**
+	 * Precomputed execution plan for the cache operations of a specific method:
+	 * holds the resolved metadata for each operation, in declaration order.
+	 */
+	private static final class CacheOperationPlan {
+
+		private final Collection<CacheOperation> operations;
+
+		private final List<CacheOperationMetadata> metadata;
+
+		public CacheOperationPlan(Collection<CacheOperation> operations, List<CacheOperationMetadata> metadata) {
+			this.operations = operations;
+			this.metadata = metadata;
+		}
+
+		/**
+		 * Check whether this plan has been built for the given operations,
+		 * comparing the operation instances by identity.
+		 */
+		public boolean isFor(Collection<CacheOperation> operations) {
+			if (this.operations == operations) {
+				return true;
+			}
+			if (this.operations.size() != operations.size()) {
+				return false;
+			}
+			Iterator<CacheOperation> it = this.operations.iterator();
+			for (CacheOperation operation : operations) {
+				if (it.next() != operation) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+
 	private static final class CacheOperationCacheKey implements Comparable<CacheOperationCacheKey> {
 
 		private final CacheOperation cacheOperation;
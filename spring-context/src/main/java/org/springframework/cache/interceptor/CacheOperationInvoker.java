@@ -38,6 +38,21 @@ public interface CacheOperationInvoker {
 	 */
 	Object invoke() throws ThrowableWrapper;
 
+	/**
+	 * Invoke the cache operation defined by this instance with the given
+	 * arguments instead of the original ones.
+	 * <p>The default implementation ignores the given arguments and delegates
+	 * to {@link #invoke()}, for invokers that cannot replace the arguments of
+	 * the underlying invocation.
+	 * @param arguments the arguments to use
+	 * @return the result of the operation
+	 * @throws ThrowableWrapper if an error occurred while invoking the operation
+	 * @since 5.0.16
+	 */
+	default Object invoke(Object[] arguments) throws ThrowableWrapper {
+		return invoke();
+	}
+
 
 	/**
 	 * Wrap any exception thrown while invoking {@link #invoke()}.
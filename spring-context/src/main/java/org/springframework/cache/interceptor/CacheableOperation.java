@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,10 @@ public class CacheableOperation extends CacheOperation {
 
 	private final boolean sync;
 
+	private final long refreshAfterWrite;
+
+	private final boolean multiKey;
+
 
 	/**
 	 * @since 4.3
@@ -41,6 +45,8 @@ public class CacheableOperation extends CacheOperation {
 		super(b);
 		this.unless = b.unless;
 		this.sync = b.sync;
+		this.refreshAfterWrite = b.refreshAfterWrite;
+		this.multiKey = b.multiKey;
 	}
 
 
@@ -53,6 +59,28 @@ public class CacheableOperation extends CacheOperation {
 		return this.sync;
 	}
 
+	/**
+	 * Return the period (in milliseconds) after which a cached value gets
+	 * reloaded asynchronously on access, with callers receiving the stale
+	 * value in the meantime; or -1 if no refresh-ahead applies.
+	 * @since 5.0.16
+	 * @see org.springframework.cache.support.TimestampedValueWrapper
+	 */
+	public long getRefreshAfterWrite() {
+		return this.refreshAfterWrite;
+	}
+
+	/**
+	 * Return whether each element of the collection argument is to be cached
+	 * individually, with the method returning a map from element to value.
+	 * @since 5.0.16
+	 * @see org.springframework.cache.Cache#getAll
+	 * @see org.springframework.cache.Cache#putAll
+	 */
+	public boolean isMultiKey() {
+		return this.multiKey;
+	}
+
 
 	/**
 	 * @since 4.3
@@ -64,6 +92,10 @@ public class CacheableOperation extends CacheOperation {
 
 		private boolean sync;
 
+		private long refreshAfterWrite = -1;
+
+		private boolean multiKey;
+
 		public void setUnless(String unless) {
 			this.unless = unless;
 		}
@@ -72,6 +104,20 @@ public class CacheableOperation extends CacheOperation {
 			this.sync = sync;
 		}
 
+		/**
+		 * @since 5.0.16
+		 */
+		public void setRefreshAfterWrite(long refreshAfterWrite) {
+			this.refreshAfterWrite = refreshAfterWrite;
+		}
+
+		/**
+		 * @since 5.0.16
+		 */
+		public void setMultiKey(boolean multiKey) {
+			this.multiKey = multiKey;
+		}
+
 		@Override
 		protected StringBuilder getOperationDescription() {
 			StringBuilder sb = super.getOperationDescription();
@@ -81,6 +127,14 @@ public class CacheableOperation extends CacheOperation {
 			sb.append(" | sync='");
 			sb.append(this.sync);
 			sb.append("'");
+			if (this.refreshAfterWrite > 0) {
+				sb.append(" | refreshAfterWrite='");
+				sb.append(this.refreshAfterWrite);
+				sb.append("'");
+			}
+			if (this.multiKey) {
+				sb.append(" | multiKey='true'");
+			}
 			return sb;
 		}
 
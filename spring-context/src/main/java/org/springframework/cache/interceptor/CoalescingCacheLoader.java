@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Coalesces concurrent loads of the same key into a single invocation of the
+ * value loader, independent from the {@link Cache} implementation in use.
+ * Used by {@link CacheAspectSupport} for {@code @Cacheable(sync=true)} if
+ * specified there, instead of {@link Cache#get(Object, Callable)}.
+ *
+ * <p>The first thread missing the cache for a given key loads the value and
+ * stores it via {@link Cache#put}; any other thread asking for the same key
+ * in the meantime waits for that result instead of invoking the loader again.
+ * In contrast to {@link java.util.concurrent.ConcurrentHashMap#computeIfAbsent},
+ * no lock is held while the value loader runs, so loads for unrelated keys
+ * never block each other.
+ *
+ * <p>Waiting threads may be bounded through a {@link #setWaitTimeout wait timeout},
+ * after which they give up with a {@link Cache.ValueRetrievalException}
+ * (wrapping a {@link TimeoutException}) while the original load continues.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see CacheAspectSupport#setCoalescingCacheLoader
+ */
+public class CoalescingCacheLoader {
+
+	private final ConcurrentMap<LoadKey, Load> loadsInProgress = new ConcurrentHashMap<>(64);
+
+	private long waitTimeout = -1;
+
+
+	/**
+	 * Specify the maximum time (in milliseconds) that a thread waits for a
+	 * concurrent load of the same key to complete.
+	 * <p>Default is -1, waiting indefinitely.
+	 */
+	public void setWaitTimeout(long waitTimeout) {
+		this.waitTimeout = waitTimeout;
+	}
+
+	/**
+	 * Return the maximum time (in milliseconds) that a thread waits for a
+	 * concurrent load of the same key to complete.
+	 */
+	public long getWaitTimeout() {
+		return this.waitTimeout;
+	}
+
+
+	/**
+	 * Return the value to which the given cache maps the specified key,
+	 * obtaining that value from the {@code valueLoader} if necessary
+	 * and storing it in the cache.
+	 * @param cache the cache to operate on
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the loader to invoke in case of a cache miss
+	 * @return the cached or freshly loaded value
+	 * @throws Cache.ValueRetrievalException if the {@code valueLoader} throws
+	 * an exception, or if the wait for a concurrent load timed out
+	 * @see Cache#get(Object, Callable)
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <T> T get(Cache cache, Object key, Callable<T> valueLoader) {
+		Cache.ValueWrapper cacheHit = cache.get(key);
+		if (cacheHit != null) {
+			return (T) cacheHit.get();
+		}
+
+		LoadKey loadKey = new LoadKey(cache, key);
+		Load newLoad = new Load();
+		Load existingLoad = this.loadsInProgress.putIfAbsent(loadKey, newLoad);
+		if (existingLoad != null) {
+			return (T) awaitLoad(existingLoad, key, valueLoader);
+		}
+
+		try {
+			// Re-check: a concurrent load may have completed in the meantime.
+			cacheHit = cache.get(key);
+			Object value;
+			if (cacheHit != null) {
+				value = cacheHit.get();
+			}
+			else {
+				value = valueLoader.call();
+				cache.put(key, value);
+			}
+			newLoad.complete(value);
+			return (T) value;
+		}
+		catch (Throwable ex) {
+			newLoad.completeExceptionally(ex);
+			if (ex instanceof Cache.ValueRetrievalException) {
+				throw (Cache.ValueRetrievalException) ex;
+			}
+			throw new Cache.ValueRetrievalException(key, valueLoader, ex);
+		}
+		finally {
+			this.loadsInProgress.remove(loadKey, newLoad);
+		}
+	}
+
+	@Nullable
+	private Object awaitLoad(Load load, Object key, Callable<?> valueLoader) {
+		if (load.owner == Thread.currentThread()) {
+			throw new IllegalStateException("Recursive load of cache key '" + key + "' in the same thread");
+		}
+		try {
+			return (this.waitTimeout >= 0 ? load.get(this.waitTimeout, TimeUnit.MILLISECONDS) : load.get());
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Cache.ValueRetrievalException) {
+				throw (Cache.ValueRetrievalException) cause;
+			}
+			throw new Cache.ValueRetrievalException(key, valueLoader, cause);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new Cache.ValueRetrievalException(key, valueLoader, ex);
+		}
+		catch (TimeoutException ex) {
+			throw new Cache.ValueRetrievalException(key, valueLoader, ex);
+		}
+	}
+
+	/**
+	 * Return the number of loads currently in progress.
+	 */
+	public int getLoadsInProgress() {
+		return this.loadsInProgress.size();
+	}
+
+
+	/**
+	 * A load in progress, remembering the loading thread.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Load extends CompletableFuture<Object> {
+
+		final Thread owner = Thread.currentThread();
+	}
+
+
+	/**
+	 * Key for a load in progress: the target cache (by identity) and the cache key.
+	 */
+	private static final class LoadKey {
+
+		private final Cache cache;
+
+		private final Object key;
+
+		LoadKey(Cache cache, Object key) {
+			this.cache = cache;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof LoadKey)) {
+				return false;
+			}
+			LoadKey otherKey = (LoadKey) other;
+			return (this.cache == otherKey.cache && ObjectUtils.nullSafeEquals(this.key, otherKey.key));
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.cache) * 29 + ObjectUtils.nullSafeHashCode(this.key);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy interface for propagating cache invalidations between
+ * {@link TwoLevelCacheManager} instances, typically across several
+ * application nodes sharing the same remote cache.
+ *
+ * <p>Implementations may be backed by any messaging infrastructure
+ * (e.g. a JMS topic or a publish-subscribe channel of the remote cache
+ * provider); {@link SimpleCacheInvalidationChannel} dispatches within
+ * the same JVM.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see TwoLevelCacheManager#setInvalidationChannel
+ */
+public interface CacheInvalidationChannel {
+
+	/**
+	 * Publish an invalidation to all subscribed listeners, including
+	 * listeners in the publishing process (which are expected to ignore
+	 * their own invalidations based on the given origin).
+	 * @param origin an identifier for the publisher of the invalidation
+	 * @param cacheName the name of the cache affected
+	 * @param key the key to invalidate, or {@code null} to invalidate
+	 * the entire cache
+	 */
+	void publish(String origin, String cacheName, @Nullable Object key);
+
+	/**
+	 * Subscribe the given listener to invalidations published on this channel.
+	 * @param listener the listener to notify
+	 */
+	void subscribe(Listener listener);
+
+
+	/**
+	 * Callback interface for invalidations received on a channel.
+	 */
+	@FunctionalInterface
+	interface Listener {
+
+		/**
+		 * Handle an invalidation received on the channel.
+		 * @param origin the identifier of the publisher of the invalidation
+		 * @param cacheName the name of the cache affected
+		 * @param key the key to invalidate, or {@code null} to invalidate
+		 * the entire cache
+		 */
+		void onInvalidation(String origin, String cacheName, @Nullable Object key);
+	}
+
+}
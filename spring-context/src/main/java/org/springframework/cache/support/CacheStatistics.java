@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+/**
+ * Immutable snapshot of the usage statistics of a
+ * {@link org.springframework.cache.Cache}, as exposed by cache
+ * implementations which keep track of them.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see org.springframework.cache.concurrent.BoundedConcurrentMapCache#getStatistics()
+ */
+public final class CacheStatistics {
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long putCount;
+
+	private final long evictionCount;
+
+
+	/**
+	 * Create a new statistics snapshot with the given counts.
+	 * @param hitCount the number of lookups which found a cached value
+	 * @param missCount the number of lookups which did not find a cached value
+	 * @param putCount the number of values stored in the cache
+	 * @param evictionCount the number of entries removed by the cache itself
+	 */
+	public CacheStatistics(long hitCount, long missCount, long putCount, long evictionCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.putCount = putCount;
+		this.evictionCount = evictionCount;
+	}
+
+
+	/**
+	 * Return the number of lookups which found a cached value.
+	 */
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Return the number of lookups which did not find a cached value.
+	 */
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Return the total number of lookups, i.e. hits plus misses.
+	 */
+	public long getRequestCount() {
+		return this.hitCount + this.missCount;
+	}
+
+	/**
+	 * Return the ratio of lookups which found a cached value,
+	 * or {@code 1.0} if there have not been any lookups yet.
+	 */
+	public double getHitRate() {
+		long requestCount = getRequestCount();
+		return (requestCount > 0 ? (double) this.hitCount / requestCount : 1.0);
+	}
+
+	/**
+	 * Return the number of values stored in the cache.
+	 */
+	public long getPutCount() {
+		return this.putCount;
+	}
+
+	/**
+	 * Return the number of entries removed by the cache itself,
+	 * e.g. due to size limits or expiration (as opposed to explicit eviction).
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CacheStatistics)) {
+			return false;
+		}
+		CacheStatistics otherStats = (CacheStatistics) other;
+		return (this.hitCount == otherStats.hitCount && this.missCount == otherStats.missCount &&
+				this.putCount == otherStats.putCount && this.evictionCount == otherStats.evictionCount);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (this.hitCount * 29 + this.missCount * 17 + this.putCount * 7 + this.evictionCount);
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics: hits=" + this.hitCount + ", misses=" + this.missCount +
+				", puts=" + this.putCount + ", evictions=" + this.evictionCount;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Extension of {@link SimpleValueWrapper} which additionally exposes the time
+ * at which the value has been written to the cache, as returned by cache
+ * implementations which keep track of it.
+ *
+ * <p>Used for refresh-ahead purposes: see
+ * {@link org.springframework.cache.interceptor.CacheableOperation#getRefreshAfterWrite()}.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see org.springframework.cache.concurrent.BoundedConcurrentMapCache#get(Object)
+ */
+public class TimestampedValueWrapper extends SimpleValueWrapper {
+
+	private final long writeTime;
+
+	private final long lookupTime;
+
+
+	/**
+	 * Create a new TimestampedValueWrapper instance for exposing the given value.
+	 * @param value the value to expose (may be {@code null})
+	 * @param writeTime the time at which the value has been written to the cache
+	 * (in milliseconds, according to the cache's clock)
+	 * @param lookupTime the time at which the value has been looked up
+	 * (in milliseconds, according to the cache's clock)
+	 */
+	public TimestampedValueWrapper(@Nullable Object value, long writeTime, long lookupTime) {
+		super(value);
+		this.writeTime = writeTime;
+		this.lookupTime = lookupTime;
+	}
+
+
+	/**
+	 * Return the time at which the value has been written to the cache.
+	 */
+	public long getWriteTime() {
+		return this.writeTime;
+	}
+
+	/**
+	 * Return the time at which the value has been looked up.
+	 */
+	public long getLookupTime() {
+		return this.lookupTime;
+	}
+
+	/**
+	 * Return the age of the value (in milliseconds) at the time of the lookup.
+	 */
+	public long getAge() {
+		return this.lookupTime - this.writeTime;
+	}
+
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Cache} implementation layering a local cache in front of a remote cache.
+ *
+ * <p>Lookups are served from the local cache if possible, falling back to the
+ * remote cache and populating the local cache with remote hits. Modifications
+ * are applied to both levels and, if an {@link CacheInvalidationChannel} is
+ * specified, propagated as invalidations to the local caches of other
+ * processes sharing the same remote cache.
+ *
+ * <p>The local cache should be bounded and expire its entries after a shorter
+ * period than the remote cache, since values loaded from the remote cache are
+ * not propagated (only explicit puts and evictions are).
+ *
+ * <p>A value copied from the remote cache into the local cache is discarded again
+ * if any modification or invalidation happened in the meantime, so that a remote
+ * lookup racing with an invalidation cannot re-insert the invalidated value.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see TwoLevelCacheManager
+ */
+public class TwoLevelCache implements Cache {
+
+	private final Cache localCache;
+
+	private final Cache remoteCache;
+
+	@Nullable
+	private final CacheInvalidationChannel invalidationChannel;
+
+	private final String origin;
+
+	private final LongAdder localHitCount = new LongAdder();
+
+	private final LongAdder remoteHitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder putCount = new LongAdder();
+
+	private final LongAdder refillCount = new LongAdder();
+
+	private final LongAdder invalidationCount = new LongAdder();
+
+	private final AtomicLong modificationVersion = new AtomicLong();
+
+
+	/**
+	 * Create a new TwoLevelCache for the given caches, without propagation
+	 * of invalidations to other processes.
+	 * @param localCache the local cache to serve lookups from first
+	 * @param remoteCache the remote cache to delegate to
+	 */
+	public TwoLevelCache(Cache localCache, Cache remoteCache) {
+		this(localCache, remoteCache, null, "");
+	}
+
+	/**
+	 * Create a new TwoLevelCache for the given caches, propagating invalidations
+	 * through the given channel.
+	 * @param localCache the local cache to serve lookups from first
+	 * @param remoteCache the remote cache to delegate to
+	 * @param invalidationChannel the channel to publish invalidations to (if any)
+	 * @param origin the identifier of this process in published invalidations
+	 */
+	public TwoLevelCache(Cache localCache, Cache remoteCache,
+			@Nullable CacheInvalidationChannel invalidationChannel, String origin) {
+
+		Assert.notNull(localCache, "Local Cache must not be null");
+		Assert.notNull(remoteCache, "Remote Cache must not be null");
+		this.localCache = localCache;
+		this.remoteCache = remoteCache;
+		this.invalidationChannel = invalidationChannel;
+		this.origin = origin;
+	}
+
+
+	@Override
+	public String getName() {
+		return this.remoteCache.getName();
+	}
+
+	/**
+	 * This implementation returns the native cache of the remote cache.
+	 */
+	@Override
+	public Object getNativeCache() {
+		return this.remoteCache.getNativeCache();
+	}
+
+	/**
+	 * Return the local cache that lookups are served from first.
+	 */
+	public Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	/**
+	 * Return the remote cache that this cache delegates to.
+	 */
+	public Cache getRemoteCache() {
+		return this.remoteCache;
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			this.localHitCount.increment();
+			return wrapper;
+		}
+		long version = this.modificationVersion.get();
+		wrapper = this.remoteCache.get(key);
+		if (wrapper != null) {
+			this.remoteHitCount.increment();
+			refillLocalCache(key, wrapper.get(), version);
+		}
+		else {
+			this.missCount.increment();
+		}
+		return wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			this.localHitCount.increment();
+			return (T) wrapper.get();
+		}
+		long version = this.modificationVersion.get();
+		wrapper = this.remoteCache.get(key);
+		if (wrapper != null) {
+			this.remoteHitCount.increment();
+			refillLocalCache(key, wrapper.get(), version);
+			return (T) wrapper.get();
+		}
+		this.missCount.increment();
+		T value = this.remoteCache.get(key, valueLoader);
+		refillLocalCache(key, value, version);
+		return value;
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> localHits = this.localCache.getAll(keys);
+		this.localHitCount.add(localHits.size());
+		Set<Object> missingKeys = new LinkedHashSet<>();
+		for (Object key : keys) {
+			if (!localHits.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		if (missingKeys.isEmpty()) {
+			return localHits;
+		}
+
+		long version = this.modificationVersion.get();
+		Map<Object, ValueWrapper> remoteHits = this.remoteCache.getAll(missingKeys);
+		this.remoteHitCount.add(remoteHits.size());
+		this.missCount.add(missingKeys.size() - remoteHits.size());
+
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = localHits.get(key);
+			if (wrapper == null) {
+				wrapper = remoteHits.get(key);
+				if (wrapper == null || result.containsKey(key)) {
+					continue;
+				}
+				refillLocalCache(key, wrapper.get(), version);
+			}
+			result.put(key, wrapper);
+		}
+		return result;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.remoteCache.put(key, value);
+		this.modificationVersion.incrementAndGet();
+		this.localCache.put(key, value);
+		this.putCount.increment();
+		publishInvalidation(key);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		this.remoteCache.putAll(entries);
+		this.modificationVersion.incrementAndGet();
+		this.localCache.putAll(entries);
+		this.putCount.add(entries.size());
+		for (Object key : entries.keySet()) {
+			publishInvalidation(key);
+		}
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		long version = this.modificationVersion.get();
+		ValueWrapper existing = this.remoteCache.putIfAbsent(key, value);
+		if (existing != null) {
+			refillLocalCache(key, existing.get(), version);
+		}
+		else {
+			this.modificationVersion.incrementAndGet();
+			this.localCache.put(key, value);
+			this.putCount.increment();
+			publishInvalidation(key);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.remoteCache.evict(key);
+		this.modificationVersion.incrementAndGet();
+		this.localCache.evict(key);
+		publishInvalidation(key);
+	}
+
+	@Override
+	public void clear() {
+		this.remoteCache.clear();
+		this.modificationVersion.incrementAndGet();
+		this.localCache.clear();
+		publishInvalidation(null);
+	}
+
+	/**
+	 * Invalidate the given key in the local cache only, typically in response
+	 * to an invalidation received from another process.
+	 * @param key the key to invalidate, or {@code null} to clear the local cache
+	 */
+	public void invalidateLocally(@Nullable Object key) {
+		this.modificationVersion.incrementAndGet();
+		if (key != null) {
+			this.localCache.evict(key);
+		}
+		else {
+			this.localCache.clear();
+		}
+		this.invalidationCount.increment();
+	}
+
+	/**
+	 * Copy a value obtained from the remote cache into the local cache, discarding
+	 * it again if a modification or invalidation happened since the given version
+	 * had been read: that modification may have evicted the local entry before
+	 * this copy was stored, leaving a stale value in the local cache otherwise.
+	 */
+	private void refillLocalCache(Object key, @Nullable Object value, long version) {
+		this.localCache.put(key, value);
+		this.refillCount.increment();
+		if (this.modificationVersion.get() != version) {
+			this.localCache.evict(key);
+		}
+	}
+
+	private void publishInvalidation(@Nullable Object key) {
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.publish(this.origin, getName(), key);
+		}
+	}
+
+
+	/**
+	 * Return a snapshot of the usage statistics of the local level: hits served
+	 * locally, misses falling through to the remote cache, values copied from
+	 * the remote cache, and invalidations received from other processes.
+	 */
+	public CacheStatistics getLocalStatistics() {
+		long localHits = this.localHitCount.sum();
+		long remoteLookups = this.remoteHitCount.sum() + this.missCount.sum();
+		return new CacheStatistics(localHits, remoteLookups, this.refillCount.sum(), this.invalidationCount.sum());
+	}
+
+	/**
+	 * Return a snapshot of the usage statistics of the remote level, as far as
+	 * lookups fell through from the local cache: hits and misses in the remote
+	 * cache as well as values stored through this cache.
+	 */
+	public CacheStatistics getRemoteStatistics() {
+		return new CacheStatistics(this.remoteHitCount.sum(), this.missCount.sum(), this.putCount.sum(), 0);
+	}
+
+	@Override
+	public String toString() {
+		return "TwoLevelCache '" + getName() + "': local=" + this.localCache + ", remote=" + this.remoteCache;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Composite {@link CacheManager} implementation that layers the caches of a
+ * local {@link CacheManager} in front of the caches of a remote one, exposing
+ * a {@link TwoLevelCache} ("near cache") for each remote cache.
+ *
+ * <p>The local CacheManager is typically a bounded in-memory one, e.g. a
+ * {@link org.springframework.cache.concurrent.ConcurrentMapCacheManager} with
+ * a maximum size and an expiration period, and needs to provide a cache for
+ * each name that the remote CacheManager knows about. If it does not, the
+ * remote cache is exposed as-is.
+ *
+ * <p>Modifications are propagated to other processes through an optional
+ * {@link CacheInvalidationChannel}, evicting the affected entries from
+ * their local caches.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see TwoLevelCache
+ * @see SimpleCacheInvalidationChannel
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+	private final CacheManager localCacheManager;
+
+	private final CacheManager remoteCacheManager;
+
+	@Nullable
+	private CacheInvalidationChannel invalidationChannel;
+
+	private final String origin = UUID.randomUUID().toString();
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Create a new TwoLevelCacheManager for the given CacheManagers.
+	 * @param localCacheManager the CacheManager providing the local caches
+	 * @param remoteCacheManager the CacheManager providing the remote caches
+	 */
+	public TwoLevelCacheManager(CacheManager localCacheManager, CacheManager remoteCacheManager) {
+		Assert.notNull(localCacheManager, "Local CacheManager must not be null");
+		Assert.notNull(remoteCacheManager, "Remote CacheManager must not be null");
+		this.localCacheManager = localCacheManager;
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+
+	/**
+	 * Specify a channel for propagating invalidations to (and receiving
+	 * invalidations from) other processes sharing the same remote caches.
+	 * <p>This manager subscribes to the given channel immediately.
+	 */
+	public void setInvalidationChannel(CacheInvalidationChannel invalidationChannel) {
+		Assert.notNull(invalidationChannel, "CacheInvalidationChannel must not be null");
+		Assert.state(this.cacheMap.isEmpty(), "Cannot set CacheInvalidationChannel after caches have been obtained");
+		this.invalidationChannel = invalidationChannel;
+		invalidationChannel.subscribe(this::handleInvalidation);
+	}
+
+	/**
+	 * Return the identifier of this manager in published invalidations.
+	 */
+	public String getOrigin() {
+		return this.origin;
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null) {
+			Cache remoteCache = this.remoteCacheManager.getCache(name);
+			if (remoteCache == null) {
+				return null;
+			}
+			Cache localCache = this.localCacheManager.getCache(name);
+			Cache newCache = (localCache != null ?
+					new TwoLevelCache(localCache, remoteCache, this.invalidationChannel, this.origin) : remoteCache);
+			cache = this.cacheMap.putIfAbsent(name, newCache);
+			if (cache == null) {
+				cache = newCache;
+			}
+		}
+		return cache;
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return this.remoteCacheManager.getCacheNames();
+	}
+
+	/**
+	 * Evict the given key from the corresponding local cache, unless
+	 * the invalidation has been published by this manager itself.
+	 */
+	private void handleInvalidation(String origin, String cacheName, @Nullable Object key) {
+		if (this.origin.equals(origin)) {
+			return;
+		}
+		Cache cache = this.cacheMap.get(cacheName);
+		if (cache instanceof TwoLevelCache) {
+			((TwoLevelCache) cache).invalidateLocally(key);
+		}
+	}
+
+}
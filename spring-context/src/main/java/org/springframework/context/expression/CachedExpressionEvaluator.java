@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,8 +20,13 @@ import java.util.Map;
 
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 
@@ -35,10 +40,24 @@ import org.springframework.util.ObjectUtils;
  */
 public abstract class CachedExpressionEvaluator {
 
+	/**
+	 * System property that sets the {@link SpelCompilerMode} for Spring's
+	 * framework-internal expression evaluators (cache and event conditions,
+	 * {@code @Value} expressions): {@code "spring.context.expression.compiler.mode"}.
+	 * <p>If not set, these evaluators follow the global "spring.expression.compiler.mode"
+	 * property, interpreting expressions by default. A value of {@code "mixed"}
+	 * compiles frequently evaluated expressions.
+	 * @since 5.0.16
+	 * @see #adaptiveParserConfiguration
+	 */
+	public static final String COMPILER_MODE_PROPERTY_NAME = "spring.context.expression.compiler.mode";
+
 	private final SpelExpressionParser parser;
 
 	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+	private final StandardEvaluationContext sharedEvaluationContext = createSharedEvaluationContext();
+
 
 	/**
 	 * Create a new instance with the specified {@link SpelExpressionParser}.
@@ -50,9 +69,41 @@ public abstract class CachedExpressionEvaluator {
 
 	/**
 	 * Create a new instance with a default {@link SpelExpressionParser}.
+	 * <p>As of 5.0.16, its compiler mode can be set through the
+	 * {@link #COMPILER_MODE_PROPERTY_NAME} property.
+	 * @see #adaptiveParserConfiguration
 	 */
 	protected CachedExpressionEvaluator() {
-		this(new SpelExpressionParser());
+		this(new SpelExpressionParser(adaptiveParserConfiguration(null)));
+	}
+
+
+	/**
+	 * Create a {@link SpelParserConfiguration} with the compiler mode specified
+	 * through the {@link #COMPILER_MODE_PROPERTY_NAME} property, if any, or the
+	 * global default compiler mode otherwise.
+	 * <p>Note that in {@link SpelCompilerMode#MIXED} mode, a compiled expression
+	 * which fails at runtime is evaluated again in interpreted mode. Any side
+	 * effects of the expression, e.g. from invoking a method on a bean, may
+	 * therefore happen twice for such an evaluation.
+	 * @param compilerClassLoader the ClassLoader to use as the basis for expression compilation
+	 * @since 5.0.16
+	 */
+	static SpelParserConfiguration adaptiveParserConfiguration(@Nullable ClassLoader compilerClassLoader) {
+		String compilerMode = SpringProperties.getProperty(COMPILER_MODE_PROPERTY_NAME);
+		return new SpelParserConfiguration(
+				(compilerMode != null ? SpelCompilerMode.valueOf(compilerMode.toUpperCase()) : null),
+				compilerClassLoader);
+	}
+
+	/**
+	 * Create the template context for {@link #applySharedDelegates}, with its
+	 * lazily initialized default delegates set up before it gets shared.
+	 */
+	private static StandardEvaluationContext createSharedEvaluationContext() {
+		StandardEvaluationContext sharedEvaluationContext = new StandardEvaluationContext();
+		sharedEvaluationContext.applyDelegatesTo(new StandardEvaluationContext());
+		return sharedEvaluationContext;
 	}
 
 
@@ -72,6 +123,18 @@ public abstract class CachedExpressionEvaluator {
 	}
 
 
+	/**
+	 * Apply the delegates of a shared evaluation context (property accessors,
+	 * method resolvers, type converter etc.) to the given context which has just
+	 * been created for a specific evaluation, instead of initializing them anew.
+	 * @param evaluationContext the per-evaluation context to prepare
+	 * @since 5.0.16
+	 * @see StandardEvaluationContext#applyDelegatesTo
+	 */
+	protected void applySharedDelegates(StandardEvaluationContext evaluationContext) {
+		this.sharedEvaluationContext.applyDelegatesTo(evaluationContext);
+	}
+
 	/**
 	 * Return the {@link Expression} for the specified SpEL value
 	 * <p>Parse the expression if it hasn't been already.
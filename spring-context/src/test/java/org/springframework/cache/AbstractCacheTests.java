@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,11 @@
 
 package org.springframework.cache;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -92,6 +96,28 @@ public abstract class AbstractCacheTests<T extends Cache> {
 		assertEquals(value, cache.get(key).get()); // not changed
 	}
 
+	@Test
+	public void testCacheGetAllPutAll() throws Exception {
+		T cache = getCache();
+
+		String key1 = createRandomKey();
+		String key2 = createRandomKey();
+		String key3 = createRandomKey();
+		assertTrue(cache.getAll(Arrays.asList(key1, key2)).isEmpty());
+
+		Map<String, Object> entries = new LinkedHashMap<>();
+		entries.put(key1, "value1");
+		entries.put(key3, "value3");
+		cache.putAll(entries);
+		assertEquals("value1", cache.get(key1).get());
+		assertEquals("value3", cache.get(key3).get());
+
+		Map<Object, Cache.ValueWrapper> result = cache.getAll(Arrays.asList(key3, key2, key1));
+		assertEquals(Arrays.asList(key3, key1), new ArrayList<>(result.keySet()));
+		assertEquals("value3", result.get(key3).get());
+		assertEquals("value1", result.get(key1).get());
+	}
+
 	@Test
 	public void testCacheRemove() throws Exception {
 		T cache = getCache();
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Clock} for cache tests, starting at the epoch and only moving
+ * forward when {@link #advance advanced} explicitly.
+ *
+ * @author agent
+ */
+@SuppressWarnings("serial")
+public class MutableClock extends Clock {
+
+	private final AtomicLong millis;
+
+	private final ZoneId zone;
+
+
+	public MutableClock() {
+		this(new AtomicLong(), ZoneOffset.UTC);
+	}
+
+	private MutableClock(AtomicLong millis, ZoneId zone) {
+		this.millis = millis;
+		this.zone = zone;
+	}
+
+
+	/**
+	 * Move this clock forward by the given number of milliseconds.
+	 */
+	public void advance(long millis) {
+		this.millis.addAndGet(millis);
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return this.zone;
+	}
+
+	/**
+	 * Return a clock in the given zone, advancing along with this clock.
+	 */
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return new MutableClock(this.millis, zone);
+	}
+
+	@Override
+	public Instant instant() {
+		return Instant.ofEpochMilli(this.millis.get());
+	}
+
+	@Override
+	public long millis() {
+		return this.millis.get();
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.AbstractValueAdaptingCacheTests;
+import org.springframework.cache.Cache;
+import org.springframework.cache.MutableClock;
+import org.springframework.cache.support.CacheStatistics;
+import org.springframework.cache.support.TimestampedValueWrapper;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class BoundedConcurrentMapCacheTests extends AbstractValueAdaptingCacheTests<BoundedConcurrentMapCache> {
+
+	private BoundedConcurrentMapCache cache;
+
+	private BoundedConcurrentMapCache cacheNoNull;
+
+	private final MutableClock clock = new MutableClock();
+
+
+	@Before
+	public void setUp() {
+		this.cache = new BoundedConcurrentMapCache(CACHE_NAME, 1000);
+		this.cacheNoNull = BoundedConcurrentMapCache.builder(CACHE_NAME_NO_NULL)
+				.maximumSize(1000).allowNullValues(false).build();
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache() {
+		return getCache(true);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache(boolean allowNull) {
+		return (allowNull ? this.cache : this.cacheNoNull);
+	}
+
+	@Override
+	protected Object getNativeCache() {
+		return this.cache;
+	}
+
+
+	@Test
+	public void lruEviction() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("lru")
+				.maximumSize(3).evictionPolicy(BoundedConcurrentMapCache.EvictionPolicy.LRU).build();
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		assertEquals(1, cache.get("a").get());
+		cache.put("d", 4);
+
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	public void tinyLfuRetainsFrequentlyUsedEntriesDuringScan() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("tinyLfu").maximumSize(100).build();
+		for (int i = 0; i < 50; i++) {
+			cache.put("hot" + i, i);
+		}
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				assertNotNull(cache.get("hot" + i));
+			}
+		}
+		for (int i = 0; i < 1000; i++) {
+			cache.put("cold" + i, i);
+		}
+
+		int retained = 0;
+		for (int i = 0; i < 50; i++) {
+			if (cache.get("hot" + i) != null) {
+				retained++;
+			}
+		}
+		assertTrue("Only " + retained + " hot entries retained", retained >= 45);
+		assertTrue(cache.size() <= 100);
+	}
+
+	@Test
+	public void lruEvictsFrequentlyUsedEntriesDuringScan() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("lru").maximumSize(100)
+				.evictionPolicy(BoundedConcurrentMapCache.EvictionPolicy.LRU).build();
+		for (int i = 0; i < 50; i++) {
+			cache.put("hot" + i, i);
+			cache.get("hot" + i);
+		}
+		for (int i = 0; i < 10000; i++) {
+			cache.put("cold" + i, i);
+		}
+		for (int i = 0; i < 50; i++) {
+			assertNull(cache.get("hot" + i));
+		}
+	}
+
+	@Test
+	public void maximumWeight() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("weighted")
+				.maximumWeight(10, (key, value) -> ((String) value).length())
+				.evictionPolicy(BoundedConcurrentMapCache.EvictionPolicy.LRU).build();
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		assertEquals(8, cache.weightedSize());
+		cache.put("c", "cccc");
+		assertNull(cache.get("a"));
+		assertEquals(8, cache.weightedSize());
+
+		// Too heavy to be cached at all
+		cache.put("d", "ddddddddddd");
+		assertNull(cache.get("d"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void maximumWeightAppliesToWholeCache() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("weighted")
+				.maximumWeight(1000, (key, value) -> (Integer) value).build();
+		cache.put("a", 900);
+		assertEquals(900, cache.get("a").get());
+		assertEquals(900, cache.weightedSize());
+	}
+
+	@Test
+	public void recursiveLoadInSameThread() {
+		try {
+			this.cache.get("a", () -> this.cache.get("a", () -> 1));
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertNull(this.cache.get("a"));
+		assertEquals(Integer.valueOf(2), this.cache.get("a", () -> 2));
+	}
+
+	@Test
+	public void expireAfterWrite() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("expiring")
+				.expireAfterWrite(Duration.ofSeconds(10)).clock(this.clock).build();
+		cache.put("a", 1);
+		this.clock.advance(5000);
+		assertEquals(1, cache.get("a").get());
+		this.clock.advance(5000);
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	public void valueWrapperExposesWriteTime() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("timestamped").clock(this.clock).build();
+		this.clock.advance(1000);
+		cache.put("a", 1);
+		this.clock.advance(2500);
+		Cache.ValueWrapper wrapper = cache.get("a");
+		assertTrue(wrapper instanceof TimestampedValueWrapper);
+		assertEquals(1, wrapper.get());
+		assertEquals(1000, ((TimestampedValueWrapper) wrapper).getWriteTime());
+		assertEquals(2500, ((TimestampedValueWrapper) wrapper).getAge());
+	}
+
+	@Test
+	public void expireAfterAccess() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("expiring")
+				.maximumSize(10).expireAfterAccess(Duration.ofSeconds(10)).clock(this.clock).build();
+		cache.put("a", 1);
+		cache.put("b", 2);
+		this.clock.advance(6000);
+		assertEquals(1, cache.get("a").get());
+		this.clock.advance(6000);
+		assertEquals(1, cache.get("a").get());
+		assertEquals(2, cache.size());
+
+		cache.cleanUp();
+		assertEquals(1, cache.size());
+		assertNull(cache.get("b"));
+	}
+
+	@Test
+	public void putIfAbsentReplacesExpiredEntry() {
+		BoundedConcurrentMapCache cache = BoundedConcurrentMapCache.builder("expiring")
+				.expireAfterWrite(Duration.ofSeconds(10)).clock(this.clock).build();
+		assertNull(cache.putIfAbsent("a", 1));
+		assertEquals(1, cache.putIfAbsent("a", 2).get());
+		this.clock.advance(10000);
+		assertNull(cache.putIfAbsent("a", 3));
+		assertEquals(3, cache.get("a").get());
+	}
+
+	@Test
+	public void statistics() {
+		this.cache.put("a", 1);
+		this.cache.put("a", 2);
+		this.cache.putIfAbsent("a", 3);
+		this.cache.get("a");
+		this.cache.get("b");
+		this.cache.get("c", () -> 4);
+		this.cache.get("c", () -> 5);
+
+		CacheStatistics statistics = this.cache.getStatistics();
+		assertEquals(2, statistics.getHitCount());
+		assertEquals(2, statistics.getMissCount());
+		assertEquals(4, statistics.getRequestCount());
+		assertEquals(0.5, statistics.getHitRate(), 0.0);
+		assertEquals(3, statistics.getPutCount());
+		assertEquals(0, statistics.getEvictionCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void maximumSizeAndWeight() {
+		BoundedConcurrentMapCache.builder("invalid").maximumSize(10).maximumWeight(10, (key, value) -> 1).build();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
+
 import org.junit.Test;
 
 import org.springframework.cache.Cache;
@@ -131,4 +133,33 @@ public class ConcurrentMapCacheManagerTests {
 		assertNull(cache1x.get("key"));
 	}
 
+	@Test
+	public void testBoundedCaches() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1", "c2");
+		assertFalse(cm.isBounded());
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof ConcurrentMapCache);
+
+		cm.setMaximumSize(2);
+		cm.setEvictionPolicy(BoundedConcurrentMapCache.EvictionPolicy.LRU);
+		assertTrue(cm.isBounded());
+		Cache cache1x = cm.getCache("c1");
+		assertTrue(cache1x instanceof BoundedConcurrentMapCache);
+		cache1x.put("key1", "value1");
+		cache1x.put("key2", "value2");
+		cache1x.put("key3", "value3");
+		assertNull(cache1x.get("key1"));
+		assertEquals("value3", cache1x.get("key3").get());
+		assertEquals(2, ((BoundedConcurrentMapCache) cache1x).size());
+
+		cm.setMaximumSize(0);
+		cm.setExpireAfterWrite(Duration.ofMinutes(1));
+		assertTrue(cm.isBounded());
+		assertTrue(cm.getCache("c2") instanceof BoundedConcurrentMapCache);
+
+		cm.setExpireAfterWrite(null);
+		assertFalse(cm.isBounded());
+		assertTrue(cm.getCache("c2") instanceof ConcurrentMapCache);
+	}
+
 }
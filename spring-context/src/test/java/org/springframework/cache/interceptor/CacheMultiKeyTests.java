@@ -0,0 +1,303 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CacheableOperation#isMultiKey() multi-key} cacheable operations.
+ *
+ * @author agent
+ */
+public class CacheMultiKeyTests {
+
+	@Rule
+	public final ExpectedException thrown = ExpectedException.none();
+
+	private final Cache cache = new ConcurrentMapCache("items");
+
+	private final ItemServiceImpl target = new ItemServiceImpl();
+
+	private ItemService service;
+
+
+	@Before
+	public void setup() {
+		this.service = createService(new SimpleKeyGenerator());
+	}
+
+	private ItemService createService(KeyGenerator keyGenerator) {
+		ProxyFactory proxyFactory = new ProxyFactory(this.target);
+		proxyFactory.addAdvice(createInterceptor(keyGenerator));
+		return (ItemService) proxyFactory.getProxy();
+	}
+
+	private CacheInterceptor createInterceptor(KeyGenerator keyGenerator) {
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(Arrays.asList(this.cache, new ConcurrentMapCache("other")));
+		cacheManager.afterPropertiesSet();
+
+		CacheInterceptor interceptor = new CacheInterceptor();
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.setCacheManager(cacheManager);
+		interceptor.setKeyGenerator(keyGenerator);
+		interceptor.afterPropertiesSet();
+		interceptor.afterSingletonsInstantiated();
+		return interceptor;
+	}
+
+
+	@Test
+	public void missingKeysLoadedAndMerged() {
+		this.cache.put(2L, "cached2");
+
+		Map<Long, String> result = this.service.findByIds(Arrays.asList(3L, 2L, 1L));
+		assertEquals(Arrays.asList(3L, 2L, 1L), new ArrayList<>(result.keySet()));
+		assertEquals("item3", result.get(3L));
+		assertEquals("cached2", result.get(2L));
+		assertEquals("item1", result.get(1L));
+		assertEquals(Collections.singletonList(Arrays.asList(3L, 1L)), this.target.invocations);
+		assertEquals("item1", this.cache.get(1L).get());
+		assertEquals("item3", this.cache.get(3L).get());
+	}
+
+	@Test
+	public void allKeysCached() {
+		this.service.findByIds(Arrays.asList(1L, 2L));
+		this.target.invocations.clear();
+
+		Map<Long, String> result = this.service.findByIds(Arrays.asList(2L, 1L));
+		assertEquals(Arrays.asList(2L, 1L), new ArrayList<>(result.keySet()));
+		assertTrue(this.target.invocations.isEmpty());
+	}
+
+	@Test
+	public void duplicateKeysAllCached() {
+		this.cache.put(1L, "cached1");
+		this.cache.put(2L, "cached2");
+
+		Map<Long, String> result = this.service.findByIds(Arrays.asList(1L, 2L, 1L));
+		assertEquals(Arrays.asList(1L, 2L), new ArrayList<>(result.keySet()));
+		assertTrue(this.target.invocations.isEmpty());
+	}
+
+	@Test
+	public void duplicateMissingKeysLoadedOnce() {
+		this.cache.put(1L, "cached1");
+
+		Map<Long, String> result = this.service.findByIds(Arrays.asList(2L, 1L, 2L));
+		assertEquals(Arrays.asList(2L, 1L), new ArrayList<>(result.keySet()));
+		assertEquals(Collections.singletonList(Collections.singletonList(2L)), this.target.invocations);
+	}
+
+	@Test
+	public void keyGeneratorAppliedToEachElement() {
+		ItemService service = createService((target, method, params) -> "item-" + params[0]);
+		this.cache.put("item-2", "cached2");
+
+		Map<Long, String> result = service.findByIds(Arrays.asList(1L, 2L));
+		assertEquals("item1", result.get(1L));
+		assertEquals("cached2", result.get(2L));
+		assertEquals(Collections.singletonList(Collections.singletonList(1L)), this.target.invocations);
+		assertEquals("item1", this.cache.get("item-1").get());
+		assertNull(this.cache.get(1L));
+	}
+
+	@Test
+	public void missingKeysCollectedInDeclaredParameterType() {
+		this.cache.put(1L, "cached1");
+		Set<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+		ids.addAll(Arrays.asList(1L, 2L, 3L));
+		this.service.findBySet(ids);
+		assertEquals(Collections.singletonList(new LinkedHashSet<>(Arrays.asList(3L, 2L))), this.target.invocations);
+		assertEquals(LinkedHashSet.class, this.target.invocations.get(0).getClass());
+		assertEquals(3, ids.size());
+	}
+
+	@Test
+	public void originalArgumentsNotModified() {
+		this.cache.put(1L, "cached1");
+		AtomicReference<Object[]> originalArguments = new AtomicReference<>();
+		List<Object> seenArguments = new ArrayList<>();
+		ProxyFactory proxyFactory = new ProxyFactory(this.target);
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+			originalArguments.set(invocation.getArguments());
+			return invocation.proceed();
+		});
+		proxyFactory.addAdvice(createInterceptor(new SimpleKeyGenerator()));
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+			seenArguments.add(originalArguments.get()[0]);
+			seenArguments.add(invocation.getArguments()[0]);
+			return invocation.proceed();
+		});
+		ItemService service = (ItemService) proxyFactory.getProxy();
+
+		List<Long> ids = Arrays.asList(1L, 2L);
+		service.findByIds(ids);
+		assertSame(ids, seenArguments.get(0));
+		assertEquals(Collections.singletonList(2L), seenArguments.get(1));
+	}
+
+	@Test
+	public void unsupportedParameterType() {
+		this.thrown.expect(IllegalStateException.class);
+		this.thrown.expectMessage("requires a parameter declared as Collection, List or Set");
+		this.service.findByQueue(new ArrayDeque<>(Arrays.asList(1L, 2L)));
+	}
+
+	@Test
+	public void missingValuesNotCached() {
+		Map<Long, String> result = this.service.findByIds(Arrays.asList(1L, 99L));
+		assertEquals(Collections.singleton(1L), result.keySet());
+		assertNull(this.cache.get(99L));
+	}
+
+	@Test
+	public void conditionNotPassing() {
+		this.cache.put(1L, "cached1");
+		Map<Long, String> result = this.service.findByIdsConditionally(Arrays.asList(1L, 2L), false);
+		assertEquals("item1", result.get(1L));
+		assertEquals(Collections.singletonList(Arrays.asList(1L, 2L)), this.target.invocations);
+	}
+
+	@Test
+	public void invalidReturnType() {
+		this.thrown.expect(IllegalStateException.class);
+		this.thrown.expectMessage("requires a Collection parameter and a Map return type");
+		this.service.findAsList(Arrays.asList(1L, 2L));
+	}
+
+	@Test
+	public void keyAttributeNotSupported() {
+		this.thrown.expect(IllegalStateException.class);
+		this.thrown.expectMessage("does not support key and unless attributes");
+		this.service.findWithKey(Arrays.asList(1L, 2L));
+	}
+
+	@Test
+	public void severalCachesNotSupported() {
+		this.thrown.expect(IllegalStateException.class);
+		this.thrown.expectMessage("only allows a single cache");
+		this.service.findInSeveralCaches(Arrays.asList(1L, 2L));
+	}
+
+
+	public interface ItemService {
+
+		Map<Long, String> findByIds(List<Long> ids);
+
+		Map<Long, String> findBySet(Set<Long> ids);
+
+		Map<Long, String> findByQueue(Queue<Long> ids);
+
+		Map<Long, String> findByIdsConditionally(Collection<Long> ids, boolean cache);
+
+		List<String> findAsList(Collection<Long> ids);
+
+		Map<Long, String> findWithKey(Collection<Long> ids);
+
+		Map<Long, String> findInSeveralCaches(Collection<Long> ids);
+	}
+
+
+	public static class ItemServiceImpl implements ItemService {
+
+		final List<Collection<Long>> invocations = new ArrayList<>();
+
+		@Override
+		@Cacheable(cacheNames = "items", multiKey = true)
+		public Map<Long, String> findByIds(List<Long> ids) {
+			return load(ids);
+		}
+
+		@Override
+		@Cacheable(cacheNames = "items", multiKey = true)
+		public Map<Long, String> findBySet(Set<Long> ids) {
+			return load(ids);
+		}
+
+		@Override
+		@Cacheable(cacheNames = "items", multiKey = true)
+		public Map<Long, String> findByQueue(Queue<Long> ids) {
+			return load(ids);
+		}
+
+		@Override
+		@Cacheable(cacheNames = "items", multiKey = true, condition = "#cache")
+		public Map<Long, String> findByIdsConditionally(Collection<Long> ids, boolean cache) {
+			return load(ids);
+		}
+
+		@Override
+		@Cacheable(cacheNames = "items", multiKey = true)
+		public List<String> findAsList(Collection<Long> ids) {
+			return new ArrayList<>(load(ids).values());
+		}
+
+		@Override
+		@Cacheable(cacheNames = "items", multiKey = true, key = "#ids")
+		public Map<Long, String> findWithKey(Collection<Long> ids) {
+			return load(ids);
+		}
+
+		@Override
+		@Cacheable(cacheNames = {"items", "other"}, multiKey = true)
+		public Map<Long, String> findInSeveralCaches(Collection<Long> ids) {
+			return load(ids);
+		}
+
+		private Map<Long, String> load(Collection<Long> ids) {
+			this.invocations.add(ids);
+			Map<Long, String> result = new LinkedHashMap<>();
+			for (Long id : ids) {
+				if (id < 10) {
+					result.put(id, "item" + id);
+				}
+			}
+			return result;
+		}
+	}
+
+}
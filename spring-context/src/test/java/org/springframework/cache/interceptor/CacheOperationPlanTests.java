@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per-method cache operation plan in {@link CacheAspectSupport}:
+ * reuse of resolved caches and compiled key expressions across invocations.
+ *
+ * @author agent
+ */
+public class CacheOperationPlanTests {
+
+	private final CountingCacheManager cacheManager = new CountingCacheManager();
+
+	private final CacheInterceptor interceptor = new CacheInterceptor();
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private SimpleService service;
+
+
+	@Before
+	public void setup() {
+		this.cacheManager.setCaches(Arrays.asList(new ConcurrentMapCache("test"), new ConcurrentMapCache("other")));
+		this.cacheManager.afterPropertiesSet();
+		this.interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		this.interceptor.setCacheManager(this.cacheManager);
+		this.service = createService(this.interceptor);
+	}
+
+	private SimpleService createService(CacheInterceptor interceptor) {
+		interceptor.afterPropertiesSet();
+		interceptor.afterSingletonsInstantiated();
+		ProxyFactory proxyFactory = new ProxyFactory(new CountingService(this.counter));
+		proxyFactory.addAdvice(interceptor);
+		return (SimpleService) proxyFactory.getProxy();
+	}
+
+
+	@Test
+	public void cachesResolvedAgainAfterReinitialization() {
+		assertEquals(Long.valueOf(1), this.service.get("key"));
+		Cache cache = new ConcurrentMapCache("test");
+		this.cacheManager.setCaches(Collections.singleton(cache));
+		this.cacheManager.initializeCaches();
+
+		assertEquals(Long.valueOf(2), this.service.get("key"));
+		assertEquals(Long.valueOf(2), this.service.get("key"));
+		assertEquals(2L, cache.get("key").get());
+	}
+
+	@Test
+	public void cacheManagerConsultedPerCall() {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Long.valueOf(1), this.service.get("key"));
+		}
+		assertEquals(1, this.counter.get());
+		assertTrue(this.cacheManager.lookups.get() >= 10);
+	}
+
+	@Test
+	public void overriddenGetCachesInvokedPerCall() {
+		AtomicInteger resolutions = new AtomicInteger();
+		CacheInterceptor interceptor = new CacheInterceptor() {
+			@Override
+			protected Collection<? extends Cache> getCaches(
+					CacheOperationInvocationContext<CacheOperation> context, CacheResolver cacheResolver) {
+				resolutions.incrementAndGet();
+				return super.getCaches(context, cacheResolver);
+			}
+		};
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.setCacheManager(this.cacheManager);
+		SimpleService service = createService(interceptor);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Long.valueOf(1), service.get("key"));
+		}
+		assertEquals(10, resolutions.get());
+	}
+
+	@Test
+	public void customCacheResolverInvokedPerCall() {
+		AtomicInteger resolutions = new AtomicInteger();
+		Cache cache = this.cacheManager.getCache("test");
+		this.interceptor.setCacheResolver(context -> {
+			resolutions.incrementAndGet();
+			return Collections.singleton(cache);
+		});
+		SimpleService service = createService(this.interceptor);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Long.valueOf(1), service.get("key"));
+		}
+		assertEquals(10, resolutions.get());
+	}
+
+	@Test
+	public void compiledKeyExpressionWithChangingArgumentTypes() {
+		for (int i = 0; i < 300; i++) {
+			Object key = (i % 2 == 0 ? "key" + i : Integer.valueOf(i));
+			long value = this.service.getWithKeyExpression(key);
+			assertEquals(Long.valueOf(value), this.service.getWithKeyExpression(key));
+		}
+		assertEquals(300, this.counter.get());
+		assertNotNull(this.cacheManager.getCache("test").get("key0"));
+		assertNotNull(this.cacheManager.getCache("test").get(299));
+	}
+
+	@Test
+	public void cacheHitPerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+		assertEquals(Long.valueOf(1), this.service.get("key"));
+		assertEquals(Long.valueOf(1), this.service.getWithKeyExpression("key"));
+
+		StopWatch sw = new StopWatch();
+		sw.start("default key");
+		for (int i = 0; i < 1000000; i++) {
+			this.service.get("key");
+		}
+		sw.stop();
+		sw.start("key expression");
+		for (int i = 0; i < 1000000; i++) {
+			this.service.getWithKeyExpression("key");
+		}
+		sw.stop();
+		assertEquals("All calls after the first one should be cache hits", 1, this.counter.get());
+		StopWatch.TaskInfo[] tasks = sw.getTaskInfo();
+		assertTrue("Key expression evaluation should not dominate cache hits: " + sw.prettyPrint(),
+				tasks[1].getTimeMillis() < 3 * tasks[0].getTimeMillis());
+	}
+
+
+	public interface SimpleService {
+
+		@Cacheable("test")
+		Long get(Object key);
+
+		@Cacheable(cacheNames = "test", key = "#p0", condition = "#p0 != null")
+		Long getWithKeyExpression(Object key);
+
+		@CacheEvict("test")
+		void evict(Object key);
+	}
+
+
+	private static class CountingService implements SimpleService {
+
+		private final AtomicInteger counter;
+
+		public CountingService(AtomicInteger counter) {
+			this.counter = counter;
+		}
+
+		@Override
+		public Long get(Object key) {
+			return (long) this.counter.incrementAndGet();
+		}
+
+		@Override
+		public Long getWithKeyExpression(Object key) {
+			return (long) this.counter.incrementAndGet();
+		}
+
+		@Override
+		public void evict(Object key) {
+		}
+	}
+
+
+	private static class CountingCacheManager extends SimpleCacheManager {
+
+		private final AtomicInteger lookups = new AtomicInteger();
+
+		@Override
+		public Cache getCache(String name) {
+			this.lookups.incrementAndGet();
+			return super.getCache(name);
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.cache.Cache;
+import org.springframework.cache.MutableClock;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.BoundedConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.lang.Nullable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for refresh-ahead of cached values via
+ * {@link CacheableOperation#getRefreshAfterWrite()}.
+ *
+ * @author agent
+ */
+public class CacheRefreshAheadTests {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final List<Runnable> refreshTasks = new ArrayList<>();
+
+	private final CountingService target = new CountingService();
+
+	private SimpleService service;
+
+
+	@Before
+	public void setup() {
+		this.service = createService(BoundedConcurrentMapCache.builder("test")
+				.expireAfterWrite(Duration.ofSeconds(10)).clock(this.clock).build());
+	}
+
+	private SimpleService createService(Cache cache) {
+		return createService(cache, this.refreshTasks::add);
+	}
+
+	private SimpleService createService(Cache cache, @Nullable Executor refreshExecutor) {
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(Arrays.asList(cache));
+		cacheManager.afterPropertiesSet();
+
+		CacheInterceptor interceptor = new CacheInterceptor();
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.setCacheManager(cacheManager);
+		interceptor.setRefreshExecutor(refreshExecutor);
+		interceptor.afterPropertiesSet();
+		interceptor.afterSingletonsInstantiated();
+
+		ProxyFactory proxyFactory = new ProxyFactory(this.target);
+		proxyFactory.addAdvice(interceptor);
+		return (SimpleService) proxyFactory.getProxy();
+	}
+
+
+	@Test
+	public void staleValueServedWhileRefreshing() {
+		assertEquals(1, this.service.get("key"));
+		this.clock.advance(500);
+		assertEquals(1, this.service.get("key"));
+		assertTrue(this.refreshTasks.isEmpty());
+
+		this.clock.advance(600);
+		assertEquals(1, this.service.get("key"));
+		assertEquals(1, this.service.get("key"));
+		assertEquals("Only one refresh per entry at a time", 1, this.refreshTasks.size());
+		assertEquals(1, this.target.counter.get());
+
+		runRefreshTasks();
+		assertEquals(2, this.target.counter.get());
+		assertEquals(2, this.service.get("key"));
+		assertTrue(this.refreshTasks.isEmpty());
+	}
+
+	@Test
+	public void staleValueServedWhileRefreshingWithSync() {
+		assertEquals(1, this.service.getSync("key"));
+		this.clock.advance(1500);
+		assertEquals(1, this.service.getSync("key"));
+		assertEquals(1, this.service.getSync("key"));
+		assertEquals(1, this.refreshTasks.size());
+
+		runRefreshTasks();
+		assertEquals(2, this.service.getSync("key"));
+		assertTrue(this.refreshTasks.isEmpty());
+	}
+
+	@Test
+	public void failedRefreshKeepsStaleValue() {
+		assertEquals(1, this.service.get("key"));
+		this.clock.advance(1500);
+		this.target.failing = true;
+		assertEquals(1, this.service.get("key"));
+		runRefreshTasks();
+		assertEquals(1, this.service.get("key"));
+
+		// A subsequent access schedules another refresh
+		assertEquals(1, this.refreshTasks.size());
+		this.target.failing = false;
+		runRefreshTasks();
+		assertEquals(3, this.service.get("key"));
+	}
+
+	@Test
+	public void noRefreshWithoutWriteTime() {
+		SimpleService service = createService(new ConcurrentMapCache("test"));
+		assertEquals(1, service.get("key"));
+		this.clock.advance(1500);
+		assertEquals(1, service.get("key"));
+		assertTrue(this.refreshTasks.isEmpty());
+	}
+
+	@Test
+	public void noRefreshWithoutRefreshAfterWrite() {
+		assertEquals(1, this.service.getWithoutRefresh("key"));
+		this.clock.advance(5000);
+		assertEquals(1, this.service.getWithoutRefresh("key"));
+		assertTrue(this.refreshTasks.isEmpty());
+	}
+
+	@Test
+	public void refreshRequiresExecutor() {
+		SimpleService service = createService(new ConcurrentMapCache("test"), null);
+		assertEquals(1, service.getWithoutRefresh("key"));
+		try {
+			service.get("key");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("refresh executor"));
+		}
+	}
+
+	@Test
+	public void refreshWithoutExecutorRejectedAtStartup() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("service", new RootBeanDefinition(CountingService.class));
+		beanFactory.preInstantiateSingletons();
+
+		CacheInterceptor interceptor = new CacheInterceptor();
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.setCacheManager(new SimpleCacheManager());
+		interceptor.setBeanFactory(beanFactory);
+		interceptor.afterPropertiesSet();
+		try {
+			interceptor.afterSingletonsInstantiated();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("refresh executor"));
+			assertTrue(ex.getMessage().contains("'service'"));
+		}
+
+		interceptor.setRefreshExecutor(this.refreshTasks::add);
+		interceptor.afterSingletonsInstantiated();
+	}
+
+
+
+	private void runRefreshTasks() {
+		List<Runnable> tasks = new ArrayList<>(this.refreshTasks);
+		this.refreshTasks.clear();
+		tasks.forEach(Runnable::run);
+	}
+
+
+	public interface SimpleService {
+
+		Object get(Object key);
+
+		Object getSync(Object key);
+
+		Object getWithoutRefresh(Object key);
+	}
+
+
+	public static class CountingService implements SimpleService {
+
+		final AtomicInteger counter = new AtomicInteger();
+
+		volatile boolean failing;
+
+		@Override
+		@Cacheable(cacheNames = "test", refreshAfterWrite = 1000)
+		public Object get(Object key) {
+			int count = this.counter.incrementAndGet();
+			if (this.failing) {
+				throw new IllegalStateException("Refresh failed");
+			}
+			return count;
+		}
+
+		@Override
+		@Cacheable(cacheNames = "test", refreshAfterWrite = 1000, sync = true)
+		public Object getSync(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Override
+		@Cacheable(cacheNames = "test")
+		public Object getWithoutRefresh(Object key) {
+			return this.counter.incrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.lang.Nullable;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class CoalescingCacheLoaderTests {
+
+	private final CoalescingCacheLoader loader = new CoalescingCacheLoader();
+
+	private final Cache cache = new ConcurrentMapCache("test");
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void cacheHitDoesNotInvokeLoader() {
+		this.cache.put("key", "cached");
+		assertEquals("cached", this.loader.get(this.cache, "key", () -> {
+			throw new IllegalStateException("Should not be called");
+		}));
+	}
+
+	@Test
+	public void loadedValueIsStored() {
+		assertEquals("value", this.loader.get(this.cache, "key", () -> "value"));
+		assertEquals("value", this.cache.get("key").get());
+		assertEquals(0, this.loader.getLoadsInProgress());
+	}
+
+	@Test
+	public void concurrentLoadsOfSameKeyAreCoalesced() throws Exception {
+		AtomicInteger invocations = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<Object> leader = this.executor.submit(() -> this.loader.get(this.cache, "key", () -> {
+			invocations.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "value";
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+		List<Future<Object>> waiters = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			waiters.add(this.executor.submit(() -> this.loader.get(this.cache, "key", () -> {
+				invocations.incrementAndGet();
+				return "other";
+			})));
+		}
+		release.countDown();
+
+		assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+		for (Future<Object> waiter : waiters) {
+			assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, invocations.get());
+		assertEquals(0, this.loader.getLoadsInProgress());
+	}
+
+	@Test
+	public void unrelatedKeysAreNotBlocked() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<Object> slow = this.executor.submit(() -> this.loader.get(this.cache, "slow", () -> {
+			loading.countDown();
+			release.await();
+			return "slow";
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		try {
+			assertEquals("fast", this.loader.get(this.cache, "fast", () -> "fast"));
+			assertFalse(slow.isDone());
+		}
+		finally {
+			release.countDown();
+		}
+		assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void waiterTimesOut() throws Exception {
+		this.loader.setWaitTimeout(50);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<Object> leader = this.executor.submit(() -> this.loader.get(this.cache, "key", () -> {
+			loading.countDown();
+			release.await();
+			return "value";
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		try {
+			this.loader.get(this.cache, "key", () -> "other");
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertTrue(ex.getCause() instanceof TimeoutException);
+			assertEquals("key", ex.getKey());
+		}
+		finally {
+			release.countDown();
+		}
+		assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("value", this.cache.get("key").get());
+	}
+
+	@Test
+	public void loaderFailurePropagatesToWaiters() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("Load failed");
+		Future<Object> leader = this.executor.submit(() -> this.loader.get(this.cache, "key", () -> {
+			loading.countDown();
+			release.await();
+			throw failure;
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		Future<Object> waiter = this.executor.submit(() -> this.loader.get(this.cache, "key", () -> {
+			throw failure;
+		}));
+		release.countDown();
+
+		assertSame(failure, getRetrievalFailure(leader).getCause());
+		assertSame(failure, getRetrievalFailure(waiter).getCause());
+		assertNull(this.cache.get("key"));
+		assertEquals(0, this.loader.getLoadsInProgress());
+	}
+
+	@Test
+	public void recursiveLoadOfSameKey() {
+		try {
+			this.loader.get(this.cache, "key", () -> this.loader.get(this.cache, "key", () -> "value"));
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(0, this.loader.getLoadsInProgress());
+	}
+
+	@Test
+	public void interceptorDelegatesToCacheByDefault() {
+		CountingCache countingCache = new CountingCache();
+		SyncService service = createSyncService(countingCache, null);
+
+		assertEquals("value", service.get("key"));
+		assertEquals("value", service.get("key"));
+		assertEquals(2, countingCache.loadingGets.get());
+		assertEquals("value", countingCache.get("key").get());
+	}
+
+	@Test
+	public void interceptorUsesSpecifiedLoader() {
+		CountingCache countingCache = new CountingCache();
+		SyncService service = createSyncService(countingCache, this.loader);
+
+		assertEquals("value", service.get("key"));
+		assertEquals("value", service.get("key"));
+		assertEquals(0, countingCache.loadingGets.get());
+		assertEquals("value", countingCache.get("key").get());
+	}
+
+
+	private static Cache.ValueRetrievalException getRetrievalFailure(Future<Object> future) throws Exception {
+		try {
+			Object value = future.get(5, TimeUnit.SECONDS);
+			throw new AssertionError("Expected failure but got " + value);
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof Cache.ValueRetrievalException);
+			return (Cache.ValueRetrievalException) ex.getCause();
+		}
+	}
+
+	private SyncService createSyncService(Cache cache, @Nullable CoalescingCacheLoader loader) {
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(Collections.singletonList(cache));
+		cacheManager.afterPropertiesSet();
+
+		CacheInterceptor interceptor = new CacheInterceptor();
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.setCacheManager(cacheManager);
+		interceptor.setCoalescingCacheLoader(loader);
+		interceptor.afterPropertiesSet();
+		interceptor.afterSingletonsInstantiated();
+
+		ProxyFactory proxyFactory = new ProxyFactory(new SyncService());
+		proxyFactory.addAdvice(interceptor);
+		return (SyncService) proxyFactory.getProxy();
+	}
+
+
+	public static class SyncService {
+
+		@Cacheable(cacheNames = "test", sync = true)
+		public String get(String key) {
+			return "value";
+		}
+	}
+
+
+	private static class CountingCache extends ConcurrentMapCache {
+
+		final AtomicInteger loadingGets = new AtomicInteger();
+
+		CountingCache() {
+			super("test");
+		}
+
+		@Override
+		public <T> T get(Object key, Callable<T> valueLoader) {
+			this.loadingGets.incrementAndGet();
+			return super.get(key, valueLoader);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -140,6 +140,19 @@ public class ExpressionEvaluatorTests {
 		assertThat(value, is(String.class.getName()));
 	}
 
+	@Test
+	public void sharedDelegatesAcrossEvaluationContexts() {
+		EvaluationContext context1 = createEvaluationContext("result1");
+		EvaluationContext context2 = createEvaluationContext("result2");
+		assertNotSame(context1, context2);
+		assertNotSame(context1.getPropertyAccessors(), context2.getPropertyAccessors());
+		assertSame(context1.getPropertyAccessors().get(0), context2.getPropertyAccessors().get(0));
+		assertSame(context1.getMethodResolvers().get(0), context2.getMethodResolvers().get(0));
+		assertSame(context1.getTypeConverter(), context2.getTypeConverter());
+		assertThat(new SpelExpressionParser().parseExpression("#result").getValue(context1), is("result1"));
+		assertThat(new SpelExpressionParser().parseExpression("#result").getValue(context2), is("result2"));
+	}
+
 	private EvaluationContext createEvaluationContext(Object result) {
 		return createEvaluationContext(result, null);
 	}
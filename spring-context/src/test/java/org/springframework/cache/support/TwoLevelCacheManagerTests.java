@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TwoLevelCacheManager}, simulating two processes
+ * sharing a remote cache.
+ *
+ * @author agent
+ */
+public class TwoLevelCacheManagerTests {
+
+	private final SimpleCacheManager remoteCacheManager = new SimpleCacheManager();
+
+	private final SimpleCacheInvalidationChannel channel = new SimpleCacheInvalidationChannel();
+
+	private TwoLevelCacheManager node1;
+
+	private TwoLevelCacheManager node2;
+
+
+	@Before
+	public void setup() {
+		this.remoteCacheManager.setCaches(Collections.singletonList(new ConcurrentMapCache("remote")));
+		this.remoteCacheManager.afterPropertiesSet();
+		this.node1 = createNode();
+		this.node2 = createNode();
+	}
+
+	private TwoLevelCacheManager createNode() {
+		ConcurrentMapCacheManager localCacheManager = new ConcurrentMapCacheManager();
+		localCacheManager.setMaximumSize(100);
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(localCacheManager, this.remoteCacheManager);
+		cacheManager.setInvalidationChannel(this.channel);
+		return cacheManager;
+	}
+
+
+	@Test
+	public void twoLevelCachePerRemoteCache() {
+		Cache cache = this.node1.getCache("remote");
+		assertTrue(cache instanceof TwoLevelCache);
+		assertSame(cache, this.node1.getCache("remote"));
+		assertEquals("remote", cache.getName());
+		assertNull(this.node1.getCache("unknown"));
+		assertEquals(Collections.singleton("remote"), this.node1.getCacheNames());
+	}
+
+	@Test
+	public void remoteCacheExposedWithoutLocalCache() {
+		CacheManager localCacheManager = new ConcurrentMapCacheManager("other");
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(localCacheManager, this.remoteCacheManager);
+		assertSame(this.remoteCacheManager.getCache("remote"), cacheManager.getCache("remote"));
+	}
+
+	@Test
+	public void putInvalidatesOtherLocalCaches() {
+		TwoLevelCache cache1 = (TwoLevelCache) this.node1.getCache("remote");
+		TwoLevelCache cache2 = (TwoLevelCache) this.node2.getCache("remote");
+		cache1.put("key", "v1");
+		assertEquals("v1", cache2.get("key").get());
+		assertEquals("v1", cache2.getLocalCache().get("key").get());
+
+		cache1.put("key", "v2");
+		assertEquals("v2", cache1.getLocalCache().get("key").get());
+		assertNull(cache2.getLocalCache().get("key"));
+		assertEquals("v2", cache2.get("key").get());
+
+		assertEquals(0, cache1.getLocalStatistics().getEvictionCount());
+		assertEquals(2, cache2.getLocalStatistics().getEvictionCount());
+		assertEquals(new CacheStatistics(2, 0, 0, 0), cache2.getRemoteStatistics());
+	}
+
+	@Test
+	public void evictAndClearInvalidateOtherLocalCaches() {
+		TwoLevelCache cache1 = (TwoLevelCache) this.node1.getCache("remote");
+		TwoLevelCache cache2 = (TwoLevelCache) this.node2.getCache("remote");
+		cache1.putAll(Collections.singletonMap("a", "valueA"));
+		cache1.put("b", "valueB");
+		cache2.getAll(Arrays.asList("a", "b"));
+		assertEquals(2, cache2.getLocalStatistics().getMissCount());
+
+		cache1.evict("a");
+		assertNull(cache2.getLocalCache().get("a"));
+		assertNotNull(cache2.getLocalCache().get("b"));
+		assertNull(cache2.get("a"));
+
+		cache1.clear();
+		assertNull(cache2.getLocalCache().get("b"));
+		assertNull(cache2.get("b"));
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.AbstractCacheTests;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class TwoLevelCacheTests extends AbstractCacheTests<TwoLevelCache> {
+
+	private ConcurrentMap<Object, Object> nativeCache;
+
+	private ConcurrentMapCache localCache;
+
+	private ConcurrentMapCache remoteCache;
+
+	private TwoLevelCache cache;
+
+
+	@Before
+	public void setup() {
+		this.nativeCache = new ConcurrentHashMap<>();
+		this.localCache = new ConcurrentMapCache(CACHE_NAME);
+		this.remoteCache = new ConcurrentMapCache(CACHE_NAME, this.nativeCache, true);
+		this.cache = new TwoLevelCache(this.localCache, this.remoteCache);
+	}
+
+	@Override
+	protected TwoLevelCache getCache() {
+		return this.cache;
+	}
+
+	@Override
+	protected Object getNativeCache() {
+		return this.nativeCache;
+	}
+
+
+	@Test
+	public void remoteHitPopulatesLocalCache() {
+		this.remoteCache.put("key", "value");
+		assertNull(this.localCache.get("key"));
+
+		assertEquals("value", this.cache.get("key").get());
+		assertEquals("value", this.localCache.get("key").get());
+		this.remoteCache.evict("key");
+		assertEquals("value", this.cache.get("key").get());
+
+		assertEquals(new CacheStatistics(1, 1, 1, 0), this.cache.getLocalStatistics());
+		assertEquals(new CacheStatistics(1, 0, 0, 0), this.cache.getRemoteStatistics());
+	}
+
+	@Test
+	public void remoteHitNotRetainedAfterConcurrentInvalidation() {
+		ConcurrentMapCache remoteCache = new ConcurrentMapCache(CACHE_NAME) {
+			@Override
+			public ValueWrapper get(Object key) {
+				ValueWrapper wrapper = super.get(key);
+				// Invalidation arriving while the remote lookup is in progress
+				cache.invalidateLocally(key);
+				return wrapper;
+			}
+		};
+		remoteCache.put("key", "stale");
+		this.cache = new TwoLevelCache(this.localCache, remoteCache);
+
+		assertEquals("stale", this.cache.get("key").get());
+		assertNull(this.localCache.get("key"));
+	}
+
+	@Test
+	public void putCountedOnRemoteLevelOnly() {
+		this.cache.put("key", "value");
+		this.cache.putAll(Collections.singletonMap("key2", "value2"));
+		assertEquals(new CacheStatistics(0, 0, 0, 0), this.cache.getLocalStatistics());
+		assertEquals(new CacheStatistics(0, 0, 2, 0), this.cache.getRemoteStatistics());
+	}
+
+	@Test
+	public void missCountedOnBothLevels() {
+		assertNull(this.cache.get("key"));
+		assertEquals(new CacheStatistics(0, 1, 0, 0), this.cache.getLocalStatistics());
+		assertEquals(new CacheStatistics(0, 1, 0, 0), this.cache.getRemoteStatistics());
+	}
+
+	@Test
+	public void loadedValueStoredInBothLevels() {
+		assertEquals("value", this.cache.get("key", () -> "value"));
+		assertEquals("value", this.localCache.get("key").get());
+		assertEquals("value", this.remoteCache.get("key").get());
+	}
+
+	@Test
+	public void putAndEvictAppliedToBothLevels() {
+		this.cache.put("key", "value");
+		assertEquals("value", this.localCache.get("key").get());
+		assertEquals("value", this.remoteCache.get("key").get());
+		this.cache.evict("key");
+		assertNull(this.localCache.get("key"));
+		assertNull(this.remoteCache.get("key"));
+	}
+
+	@Test
+	public void getAllCombinesLevels() {
+		this.localCache.put("a", "localA");
+		this.remoteCache.put("a", "remoteA");
+		this.remoteCache.put("b", "remoteB");
+
+		assertEquals(Arrays.asList("a", "b"),
+				Arrays.asList(this.cache.getAll(Arrays.asList("a", "b", "c")).keySet().toArray()));
+		assertEquals("localA", this.cache.getAll(Arrays.asList("a")).get("a").get());
+		assertEquals("remoteB", this.localCache.get("b").get());
+		assertEquals(new CacheStatistics(2, 2, 1, 0), this.cache.getLocalStatistics());
+		assertEquals(new CacheStatistics(1, 1, 0, 0), this.cache.getRemoteStatistics());
+	}
+
+	@Test
+	public void getAllWithDuplicateKeys() {
+		this.localCache.put("a", "localA");
+		this.remoteCache.put("b", "remoteB");
+
+		assertEquals(1, this.cache.getAll(Arrays.asList("a", "a")).size());
+		assertEquals(new CacheStatistics(0, 0, 0, 0), this.cache.getRemoteStatistics());
+		assertEquals(Arrays.asList("b", "a"),
+				Arrays.asList(this.cache.getAll(Arrays.asList("b", "a", "b")).keySet().toArray()));
+		assertEquals(new CacheStatistics(1, 0, 0, 0), this.cache.getRemoteStatistics());
+	}
+
+}
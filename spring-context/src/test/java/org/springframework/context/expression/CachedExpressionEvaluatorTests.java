@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,10 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.Test;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.util.ReflectionUtils;
 
@@ -64,6 +67,32 @@ public class CachedExpressionEvaluatorTests {
 		assertEquals("Cached expression should be based on type", 2, expressionEvaluator.testCache.size());
 	}
 
+	@Test
+	public void defaultParserInterpretsExpressions() {
+		CachedExpressionEvaluator evaluator = new CachedExpressionEvaluator() {};
+		SpelExpression expression = (SpelExpression) evaluator.getParser().parseExpression("4 + 5");
+		for (int i = 0; i <= SpelParserConfiguration.DEFAULT_COMPILATION_THRESHOLD; i++) {
+			assertEquals(9, expression.getValue());
+		}
+		assertEquals(SpelExpression.CompilationState.INTERPRETED, expression.getCompilationState());
+	}
+
+	@Test
+	public void defaultParserWithMixedCompilerMode() {
+		SpringProperties.setProperty(CachedExpressionEvaluator.COMPILER_MODE_PROPERTY_NAME, "mixed");
+		try {
+			CachedExpressionEvaluator evaluator = new CachedExpressionEvaluator() {};
+			SpelExpression expression = (SpelExpression) evaluator.getParser().parseExpression("4 + 5");
+			for (int i = 0; i <= SpelParserConfiguration.DEFAULT_COMPILATION_THRESHOLD; i++) {
+				assertEquals(9, expression.getValue());
+			}
+			assertEquals(SpelExpression.CompilationState.COMPILED, expression.getCompilationState());
+		}
+		finally {
+			SpringProperties.setProperty(CachedExpressionEvaluator.COMPILER_MODE_PROPERTY_NAME, null);
+		}
+	}
+
 	private void hasParsedExpression(String expression) {
 		verify(expressionEvaluator.getParser(), times(1)).parseExpression(expression);
 	}
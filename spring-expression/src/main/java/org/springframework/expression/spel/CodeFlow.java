@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -85,9 +85,16 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * When code generation requires an intermediate variable within a method,
-	 * this method records the next available variable (variable 0 is 'this').
+	 * this method records the next available variable (variable 0 is 'this',
+	 * variables 1 and 2 are the target and the EvaluationContext).
 	 */
-	private int nextFreeVariableId = 1;
+	private int nextFreeVariableId = 3;
+
+	/**
+	 * Local variables holding the active context object for nested evaluation,
+	 * e.g. the current element during a collection selection or projection.
+	 */
+	private final Deque<Integer> activeContextObjects = new ArrayDeque<>();
 
 
 	/**
@@ -105,11 +112,34 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * Push the byte code to load the target (i.e. what was passed as the first argument
-	 * to CompiledExpression.getValue(target, context))
+	 * to CompiledExpression.getValue(target, context)), or the active context object
+	 * if one has been set through {@link #enterActiveContextObject}.
 	 * @param mv the visitor into which the load instruction should be inserted
 	 */
 	public void loadTarget(MethodVisitor mv) {
-		mv.visitVarInsn(ALOAD, 1);
+		Integer variableId = this.activeContextObjects.peek();
+		mv.visitVarInsn(ALOAD, (variableId != null ? variableId : 1));
+	}
+
+	/**
+	 * Use the object held in the specified local variable as the target for
+	 * subsequent {@link #loadTarget} calls, until {@link #exitActiveContextObject}
+	 * is called. For example, a collection selection uses this to evaluate its
+	 * selection criteria against each element.
+	 * <p>Variable 1 refers to the root object, i.e. the original target.
+	 * @param variableId the local variable holding the active context object
+	 * @since 5.0.16
+	 */
+	public void enterActiveContextObject(int variableId) {
+		this.activeContextObjects.push(variableId);
+	}
+
+	/**
+	 * Revert to the previous target after {@link #enterActiveContextObject}.
+	 * @since 5.0.16
+	 */
+	public void exitActiveContextObject() {
+		this.activeContextObjects.pop();
 	}
 
 	/**
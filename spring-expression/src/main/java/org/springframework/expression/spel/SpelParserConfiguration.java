@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.expression.spel;
 
 import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * Configuration object for the SpEL expression parser.
@@ -30,6 +31,13 @@ import org.springframework.lang.Nullable;
  */
 public class SpelParserConfiguration {
 
+	/**
+	 * Default number of interpreted evaluations after which an expression
+	 * gets compiled in {@link SpelCompilerMode#MIXED} mode.
+	 * @since 5.0.16
+	 */
+	public static final int DEFAULT_COMPILATION_THRESHOLD = 100;
+
 	private static final SpelCompilerMode defaultCompilerMode;
 
 	static {
@@ -44,6 +52,8 @@ public class SpelParserConfiguration {
 	@Nullable
 	private final ClassLoader compilerClassLoader;
 
+	private final int compilationThreshold;
+
 	private final boolean autoGrowNullReferences;
 
 	private final boolean autoGrowCollections;
@@ -67,6 +77,20 @@ public class SpelParserConfiguration {
 		this(compilerMode, compilerClassLoader, false, false, Integer.MAX_VALUE);
 	}
 
+	/**
+	 * Create a new {@code SpelParserConfiguration} instance.
+	 * @param compilerMode the compiler mode for the parser
+	 * @param compilerClassLoader the ClassLoader to use as the basis for expression compilation
+	 * @param compilationThreshold the number of interpreted evaluations after which
+	 * an expression gets compiled in {@link SpelCompilerMode#MIXED} mode
+	 * @since 5.0.16
+	 */
+	public SpelParserConfiguration(@Nullable SpelCompilerMode compilerMode, @Nullable ClassLoader compilerClassLoader,
+			int compilationThreshold) {
+
+		this(compilerMode, compilerClassLoader, false, false, Integer.MAX_VALUE, compilationThreshold);
+	}
+
 	/**
 	 * Create a new {@code SpelParserConfiguration} instance.
 	 * @param autoGrowNullReferences if null references should automatically grow
@@ -98,11 +122,32 @@ public class SpelParserConfiguration {
 	public SpelParserConfiguration(@Nullable SpelCompilerMode compilerMode, @Nullable ClassLoader compilerClassLoader,
 			boolean autoGrowNullReferences, boolean autoGrowCollections, int maximumAutoGrowSize) {
 
+		this(compilerMode, compilerClassLoader, autoGrowNullReferences, autoGrowCollections, maximumAutoGrowSize,
+				DEFAULT_COMPILATION_THRESHOLD);
+	}
+
+	/**
+	 * Create a new {@code SpelParserConfiguration} instance.
+	 * @param compilerMode the compiler mode that parsers using this configuration object should use
+	 * @param compilerClassLoader the ClassLoader to use as the basis for expression compilation
+	 * @param autoGrowNullReferences if null references should automatically grow
+	 * @param autoGrowCollections if collections should automatically grow
+	 * @param maximumAutoGrowSize the maximum size that the collection can auto grow
+	 * @param compilationThreshold the number of interpreted evaluations after which
+	 * an expression gets compiled in {@link SpelCompilerMode#MIXED} mode
+	 * @since 5.0.16
+	 */
+	public SpelParserConfiguration(@Nullable SpelCompilerMode compilerMode, @Nullable ClassLoader compilerClassLoader,
+			boolean autoGrowNullReferences, boolean autoGrowCollections, int maximumAutoGrowSize,
+			int compilationThreshold) {
+
+		Assert.isTrue(compilationThreshold >= 0, "Compilation threshold must not be negative");
 		this.compilerMode = (compilerMode != null ? compilerMode : defaultCompilerMode);
 		this.compilerClassLoader = compilerClassLoader;
 		this.autoGrowNullReferences = autoGrowNullReferences;
 		this.autoGrowCollections = autoGrowCollections;
 		this.maximumAutoGrowSize = maximumAutoGrowSize;
+		this.compilationThreshold = compilationThreshold;
 	}
 
 
@@ -121,6 +166,15 @@ public class SpelParserConfiguration {
 		return this.compilerClassLoader;
 	}
 
+	/**
+	 * Return the number of interpreted evaluations after which an expression
+	 * gets compiled in {@link SpelCompilerMode#MIXED} mode.
+	 * @since 5.0.16
+	 */
+	public int getCompilationThreshold() {
+		return this.compilationThreshold;
+	}
+
 	/**
 	 * Return {@code true} if {@code null} references should be automatically grown.
 	 */
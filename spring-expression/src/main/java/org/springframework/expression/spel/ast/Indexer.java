@@ -89,6 +89,8 @@ public class Indexer extends SpelNodeImpl {
 	@Nullable
 	private IndexedType indexedType;
 
+	private volatile boolean mapKeyConverted;
+
 
 	public Indexer(int pos, SpelNodeImpl expr) {
 		super(pos, expr);
@@ -152,6 +154,8 @@ public class Indexer extends SpelNodeImpl {
 			if (targetDescriptor.getMapKeyTypeDescriptor() != null) {
 				key = state.convertValue(key, targetDescriptor.getMapKeyTypeDescriptor());
 			}
+			// A converted key cannot be reproduced in compiled code
+			this.mapKeyConverted = (key == null || key.getClass() != index.getClass());
 			this.indexedType = IndexedType.MAP;
 			return new MapIndexingValueRef(state.getTypeConverter(), (Map<?, ?>) target, key, targetDescriptor);
 		}
@@ -174,6 +178,7 @@ public class Indexer extends SpelNodeImpl {
 			}
 			else {
 				this.indexedType = IndexedType.STRING;
+				this.exitTypeDescriptor = "Ljava/lang/String";
 				return new StringIndexingLValue((String) target, idx, targetDescriptor);
 			}
 		}
@@ -194,13 +199,14 @@ public class Indexer extends SpelNodeImpl {
 	@Override
 	public boolean isCompilable() {
 		if (this.indexedType == IndexedType.ARRAY) {
-			return (this.exitTypeDescriptor != null);
+			return (this.exitTypeDescriptor != null && isCompilableIndex());
 		}
-		else if (this.indexedType == IndexedType.LIST) {
-			return this.children[0].isCompilable();
+		else if (this.indexedType == IndexedType.LIST || this.indexedType == IndexedType.STRING) {
+			return isCompilableIndex();
 		}
 		else if (this.indexedType == IndexedType.MAP) {
-			return (this.children[0] instanceof PropertyOrFieldReference || this.children[0].isCompilable());
+			return (this.children[0] instanceof PropertyOrFieldReference ||
+					(this.children[0].isCompilable() && !this.mapKeyConverted));
 		}
 		else if (this.indexedType == IndexedType.OBJECT) {
 			// If the string name is changing the accessor is clearly going to change (so no compilation possible)
@@ -211,6 +217,17 @@ public class Indexer extends SpelNodeImpl {
 		return false;
 	}
 
+	/**
+	 * Determine whether the index expression can be compiled into
+	 * an {@code int} value for list, array and string access.
+	 */
+	private boolean isCompilableIndex() {
+		SpelNodeImpl index = this.children[0];
+		String indexDescriptor = index.exitTypeDescriptor;
+		return (index.isCompilable() && (CodeFlow.isPrimitiveOrUnboxableSupportedNumber(indexDescriptor) ||
+				"Ljava/lang/Object".equals(indexDescriptor)));
+	}
+
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
 		String descriptor = cf.lastDescriptor();
@@ -255,21 +272,23 @@ public class Indexer extends SpelNodeImpl {
 						//depthPlusOne(exitTypeDescriptor)+"Ljava/lang/Object;");
 				insn = AALOAD;
 			}
-			SpelNodeImpl index = this.children[0];
-			cf.enterCompilationScope();
-			index.generateCode(mv, cf);
-			cf.exitCompilationScope();
+			generateIndexCode(mv, cf);
 			mv.visitInsn(insn);
 		}
 
 		else if (this.indexedType == IndexedType.LIST) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/List");
-			cf.enterCompilationScope();
-			this.children[0].generateCode(mv, cf);
-			cf.exitCompilationScope();
+			generateIndexCode(mv, cf);
 			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
 		}
 
+		else if (this.indexedType == IndexedType.STRING) {
+			mv.visitTypeInsn(CHECKCAST, "java/lang/String");
+			generateIndexCode(mv, cf);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "charAt", "(I)C", false);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(C)Ljava/lang/String;", false);
+		}
+
 		else if (this.indexedType == IndexedType.MAP) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/Map");
 			// Special case when the key is an unquoted string literal that will be parsed as
@@ -281,7 +300,10 @@ public class Indexer extends SpelNodeImpl {
 			}
 			else {
 				cf.enterCompilationScope();
+				cf.enterActiveContextObject(1);
 				this.children[0].generateCode(mv, cf);
+				CodeFlow.insertBoxIfNecessary(mv, cf.lastDescriptor());
+				cf.exitActiveContextObject();
 				cf.exitCompilationScope();
 			}
 			mv.visitMethodInsn(
@@ -318,6 +340,19 @@ public class Indexer extends SpelNodeImpl {
 		cf.pushDescriptor(this.exitTypeDescriptor);
 	}
 
+	/**
+	 * Generate the code for the index expression, evaluated against the
+	 * root object (as in {@link #getValueRef}) and coerced to an {@code int}.
+	 */
+	private void generateIndexCode(MethodVisitor mv, CodeFlow cf) {
+		cf.enterCompilationScope();
+		cf.enterActiveContextObject(1);
+		this.children[0].generateCode(mv, cf);
+		CodeFlow.insertNumericUnboxOrPrimitiveTypeCoercion(mv, cf.lastDescriptor(), 'I');
+		cf.exitActiveContextObject();
+		cf.exitCompilationScope();
+	}
+
 	@Override
 	public String toStringAST() {
 		StringBuilder sb = new StringBuilder("[");
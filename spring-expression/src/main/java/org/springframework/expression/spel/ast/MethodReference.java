@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -53,6 +54,12 @@ import org.springframework.util.ObjectUtils;
  */
 public class MethodReference extends SpelNodeImpl {
 
+	// Maximum number of receiver/argument type combinations cached per method reference
+	private static final int MAX_CACHED_EXECUTORS = 4;
+
+	private static final CachedMethodExecutor[] NO_CACHED_EXECUTORS = new CachedMethodExecutor[0];
+
+
 	private final String name;
 
 	private final boolean nullSafe;
@@ -63,6 +70,10 @@ public class MethodReference extends SpelNodeImpl {
 	@Nullable
 	private volatile CachedMethodExecutor cachedExecutor;
 
+	// All executors resolved for this method reference, up to MAX_CACHED_EXECUTORS
+	// (the most recently used one is also held as cachedExecutor, e.g. for compilation)
+	private volatile CachedMethodExecutor[] cachedExecutors = NO_CACHED_EXECUTORS;
+
 
 	public MethodReference(boolean nullSafe, String methodName, int pos, SpelNodeImpl... arguments) {
 		super(pos, arguments);
@@ -126,14 +137,14 @@ public class MethodReference extends SpelNodeImpl {
 
 				// At this point we know it wasn't a user problem so worth a retry if a
 				// better candidate can be found.
-				this.cachedExecutor = null;
+				evictCachedExecutor();
 			}
 		}
 
 		// either there was no accessor or it no longer existed
 		executorToUse = findAccessorForMethod(argumentTypes, value, evaluationContext);
-		this.cachedExecutor = new CachedMethodExecutor(
-				executorToUse, (value instanceof Class ? (Class<?>) value : null), targetType, argumentTypes);
+		cacheExecutor(new CachedMethodExecutor(
+				executorToUse, (value instanceof Class ? (Class<?>) value : null), targetType, argumentTypes));
 		try {
 			return executorToUse.execute(evaluationContext, value, arguments);
 		}
@@ -191,10 +202,37 @@ public class MethodReference extends SpelNodeImpl {
 		if (executorToCheck != null && executorToCheck.isSuitable(value, target, argumentTypes)) {
 			return executorToCheck.get();
 		}
+		// Polymorphic case: check the executors resolved for other target types before
+		for (CachedMethodExecutor candidate : this.cachedExecutors) {
+			if (candidate != executorToCheck && candidate.isSuitable(value, target, argumentTypes)) {
+				this.cachedExecutor = candidate;
+				return candidate.get();
+			}
+		}
 		this.cachedExecutor = null;
 		return null;
 	}
 
+	private void cacheExecutor(CachedMethodExecutor executor) {
+		this.cachedExecutor = executor;
+		CachedMethodExecutor[] executors = this.cachedExecutors;
+		int offset = (executors.length < MAX_CACHED_EXECUTORS ? 0 : 1);
+		CachedMethodExecutor[] newExecutors = new CachedMethodExecutor[executors.length - offset + 1];
+		System.arraycopy(executors, offset, newExecutors, 0, executors.length - offset);
+		newExecutors[newExecutors.length - 1] = executor;
+		this.cachedExecutors = newExecutors;
+	}
+
+	private void evictCachedExecutor() {
+		CachedMethodExecutor executor = this.cachedExecutor;
+		this.cachedExecutor = null;
+		if (executor != null) {
+			List<CachedMethodExecutor> executors = new ArrayList<>(Arrays.asList(this.cachedExecutors));
+			executors.remove(executor);
+			this.cachedExecutors = executors.toArray(NO_CACHED_EXECUTORS);
+		}
+	}
+
 	private MethodExecutor findAccessorForMethod(List<TypeDescriptor> argumentTypes, Object targetObject,
 			EvaluationContext evaluationContext) throws SpelEvaluationException {
 
@@ -336,23 +374,21 @@ public class MethodReference extends SpelNodeImpl {
 			CodeFlow.insertBoxIfNecessary(mv, descriptor.charAt(0));
 		}
 
-		String classDesc;
-		if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
-			classDesc = method.getDeclaringClass().getName().replace('.', '/');
-		}
-		else {
-			Class<?> publicDeclaringClass = methodExecutor.getPublicDeclaringClass();
-			Assert.state(publicDeclaringClass != null, "No public declaring class");
-			classDesc = publicDeclaringClass.getName().replace('.', '/');
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (!Modifier.isPublic(declaringClass.getModifiers())) {
+			declaringClass = methodExecutor.getPublicDeclaringClass();
+			Assert.state(declaringClass != null, "No public declaring class");
 		}
+		String classDesc = declaringClass.getName().replace('.', '/');
+		boolean isInterface = declaringClass.isInterface();
 
 		if (!isStaticMethod && (descriptor == null || !descriptor.substring(1).equals(classDesc))) {
 			CodeFlow.insertCheckCast(mv, "L" + classDesc);
 		}
 
 		generateCodeForArguments(mv, cf, method, this.children);
-		mv.visitMethodInsn((isStaticMethod ? INVOKESTATIC : INVOKEVIRTUAL), classDesc, method.getName(),
-				CodeFlow.createSignatureDescriptor(method), method.getDeclaringClass().isInterface());
+		mv.visitMethodInsn((isStaticMethod ? INVOKESTATIC : isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL),
+				classDesc, method.getName(), CodeFlow.createSignatureDescriptor(method), isInterface);
 		cf.pushDescriptor(this.exitTypeDescriptor);
 
 		if (this.originalPrimitiveExitTypeDescriptor != null) {
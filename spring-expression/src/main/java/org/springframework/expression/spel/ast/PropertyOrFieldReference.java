@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.expression.spel.ast;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +51,12 @@ import org.springframework.util.ReflectionUtils;
  */
 public class PropertyOrFieldReference extends SpelNodeImpl {
 
+	// Maximum number of target types for which read accessors are cached per property reference
+	private static final int MAX_CACHED_READ_ACCESSORS = 4;
+
+	private static final CachedReadAccessor[] NO_CACHED_READ_ACCESSORS = new CachedReadAccessor[0];
+
+
 	private final boolean nullSafe;
 
 	private final String name;
@@ -60,6 +67,10 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 	@Nullable
 	private volatile PropertyAccessor cachedReadAccessor;
 
+	// Read accessors per target type, up to MAX_CACHED_READ_ACCESSORS (the most
+	// recently used one is also held as cachedReadAccessor, e.g. for compilation)
+	private volatile CachedReadAccessor[] cachedReadAccessors = NO_CACHED_READ_ACCESSORS;
+
 	@Nullable
 	private volatile PropertyAccessor cachedWriteAccessor;
 
@@ -174,19 +185,20 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 			return TypedValue.NULL;
 		}
 
-		PropertyAccessor accessorToUse = this.cachedReadAccessor;
-		if (accessorToUse != null) {
-			if (evalContext.getPropertyAccessors().contains(accessorToUse)) {
-				try {
-					return accessorToUse.read(evalContext, contextObject.getValue(), name);
-				}
-				catch (Exception ex) {
-					// This is OK - it may have gone stale due to a class change,
-					// let's try to get a new one and call it before giving up...
-				}
+		CachedReadAccessor cachedAccessor = getCachedReadAccessor(targetObject, evalContext);
+		if (cachedAccessor != null) {
+			try {
+				TypedValue result = cachedAccessor.accessor.read(evalContext, targetObject, name);
+				this.cachedReadAccessor = cachedAccessor.accessor;
+				return result;
+			}
+			catch (Exception ex) {
+				// This is OK - it may have gone stale (e.g. a map key has been removed),
+				// let's try to get a new one and call it before giving up...
+				evictCachedReadAccessor(cachedAccessor);
 			}
-			this.cachedReadAccessor = null;
 		}
+		this.cachedReadAccessor = null;
 
 		List<PropertyAccessor> accessorsToTry =
 				getPropertyAccessorsToTry(contextObject.getValue(), evalContext.getPropertyAccessors());
@@ -196,12 +208,16 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		try {
 			for (PropertyAccessor accessor : accessorsToTry) {
 				if (accessor.canRead(evalContext, contextObject.getValue(), name)) {
+					PropertyAccessor accessorToUse = accessor;
 					if (accessor instanceof ReflectivePropertyAccessor) {
-						accessor = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
+						accessorToUse = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
 								evalContext, contextObject.getValue(), name);
 					}
-					this.cachedReadAccessor = accessor;
-					return accessor.read(evalContext, contextObject.getValue(), name);
+					this.cachedReadAccessor = accessorToUse;
+					if (targetObject != null) {
+						cacheReadAccessor(new CachedReadAccessor(targetObject, accessor, accessorToUse));
+					}
+					return accessorToUse.read(evalContext, contextObject.getValue(), name);
 				}
 			}
 		}
@@ -218,6 +234,35 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		}
 	}
 
+	@Nullable
+	private CachedReadAccessor getCachedReadAccessor(@Nullable Object targetObject, EvaluationContext evalContext) {
+		if (targetObject == null) {
+			return null;
+		}
+		List<PropertyAccessor> propertyAccessors = evalContext.getPropertyAccessors();
+		for (CachedReadAccessor candidate : this.cachedReadAccessors) {
+			if (candidate.isSuitable(targetObject, propertyAccessors)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private void cacheReadAccessor(CachedReadAccessor accessor) {
+		CachedReadAccessor[] accessors = this.cachedReadAccessors;
+		int offset = (accessors.length < MAX_CACHED_READ_ACCESSORS ? 0 : 1);
+		CachedReadAccessor[] newAccessors = new CachedReadAccessor[accessors.length - offset + 1];
+		System.arraycopy(accessors, offset, newAccessors, 0, accessors.length - offset);
+		newAccessors[newAccessors.length - 1] = accessor;
+		this.cachedReadAccessors = newAccessors;
+	}
+
+	private void evictCachedReadAccessor(CachedReadAccessor accessor) {
+		List<CachedReadAccessor> accessors = new ArrayList<>(Arrays.asList(this.cachedReadAccessors));
+		accessors.remove(accessor);
+		this.cachedReadAccessors = accessors.toArray(NO_CACHED_READ_ACCESSORS);
+	}
+
 	private void writeProperty(
 			TypedValue contextObject, EvaluationContext evalContext, String name, @Nullable Object newValue)
 			throws EvaluationException {
@@ -423,4 +468,45 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		}
 	}
 
+
+
+	/**
+	 * A read accessor resolved for a specific target type, along with the
+	 * accessor of the evaluation context that it has been derived from.
+	 */
+	private static class CachedReadAccessor {
+
+		private final Class<?> targetType;
+
+		private final boolean staticTarget;
+
+		private final PropertyAccessor sourceAccessor;
+
+		final PropertyAccessor accessor;
+
+		public CachedReadAccessor(Object targetObject, PropertyAccessor sourceAccessor, PropertyAccessor accessor) {
+			this.staticTarget = (targetObject instanceof Class);
+			this.targetType = (this.staticTarget ? (Class<?>) targetObject : targetObject.getClass());
+			this.sourceAccessor = sourceAccessor;
+			this.accessor = accessor;
+		}
+
+		public boolean isSuitable(Object targetObject, List<PropertyAccessor> propertyAccessors) {
+			if (targetObject instanceof Class ? (!this.staticTarget || this.targetType != targetObject) :
+					(this.staticTarget || this.targetType != targetObject.getClass())) {
+				return false;
+			}
+			if (propertyAccessors.contains(this.sourceAccessor)) {
+				return true;
+			}
+			// A default ReflectivePropertyAccessor in another evaluation context resolves the same way
+			return (propertyAccessors.size() == 1 && isDefaultAccessor(propertyAccessors.get(0)) &&
+					isDefaultAccessor(this.sourceAccessor));
+		}
+
+		private static boolean isDefaultAccessor(PropertyAccessor accessor) {
+			return (accessor.getClass() == ReflectivePropertyAccessor.class);
+		}
+	}
+
 }
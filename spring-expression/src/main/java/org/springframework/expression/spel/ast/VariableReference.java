@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,15 +65,17 @@ public class VariableReference extends SpelNodeImpl {
 
 	@Override
 	public TypedValue getValueInternal(ExpressionState state) throws SpelEvaluationException {
+		TypedValue result;
 		if (this.name.equals(THIS)) {
-			return state.getActiveContextObject();
+			result = state.getActiveContextObject();
 		}
-		if (this.name.equals(ROOT)) {
-			TypedValue result = state.getRootContextObject();
-			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
-			return result;
+		else if (this.name.equals(ROOT)) {
+			result = state.getRootContextObject();
+		}
+		else {
+			// a null value will mean either the value was null or the variable was not found
+			result = state.lookupVariable(this.name);
 		}
-		TypedValue result = state.lookupVariable(this.name);
 		Object value = result.getValue();
 		if (value == null || !Modifier.isPublic(value.getClass().getModifiers())) {
 			// If the type is not public then when generateCode produces a checkcast to it
@@ -85,7 +87,6 @@ public class VariableReference extends SpelNodeImpl {
 		else {
 			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(value);
 		}
-		// a null value will mean either the value was null or the variable was not found
 		return result;
 	}
 
@@ -111,7 +112,13 @@ public class VariableReference extends SpelNodeImpl {
 	
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
-		if (this.name.equals(ROOT)) {
+		if (this.name.equals(THIS)) {
+			// Within a compound expression, the active context object is on the stack already
+			if (cf.lastDescriptor() == null) {
+				cf.loadTarget(mv);
+			}
+		}
+		else if (this.name.equals(ROOT)) {
 			mv.visitVarInsn(ALOAD,1);
 		}
 		else {
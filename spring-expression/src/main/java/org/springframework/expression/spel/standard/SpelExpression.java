@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.expression.spel.standard;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
@@ -46,12 +49,11 @@ import org.springframework.util.Assert;
  */
 public class SpelExpression implements Expression {
 
-	// Number of times to interpret an expression before compiling it
-	private static final int INTERPRETED_COUNT_THRESHOLD = 100;
-
 	// Number of times to try compiling an expression before giving up
 	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
 
+	private static final Log logger = LogFactory.getLog(SpelExpression.class);
+
 
 	private final String expression;
 
@@ -75,6 +77,9 @@ public class SpelExpression implements Expression {
 	// give up trying to compile it when it just doesn't seem to be possible.
 	private volatile int failedAttempts = 0;
 
+	// The number of times the compiled form failed at runtime in mixed mode while interpretation succeeded
+	private volatile int deoptimizationCount = 0;
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -116,27 +121,21 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public Object getValue() throws EvaluationException {
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				EvaluationContext context = getEvaluationContext();
 				return this.compiledAst.getValue(context.getRootObject().getValue(), context);
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), this.configuration);
 		Object result = this.ast.getValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return result;
 	}
 
@@ -144,6 +143,7 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public <T> T getValue(@Nullable Class<T> expectedResultType) throws EvaluationException {
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				EvaluationContext context = getEvaluationContext();
@@ -157,21 +157,14 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), this.configuration);
 		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return ExpressionUtils.convertTypedValue(
 				expressionState.getEvaluationContext(), typedResultValue, expectedResultType);
 	}
@@ -179,27 +172,21 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public Object getValue(Object rootObject) throws EvaluationException {
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				return this.compiledAst.getValue(rootObject, getEvaluationContext());
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState =
 				new ExpressionState(getEvaluationContext(), toTypedValue(rootObject), this.configuration);
 		Object result = this.ast.getValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return result;
 	}
 
@@ -207,6 +194,7 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public <T> T getValue(Object rootObject, @Nullable Class<T> expectedResultType) throws EvaluationException {
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				Object result = this.compiledAst.getValue(rootObject, getEvaluationContext());
@@ -219,22 +207,15 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState =
 				new ExpressionState(getEvaluationContext(), toTypedValue(rootObject), this.configuration);
 		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return ExpressionUtils.convertTypedValue(
 				expressionState.getEvaluationContext(), typedResultValue, expectedResultType);
 	}
@@ -244,26 +225,20 @@ public class SpelExpression implements Expression {
 	public Object getValue(EvaluationContext context) throws EvaluationException {
 		Assert.notNull(context, "EvaluationContext is required");
 
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				return this.compiledAst.getValue(context.getRootObject().getValue(), context);
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState = new ExpressionState(context, this.configuration);
 		Object result = this.ast.getValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return result;
 	}
 
@@ -273,6 +248,7 @@ public class SpelExpression implements Expression {
 	public <T> T getValue(EvaluationContext context, @Nullable Class<T> expectedResultType) throws EvaluationException {
 		Assert.notNull(context, "EvaluationContext is required");
 
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				Object result = this.compiledAst.getValue(context.getRootObject().getValue(), context);
@@ -284,21 +260,14 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState = new ExpressionState(context, this.configuration);
 		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return ExpressionUtils.convertTypedValue(context, typedResultValue, expectedResultType);
 	}
 
@@ -307,26 +276,20 @@ public class SpelExpression implements Expression {
 	public Object getValue(EvaluationContext context, Object rootObject) throws EvaluationException {
 		Assert.notNull(context, "EvaluationContext is required");
 
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				return this.compiledAst.getValue(rootObject, context);
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState = new ExpressionState(context, toTypedValue(rootObject), this.configuration);
 		Object result = this.ast.getValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return result;
 	}
 
@@ -338,6 +301,7 @@ public class SpelExpression implements Expression {
 
 		Assert.notNull(context, "EvaluationContext is required");
 
+		boolean compiledFailure = false;
 		if (this.compiledAst != null) {
 			try {
 				Object result = this.compiledAst.getValue(rootObject, context);
@@ -349,21 +313,14 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledFailure(ex);
+				compiledFailure = true;
 			}
 		}
 
 		ExpressionState expressionState = new ExpressionState(context, toTypedValue(rootObject), this.configuration);
 		TypedValue typedResultValue = this.ast.getTypedValue(expressionState);
-		checkCompile(expressionState);
+		checkCompile(expressionState, compiledFailure);
 		return ExpressionUtils.convertTypedValue(context, typedResultValue, expectedResultType);
 	}
 
@@ -467,12 +424,44 @@ public class SpelExpression implements Expression {
 	}
 
 
+	/**
+	 * Handle a failure of the compiled form of this expression: in mixed mode, revert
+	 * to interpreted mode; otherwise propagate the failure to the caller.
+	 * @param ex the exception thrown by the compiled expression
+	 * @see #checkCompile
+	 */
+	private void handleCompiledFailure(Throwable ex) {
+		if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
+			this.interpretedCount = 0;
+			this.compiledAst = null;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Reverting compiled expression '" + this.expression +
+						"' to interpreted mode after failure: " + ex);
+			}
+		}
+		else {
+			// Running in SpelCompilerMode.immediate mode - propagate exception to caller
+			throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+		}
+	}
+
 	/**
 	 * Compile the expression if it has been evaluated more than the threshold number
 	 * of times to trigger compilation.
+	 * <p>If the compiled form failed before this successful interpreted evaluation,
+	 * the failure is counted as a deoptimization and as a failed compilation attempt,
+	 * so that an expression whose compiled form keeps failing eventually stays
+	 * interpreted. A failure which the interpreted evaluation reproduces comes from
+	 * the expression itself or from the code it invokes, and is not counted.
 	 * @param expressionState the expression state used to determine compilation mode
+	 * @param compiledFailure whether the compiled form failed for this evaluation
+	 * @see SpelParserConfiguration#getCompilationThreshold()
 	 */
-	private void checkCompile(ExpressionState expressionState) {
+	private void checkCompile(ExpressionState expressionState, boolean compiledFailure) {
+		if (compiledFailure) {
+			this.deoptimizationCount++;
+			this.failedAttempts++;
+		}
 		this.interpretedCount++;
 		SpelCompilerMode compilerMode = expressionState.getConfiguration().getCompilerMode();
 		if (compilerMode != SpelCompilerMode.OFF) {
@@ -483,7 +472,7 @@ public class SpelExpression implements Expression {
 			}
 			else {
 				// compilerMode = SpelCompilerMode.MIXED
-				if (this.interpretedCount > INTERPRETED_COUNT_THRESHOLD) {
+				if (this.interpretedCount > this.configuration.getCompilationThreshold()) {
 					compileExpression();
 				}
 			}
@@ -526,6 +515,43 @@ public class SpelExpression implements Expression {
 		this.compiledAst = null;
 		this.interpretedCount = 0;
 		this.failedAttempts = 0;
+		this.deoptimizationCount = 0;
+	}
+
+	/**
+	 * Return the current compilation state of this expression.
+	 * @since 5.0.16
+	 * @see #getFailedCompilationCount()
+	 * @see #getDeoptimizationCount()
+	 */
+	public CompilationState getCompilationState() {
+		if (this.compiledAst != null) {
+			return CompilationState.COMPILED;
+		}
+		if (this.failedAttempts > FAILED_ATTEMPTS_THRESHOLD) {
+			return CompilationState.FAILED;
+		}
+		return CompilationState.INTERPRETED;
+	}
+
+	/**
+	 * Return the number of failed attempts to compile this expression,
+	 * including deoptimizations of its compiled form.
+	 * @since 5.0.16
+	 */
+	public int getFailedCompilationCount() {
+		return this.failedAttempts;
+	}
+
+	/**
+	 * Return the number of times that the compiled form of this expression
+	 * failed at runtime and got discarded in favor of interpreted evaluation,
+	 * counting only failures which the interpreted evaluation did not reproduce.
+	 * @since 5.0.16
+	 * @see SpelCompilerMode#MIXED
+	 */
+	public int getDeoptimizationCount() {
+		return this.deoptimizationCount;
 	}
 
 	/**
@@ -549,4 +575,29 @@ public class SpelExpression implements Expression {
 		return (object != null ? new TypedValue(object) : TypedValue.NULL);
 	}
 
+
+	/**
+	 * Compilation state of a {@link SpelExpression}.
+	 * @since 5.0.16
+	 */
+	public enum CompilationState {
+
+		/**
+		 * The expression is evaluated in interpreted mode: either because
+		 * compilation is switched off, or because it has not been compiled yet.
+		 */
+		INTERPRETED,
+
+		/**
+		 * The expression is evaluated in its compiled form.
+		 */
+		COMPILED,
+
+		/**
+		 * The expression failed to compile (or kept failing in its compiled form)
+		 * too often and remains in interpreted mode.
+		 */
+		FAILED
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.expression.spel.support;
 import java.lang.reflect.Array;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.List;
 
 import org.springframework.core.MethodParameter;
@@ -372,6 +373,41 @@ public class ReflectionHelper {
 		return args;
 	}
 
+	/**
+	 * Find a public class or interface through which the given method can be
+	 * invoked from compiled code, e.g. for a method declared on a private
+	 * {@code Map} implementation class. The superclass hierarchy is searched
+	 * first, followed by the interfaces implemented by the declaring class.
+	 * @param method the method to find a public declaring class for
+	 * @return the public class or interface, or {@code null} if none found
+	 * @since 5.0.16
+	 */
+	@Nullable
+	static Class<?> findPublicDeclaringClass(Method method) {
+		Class<?> clazz = method.getDeclaringClass();
+		while (clazz != null) {
+			if (Modifier.isPublic(clazz.getModifiers())) {
+				try {
+					clazz.getDeclaredMethod(method.getName(), method.getParameterTypes());
+					return clazz;
+				}
+				catch (NoSuchMethodException ex) {
+					// Continue below...
+				}
+			}
+			clazz = clazz.getSuperclass();
+		}
+		if (!Modifier.isStatic(method.getModifiers())) {
+			for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(method.getDeclaringClass())) {
+				if (Modifier.isPublic(ifc.getModifiers()) &&
+						ClassUtils.hasMethod(ifc, method.getName(), method.getParameterTypes())) {
+					return ifc;
+				}
+			}
+		}
+		return null;
+	}
+
 
 	enum ArgumentsMatchKind {
 
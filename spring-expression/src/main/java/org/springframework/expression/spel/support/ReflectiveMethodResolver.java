@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +41,7 @@ import org.springframework.expression.TypeConverter;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * Reflection-based {@link MethodResolver} used by default in {@link StandardEvaluationContext}
@@ -53,6 +55,20 @@ import org.springframework.lang.Nullable;
  */
 public class ReflectiveMethodResolver implements MethodResolver {
 
+	/**
+	 * Method candidates per target class, grouped by method name, shared across all
+	 * plain ReflectiveMethodResolver instances (i.e. across evaluation contexts).
+	 */
+	private static final Map<Class<?>, Map<String, List<MethodCandidate>>> sharedInstanceCandidates =
+			new ConcurrentReferenceHashMap<>(256);
+
+	/**
+	 * Method candidates per class for static invocations on the Class object itself.
+	 */
+	private static final Map<Class<?>, Map<String, List<MethodCandidate>>> sharedStaticCandidates =
+			new ConcurrentReferenceHashMap<>(256);
+
+
 	// Using distance will ensure a more accurate match is discovered,
 	// more closely following the Java rules.
 	private final boolean useDistance;
@@ -115,92 +131,54 @@ public class ReflectiveMethodResolver implements MethodResolver {
 		try {
 			TypeConverter typeConverter = context.getTypeConverter();
 			Class<?> type = (targetObject instanceof Class ? (Class<?>) targetObject : targetObject.getClass());
-			ArrayList<Method> methods = new ArrayList<>(getMethods(type, targetObject));
-
-			// If a filter is registered for this type, call it
-			MethodFilter filter = (this.filters != null ? this.filters.get(type) : null);
-			if (filter != null) {
-				List<Method> filtered = filter.filter(methods);
-				methods = (filtered instanceof ArrayList ? (ArrayList<Method>) filtered : new ArrayList<>(filtered));
-			}
-
-			// Sort methods into a sensible order
-			if (methods.size() > 1) {
-				methods.sort((m1, m2) -> {
-					int m1pl = m1.getParameterCount();
-					int m2pl = m2.getParameterCount();
-					// vararg methods go last
-					if (m1pl == m2pl) {
-						if (!m1.isVarArgs() && m2.isVarArgs()) {
-							return -1;
-						}
-						else if (m1.isVarArgs() && !m2.isVarArgs()) {
-							return 1;
-						}
-						else {
-							return 0;
-						}
-					}
-					return Integer.compare(m1pl, m2pl);
-				});
-			}
-
-			// Resolve any bridge methods
-			for (int i = 0; i < methods.size(); i++) {
-				methods.set(i, BridgeMethodResolver.findBridgedMethod(methods.get(i)));
+			List<MethodCandidate> candidates = getMethodCandidates(type, targetObject).get(name);
+			if (candidates == null) {
+				return null;
 			}
 
-			// Remove duplicate methods (possible due to resolved bridge methods)
-			Set<Method> methodsToIterate = new LinkedHashSet<>(methods);
-
 			Method closeMatch = null;
 			int closeMatchDistance = Integer.MAX_VALUE;
 			Method matchRequiringConversion = null;
 			boolean multipleOptions = false;
 
-			for (Method method : methodsToIterate) {
-				if (method.getName().equals(name)) {
-					Class<?>[] paramTypes = method.getParameterTypes();
-					List<TypeDescriptor> paramDescriptors = new ArrayList<>(paramTypes.length);
-					for (int i = 0; i < paramTypes.length; i++) {
-						paramDescriptors.add(new TypeDescriptor(new MethodParameter(method, i)));
-					}
-					ReflectionHelper.ArgumentsMatchInfo matchInfo = null;
-					if (method.isVarArgs() && argumentTypes.size() >= (paramTypes.length - 1)) {
-						// *sigh* complicated
-						matchInfo = ReflectionHelper.compareArgumentsVarargs(paramDescriptors, argumentTypes, typeConverter);
-					}
-					else if (paramTypes.length == argumentTypes.size()) {
-						// Name and parameter number match, check the arguments
-						matchInfo = ReflectionHelper.compareArguments(paramDescriptors, argumentTypes, typeConverter);
+			for (MethodCandidate candidate : candidates) {
+				Method method = candidate.method;
+				List<TypeDescriptor> paramDescriptors = candidate.getParameterDescriptors();
+				ReflectionHelper.ArgumentsMatchInfo matchInfo = null;
+				if (method.isVarArgs() && argumentTypes.size() >= (paramDescriptors.size() - 1)) {
+					// *sigh* complicated
+					matchInfo = ReflectionHelper.compareArgumentsVarargs(paramDescriptors, argumentTypes, typeConverter);
+				}
+				else if (paramDescriptors.size() == argumentTypes.size()) {
+					// Name and parameter number match, check the arguments
+					matchInfo = ReflectionHelper.compareArguments(paramDescriptors, argumentTypes, typeConverter);
+				}
+				if (matchInfo != null) {
+					if (matchInfo.isExactMatch()) {
+						return new ReflectiveMethodExecutor(method);
 					}
-					if (matchInfo != null) {
-						if (matchInfo.isExactMatch()) {
-							return new ReflectiveMethodExecutor(method);
-						}
-						else if (matchInfo.isCloseMatch()) {
-							if (this.useDistance) {
-								int matchDistance = ReflectionHelper.getTypeDifferenceWeight(paramDescriptors, argumentTypes);
-								if (closeMatch == null || matchDistance < closeMatchDistance) {
-									// This is a better match...
-									closeMatch = method;
-									closeMatchDistance = matchDistance;
-								}
-							}
-							else {
-								// Take this as a close match if there isn't one already
-								if (closeMatch == null) {
-									closeMatch = method;
-								}
+					else if (matchInfo.isCloseMatch()) {
+						if (this.useDistance) {
+							int matchDistance = ReflectionHelper.getTypeDifferenceWeight(paramDescriptors, argumentTypes);
+							if (closeMatch == null || matchDistance < closeMatchDistance) {
+								// This is a better match...
+								closeMatch = method;
+								closeMatchDistance = matchDistance;
 							}
 						}
-						else if (matchInfo.isMatchRequiringConversion()) {
-							if (matchRequiringConversion != null) {
-								multipleOptions = true;
+						else {
+							// Take this as a close match if there isn't one already
+							if (closeMatch == null) {
+								closeMatch = method;
 							}
-							matchRequiringConversion = method;
 						}
 					}
+					else if (matchInfo.isMatchRequiringConversion()) {
+						if (matchRequiringConversion != null) {
+							multipleOptions = true;
+						}
+						matchRequiringConversion = method;
+					}
 				}
 			}
 			if (closeMatch != null) {
@@ -221,6 +199,74 @@ public class ReflectiveMethodResolver implements MethodResolver {
 		}
 	}
 
+	/**
+	 * Return the method candidates for the given type, grouped by method name
+	 * and sorted in resolution order (vararg methods last within the same
+	 * number of parameters). Shared across instances unless this resolver
+	 * is customized through a subclass or a method filter for the type.
+	 */
+	private Map<String, List<MethodCandidate>> getMethodCandidates(Class<?> type, Object targetObject) {
+		MethodFilter filter = (this.filters != null ? this.filters.get(type) : null);
+		if (filter != null || getClass() != ReflectiveMethodResolver.class) {
+			return buildMethodCandidates(type, targetObject, filter);
+		}
+		Map<Class<?>, Map<String, List<MethodCandidate>>> sharedCandidates =
+				(targetObject instanceof Class ? sharedStaticCandidates : sharedInstanceCandidates);
+		Map<String, List<MethodCandidate>> candidates = sharedCandidates.get(type);
+		if (candidates == null) {
+			candidates = buildMethodCandidates(type, targetObject, null);
+			sharedCandidates.put(type, candidates);
+		}
+		return candidates;
+	}
+
+	private Map<String, List<MethodCandidate>> buildMethodCandidates(
+			Class<?> type, Object targetObject, @Nullable MethodFilter filter) {
+
+		ArrayList<Method> methods = new ArrayList<>(getMethods(type, targetObject));
+
+		// If a filter is registered for this type, call it
+		if (filter != null) {
+			List<Method> filtered = filter.filter(methods);
+			methods = (filtered instanceof ArrayList ? (ArrayList<Method>) filtered : new ArrayList<>(filtered));
+		}
+
+		// Sort methods into a sensible order
+		if (methods.size() > 1) {
+			methods.sort((m1, m2) -> {
+				int m1pl = m1.getParameterCount();
+				int m2pl = m2.getParameterCount();
+				// vararg methods go last
+				if (m1pl == m2pl) {
+					if (!m1.isVarArgs() && m2.isVarArgs()) {
+						return -1;
+					}
+					else if (m1.isVarArgs() && !m2.isVarArgs()) {
+						return 1;
+					}
+					else {
+						return 0;
+					}
+				}
+				return Integer.compare(m1pl, m2pl);
+			});
+		}
+
+		// Resolve any bridge methods
+		for (int i = 0; i < methods.size(); i++) {
+			methods.set(i, BridgeMethodResolver.findBridgedMethod(methods.get(i)));
+		}
+
+		// Remove duplicate methods (possible due to resolved bridge methods)
+		Set<Method> methodsToIterate = new LinkedHashSet<>(methods);
+
+		Map<String, List<MethodCandidate>> candidates = new LinkedHashMap<>();
+		for (Method method : methodsToIterate) {
+			candidates.computeIfAbsent(method.getName(), key -> new ArrayList<>()).add(new MethodCandidate(method));
+		}
+		return candidates;
+	}
+
 	private Set<Method> getMethods(Class<?> type, Object targetObject) {
 		if (targetObject instanceof Class) {
 			Set<Method> result = new LinkedHashSet<>();
@@ -285,4 +331,32 @@ public class ReflectiveMethodResolver implements MethodResolver {
 		return true;
 	}
 
+
+	/**
+	 * A candidate method along with its (lazily introspected) parameter descriptors.
+	 */
+	private static class MethodCandidate {
+
+		final Method method;
+
+		@Nullable
+		private volatile List<TypeDescriptor> parameterDescriptors;
+
+		MethodCandidate(Method method) {
+			this.method = method;
+		}
+
+		List<TypeDescriptor> getParameterDescriptors() {
+			List<TypeDescriptor> paramDescriptors = this.parameterDescriptors;
+			if (paramDescriptors == null) {
+				paramDescriptors = new ArrayList<>(this.method.getParameterCount());
+				for (int i = 0; i < this.method.getParameterCount(); i++) {
+					paramDescriptors.add(new TypeDescriptor(new MethodParameter(this.method, i)));
+				}
+				this.parameterDescriptors = paramDescriptors;
+			}
+			return paramDescriptors;
+		}
+	}
+
 }
@@ -644,9 +644,23 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		private final TypeDescriptor typeDescriptor;
 
+		@Nullable
+		private final Class<?> publicDeclaringClass;
+
 		OptimalPropertyAccessor(InvokerPair target) {
 			this.member = target.member;
 			this.typeDescriptor = target.typeDescriptor;
+			Class<?> declaringClass = this.member.getDeclaringClass();
+			if (Modifier.isPublic(declaringClass.getModifiers())) {
+				this.publicDeclaringClass = declaringClass;
+			}
+			else if (this.member instanceof Method) {
+				// E.g. a Map.Entry getter on a private Map implementation class
+				this.publicDeclaringClass = ReflectionHelper.findPublicDeclaringClass((Method) this.member);
+			}
+			else {
+				this.publicDeclaringClass = null;
+			}
 		}
 
 		@Override
@@ -718,8 +732,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		@Override
 		public boolean isCompilable() {
-			return (Modifier.isPublic(this.member.getModifiers()) &&
-					Modifier.isPublic(this.member.getDeclaringClass().getModifiers()));
+			return (Modifier.isPublic(this.member.getModifiers()) && this.publicDeclaringClass != null);
 		}
 
 		@Override
@@ -736,7 +749,9 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 		public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
 			boolean isStatic = Modifier.isStatic(this.member.getModifiers());
 			String descriptor = cf.lastDescriptor();
-			String classDesc = this.member.getDeclaringClass().getName().replace('.', '/');
+			Class<?> declaringClass = this.publicDeclaringClass;
+			Assert.state(declaringClass != null, "No public declaring class");
+			String classDesc = declaringClass.getName().replace('.', '/');
 
 			if (!isStatic) {
 				if (descriptor == null) {
@@ -755,8 +770,10 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 
 			if (this.member instanceof Method) {
-				mv.visitMethodInsn((isStatic ? INVOKESTATIC : INVOKEVIRTUAL), classDesc, this.member.getName(),
-						CodeFlow.createSignatureDescriptor((Method) this.member), false);
+				boolean isInterface = declaringClass.isInterface();
+				mv.visitMethodInsn((isStatic ? INVOKESTATIC : isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL),
+						classDesc, this.member.getName(), CodeFlow.createSignatureDescriptor((Method) this.member),
+						isInterface);
 			}
 			else {
 				mv.visitFieldInsn((isStatic ? GETSTATIC : GETFIELD), classDesc, this.member.getName(),
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,9 @@ import org.springframework.util.Assert;
  * consider using {@link SimpleEvaluationContext} instead which allows for
  * opting into several SpEL features as needed by specific evaluation cases.
  *
+ * <p>For frequent evaluations, a fully configured context may serve as a template
+ * for lightweight per-evaluation contexts: see {@link #applyDelegatesTo}.
+ *
  * @author Andy Clement
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -88,6 +91,8 @@ public class StandardEvaluationContext implements EvaluationContext {
 
 	private OperatorOverloader operatorOverloader = new StandardOperatorOverloader();
 
+	private boolean sharedDelegates = false;
+
 	private final Map<String, Object> variables = new ConcurrentHashMap<>();
 
 
@@ -264,9 +269,15 @@ public class StandardEvaluationContext implements EvaluationContext {
 	 * will then be used by SpEL as the candidates to look through for a match.
 	 * @param type the type for which the filter should be called
 	 * @param filter a {@code MethodFilter}, or {@code null} to unregister a filter for the type
-	 * @throws IllegalStateException if the {@link ReflectiveMethodResolver} is not in use
+	 * @throws IllegalStateException if the {@link ReflectiveMethodResolver} is not in use,
+	 * or if this context uses the delegates of a template context
+	 * @see #applyDelegatesTo
 	 */
 	public void registerMethodFilter(Class<?> type, MethodFilter filter) throws IllegalStateException {
+		if (this.sharedDelegates) {
+			throw new IllegalStateException(
+					"Method filter cannot be set as the method resolvers are shared with a template context");
+		}
 		initMethodResolvers();
 		ReflectiveMethodResolver resolver = this.reflectiveMethodResolver;
 		if (resolver == null) {
@@ -276,6 +287,39 @@ public class StandardEvaluationContext implements EvaluationContext {
 		resolver.registerMethodFilter(type, filter);
 	}
 
+	/**
+	 * Apply the internal delegates of this instance to the specified
+	 * {@code evaluationContext}: property accessors, constructor and method
+	 * resolvers, bean resolver, type locator, type converter, type comparator
+	 * and operator overloader. Does not modify the root object or any variables
+	 * or functions registered with the given context.
+	 * <p>Typically invoked right after the new context instance has been created,
+	 * allowing this context to serve as a shared template for contexts created per
+	 * evaluation: the delegates (e.g. a {@link ReflectivePropertyAccessor} along
+	 * with its introspection caches) are reused instead of being initialized again.
+	 * The delegate lists are copied, so the given context may still be customized
+	 * independently; however, since the delegates themselves are shared,
+	 * {@link #registerMethodFilter} is rejected on the given context.
+	 * <p>This context is not meant to be modified once it serves as a template.
+	 * Its default delegates are initialized lazily and without synchronization,
+	 * so a template shared between threads should be initialized upfront, e.g.
+	 * by applying its delegates to a throwaway context before publishing it.
+	 * @param evaluationContext the evaluation context to update
+	 * @since 5.0.16
+	 */
+	public void applyDelegatesTo(StandardEvaluationContext evaluationContext) {
+		// Triggers initialization for default delegates
+		evaluationContext.setPropertyAccessors(new ArrayList<>(getPropertyAccessors()));
+		evaluationContext.setConstructorResolvers(new ArrayList<>(getConstructorResolvers()));
+		evaluationContext.setMethodResolvers(new ArrayList<>(getMethodResolvers()));
+		evaluationContext.sharedDelegates = true;
+		evaluationContext.beanResolver = this.beanResolver;
+		evaluationContext.typeLocator = getTypeLocator();
+		evaluationContext.typeConverter = getTypeConverter();
+		evaluationContext.typeComparator = this.typeComparator;
+		evaluationContext.operatorOverloader = this.operatorOverloader;
+	}
+
 
 	private List<PropertyAccessor> initPropertyAccessors() {
 		List<PropertyAccessor> accessors = this.propertyAccessors;
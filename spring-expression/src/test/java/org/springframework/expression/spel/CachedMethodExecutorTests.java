@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,21 @@
 
 package org.springframework.expression.spel;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.expression.AccessException;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.MethodExecutor;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.ast.MethodReference;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import static org.junit.Assert.*;
@@ -58,6 +67,39 @@ public class CachedMethodExecutorTests {
 		assertMethodExecution(expression, new RootObject(), "int: 42");
 	}
 
+	@Test
+	public void testCachedExecutionForPolymorphicTargets() {
+		CountingMethodResolver resolver = new CountingMethodResolver();
+		this.context.setMethodResolvers(Collections.singletonList(resolver));
+		Expression expression = this.parser.parseExpression("#var.echo(42)");
+
+		for (int i = 0; i < 10; i++) {
+			assertMethodExecution(expression, new RootObject(), "int: 42");
+			assertMethodExecution(expression, new BaseObject(), "String: 42");
+			assertMethodExecution(expression, new OtherObject(), "other: 42");
+		}
+		assertEquals(3, resolver.resolutions.get());
+
+		// Same targets with a different argument type
+		expression = this.parser.parseExpression("#var.echo('42')");
+		assertMethodExecution(expression, new RootObject(), "String: 42");
+		assertMethodExecution(expression, new RootObject(), "String: 42");
+		assertEquals(4, resolver.resolutions.get());
+	}
+
+	@Test
+	public void testMethodFilterAppliedWithSharedMethodCandidates() throws AccessException {
+		List<TypeDescriptor> argumentTypes = Collections.singletonList(TypeDescriptor.valueOf(Integer.class));
+		ReflectiveMethodResolver filteringResolver = new ReflectiveMethodResolver();
+		filteringResolver.registerMethodFilter(RootObject.class, methods -> Collections.emptyList());
+		ReflectiveMethodResolver resolver = new ReflectiveMethodResolver();
+
+		assertNotNull(resolver.resolve(this.context, new RootObject(), "echo", argumentTypes));
+		assertNull(filteringResolver.resolve(this.context, new RootObject(), "echo", argumentTypes));
+		assertNotNull(resolver.resolve(this.context, new RootObject(), "echo", argumentTypes));
+		assertNull(resolver.resolve(this.context, new RootObject(), "unknown", argumentTypes));
+	}
+
 	private void assertMethodExecution(Expression expression, Object var, String expected) {
 		this.context.setVariable("var", var);
 		assertEquals(expected, expression.getValue(this.context));
@@ -78,4 +120,26 @@ public class CachedMethodExecutorTests {
 		}
 	}
 
+
+	public static class OtherObject {
+
+		public String echo(int value) {
+			return "other: " + value;
+		}
+	}
+
+
+	private static class CountingMethodResolver extends ReflectiveMethodResolver {
+
+		private final AtomicInteger resolutions = new AtomicInteger();
+
+		@Override
+		public MethodExecutor resolve(EvaluationContext context, Object targetObject, String name,
+				List<TypeDescriptor> argumentTypes) throws AccessException {
+
+			this.resolutions.incrementAndGet();
+			return super.resolve(context, targetObject, name, argumentTypes);
+		}
+	}
+
 }
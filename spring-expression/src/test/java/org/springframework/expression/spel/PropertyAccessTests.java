@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -32,6 +33,7 @@ import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.expression.spel.support.SimpleEvaluationContext;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.testresources.Person;
@@ -285,6 +287,31 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 		assertSame(Object.class, context.getRootObject().getTypeDescriptor().getType());
 	}
 
+	@Test
+	public void propertyAccessWithPolymorphicTargets() {
+		CountingPropertyAccessor accessor = new CountingPropertyAccessor();
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setPropertyAccessors(Collections.singletonList(accessor));
+		Expression expression = parser.parseExpression("#target.name");
+		Object[] targets = new Object[] {new Person("p1"), new Planet("earth"), String.class};
+		Object[] names = new Object[] {"p1", "earth", "java.lang.String"};
+		for (int i = 0; i < 30; i++) {
+			context.setVariable("target", targets[i % 3]);
+			assertEquals(names[i % 3], expression.getValue(context));
+		}
+		assertEquals(3, accessor.reads.get());
+
+		// Another evaluation context with a different accessor needs to resolve again
+		StandardEvaluationContext otherContext = new StandardEvaluationContext();
+		otherContext.setPropertyAccessors(Collections.singletonList(new ConfigurablePropertyAccessor(
+				Collections.singletonMap("name", "configured"))));
+		otherContext.setVariable("target", targets[0]);
+		assertEquals("configured", expression.getValue(otherContext));
+		context.setVariable("target", targets[0]);
+		assertEquals("p1", expression.getValue(context));
+		assertEquals(3, accessor.reads.get());
+	}
+
 
 	// This can resolve the property 'flibbles' on any String (very useful...)
 	private static class StringyPropertyAccessor implements PropertyAccessor {
@@ -336,6 +363,32 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 	}
 
 
+	public static class Planet {
+
+		private final String name;
+
+		public Planet(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+
+	private static class CountingPropertyAccessor extends ReflectivePropertyAccessor {
+
+		private final AtomicInteger reads = new AtomicInteger();
+
+		@Override
+		public boolean canRead(EvaluationContext context, Object target, String name) throws AccessException {
+			this.reads.incrementAndGet();
+			return super.canRead(context, target, name);
+		}
+	}
+
+
 	private static class ConfigurablePropertyAccessor implements PropertyAccessor {
 
 		private final Map<String, Object> values;
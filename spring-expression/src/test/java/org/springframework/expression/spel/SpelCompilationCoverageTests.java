@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -5123,9 +5125,168 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertTrue(classloadersUsed.size() > 1);
 	}
 
+	@Test
+	public void selectionOnList() {
+		StandardEvaluationContext context = createCollectionContext();
+		assertEquals(Arrays.asList(3, 4), assertSameResultWhenCompiled("#numbers.?[#this > 2]", context));
+		assertEquals(3, assertSameResultWhenCompiled("#numbers.^[#this > 2]", context));
+		assertEquals(4, assertSameResultWhenCompiled("#numbers.$[#this > 2]", context));
+		assertNull(assertSameResultWhenCompiled("#numbers.^[#this > 10]", context));
+		assertEquals(Arrays.asList("beta"), assertSameResultWhenCompiled("#names.?[startsWith('b')]", context));
+
+		// Criteria referring to the root object rather than the current element
+		assertEquals(Arrays.asList(1), assertSameResultWhenCompiled("#numbers.?[#this == #root.size()]",
+				context, Collections.singletonList("x")));
+	}
+
+	@Test
+	public void selectionOnMap() {
+		StandardEvaluationContext context = createCollectionContext();
+		Map<String, Integer> expected = new HashMap<>();
+		expected.put("b", 2);
+		expected.put("c", 3);
+		assertEquals(expected, assertSameResultWhenCompiled("#map.?[value > 1]", context));
+		assertEquals(Collections.singletonMap("b", 2), assertSameResultWhenCompiled("#map.?[key == 'b']", context));
+		assertEquals(Collections.singletonMap("b", 2), assertSameResultWhenCompiled("#map.^[value > 1]", context));
+		assertEquals(Collections.singletonMap("c", 3), assertSameResultWhenCompiled("#map.$[value > 1]", context));
+		assertNull(assertSameResultWhenCompiled("#map.^[value > 5]", context));
+	}
+
+	@Test
+	public void projectionOnListAndMap() {
+		StandardEvaluationContext context = createCollectionContext();
+		assertEquals(Arrays.asList(2, 4, 6, 8), assertSameResultWhenCompiled("#numbers.![#this * 2]", context));
+		assertEquals(Arrays.asList(5, 4), assertSameResultWhenCompiled("#names.![length()]", context));
+		assertEquals(Arrays.asList("ALPHA", "BETA"), assertSameResultWhenCompiled("#names.![#this.toUpperCase()]", context));
+		assertEquals(Arrays.asList("a", "b", "c"), assertSameResultWhenCompiled("#map.![key]", context));
+		assertEquals(Arrays.asList(1, 2, 3), assertSameResultWhenCompiled("#map.![value]", context));
+
+		// Nested selection within a projection
+		assertEquals(Arrays.asList(Arrays.asList(3, 4), Collections.emptyList()),
+				assertSameResultWhenCompiled("#lists.![#this.?[#this > 2]]", context));
+		assertEquals(Arrays.asList(4), assertSameResultWhenCompiled("#numbers.?[#this > 3].![#this]", context));
+	}
+
+	@Test
+	public void nullSafeSelectionAndProjection() {
+		StandardEvaluationContext context = createCollectionContext();
+		Expression selection = parser.parseExpression("#numbers?.?[#this > 2]");
+		Expression projection = parser.parseExpression("#numbers?.![#this * 2]");
+		assertEquals(Arrays.asList(3, 4), selection.getValue(context));
+		assertEquals(Arrays.asList(2, 4, 6, 8), projection.getValue(context));
+		assertCanCompile(selection);
+		assertCanCompile(projection);
+
+		context.setVariable("numbers", null);
+		assertNull(selection.getValue(context));
+		assertNull(projection.getValue(context));
+		assertIsCompiled(selection);
+		assertIsCompiled(projection);
+	}
+
+	@Test
+	public void selectionAndProjectionOnArrayNotCompiled() {
+		StandardEvaluationContext context = createCollectionContext();
+		context.setVariable("array", new Integer[] {1, 2, 3});
+		expression = parser.parseExpression("#array.?[#this > 1]");
+		expression.getValue(context);
+		assertCantCompile(expression);
+		expression = parser.parseExpression("#array.![#this]");
+		expression.getValue(context);
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void inlineMaps() {
+		StandardEvaluationContext context = createCollectionContext();
+		Object constant = assertSameResultWhenCompiled("{a:1,b:'x',c:{1,2},d:{e:true}}", context);
+		Map<String, Object> expected = new LinkedHashMap<>();
+		expected.put("a", 1);
+		expected.put("b", "x");
+		expected.put("c", Arrays.asList(1, 2));
+		expected.put("d", Collections.singletonMap("e", true));
+		assertEquals(expected, constant);
+		assertEquals(Arrays.asList("a", "b", "c", "d"), new ArrayList<>(((Map<?, ?>) constant).keySet()));
+		assertEquals(1, assertSameResultWhenCompiled("{a:1,b:2}['a']", context));
+
+		Map<Object, Object> expected2 = new LinkedHashMap<>();
+		expected2.put("size", 4);
+		expected2.put(42, "alpha");
+		expected2.put("map", Collections.singletonMap("first", 1));
+		assertEquals(expected2, assertSameResultWhenCompiled(
+				"{size:#numbers.size(), 42:#names[0], 'map':{'first':#numbers[0]}}", context));
+	}
+
+	@Test
+	public void indexingWithBoxedAndPrimitiveIndexes() {
+		StandardEvaluationContext context = createCollectionContext();
+		context.setVariable("one", 1);
+		Map<Integer, String> intMap = new HashMap<>();
+		intMap.put(1, "one");
+		intMap.put(2, "two");
+		context.setVariable("intMap", intMap);
+		assertEquals("one", assertSameResultWhenCompiled("#intMap[1]", context));
+		assertEquals("one", assertSameResultWhenCompiled("#intMap[#one]", context));
+		assertEquals(2, assertSameResultWhenCompiled("#numbers[#one]", context));
+		assertEquals("beta", assertSameResultWhenCompiled("#names[#numbers[0]]", context));
+		assertEquals("l", assertSameResultWhenCompiled("#names[0][#one]", context));
+		assertEquals("e", assertSameResultWhenCompiled("'hello'[1]", context));
+	}
+
+	@Test
+	public void indexingWithConvertedMapKeyNotCompiled() {
+		StandardEvaluationContext context = new StandardEvaluationContext(new IntMapHolder());
+		context.setVariable("key", "1");
+		expression = parser.parseExpression("intMap[#key]");
+		assertEquals("one", expression.getValue(context));
+		assertCantCompile(expression);
+
+		context.setVariable("key", 1);
+		expression = parser.parseExpression("intMap[#key]");
+		assertEquals("one", expression.getValue(context));
+		assertCanCompile(expression);
+		assertEquals("one", expression.getValue(context));
+	}
+
+	@Test
+	public void methodsOnNonPublicMapImplementation() {
+		StandardEvaluationContext context = createCollectionContext();
+		context.setVariable("umap", Collections.unmodifiableMap(Collections.singletonMap("a", 1)));
+		assertEquals(1, assertSameResultWhenCompiled("#umap.get('a')", context));
+		assertEquals(1, assertSameResultWhenCompiled("#umap.size()", context));
+		assertEquals(true, assertSameResultWhenCompiled("#umap.containsKey('a')", context));
+		assertEquals(Collections.singletonList("a"), assertSameResultWhenCompiled("#umap.keySet().![#this]", context));
+	}
+
 
 	// Helper methods
 
+	private StandardEvaluationContext createCollectionContext() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+		map.put("c", 3);
+		context.setVariable("numbers", Arrays.asList(1, 2, 3, 4));
+		context.setVariable("names", Arrays.asList("alpha", "beta"));
+		context.setVariable("map", map);
+		context.setVariable("lists", Arrays.asList(Arrays.asList(1, 3, 4), Collections.emptyList()));
+		return context;
+	}
+
+	private Object assertSameResultWhenCompiled(String expressionString, EvaluationContext context) {
+		return assertSameResultWhenCompiled(expressionString, context, null);
+	}
+
+	private Object assertSameResultWhenCompiled(String expressionString, EvaluationContext context, Object root) {
+		expression = parser.parseExpression(expressionString);
+		Object interpreted = expression.getValue(context, root);
+		assertCanCompile(expression);
+		assertEquals(interpreted, expression.getValue(context, root));
+		assertIsCompiled(expression);
+		return interpreted;
+	}
+
 	private SpelNodeImpl getAst() {
 		SpelExpression spelExpression = (SpelExpression) expression;
 		SpelNode ast = spelExpression.getAST();
@@ -6215,6 +6376,12 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 	}
 
 
+	public static class IntMapHolder {
+
+		public Map<Integer, String> intMap = Collections.singletonMap(1, "one");
+	}
+
+
 	public class Reg {
 
 		private Integer _value,_value2;
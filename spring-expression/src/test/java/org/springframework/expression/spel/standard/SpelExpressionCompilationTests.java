@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import org.junit.Test;
+
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression.CompilationState;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the compilation threshold and compilation state tracking
+ * of {@link SpelExpression} in {@link SpelCompilerMode#MIXED} mode.
+ *
+ * @author agent
+ */
+public class SpelExpressionCompilationTests {
+
+	@Test
+	public void defaultCompilationThreshold() {
+		SpelParserConfiguration configuration = new SpelParserConfiguration(SpelCompilerMode.MIXED, null);
+		assertEquals(SpelParserConfiguration.DEFAULT_COMPILATION_THRESHOLD, configuration.getCompilationThreshold());
+	}
+
+	@Test
+	public void compiledAfterThreshold() {
+		SpelExpression expression = parse("4 + 5", 5);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(9, expression.getValue());
+			assertEquals(CompilationState.INTERPRETED, expression.getCompilationState());
+		}
+		assertEquals(9, expression.getValue());
+		assertEquals(CompilationState.COMPILED, expression.getCompilationState());
+		assertEquals(9, expression.getValue());
+		assertEquals(0, expression.getFailedCompilationCount());
+	}
+
+	@Test
+	public void notCompiledWithCompilerSwitchedOff() {
+		SpelExpression expression = (SpelExpression) new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.OFF, null, 0)).parseExpression("4 + 5");
+		for (int i = 0; i < 10; i++) {
+			assertEquals(9, expression.getValue());
+		}
+		assertEquals(CompilationState.INTERPRETED, expression.getCompilationState());
+	}
+
+	@Test
+	public void deoptimizationOnChangingRootType() {
+		SpelExpression expression = parse("name", 0);
+		assertEquals("foo", expression.getValue(new Foo()));
+		assertEquals(CompilationState.COMPILED, expression.getCompilationState());
+
+		assertEquals("bar", expression.getValue(new Bar()));
+		assertEquals(1, expression.getDeoptimizationCount());
+		assertEquals(1, expression.getFailedCompilationCount());
+		assertEquals(CompilationState.COMPILED, expression.getCompilationState());
+		assertEquals("bar", expression.getValue(new Bar()));
+
+		expression.revertToInterpreted();
+		assertEquals(0, expression.getDeoptimizationCount());
+		assertEquals(CompilationState.INTERPRETED, expression.getCompilationState());
+	}
+
+	@Test
+	public void failureFromInvokedCodeNotCountedAsDeoptimization() {
+		SpelExpression expression = parse("name", 0);
+		Failing failing = new Failing();
+		assertEquals("failing", expression.getValue(failing));
+		assertEquals(CompilationState.COMPILED, expression.getCompilationState());
+
+		failing.fail = true;
+		try {
+			expression.getValue(failing);
+			fail("Should have thrown exception");
+		}
+		catch (RuntimeException ex) {
+			// expected
+		}
+		assertEquals(0, expression.getDeoptimizationCount());
+		assertEquals(0, expression.getFailedCompilationCount());
+
+		failing.fail = false;
+		assertEquals("failing", expression.getValue(failing));
+		assertEquals(CompilationState.COMPILED, expression.getCompilationState());
+	}
+
+	@Test
+	public void failedAfterRepeatedCompilationFailures() {
+		SpelExpression expression = parse("#x = 42", 0);
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		for (int i = 0; i < 200; i++) {
+			assertEquals(42, expression.getValue(context));
+		}
+		assertEquals(CompilationState.FAILED, expression.getCompilationState());
+		assertEquals(101, expression.getFailedCompilationCount());
+		assertEquals(0, expression.getDeoptimizationCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeCompilationThreshold() {
+		new SpelParserConfiguration(SpelCompilerMode.MIXED, null, -1);
+	}
+
+
+	private static SpelExpression parse(String expression, int compilationThreshold) {
+		SpelParserConfiguration configuration =
+				new SpelParserConfiguration(SpelCompilerMode.MIXED, null, compilationThreshold);
+		return (SpelExpression) new SpelExpressionParser(configuration).parseExpression(expression);
+	}
+
+
+	public static class Foo {
+
+		public String getName() {
+			return "foo";
+		}
+	}
+
+
+	public static class Bar {
+
+		public String getName() {
+			return "bar";
+		}
+	}
+
+
+	public static class Failing {
+
+		boolean fail;
+
+		public String getName() {
+			if (this.fail) {
+				throw new IllegalStateException("Failing on purpose");
+			}
+			return "failing";
+		}
+	}
+
+}
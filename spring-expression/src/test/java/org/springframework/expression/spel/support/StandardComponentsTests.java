@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.List;
 import org.junit.Test;
 
 import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.expression.BeanResolver;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Operation;
 import org.springframework.expression.OperatorOverloader;
@@ -46,6 +47,39 @@ public class StandardComponentsTests {
 		assertEquals(tl, context.getTypeLocator());
 	}
 
+	@Test
+	public void testStandardEvaluationContextApplyDelegatesTo() {
+		BeanResolver beanResolver = (context, beanName) -> beanName;
+		StandardEvaluationContext template = new StandardEvaluationContext("template");
+		template.setBeanResolver(beanResolver);
+		template.setVariable("var", "value");
+
+		StandardEvaluationContext context = new StandardEvaluationContext("root");
+		template.applyDelegatesTo(context);
+		assertEquals("root", context.getRootObject().getValue());
+		assertNull(context.lookupVariable("var"));
+		assertSame(beanResolver, context.getBeanResolver());
+		assertSame(template.getPropertyAccessors().get(0), context.getPropertyAccessors().get(0));
+		assertSame(template.getMethodResolvers().get(0), context.getMethodResolvers().get(0));
+		assertSame(template.getConstructorResolvers().get(0), context.getConstructorResolvers().get(0));
+		assertSame(template.getTypeLocator(), context.getTypeLocator());
+		assertSame(template.getTypeConverter(), context.getTypeConverter());
+		assertSame(template.getTypeComparator(), context.getTypeComparator());
+		assertSame(template.getOperatorOverloader(), context.getOperatorOverloader());
+
+		// Customizing the derived context does not affect the template
+		context.addPropertyAccessor(new ReflectivePropertyAccessor(false));
+		assertEquals(2, context.getPropertyAccessors().size());
+		assertEquals(1, template.getPropertyAccessors().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMethodFilterRejectedWithSharedDelegates() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		new StandardEvaluationContext().applyDelegatesTo(context);
+		context.registerMethodFilter(String.class, methods -> methods);
+	}
+
 	@Test(expected = EvaluationException.class)
 	public void testStandardOperatorOverloader() throws EvaluationException {
 		OperatorOverloader oo = new StandardOperatorOverloader();
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+/**
+ * Callback interface notified after each chunk of a streaming batch update
+ * has been executed, whether successfully or not.
+ *
+ * <p>When chunks are executed concurrently, implementations are invoked from
+ * multiple threads and need to be thread-safe.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see JdbcOperations#batchUpdate(String, java.util.Iterator, int, ParameterizedPreparedStatementSetter, BatchChunkCallback)
+ * @see org.springframework.jdbc.core.support.ChunkedBatchUpdateExecutor
+ */
+@FunctionalInterface
+public interface BatchChunkCallback {
+
+	/**
+	 * Invoked once a chunk has been executed.
+	 * @param result the outcome of the chunk
+	 */
+	void chunkCompleted(BatchChunkResult result);
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Outcome of executing one chunk of a streaming batch update: the position of
+ * the chunk within the overall sequence of items, the update counts or the
+ * failure, and the time it took.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see BatchChunkCallback
+ * @see JdbcOperations#batchUpdate(String, java.util.Iterator, int, ParameterizedPreparedStatementSetter, BatchChunkCallback)
+ */
+public class BatchChunkResult {
+
+	private final int chunkIndex;
+
+	private final long firstItemPosition;
+
+	private final int itemCount;
+
+	@Nullable
+	private final int[] updateCounts;
+
+	private final long elapsedNanos;
+
+	@Nullable
+	private final RuntimeException failure;
+
+	private final long failedItemPosition;
+
+
+	/**
+	 * Create a result for a successfully executed chunk.
+	 * @param chunkIndex the 0-based index of the chunk
+	 * @param firstItemPosition the 0-based position of the first item of the
+	 * chunk within all items of the batch update
+	 * @param itemCount the number of items in the chunk
+	 * @param updateCounts the update counts returned by the driver
+	 * @param elapsedNanos the execution time in nanoseconds
+	 */
+	public BatchChunkResult(int chunkIndex, long firstItemPosition, int itemCount,
+			int[] updateCounts, long elapsedNanos) {
+
+		this.chunkIndex = chunkIndex;
+		this.firstItemPosition = firstItemPosition;
+		this.itemCount = itemCount;
+		this.updateCounts = updateCounts;
+		this.elapsedNanos = elapsedNanos;
+		this.failure = null;
+		this.failedItemPosition = -1;
+	}
+
+	/**
+	 * Create a result for a chunk that failed.
+	 * @param chunkIndex the 0-based index of the chunk
+	 * @param firstItemPosition the 0-based position of the first item of the
+	 * chunk within all items of the batch update
+	 * @param itemCount the number of items in the chunk
+	 * @param failure the exception the chunk failed with, typically a
+	 * {@link org.springframework.dao.DataAccessException}
+	 * @param failedIndexInChunk the 0-based index of the failed item within the
+	 * chunk, or -1 to determine it from a {@link BatchUpdateException} cause
+	 * @param elapsedNanos the execution time in nanoseconds
+	 */
+	public BatchChunkResult(int chunkIndex, long firstItemPosition, int itemCount,
+			RuntimeException failure, int failedIndexInChunk, long elapsedNanos) {
+
+		this.chunkIndex = chunkIndex;
+		this.firstItemPosition = firstItemPosition;
+		this.itemCount = itemCount;
+		this.updateCounts = null;
+		this.elapsedNanos = elapsedNanos;
+		this.failure = failure;
+		if (failedIndexInChunk < 0) {
+			failedIndexInChunk = determineFailedIndex(failure, itemCount);
+		}
+		this.failedItemPosition = (failedIndexInChunk >= 0 ? firstItemPosition + failedIndexInChunk : -1);
+	}
+
+
+	/**
+	 * Return the 0-based index of the chunk.
+	 */
+	public int getChunkIndex() {
+		return this.chunkIndex;
+	}
+
+	/**
+	 * Return the 0-based position of the first item of the chunk within
+	 * all items of the batch update.
+	 */
+	public long getFirstItemPosition() {
+		return this.firstItemPosition;
+	}
+
+	/**
+	 * Return the number of items in the chunk.
+	 */
+	public int getItemCount() {
+		return this.itemCount;
+	}
+
+	/**
+	 * Return the update counts returned by the driver for the items of the
+	 * chunk, or {@code null} if the chunk failed.
+	 */
+	@Nullable
+	public int[] getUpdateCounts() {
+		return this.updateCounts;
+	}
+
+	/**
+	 * Return the execution time of the chunk in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * Return the execution time of the chunk in the given unit.
+	 */
+	public long getElapsedTime(TimeUnit unit) {
+		return unit.convert(this.elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Return whether the chunk was executed successfully.
+	 */
+	public boolean isSuccessful() {
+		return (this.failure == null);
+	}
+
+	/**
+	 * Return the exception the chunk failed with, if any.
+	 */
+	@Nullable
+	public RuntimeException getFailure() {
+		return this.failure;
+	}
+
+	/**
+	 * Return the 0-based position of the item that caused the failure within
+	 * all items of the batch update, or -1 if the chunk did not fail or the
+	 * failing item could not be determined.
+	 * <p>Drivers that stop processing a batch at the first failing statement
+	 * report this through the update counts of the {@link BatchUpdateException}.
+	 */
+	public long getFailedItemPosition() {
+		return this.failedItemPosition;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("BatchChunkResult: chunk ");
+		sb.append(this.chunkIndex).append(", items ").append(this.firstItemPosition);
+		sb.append('-').append(this.firstItemPosition + this.itemCount - 1);
+		sb.append(", ").append(getElapsedTime(TimeUnit.MILLISECONDS)).append(" ms");
+		if (this.failure != null) {
+			sb.append(", failed");
+			if (this.failedItemPosition >= 0) {
+				sb.append(" at item ").append(this.failedItemPosition);
+			}
+			sb.append(": ").append(this.failure.getMessage());
+		}
+		return sb.toString();
+	}
+
+
+	private static int determineFailedIndex(RuntimeException failure, int itemCount) {
+		Throwable cause = failure.getCause();
+		while (cause != null && !(cause instanceof BatchUpdateException)) {
+			cause = cause.getCause();
+		}
+		if (cause == null) {
+			return -1;
+		}
+		int[] counts = ((BatchUpdateException) cause).getUpdateCounts();
+		if (counts == null) {
+			return -1;
+		}
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == Statement.EXECUTE_FAILED) {
+				return i;
+			}
+		}
+		return (counts.length < itemCount ? counts.length : -1);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,20 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -31,10 +39,16 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.MethodInvocationException;
 import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.SimpleTypeConverter;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionException;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -42,6 +56,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -67,12 +82,19 @@ import org.springframework.util.StringUtils;
  * Be aware that if you use the values from the generated bean to update the database the primitive value
  * will have been set to the primitive's default value instead of null.
  *
+ * <p>The mapping of columns to properties is determined once per {@link ResultSet}, from its
+ * meta-data, and reused for all of its rows. Unless {@link #initBeanWrapper} is overridden,
+ * properties are populated through their setter methods directly, converting values through
+ * the {@link #setConversionService ConversionService} only where the JDBC value does not match
+ * the property type; otherwise a {@link BeanWrapper} is used for every row.
+ *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
  * For best performance, consider using a custom {@link RowMapper} implementation.
  *
  * @author Thomas Risberg
  * @author Juergen Hoeller
  * @since 2.5
+ * @see DataClassRowMapper
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
@@ -101,6 +123,20 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** Default constructor of the mapped class, if resolvable upfront */
+	@Nullable
+	private Constructor<T> defaultConstructor;
+
+	/** Whether properties may be populated without a BeanWrapper */
+	private final boolean directPropertyAccess = isDirectPropertyAccessSupported(getClass());
+
+	/** Fallback for conversions the ConversionService is not capable of */
+	private final SimpleTypeConverter typeConverter = new SimpleTypeConverter();
+
+	/** Mapping plan for the most recently mapped ResultSet */
+	@Nullable
+	private volatile MappingPlan mappingPlan;
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -232,6 +268,32 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 				this.mappedProperties.add(pd.getName());
 			}
 		}
+		this.defaultConstructor = null;
+		if (!mappedClass.isInterface() && !KotlinDetector.isKotlinType(mappedClass)) {
+			try {
+				this.defaultConstructor = mappedClass.getDeclaredConstructor();
+			}
+			catch (NoSuchMethodException ex) {
+				// Let BeanUtils.instantiateClass report the missing constructor on mapping
+			}
+		}
+		this.mappingPlan = null;
+	}
+
+	/**
+	 * Remove the specified property from the mapped fields,
+	 * e.g. since it is bound through a constructor argument instead.
+	 * @param propertyName the property name (as used by property descriptors)
+	 */
+	void suppressProperty(String propertyName) {
+		if (this.mappedFields != null) {
+			this.mappedFields.remove(lowerCaseName(propertyName));
+			this.mappedFields.remove(underscoreName(propertyName));
+		}
+		if (this.mappedProperties != null) {
+			this.mappedProperties.remove(propertyName);
+		}
+		this.mappingPlan = null;
 	}
 
 	/**
@@ -281,66 +343,210 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
-		T mappedObject = BeanUtils.instantiateClass(this.mappedClass);
-		BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
-		initBeanWrapper(bw);
+		MappingPlan plan = obtainMappingPlan(rs);
+		T mappedObject = constructMappedInstance(rs, plan.constructorColumns);
 
+		if (this.directPropertyAccess) {
+			for (PropertyMapping mapping : plan.propertyMappings) {
+				Object value = getColumnValue(rs, mapping.columnIndex, mapping.descriptor);
+				setPropertyValue(mappedObject, mapping, value, rowNumber);
+			}
+		}
+		else {
+			BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+			initBeanWrapper(bw);
+			for (PropertyMapping mapping : plan.propertyMappings) {
+				Object value = getColumnValue(rs, mapping.columnIndex, mapping.descriptor);
+				setPropertyValue(bw, mapping, value, rowNumber);
+			}
+		}
+
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of class [" + this.mappedClass.getName() + "]: " +
+					this.mappedProperties);
+		}
+
+		return mappedObject;
+	}
+
+	/**
+	 * Return the mapping plan for the given ResultSet, reusing the plan of the
+	 * previous row if it has been determined for the same ResultSet or for one
+	 * with the same columns.
+	 */
+	private MappingPlan obtainMappingPlan(ResultSet rs) throws SQLException {
+		MappingPlan plan = this.mappingPlan;
+		if (plan != null && plan.isFor(rs)) {
+			return plan;
+		}
 		ResultSetMetaData rsmd = rs.getMetaData();
-		int columnCount = rsmd.getColumnCount();
-		Set<String> populatedProperties = (isCheckFullyPopulated() ? new HashSet<>() : null);
+		String[] columns = new String[rsmd.getColumnCount()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = JdbcUtils.lookupColumnName(rsmd, i + 1);
+		}
+		plan = (plan != null && Arrays.equals(plan.columns, columns) ?
+				plan.forResultSet(rs) : buildMappingPlan(rs, columns));
+		this.mappingPlan = plan;
+		return plan;
+	}
+
+	private MappingPlan buildMappingPlan(ResultSet rs, String[] columns) {
+		String[] fields = new String[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			fields[i] = lowerCaseName(StringUtils.delete(columns[i], " "));
+		}
+		int[] constructorColumns = resolveConstructorColumns(fields);
+		boolean[] boundToConstructor = new boolean[columns.length + 1];
+		if (constructorColumns != null) {
+			for (int index : constructorColumns) {
+				boundToConstructor[index] = true;
+			}
+		}
 
-		for (int index = 1; index <= columnCount; index++) {
-			String column = JdbcUtils.lookupColumnName(rsmd, index);
-			String field = lowerCaseName(column.replaceAll(" ", ""));
+		List<PropertyMapping> mappings = new ArrayList<>(columns.length);
+		Set<String> populatedProperties = new HashSet<>();
+		for (int index = 1; index <= columns.length; index++) {
+			if (boundToConstructor[index]) {
+				continue;
+			}
+			String column = columns[index - 1];
+			String field = fields[index - 1];
 			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
 			if (pd != null) {
-				try {
-					Object value = getColumnValue(rs, index, pd);
-					if (rowNumber == 0 && logger.isDebugEnabled()) {
-						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
-								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
-					}
-					try {
-						bw.setPropertyValue(pd.getName(), value);
-					}
-					catch (TypeMismatchException ex) {
-						if (value == null && this.primitivesDefaultedForNullValue) {
-							if (logger.isDebugEnabled()) {
-								logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
-										" and column '" + column + "' with null value when setting property '" +
-										pd.getName() + "' of type '" +
-										ClassUtils.getQualifiedName(pd.getPropertyType()) +
-										"' on object: " + mappedObject, ex);
-							}
-						}
-						else {
-							throw ex;
-						}
-					}
-					if (populatedProperties != null) {
-						populatedProperties.add(pd.getName());
-					}
-				}
-				catch (NotWritablePropertyException ex) {
-					throw new DataRetrievalFailureException(
-							"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
 				}
+				mappings.add(new PropertyMapping(index, column, pd));
+				populatedProperties.add(pd.getName());
 			}
 			else {
 				// No PropertyDescriptor found
-				if (rowNumber == 0 && logger.isDebugEnabled()) {
+				if (logger.isDebugEnabled()) {
 					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
 				}
 			}
 		}
 
-		if (populatedProperties != null && !populatedProperties.equals(this.mappedProperties)) {
-			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
-					"necessary to populate object of class [" + this.mappedClass.getName() + "]: " +
-					this.mappedProperties);
+		return new MappingPlan(rs, columns, constructorColumns,
+				mappings.toArray(new PropertyMapping[0]), populatedProperties.equals(this.mappedProperties));
+	}
+
+	/**
+	 * Determine the columns to bind constructor arguments from, if any.
+	 * @param fields the column names of the ResultSet, in lower case and without spaces
+	 * @return the 1-based column index for each constructor parameter,
+	 * or {@code null} if the mapped class is instantiated through its default constructor
+	 * @see #constructMappedInstance
+	 */
+	@Nullable
+	int[] resolveConstructorColumns(String[] fields) {
+		return null;
+	}
+
+	/**
+	 * Construct an instance of the mapped class for the current row.
+	 * @param rs the ResultSet to map (pre-initialized for the current row)
+	 * @param constructorColumns the columns as determined by {@link #resolveConstructorColumns}
+	 * @return a corresponding instance of the mapped class
+	 * @throws SQLException if an SQLException is encountered
+	 */
+	T constructMappedInstance(ResultSet rs, @Nullable int[] constructorColumns) throws SQLException {
+		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		return (this.defaultConstructor != null ? BeanUtils.instantiateClass(this.defaultConstructor) :
+				BeanUtils.instantiateClass(this.mappedClass));
+	}
+
+	private void setPropertyValue(T mappedObject, PropertyMapping mapping, @Nullable Object value, int rowNumber) {
+		Class<?> propertyType = mapping.descriptor.getPropertyType();
+		if (value == null) {
+			if (propertyType.isPrimitive()) {
+				if (this.primitivesDefaultedForNullValue) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Skipped null value for row " + rowNumber + " and column '" + mapping.column +
+								"' when setting primitive property '" + mapping.descriptor.getName() + "' of type '" +
+								ClassUtils.getQualifiedName(propertyType) + "' on object: " + mappedObject);
+					}
+					return;
+				}
+				throw new TypeMismatchException(
+						new PropertyChangeEvent(mappedObject, mapping.descriptor.getName(), null, null), propertyType);
+			}
+		}
+		else if (!ClassUtils.isAssignableValue(propertyType, value)) {
+			value = convertValue(value, mapping.typeDescriptor, mapping.methodParameter);
+		}
+		try {
+			mapping.writeMethod.invoke(mappedObject, value);
 		}
+		catch (InvocationTargetException ex) {
+			throw new MethodInvocationException(
+					new PropertyChangeEvent(mappedObject, mapping.descriptor.getName(), null, value),
+					ex.getTargetException());
+		}
+		catch (IllegalAccessException ex) {
+			throw new MethodInvocationException(
+					new PropertyChangeEvent(mappedObject, mapping.descriptor.getName(), null, value), ex);
+		}
+	}
 
-		return mappedObject;
+	private void setPropertyValue(BeanWrapper bw, PropertyMapping mapping, @Nullable Object value, int rowNumber) {
+		PropertyDescriptor pd = mapping.descriptor;
+		try {
+			try {
+				bw.setPropertyValue(pd.getName(), value);
+			}
+			catch (TypeMismatchException ex) {
+				if (value == null && this.primitivesDefaultedForNullValue) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+								" and column '" + mapping.column + "' with null value when setting property '" +
+								pd.getName() + "' of type '" +
+								ClassUtils.getQualifiedName(pd.getPropertyType()) +
+								"' on object: " + bw.getWrappedInstance(), ex);
+					}
+				}
+				else {
+					throw ex;
+				}
+			}
+		}
+		catch (NotWritablePropertyException ex) {
+			throw new DataRetrievalFailureException(
+					"Unable to map column '" + mapping.column + "' to property '" + pd.getName() + "'", ex);
+		}
+	}
+
+	/**
+	 * Convert the given JDBC value to the given target type, through the
+	 * configured {@link ConversionService} if it is able to, and otherwise
+	 * through the default property editors.
+	 * @param value the value to convert
+	 * @param targetType the type to convert to
+	 * @param methodParameter the method parameter that is the target of the
+	 * conversion, if any
+	 * @return the converted value
+	 * @throws TypeMismatchException if the value cannot be converted
+	 */
+	@Nullable
+	Object convertValue(Object value, TypeDescriptor targetType, @Nullable MethodParameter methodParameter) {
+		ConversionService cs = getConversionService();
+		if (cs != null) {
+			TypeDescriptor sourceType = TypeDescriptor.forObject(value);
+			if (cs.canConvert(sourceType, targetType)) {
+				try {
+					return cs.convert(value, sourceType, targetType);
+				}
+				catch (ConversionException ex) {
+					throw new TypeMismatchException(value, targetType.getType(), ex);
+				}
+			}
+		}
+		// Property editors are stateful, so guard the shared converter
+		synchronized (this.typeConverter) {
+			return this.typeConverter.convertIfNecessary(value, targetType.getType(), methodParameter);
+		}
 	}
 
 	/**
@@ -387,4 +593,82 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return new BeanPropertyRowMapper<>(mappedClass);
 	}
 
+	/**
+	 * Properties can be set without a BeanWrapper unless the given mapper class
+	 * customizes the BeanWrapper, e.g. with custom property editors.
+	 */
+	private static boolean isDirectPropertyAccessSupported(Class<?> mapperClass) {
+		Method method = ReflectionUtils.findMethod(mapperClass, "initBeanWrapper", BeanWrapper.class);
+		return (method != null && method.getDeclaringClass() == BeanPropertyRowMapper.class);
+	}
+
+
+	/**
+	 * Mapping of the columns of a ResultSet to the mapped class,
+	 * determined from the ResultSet meta-data.
+	 */
+	private static final class MappingPlan {
+
+		private final WeakReference<ResultSet> resultSet;
+
+		private final String[] columns;
+
+		@Nullable
+		private final int[] constructorColumns;
+
+		private final PropertyMapping[] propertyMappings;
+
+		private final boolean fullyPopulated;
+
+		public MappingPlan(ResultSet resultSet, String[] columns, @Nullable int[] constructorColumns,
+				PropertyMapping[] propertyMappings, boolean fullyPopulated) {
+
+			this.resultSet = new WeakReference<>(resultSet);
+			this.columns = columns;
+			this.constructorColumns = constructorColumns;
+			this.propertyMappings = propertyMappings;
+			this.fullyPopulated = fullyPopulated;
+		}
+
+		public boolean isFor(ResultSet rs) {
+			return (this.resultSet.get() == rs);
+		}
+
+		public MappingPlan forResultSet(ResultSet rs) {
+			return new MappingPlan(rs, this.columns, this.constructorColumns,
+					this.propertyMappings, this.fullyPopulated);
+		}
+	}
+
+
+	/**
+	 * Mapping of a single column to a bean property.
+	 */
+	private static final class PropertyMapping {
+
+		private final int columnIndex;
+
+		private final String column;
+
+		private final PropertyDescriptor descriptor;
+
+		private final Method writeMethod;
+
+		private final MethodParameter methodParameter;
+
+		private final TypeDescriptor typeDescriptor;
+
+		public PropertyMapping(int columnIndex, String column, PropertyDescriptor descriptor) {
+			this.columnIndex = columnIndex;
+			this.column = column;
+			this.descriptor = descriptor;
+			Method writeMethod = descriptor.getWriteMethod();
+			Assert.state(writeMethod != null, "No write method");
+			ReflectionUtils.makeAccessible(writeMethod);
+			this.writeMethod = writeMethod;
+			this.methodParameter = BeanUtils.getWriteMethodParameter(descriptor);
+			this.typeDescriptor = new TypeDescriptor(this.methodParameter);
+		}
+	}
+
 }
@@ -0,0 +1,472 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * The values of a single column of a {@link ColumnarResult}, held in a
+ * primitive-specialized array along with a bitmap of {@code null} values.
+ *
+ * <p>Concrete vectors are {@link LongVector}, {@link IntVector} and
+ * {@link DoubleVector} for numeric columns, {@link StringVector} for
+ * dictionary-encoded character columns and {@link ObjectVector} for any
+ * other column. Values of primitive vectors can be scanned without boxing,
+ * e.g. through {@link LongVector#getLong(int)}; a {@code null} value reads
+ * as {@code 0} there and needs to be checked through {@link #isNull(int)}.
+ *
+ * <p>Vectors grow while a ResultSet is being read and are effectively
+ * immutable once handed out as part of a {@code ColumnarResult}.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see ColumnarResultSetExtractor
+ */
+public abstract class ColumnVector {
+
+	private final String name;
+
+	private final int sqlType;
+
+	/** Number of values */
+	int size;
+
+	/** Bitmap of null values, lazily created on the first null value */
+	@Nullable
+	private long[] nulls;
+
+
+	ColumnVector(String name, int sqlType) {
+		this.name = name;
+		this.sqlType = sqlType;
+	}
+
+
+	/**
+	 * Return the name of the column, as returned by the ResultSet meta-data.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Return the SQL type of the column, as defined in {@link java.sql.Types}.
+	 */
+	public int getSqlType() {
+		return this.sqlType;
+	}
+
+	/**
+	 * Return the number of values, i.e. the number of rows.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return whether the value in the given row is {@code null}.
+	 * @param row the 0-based row index
+	 */
+	public boolean isNull(int row) {
+		checkRow(row);
+		return (this.nulls != null && row >> 6 < this.nulls.length && (this.nulls[row >> 6] & (1L << row)) != 0);
+	}
+
+	/**
+	 * Return whether this column contains any {@code null} values.
+	 */
+	public boolean hasNulls() {
+		return (this.nulls != null);
+	}
+
+	/**
+	 * Return the value in the given row as an object, boxing primitive values.
+	 * @param row the 0-based row index
+	 * @return the value, or {@code null} for a {@code null} value
+	 */
+	@Nullable
+	public abstract Object getObject(int row);
+
+
+	/**
+	 * Read the value of the current row of the given ResultSet and append it.
+	 * @param rs the ResultSet positioned on the row to read
+	 * @param index the 1-based index of the column in the ResultSet
+	 */
+	abstract void read(ResultSet rs, int index) throws SQLException;
+
+	/**
+	 * Release spare capacity once all values have been read.
+	 */
+	abstract void trimToSize();
+
+	/**
+	 * Mark the value about to be appended as {@code null}.
+	 */
+	final void markNull() {
+		int word = this.size >> 6;
+		if (this.nulls == null) {
+			this.nulls = new long[word + 1];
+		}
+		else if (word >= this.nulls.length) {
+			this.nulls = Arrays.copyOf(this.nulls, Math.max(word + 1, this.nulls.length * 2));
+		}
+		this.nulls[word] |= (1L << this.size);
+	}
+
+	final void trimNulls() {
+		if (this.nulls != null) {
+			int words = ((this.size - 1) >> 6) + 1;
+			if (words < this.nulls.length) {
+				this.nulls = Arrays.copyOf(this.nulls, words);
+			}
+		}
+	}
+
+	final void checkRow(int row) {
+		if (row < 0 || row >= this.size) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds for column '" +
+					this.name + "' with " + this.size + " rows");
+		}
+	}
+
+	static int newCapacity(int capacity) {
+		int newCapacity = capacity + (capacity >> 1) + 1;
+		return (newCapacity < 0 ? Integer.MAX_VALUE - 8 : newCapacity);
+	}
+
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " '" + this.name + "' [" + this.size + " rows]";
+	}
+
+
+	/**
+	 * Vector of {@code long} values, e.g. for BIGINT columns.
+	 */
+	public static final class LongVector extends ColumnVector {
+
+		private long[] values;
+
+		LongVector(String name, int sqlType, int initialCapacity) {
+			super(name, sqlType);
+			this.values = new long[initialCapacity];
+		}
+
+		/**
+		 * Return the value in the given row, or {@code 0} for a {@code null} value.
+		 * @param row the 0-based row index
+		 */
+		public long getLong(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		/**
+		 * Return a copy of all values, with {@code null} values as {@code 0}.
+		 */
+		public long[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return (isNull(row) ? null : this.values[row]);
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			long value = rs.getLong(index);
+			if (value == 0 && rs.wasNull()) {
+				markNull();
+			}
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+
+		@Override
+		void trimToSize() {
+			if (this.size < this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size);
+			}
+			trimNulls();
+		}
+	}
+
+
+	/**
+	 * Vector of {@code int} values, e.g. for INTEGER or SMALLINT columns.
+	 */
+	public static final class IntVector extends ColumnVector {
+
+		private int[] values;
+
+		IntVector(String name, int sqlType, int initialCapacity) {
+			super(name, sqlType);
+			this.values = new int[initialCapacity];
+		}
+
+		/**
+		 * Return the value in the given row, or {@code 0} for a {@code null} value.
+		 * @param row the 0-based row index
+		 */
+		public int getInt(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		/**
+		 * Return a copy of all values, with {@code null} values as {@code 0}.
+		 */
+		public int[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return (isNull(row) ? null : this.values[row]);
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			int value = rs.getInt(index);
+			if (value == 0 && rs.wasNull()) {
+				markNull();
+			}
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+
+		@Override
+		void trimToSize() {
+			if (this.size < this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size);
+			}
+			trimNulls();
+		}
+	}
+
+
+	/**
+	 * Vector of {@code double} values, e.g. for DOUBLE or REAL columns.
+	 */
+	public static final class DoubleVector extends ColumnVector {
+
+		private double[] values;
+
+		DoubleVector(String name, int sqlType, int initialCapacity) {
+			super(name, sqlType);
+			this.values = new double[initialCapacity];
+		}
+
+		/**
+		 * Return the value in the given row, or {@code 0} for a {@code null} value.
+		 * @param row the 0-based row index
+		 */
+		public double getDouble(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		/**
+		 * Return a copy of all values, with {@code null} values as {@code 0}.
+		 */
+		public double[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return (isNull(row) ? null : this.values[row]);
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			double value = rs.getDouble(index);
+			if (value == 0 && rs.wasNull()) {
+				markNull();
+			}
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+
+		@Override
+		void trimToSize() {
+			if (this.size < this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size);
+			}
+			trimNulls();
+		}
+	}
+
+
+	/**
+	 * Vector of dictionary-encoded {@code String} values, e.g. for VARCHAR
+	 * columns: each distinct value is held once, with an {@code int} code
+	 * per row referring to it.
+	 */
+	public static final class StringVector extends ColumnVector {
+
+		private int[] codes;
+
+		private final ArrayList<String> dictionary = new ArrayList<>();
+
+		@Nullable
+		private Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+		StringVector(String name, int sqlType, int initialCapacity) {
+			super(name, sqlType);
+			this.codes = new int[initialCapacity];
+		}
+
+		/**
+		 * Return the value in the given row.
+		 * @param row the 0-based row index
+		 * @return the value, or {@code null} for a {@code null} value
+		 */
+		@Nullable
+		public String getString(int row) {
+			int code = getCode(row);
+			return (code >= 0 ? this.dictionary.get(code) : null);
+		}
+
+		/**
+		 * Return the dictionary code of the value in the given row, i.e. its
+		 * index in the {@link #getDictionary() dictionary}. Rows with equal
+		 * values share the same code, which allows for grouping and comparing
+		 * rows without comparing strings.
+		 * @param row the 0-based row index
+		 * @return the code, or {@code -1} for a {@code null} value
+		 */
+		public int getCode(int row) {
+			checkRow(row);
+			return this.codes[row];
+		}
+
+		/**
+		 * Return the distinct values of this column, in order of first occurrence.
+		 */
+		public List<String> getDictionary() {
+			return Collections.unmodifiableList(this.dictionary);
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return getString(row);
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			String value = rs.getString(index);
+			int code = -1;
+			if (value == null) {
+				markNull();
+			}
+			else {
+				Assert.state(this.dictionaryIndex != null, "Vector already completed");
+				Integer existing = this.dictionaryIndex.get(value);
+				if (existing != null) {
+					code = existing;
+				}
+				else {
+					code = this.dictionary.size();
+					this.dictionary.add(value);
+					this.dictionaryIndex.put(value, code);
+				}
+			}
+			if (this.size == this.codes.length) {
+				this.codes = Arrays.copyOf(this.codes, newCapacity(this.size));
+			}
+			this.codes[this.size++] = code;
+		}
+
+		@Override
+		void trimToSize() {
+			if (this.size < this.codes.length) {
+				this.codes = Arrays.copyOf(this.codes, this.size);
+			}
+			this.dictionary.trimToSize();
+			this.dictionaryIndex = null;
+			trimNulls();
+		}
+	}
+
+
+	/**
+	 * Vector of arbitrary values, as returned by
+	 * {@link JdbcUtils#getResultSetValue(ResultSet, int)}.
+	 */
+	public static final class ObjectVector extends ColumnVector {
+
+		private Object[] values;
+
+		ObjectVector(String name, int sqlType, int initialCapacity) {
+			super(name, sqlType);
+			this.values = new Object[initialCapacity];
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			Object value = JdbcUtils.getResultSetValue(rs, index);
+			if (value == null) {
+				markNull();
+			}
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+
+		@Override
+		void trimToSize() {
+			if (this.size < this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size);
+			}
+			trimNulls();
+		}
+	}
+
+}
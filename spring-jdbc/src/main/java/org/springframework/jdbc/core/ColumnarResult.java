@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * Result of a query held in column-oriented form: one {@link ColumnVector}
+ * per column, each holding the values of all rows.
+ *
+ * <p>Columns are accessible by their 0-based position or by their name,
+ * ignoring case. Numeric columns read into primitive vectors can be scanned
+ * without boxing:
+ *
+ * <pre class="code">
+ * ColumnarResult result = jdbcTemplate.query(
+ *     "SELECT region, amount FROM sales", new ColumnarResultSetExtractor());
+ * ColumnVector.StringVector region = result.getColumn("region", ColumnVector.StringVector.class);
+ * ColumnVector.DoubleVector amount = result.getColumn("amount", ColumnVector.DoubleVector.class);
+ * double[] totals = new double[region.getDictionary().size()];
+ * for (int row = 0; row &lt; result.getRowCount(); row++) {
+ *     if (!region.isNull(row)) {
+ *         totals[region.getCode(row)] += amount.getDouble(row);
+ *     }
+ * }</pre>
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see ColumnarResultSetExtractor
+ */
+public class ColumnarResult {
+
+	private final ColumnVector[] columns;
+
+	private final int rowCount;
+
+	private final Map<String, ColumnVector> columnsByName;
+
+
+	/**
+	 * Create a new {@code ColumnarResult} for the given columns.
+	 * @param columns the column vectors, all of the same size
+	 * @param rowCount the number of rows
+	 */
+	ColumnarResult(ColumnVector[] columns, int rowCount) {
+		this.columns = columns;
+		this.rowCount = rowCount;
+		this.columnsByName = new LinkedCaseInsensitiveMap<>(columns.length);
+		for (ColumnVector column : columns) {
+			this.columnsByName.putIfAbsent(column.getName(), column);
+		}
+	}
+
+
+	/**
+	 * Return the number of rows.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Return the number of columns.
+	 */
+	public int getColumnCount() {
+		return this.columns.length;
+	}
+
+	/**
+	 * Return the names of all columns, in ResultSet order.
+	 */
+	public List<String> getColumnNames() {
+		List<String> names = new ArrayList<>(this.columns.length);
+		for (ColumnVector column : this.columns) {
+			names.add(column.getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Return all columns, in ResultSet order.
+	 */
+	public List<ColumnVector> getColumns() {
+		return Collections.unmodifiableList(Arrays.asList(this.columns));
+	}
+
+	/**
+	 * Return the column at the given position.
+	 * @param columnIndex the 0-based position of the column
+	 */
+	public ColumnVector getColumn(int columnIndex) {
+		return this.columns[columnIndex];
+	}
+
+	/**
+	 * Return the column with the given name, ignoring case.
+	 * @param columnName the name of the column
+	 * @throws InvalidDataAccessApiUsageException if there is no such column
+	 */
+	public ColumnVector getColumn(String columnName) {
+		ColumnVector column = this.columnsByName.get(columnName);
+		if (column == null) {
+			throw new InvalidDataAccessApiUsageException(
+					"No column '" + columnName + "' in result with columns " + getColumnNames());
+		}
+		return column;
+	}
+
+	/**
+	 * Return the column with the given name, ignoring case, as a vector of the
+	 * given type.
+	 * @param columnName the name of the column
+	 * @param vectorType the expected type of vector, e.g. {@link ColumnVector.LongVector}
+	 * @throws InvalidDataAccessApiUsageException if there is no such column or if
+	 * it has been read into a different type of vector
+	 */
+	public <V extends ColumnVector> V getColumn(String columnName, Class<V> vectorType) {
+		ColumnVector column = getColumn(columnName);
+		if (!vectorType.isInstance(column)) {
+			throw new InvalidDataAccessApiUsageException("Column '" + columnName + "' has been read into a " +
+					column.getClass().getSimpleName() + ", not a " + vectorType.getSimpleName());
+		}
+		return vectorType.cast(column);
+	}
+
+	/**
+	 * Return the value of the given column in the given row as an object.
+	 * @param row the 0-based row index
+	 * @param columnName the name of the column
+	 * @see ColumnVector#getObject(int)
+	 */
+	@Nullable
+	public Object getObject(int row, String columnName) {
+		return getColumn(columnName).getObject(row);
+	}
+
+
+	@Override
+	public String toString() {
+		return "ColumnarResult with " + this.rowCount + " rows and columns " + getColumnNames();
+	}
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link RowMapper} implementation that converts a row into a new instance
+ * of the specified mapped target class. The mapped target class must be a
+ * top-level class and may either expose a data class constructor with named
+ * parameters corresponding to column names or classic bean property setters
+ * (or even a combination of both).
+ *
+ * <p>Constructor parameters are matched against column names in the same way
+ * as bean properties, i.e. either directly or in their underscored form. The
+ * parameter names are taken from a {@link ConstructorProperties} annotation if
+ * present, or otherwise from the compiled class (requiring the
+ * {@code -parameters} compiler flag or debug information). As with bean
+ * properties, the matching columns are determined once per {@link ResultSet}.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @param <T> the result type
+ */
+public class DataClassRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+
+	@Nullable
+	private Constructor<T> mappedConstructor;
+
+	@Nullable
+	private String[] constructorParameterNames;
+
+	@Nullable
+	private MethodParameter[] constructorParameters;
+
+	@Nullable
+	private TypeDescriptor[] constructorParameterTypes;
+
+
+	/**
+	 * Create a new {@code DataClassRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setConversionService
+	 */
+	public DataClassRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code DataClassRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public DataClassRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+
+	@Override
+	protected void initialize(Class<T> mappedClass) {
+		super.initialize(mappedClass);
+
+		this.mappedConstructor = resolveConstructor(mappedClass);
+		int paramCount = this.mappedConstructor.getParameterCount();
+		if (paramCount > 0) {
+			String[] paramNames = determineParameterNames(this.mappedConstructor);
+			this.constructorParameterNames = paramNames;
+			this.constructorParameters = new MethodParameter[paramCount];
+			this.constructorParameterTypes = new TypeDescriptor[paramCount];
+			for (int i = 0; i < paramCount; i++) {
+				suppressProperty(paramNames[i]);
+				this.constructorParameters[i] = new MethodParameter(this.mappedConstructor, i);
+				this.constructorParameterTypes[i] = new TypeDescriptor(this.constructorParameters[i]);
+			}
+		}
+		else {
+			this.constructorParameterNames = null;
+			this.constructorParameters = null;
+			this.constructorParameterTypes = null;
+		}
+	}
+
+	@Override
+	@Nullable
+	int[] resolveConstructorColumns(String[] fields) {
+		if (this.mappedConstructor == null || this.constructorParameterNames == null) {
+			return null;
+		}
+		int[] columns = new int[this.constructorParameterNames.length];
+		for (int i = 0; i < columns.length; i++) {
+			String name = this.constructorParameterNames[i];
+			// Try direct name match first, then underscored name match
+			int index = indexOf(fields, lowerCaseName(name));
+			if (index < 0) {
+				index = indexOf(fields, underscoreName(name));
+			}
+			if (index < 0) {
+				throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain a column for " +
+						"constructor parameter '" + name + "' of class [" +
+						this.mappedConstructor.getDeclaringClass().getName() + "]");
+			}
+			columns[i] = index + 1;
+		}
+		return columns;
+	}
+
+	@Override
+	T constructMappedInstance(ResultSet rs, @Nullable int[] constructorColumns) throws SQLException {
+		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
+		if (constructorColumns == null || this.constructorParameterTypes == null ||
+				this.constructorParameters == null) {
+			return BeanUtils.instantiateClass(this.mappedConstructor);
+		}
+
+		Object[] args = new Object[constructorColumns.length];
+		for (int i = 0; i < args.length; i++) {
+			TypeDescriptor td = this.constructorParameterTypes[i];
+			Object value = JdbcUtils.getResultSetValue(rs, constructorColumns[i], td.getType());
+			if (value == null) {
+				if (td.isPrimitive()) {
+					if (!isPrimitivesDefaultedForNullValue()) {
+						throw new TypeMismatchException((Object) null, td.getType());
+					}
+					value = Array.get(Array.newInstance(td.getType(), 1), 0);
+				}
+			}
+			else if (!ClassUtils.isAssignableValue(td.getType(), value)) {
+				value = convertValue(value, td, this.constructorParameters[i]);
+			}
+			args[i] = value;
+		}
+		return BeanUtils.instantiateClass(this.mappedConstructor, args);
+	}
+
+
+	/**
+	 * Resolve the constructor to bind columns to: a Kotlin primary constructor,
+	 * a single public or single declared constructor, or a default constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Constructor<T> resolveConstructor(Class<T> clazz) {
+		Constructor<T> ctor = BeanUtils.findPrimaryConstructor(clazz);
+		if (ctor != null) {
+			return ctor;
+		}
+		Constructor<?>[] ctors = clazz.getConstructors();
+		if (ctors.length == 0) {
+			ctors = clazz.getDeclaredConstructors();
+		}
+		if (ctors.length == 1) {
+			return (Constructor<T>) ctors[0];
+		}
+		try {
+			return clazz.getDeclaredConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			throw new IllegalStateException("No primary or single unique constructor found for " + clazz);
+		}
+	}
+
+	private static String[] determineParameterNames(Constructor<?> ctor) {
+		ConstructorProperties cp = ctor.getAnnotation(ConstructorProperties.class);
+		String[] paramNames = (cp != null ? cp.value() : parameterNameDiscoverer.getParameterNames(ctor));
+		Assert.state(paramNames != null, () -> "Cannot resolve parameter names for constructor " + ctor);
+		Assert.state(paramNames.length == ctor.getParameterCount(),
+				() -> "Invalid number of parameter names: " + paramNames.length + " for constructor " + ctor);
+		return paramNames;
+	}
+
+	private static int indexOf(String[] fields, String field) {
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].equals(field)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code DataClassRowMapper}
+	 * (with the mapped class specified only once).
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> DataClassRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new DataClassRowMapper<>(mappedClass);
+	}
+
+}
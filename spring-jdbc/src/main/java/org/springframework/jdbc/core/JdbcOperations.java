@@ -16,15 +16,19 @@
 
 package org.springframework.jdbc.core;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * Interface specifying a basic set of JDBC operations.
@@ -132,6 +136,34 @@ public interface JdbcOperations {
 	 */
 	<T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException;
 
+	/**
+	 * Execute a query given static SQL, mapping each row to a result object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are mapped lazily as the Stream is consumed, so that large results
+	 * do not need to be held in memory; the {@link JdbcTemplate#setFetchSize
+	 * fetch size} determines how many rows the driver retrieves at a time.
+	 * The Stream keeps the JDBC Statement, ResultSet and Connection open until
+	 * it is closed: make sure to close it, e.g. through a try-with-resources
+	 * block, and to consume it within the scope of any transaction it
+	 * participates in.
+	 * <p>Uses a JDBC Statement, not a PreparedStatement. If you want to
+	 * execute a static query with a PreparedStatement, use the overloaded
+	 * {@code queryForStream} method with {@code null} as argument array.
+	 * <p>The default implementation runs the corresponding {@code query} method
+	 * and streams over the resulting List, i.e. holds all rows in memory.
+	 * {@link JdbcTemplate} overrides it with a Stream over the open ResultSet.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if there is any problem executing the query
+	 * @since 5.0.16
+	 * @see #queryForStream(String, RowMapper, Object...)
+	 */
+	default <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+		return query(sql, rowMapper).stream();
+	}
+
 	/**
 	 * Execute a query given static SQL, mapping a single result row to a
 	 * result object via a RowMapper.
@@ -514,6 +546,80 @@ public interface JdbcOperations {
 	 */
 	<T> List<T> query(String sql, RowMapper<T> rowMapper, @Nullable Object... args) throws DataAccessException;
 
+	/**
+	 * Query using a prepared statement, mapping each row to a result object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>A PreparedStatementCreator can either be implemented directly or
+	 * configured through a PreparedStatementCreatorFactory.
+	 * <p>The default implementation runs the corresponding {@code query} method
+	 * and streams over the resulting List, i.e. holds all rows in memory.
+	 * {@link JdbcTemplate} overrides it with a Stream over the open ResultSet.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if there is any problem
+	 * @since 5.0.16
+	 * @see #queryForStream(String, RowMapper)
+	 * @see PreparedStatementCreatorFactory
+	 */
+	default <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return query(psc, rowMapper).stream();
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a PreparedStatementSetter
+	 * implementation that knows how to bind values to the query, mapping each row
+	 * to a result object via a RowMapper, and turning it into an iterable and
+	 * closeable Stream.
+	 * <p>The default implementation runs the corresponding {@code query} method
+	 * and streams over the resulting List, i.e. holds all rows in memory.
+	 * {@link JdbcTemplate} overrides it with a Stream over the open ResultSet.
+	 * @param sql the SQL query to execute
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * Even if there are no bind parameters, this callback may be used to set the
+	 * fetch size and other performance options.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.0.16
+	 * @see #queryForStream(String, RowMapper)
+	 */
+	default <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return query(sql, pss, rowMapper).stream();
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, mapping each row to a result object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>The default implementation runs the corresponding {@code query} method
+	 * and streams over the resulting List, i.e. holds all rows in memory.
+	 * {@link JdbcTemplate} overrides it with a Stream over the open ResultSet.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type);
+	 * may also contain {@link SqlParameterValue} objects which indicate not
+	 * only the argument value but also the SQL type and optionally the scale
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.0.16
+	 * @see #queryForStream(String, RowMapper)
+	 */
+	default <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return query(sql, rowMapper, args).stream();
+	}
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL and a list
 	 * of arguments to bind to the query, mapping a single result row to a
@@ -931,6 +1037,90 @@ public interface JdbcOperations {
 	<T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
 			ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException;
 
+	/**
+	 * Execute multiple batches using the supplied SQL statement, consuming the
+	 * arguments from the given Iterator as the batches are sent. Unlike
+	 * {@link #batchUpdate(String, Collection, int, ParameterizedPreparedStatementSetter)},
+	 * no more than one batch of arguments needs to be held in memory, and the
+	 * update counts are handed to the given callback instead of being collected.
+	 * <p>All batches are executed on the same PreparedStatement, participating
+	 * in the current transaction if any.
+	 * <p>The default implementation collects one batch of arguments at a time
+	 * and executes it through
+	 * {@link #batchUpdate(String, Collection, int, ParameterizedPreparedStatementSetter)},
+	 * i.e. on a new PreparedStatement per batch. {@link JdbcTemplate} overrides
+	 * it with the single-statement variant described above.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the Iterator over the arguments for the batch
+	 * @param batchSize the number of arguments per batch
+	 * @param pss the ParameterizedPreparedStatementSetter to use
+	 * @param chunkCallback callback notified with the update counts and timing
+	 * of each batch, or with the failure and the position of the failed item
+	 * (may be {@code null})
+	 * @return the number of arguments that have been executed
+	 * @throws DataAccessException if there is any problem issuing the update
+	 * @since 5.0.16
+	 * @see org.springframework.jdbc.core.support.ChunkedBatchUpdateExecutor
+	 */
+	default <T> long batchUpdate(String sql, Iterator<T> batchArgs, int batchSize,
+			ParameterizedPreparedStatementSetter<T> pss, @Nullable BatchChunkCallback chunkCallback)
+			throws DataAccessException {
+
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		long position = 0;
+		int chunkIndex = 0;
+		while (batchArgs.hasNext()) {
+			List<T> chunk = new ArrayList<>(batchSize);
+			while (chunk.size() < batchSize && batchArgs.hasNext()) {
+				chunk.add(batchArgs.next());
+			}
+			long chunkStart = System.nanoTime();
+			int[][] counts;
+			try {
+				counts = batchUpdate(sql, chunk, batchSize, pss);
+			}
+			catch (RuntimeException ex) {
+				if (chunkCallback != null) {
+					chunkCallback.chunkCompleted(new BatchChunkResult(
+							chunkIndex, position, chunk.size(), ex, -1, System.nanoTime() - chunkStart));
+				}
+				throw ex;
+			}
+			if (chunkCallback != null) {
+				chunkCallback.chunkCompleted(new BatchChunkResult(chunkIndex, position, chunk.size(),
+						(counts.length > 0 ? counts[0] : new int[0]), System.nanoTime() - chunkStart));
+			}
+			position += chunk.size();
+			chunkIndex++;
+		}
+		return position;
+	}
+
+	/**
+	 * Execute multiple batches using the supplied SQL statement, consuming the
+	 * arguments from the given Stream as the batches are sent.
+	 * <p>The Stream is closed once all arguments have been consumed.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the Stream of arguments for the batch
+	 * @param batchSize the number of arguments per batch
+	 * @param pss the ParameterizedPreparedStatementSetter to use
+	 * @param chunkCallback callback notified with the update counts and timing
+	 * of each batch, or with the failure and the position of the failed item
+	 * (may be {@code null})
+	 * @return the number of arguments that have been executed
+	 * @throws DataAccessException if there is any problem issuing the update
+	 * @since 5.0.16
+	 * @see #batchUpdate(String, Iterator, int, ParameterizedPreparedStatementSetter, BatchChunkCallback)
+	 */
+	default <T> long batchUpdate(String sql, Stream<T> batchArgs, int batchSize,
+			ParameterizedPreparedStatementSetter<T> pss, @Nullable BatchChunkCallback chunkCallback)
+			throws DataAccessException {
+
+		try (Stream<T> stream = batchArgs) {
+			return batchUpdate(sql, stream.iterator(), batchSize, pss, chunkCallback);
+		}
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
@@ -31,9 +31,14 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -46,6 +51,8 @@ import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcAccessor;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.metrics.JdbcObservation;
+import org.springframework.jdbc.support.metrics.JdbcObservationHandler;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -146,6 +153,10 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/** Handler to pass observations of each operation to, if any */
+	@Nullable
+	private JdbcObservationHandler observationHandler;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -310,6 +321,27 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set a handler to observe each JDBC operation performed by this template,
+	 * with the time spent obtaining the Connection, preparing and executing the
+	 * statement and extracting its results, as well as the number of rows.
+	 * <p>Default is none, in which case no observations are created at all.
+	 * @since 5.0.16
+	 * @see org.springframework.jdbc.support.metrics.SqlStatisticsCollector
+	 */
+	public void setObservationHandler(@Nullable JdbcObservationHandler observationHandler) {
+		this.observationHandler = observationHandler;
+	}
+
+	/**
+	 * Return the handler to observe each JDBC operation performed by this template, if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public JdbcObservationHandler getObservationHandler() {
+		return this.observationHandler;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -320,7 +352,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		JdbcObservation observation = startObservation(JdbcObservation.EXECUTE, action);
+		Connection con = obtainConnection(observation);
 		try {
 			// Create close-suppressing Connection proxy, also preparing returned Statements.
 			Connection conToUse = createConnectionProxy(con);
@@ -332,10 +365,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			String sql = getSql(action);
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("ConnectionCallback", sql, ex);
+			throw observeFailure(observation, translateException("ConnectionCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			observeFailure(observation, ex);
+			throw ex;
 		}
 		finally {
 			DataSourceUtils.releaseConnection(con, getDataSource());
+			observeCompletion(observation);
 		}
 	}
 
@@ -362,16 +400,33 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	// Methods dealing with static SQL (java.sql.Statement)
 	//-------------------------------------------------------------------------
 
-	@Override
+	/**
+	 * Execute a JDBC data access operation, implemented as callback action
+	 * working on a JDBC Statement.
+	 * @param action the callback to execute
+	 * @param closeResources whether to close the Statement and release the
+	 * Connection once the callback returned, as opposed to leaving that to
+	 * the result (e.g. a Stream); on any exception they are always closed,
+	 * which also closes a ResultSet opened on the Statement. The same applies
+	 * to completing the observation.
+	 * @param observation the observation to record the operation in, if any
+	 * @return a result object returned by the action, or {@code null}
+	 * @throws DataAccessException if there is any problem
+	 */
 	@Nullable
-	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+	private <T> T execute(StatementCallback<T> action, boolean closeResources,
+			@Nullable JdbcObservation observation) throws DataAccessException {
+
 		Assert.notNull(action, "Callback object must not be null");
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		Connection con = obtainConnection(observation);
 		Statement stmt = null;
 		try {
 			stmt = con.createStatement();
 			applyStatementSettings(stmt);
+			if (observation != null) {
+				observation.statementPrepared();
+			}
 			T result = action.doInStatement(stmt);
 			handleWarnings(stmt);
 			return result;
@@ -384,14 +439,31 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			stmt = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("StatementCallback", sql, ex);
+			throw observeFailure(observation, translateException("StatementCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+			observeFailure(observation, ex);
+			throw ex;
 		}
 		finally {
-			JdbcUtils.closeStatement(stmt);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+			if (closeResources) {
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+				observeCompletion(observation);
+			}
 		}
 	}
 
+	@Override
+	@Nullable
+	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+		return execute(action, true, obtainObservation(action, action));
+	}
+
 	@Override
 	public void execute(final String sql) throws DataAccessException {
 		if (logger.isDebugEnabled()) {
@@ -423,14 +495,19 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL query [" + sql + "]");
 		}
 
-		class QueryStatementCallback implements StatementCallback<T>, SqlProvider {
+		JdbcObservation observation = startObservation(JdbcObservation.QUERY, sql);
+
+		class QueryStatementCallback implements StatementCallback<T>, SqlProvider, ObservedCallback {
 			@Override
 			@Nullable
 			public T doInStatement(Statement stmt) throws SQLException {
 				ResultSet rs = null;
 				try {
 					rs = stmt.executeQuery(sql);
-					return rse.extractData(rs);
+					if (observation != null) {
+						observation.statementExecuted();
+					}
+					return observeRowCount(observation, rse.extractData(rs));
 				}
 				finally {
 					JdbcUtils.closeResultSet(rs);
@@ -440,6 +517,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			public String getSql() {
 				return sql;
 			}
+			@Override
+			@Nullable
+			public JdbcObservation getObservation() {
+				return observation;
+			}
 		}
 
 		return execute(new QueryStatementCallback());
@@ -455,6 +537,41 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(final String sql, final RowMapper<T> rowMapper) throws DataAccessException {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL query [" + sql + "]");
+		}
+
+		JdbcObservation observation = startObservation(JdbcObservation.QUERY, sql);
+
+		class StreamStatementCallback implements StatementCallback<Stream<T>>, SqlProvider {
+			@Override
+			public Stream<T> doInStatement(Statement stmt) throws SQLException {
+				ResultSet rs = stmt.executeQuery(sql);
+				if (observation != null) {
+					observation.statementExecuted();
+				}
+				Connection con = stmt.getConnection();
+				ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(rs, rowMapper, observation);
+				return spliterator.stream().onClose(() -> {
+					JdbcUtils.closeResultSet(rs);
+					JdbcUtils.closeStatement(stmt);
+					DataSourceUtils.releaseConnection(con, getDataSource());
+					spliterator.completeObservation();
+				});
+			}
+			@Override
+			public String getSql() {
+				return sql;
+			}
+		}
+
+		return result(execute(new StreamStatementCallback(), false, observation));
+	}
+
 	@Override
 	public Map<String, Object> queryForMap(String sql) throws DataAccessException {
 		return result(queryForObject(sql, getColumnMapRowMapper()));
@@ -495,10 +612,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL update [" + sql + "]");
 		}
 
-		class UpdateStatementCallback implements StatementCallback<Integer>, SqlProvider {
+		JdbcObservation observation = startObservation(JdbcObservation.UPDATE, sql);
+
+		class UpdateStatementCallback implements StatementCallback<Integer>, SqlProvider, ObservedCallback {
 			@Override
 			public Integer doInStatement(Statement stmt) throws SQLException {
 				int rows = stmt.executeUpdate(sql);
+				if (observation != null) {
+					observation.setRowCount(rows);
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug("SQL update affected " + rows + " rows");
 				}
@@ -508,6 +630,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			public String getSql() {
 				return sql;
 			}
+			@Override
+			@Nullable
+			public JdbcObservation getObservation() {
+				return observation;
+			}
 		}
 
 		return updateCount(execute(new UpdateStatementCallback()));
@@ -520,7 +647,10 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL batch update of " + sql.length + " statements");
 		}
 
-		class BatchUpdateStatementCallback implements StatementCallback<int[]>, SqlProvider {
+		JdbcObservation observation = startObservation(JdbcObservation.BATCH_UPDATE,
+				(SqlProvider) () -> StringUtils.arrayToDelimitedString(sql, "; "));
+
+		class BatchUpdateStatementCallback implements StatementCallback<int[]>, SqlProvider, ObservedCallback {
 
 			@Nullable
 			private String currSql;
@@ -560,7 +690,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						}
 					}
 				}
-				return rowsAffected;
+				return observeRowCount(observation, rowsAffected);
 			}
 
 			private String appendSql(@Nullable String sql, String statement) {
@@ -572,6 +702,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			public String getSql() {
 				return this.currSql;
 			}
+
+			@Override
+			@Nullable
+			public JdbcObservation getObservation() {
+				return observation;
+			}
 		}
 
 		int[] result = execute(new BatchUpdateStatementCallback());
@@ -584,10 +720,23 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	// Methods dealing with prepared statements
 	//-------------------------------------------------------------------------
 
-	@Override
+	/**
+	 * Execute a JDBC data access operation, implemented as callback action
+	 * working on a JDBC PreparedStatement.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param action a callback that specifies the action
+	 * @param closeResources whether to close the PreparedStatement and release
+	 * the Connection once the callback returned, as opposed to leaving that to
+	 * the result (e.g. a Stream); on any exception they are always closed,
+	 * which also closes a ResultSet opened on the PreparedStatement. The same
+	 * applies to completing the observation.
+	 * @param observation the observation to record the operation in, if any
+	 * @return a result object returned by the action, or {@code null}
+	 * @throws DataAccessException if there is any problem
+	 */
 	@Nullable
-	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
-			throws DataAccessException {
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action, boolean closeResources,
+			@Nullable JdbcObservation observation) throws DataAccessException {
 
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
@@ -596,11 +745,14 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing prepared SQL statement" + (sql != null ? " [" + sql + "]" : ""));
 		}
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		Connection con = obtainConnection(observation);
 		PreparedStatement ps = null;
 		try {
 			ps = psc.createPreparedStatement(con);
 			applyStatementSettings(ps);
+			if (observation != null) {
+				observation.statementPrepared();
+			}
 			T result = action.doInPreparedStatement(ps);
 			handleWarnings(ps);
 			return result;
@@ -617,17 +769,39 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			ps = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("PreparedStatementCallback", sql, ex);
+			throw observeFailure(observation, translateException("PreparedStatementCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+			observeFailure(observation, ex);
+			throw ex;
 		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			if (closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+				observeCompletion(observation);
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
 		}
 	}
 
+	@Override
+	@Nullable
+	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
+			throws DataAccessException {
+
+		return execute(psc, action, true, obtainObservation(action, psc));
+	}
+
 	@Override
 	@Nullable
 	public <T> T execute(String sql, PreparedStatementCallback<T> action) throws DataAccessException {
@@ -653,7 +827,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		Assert.notNull(rse, "ResultSetExtractor must not be null");
 		logger.debug("Executing prepared SQL query");
 
-		return execute(psc, new PreparedStatementCallback<T>() {
+		JdbcObservation observation = startObservation(JdbcObservation.QUERY, psc);
+		return execute(psc, new ObservedPreparedStatementCallback<>(observation, new PreparedStatementCallback<T>() {
 			@Override
 			@Nullable
 			public T doInPreparedStatement(PreparedStatement ps) throws SQLException {
@@ -663,7 +838,10 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						pss.setValues(ps);
 					}
 					rs = ps.executeQuery();
-					return rse.extractData(rs);
+					if (observation != null) {
+						observation.statementExecuted();
+					}
+					return observeRowCount(observation, rse.extractData(rs));
 				}
 				finally {
 					JdbcUtils.closeResultSet(rs);
@@ -672,7 +850,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					}
 				}
 			}
-		});
+		}));
 	}
 
 	@Override
@@ -755,6 +933,71 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, and turning the mapped rows into an
+	 * iterable and closeable Stream. Most other {@code queryForStream}
+	 * methods use this method.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.0.16
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss,
+			final RowMapper<T> rowMapper) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query");
+
+		JdbcObservation observation = startObservation(JdbcObservation.QUERY, psc);
+		return result(execute(psc, ps -> {
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+			ResultSet rs = ps.executeQuery();
+			if (observation != null) {
+				observation.statementExecuted();
+			}
+			Connection con = ps.getConnection();
+			ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(rs, rowMapper, observation);
+			return spliterator.stream().onClose(() -> {
+				JdbcUtils.closeResultSet(rs);
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+				spliterator.completeObservation();
+			});
+		}, false, observation));
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -846,12 +1089,16 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 		logger.debug("Executing prepared SQL update");
 
-		return updateCount(execute(psc, ps -> {
+		JdbcObservation observation = startObservation(JdbcObservation.UPDATE, psc);
+		return updateCount(execute(psc, new ObservedPreparedStatementCallback<>(observation, ps -> {
 			try {
 				if (pss != null) {
 					pss.setValues(ps);
 				}
 				int rows = ps.executeUpdate();
+				if (observation != null) {
+					observation.setRowCount(rows);
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug("SQL update affected " + rows + " rows");
 				}
@@ -862,7 +1109,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
 			}
-		}));
+		})));
 	}
 
 	@Override
@@ -877,8 +1124,13 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		Assert.notNull(generatedKeyHolder, "KeyHolder must not be null");
 		logger.debug("Executing SQL update and returning generated keys");
 
-		return updateCount(execute(psc, ps -> {
+		JdbcObservation observation = startObservation(JdbcObservation.UPDATE, psc);
+		return updateCount(execute(psc, new ObservedPreparedStatementCallback<>(observation, ps -> {
 			int rows = ps.executeUpdate();
+			if (observation != null) {
+				observation.statementExecuted();
+				observation.setRowCount(rows);
+			}
 			List<Map<String, Object>> generatedKeys = generatedKeyHolder.getKeyList();
 			generatedKeys.clear();
 			ResultSet keys = ps.getGeneratedKeys();
@@ -896,7 +1148,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				logger.debug("SQL update affected " + rows + " rows and returned " + generatedKeys.size() + " keys");
 			}
 			return rows;
-		}));
+		})));
 	}
 
 	@Override
@@ -920,7 +1172,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL batch update [" + sql + "]");
 		}
 
-		int[] result = execute(sql, (PreparedStatementCallback<int[]>) ps -> {
+		JdbcObservation observation = startObservation(JdbcObservation.BATCH_UPDATE, sql);
+		int[] result = execute(sql, new ObservedPreparedStatementCallback<>(observation, (PreparedStatementCallback<int[]>) ps -> {
 			try {
 				int batchSize = pss.getBatchSize();
 				InterruptibleBatchPreparedStatementSetter ipss =
@@ -934,7 +1187,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						}
 						ps.addBatch();
 					}
-					return ps.executeBatch();
+					return observeRowCount(observation, ps.executeBatch());
 				}
 				else {
 					List<Integer> rowsAffected = new ArrayList<>();
@@ -949,7 +1202,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					for (int i = 0; i < rowsAffectedArray.length; i++) {
 						rowsAffectedArray[i] = rowsAffected.get(i);
 					}
-					return rowsAffectedArray;
+					return observeRowCount(observation, rowsAffectedArray);
 				}
 			}
 			finally {
@@ -957,7 +1210,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
 			}
-		});
+		}));
 
 		Assert.state(result != null, "No result array");
 		return result;
@@ -980,7 +1233,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing SQL batch update [" + sql + "] with a batch size of " + batchSize);
 		}
-		int[][] result = execute(sql, (PreparedStatementCallback<int[][]>) ps -> {
+		JdbcObservation observation = startObservation(JdbcObservation.BATCH_UPDATE, sql);
+		int[][] result = execute(sql, new ObservedPreparedStatementCallback<>(observation, (PreparedStatementCallback<int[][]>) ps -> {
 			List<int[]> rowsAffected = new ArrayList<>();
 			try {
 				boolean batchSupported = JdbcUtils.supportsBatchUpdates(ps.getConnection());
@@ -1007,6 +1261,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				int[][] result1 = new int[rowsAffected.size()][];
 				for (int i = 0; i < result1.length; i++) {
 					result1[i] = rowsAffected.get(i);
+					observeRowCount(observation, result1[i]);
 				}
 				return result1;
 			}
@@ -1015,12 +1270,87 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
 			}
-		});
+		}));
 
 		Assert.state(result != null, "No result array");
 		return result;
 	}
 
+	@Override
+	public <T> long batchUpdate(String sql, final Iterator<T> batchArgs, final int batchSize,
+			final ParameterizedPreparedStatementSetter<T> pss, @Nullable final BatchChunkCallback chunkCallback)
+			throws DataAccessException {
+
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing streaming SQL batch update [" + sql + "] with a batch size of " + batchSize);
+		}
+		JdbcObservation observation = startObservation(JdbcObservation.BATCH_UPDATE, sql);
+		Long result = execute(sql, new ObservedPreparedStatementCallback<>(observation, (PreparedStatementCallback<Long>) ps -> {
+			try {
+				boolean batchSupported = JdbcUtils.supportsBatchUpdates(ps.getConnection());
+				long position = 0;
+				int chunkIndex = 0;
+				while (batchArgs.hasNext()) {
+					long chunkStart = System.nanoTime();
+					int[] counts = new int[batchSize];
+					int n = 0;
+					boolean batchSent = false;
+					try {
+						while (n < batchSize && batchArgs.hasNext()) {
+							pss.setValues(ps, batchArgs.next());
+							if (batchSupported) {
+								ps.addBatch();
+							}
+							else {
+								counts[n] = ps.executeUpdate();
+							}
+							n++;
+						}
+						if (batchSupported) {
+							if (logger.isDebugEnabled()) {
+								logger.debug("Sending SQL batch update #" + (chunkIndex + 1) + " with " + n + " items");
+							}
+							batchSent = true;
+							counts = ps.executeBatch();
+						}
+						else if (n < batchSize) {
+							int[] actualCounts = new int[n];
+							System.arraycopy(counts, 0, actualCounts, 0, n);
+							counts = actualCounts;
+						}
+					}
+					catch (SQLException ex) {
+						DataAccessException dae = translateException("PreparedStatementCallback", sql, ex);
+						if (chunkCallback != null) {
+							// The failed item is known unless executeBatch failed, in which
+							// case it may be derived from the BatchUpdateException
+							chunkCallback.chunkCompleted(new BatchChunkResult(chunkIndex, position,
+									(batchSent ? n : n + 1), dae, (batchSent ? -1 : n), System.nanoTime() - chunkStart));
+						}
+						throw dae;
+					}
+					if (chunkCallback != null) {
+						chunkCallback.chunkCompleted(
+								new BatchChunkResult(chunkIndex, position, n, counts, System.nanoTime() - chunkStart));
+					}
+					observeRowCount(observation, counts);
+					position += n;
+					chunkIndex++;
+				}
+				return position;
+			}
+			finally {
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+			}
+		}));
+
+		Assert.state(result != null, "No result count");
+		return result;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
@@ -1031,6 +1361,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(CallableStatementCreator csc, CallableStatementCallback<T> action)
 			throws DataAccessException {
 
+		return execute(csc, action, obtainObservation(action, csc));
+	}
+
+	/**
+	 * Execute a JDBC data access operation, implemented as callback action
+	 * working on a JDBC CallableStatement.
+	 * @param csc a callback that creates a CallableStatement given a Connection
+	 * @param action a callback that specifies the action
+	 * @param observation the observation to record the operation in, if any
+	 * @return a result object returned by the action, or {@code null}
+	 * @throws DataAccessException if there is any problem
+	 */
+	@Nullable
+	private <T> T execute(CallableStatementCreator csc, CallableStatementCallback<T> action,
+			@Nullable JdbcObservation observation) throws DataAccessException {
+
 		Assert.notNull(csc, "CallableStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
 		if (logger.isDebugEnabled()) {
@@ -1038,11 +1384,14 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Calling stored procedure" + (sql != null ? " [" + sql  + "]" : ""));
 		}
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		Connection con = obtainConnection(observation);
 		CallableStatement cs = null;
 		try {
 			cs = csc.createCallableStatement(con);
 			applyStatementSettings(cs);
+			if (observation != null) {
+				observation.statementPrepared();
+			}
 			T result = action.doInCallableStatement(cs);
 			handleWarnings(cs);
 			return result;
@@ -1059,7 +1408,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			cs = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("CallableStatementCallback", sql, ex);
+			throw observeFailure(observation, translateException("CallableStatementCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			observeFailure(observation, ex);
+			throw ex;
 		}
 		finally {
 			if (csc instanceof ParameterDisposer) {
@@ -1067,6 +1420,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 			JdbcUtils.closeStatement(cs);
 			DataSourceUtils.releaseConnection(con, getDataSource());
+			observeCompletion(observation);
 		}
 	}
 
@@ -1098,8 +1452,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		Map<String, Object> result = execute(csc, cs -> {
+		JdbcObservation observation = startObservation(JdbcObservation.CALL, csc);
+		Map<String, Object> result = execute(csc, new ObservedCallableStatementCallback<>(observation, cs -> {
 			boolean retVal = cs.execute();
+			if (observation != null) {
+				observation.statementExecuted();
+			}
 			int updateCount = cs.getUpdateCount();
 			if (logger.isDebugEnabled()) {
 				logger.debug("CallableStatement.execute() returned '" + retVal + "'");
@@ -1111,7 +1469,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 			resultsMap.putAll(extractOutputParameters(cs, callParameters));
 			return resultsMap;
-		});
+		}));
 
 		Assert.state(result != null, "No result map");
 		return result;
@@ -1399,6 +1757,109 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Start an observation for the given operation, if an observation handler has been set.
+	 * @param operation the kind of operation
+	 * @param sqlSource the SQL String or a {@link SqlProvider}, if any
+	 * @return the observation, or {@code null} if none is to be recorded
+	 */
+	@Nullable
+	private JdbcObservation startObservation(String operation, @Nullable Object sqlSource) {
+		if (this.observationHandler == null) {
+			return null;
+		}
+		return new JdbcObservation(operation, (sqlSource instanceof String ? (String) sqlSource : getSql(sqlSource)));
+	}
+
+	/**
+	 * Return the observation that the given callback records its results in,
+	 * if created by one of this template's operations, or start a generic
+	 * {@link JdbcObservation#EXECUTE} observation otherwise.
+	 * @param action the callback passed to one of the {@code execute} methods
+	 * @param sqlSource the SQL String or a {@link SqlProvider}, if any
+	 * @return the observation, or {@code null} if none is to be recorded
+	 */
+	@Nullable
+	private JdbcObservation obtainObservation(@Nullable Object action, @Nullable Object sqlSource) {
+		if (action instanceof ObservedCallback) {
+			return ((ObservedCallback) action).getObservation();
+		}
+		return startObservation(JdbcObservation.EXECUTE, sqlSource);
+	}
+
+	/**
+	 * Obtain a JDBC Connection from this template's DataSource, recording
+	 * its acquisition - or the failure to acquire it - in the given observation.
+	 * @param observation the observation to record the acquisition in, if any
+	 * @return the JDBC Connection
+	 * @see DataSourceUtils#getConnection
+	 */
+	private Connection obtainConnection(@Nullable JdbcObservation observation) {
+		try {
+			Connection con = DataSourceUtils.getConnection(obtainDataSource());
+			if (observation != null) {
+				observation.connectionAcquired();
+			}
+			return con;
+		}
+		catch (RuntimeException | Error ex) {
+			observeFailure(observation, ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Record the row count of the given result in the given observation, if any:
+	 * the size of a List of rows or the sum of batch update counts.
+	 * @return the given result, for chaining
+	 */
+	@Nullable
+	private static <T> T observeRowCount(@Nullable JdbcObservation observation, @Nullable T result) {
+		if (observation != null) {
+			if (result instanceof Collection) {
+				observation.setRowCount(((Collection<?>) result).size());
+			}
+			else if (result instanceof int[]) {
+				long rowCount = Math.max(observation.getRowCount(), 0);
+				for (int count : (int[]) result) {
+					if (count > 0) {
+						rowCount += count;
+					}
+				}
+				observation.setRowCount(rowCount);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Complete the given observation, if any, with the given failure.
+	 * @return the given failure, for rethrowing
+	 */
+	private <E extends Throwable> E observeFailure(@Nullable JdbcObservation observation, E failure) {
+		if (observation != null && !observation.isCompleted()) {
+			observation.completed(failure);
+			JdbcObservationHandler handler = this.observationHandler;
+			if (handler != null) {
+				handler.observe(observation);
+			}
+		}
+		return failure;
+	}
+
+	/**
+	 * Complete the given observation, if any and not completed with a failure before.
+	 */
+	private void observeCompletion(@Nullable JdbcObservation observation) {
+		if (observation != null && !observation.isCompleted()) {
+			observation.completed(null);
+			JdbcObservationHandler handler = this.observationHandler;
+			if (handler != null) {
+				handler.observe(observation);
+			}
+		}
+	}
+
 	/**
 	 * Determine SQL from potential provider object.
 	 * @param sqlProvider object which is potentially a SqlProvider
@@ -1493,6 +1954,76 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Interface to be implemented by callbacks of this template's own operations,
+	 * exposing the observation that the callback records its results in. Picked up
+	 * by the {@code execute} methods instead of starting a generic observation.
+	 */
+	private interface ObservedCallback {
+
+		@Nullable
+		JdbcObservation getObservation();
+	}
+
+
+	/**
+	 * Adapter for a PreparedStatementCallback, associating it with an observation.
+	 */
+	private static class ObservedPreparedStatementCallback<T> implements PreparedStatementCallback<T>, ObservedCallback {
+
+		@Nullable
+		private final JdbcObservation observation;
+
+		private final PreparedStatementCallback<T> action;
+
+		public ObservedPreparedStatementCallback(@Nullable JdbcObservation observation, PreparedStatementCallback<T> action) {
+			this.observation = observation;
+			this.action = action;
+		}
+
+		@Override
+		@Nullable
+		public T doInPreparedStatement(PreparedStatement ps) throws SQLException, DataAccessException {
+			return this.action.doInPreparedStatement(ps);
+		}
+
+		@Override
+		@Nullable
+		public JdbcObservation getObservation() {
+			return this.observation;
+		}
+	}
+
+
+	/**
+	 * Adapter for a CallableStatementCallback, associating it with an observation.
+	 */
+	private static class ObservedCallableStatementCallback<T> implements CallableStatementCallback<T>, ObservedCallback {
+
+		@Nullable
+		private final JdbcObservation observation;
+
+		private final CallableStatementCallback<T> action;
+
+		public ObservedCallableStatementCallback(@Nullable JdbcObservation observation, CallableStatementCallback<T> action) {
+			this.observation = observation;
+			this.action = action;
+		}
+
+		@Override
+		@Nullable
+		public T doInCallableStatement(CallableStatement cs) throws SQLException, DataAccessException {
+			return this.action.doInCallableStatement(cs);
+		}
+
+		@Override
+		@Nullable
+		public JdbcObservation getObservation() {
+			return this.observation;
+		}
+	}
+
+
 	/**
 	 * Simple adapter for PreparedStatementCreator, allowing to use a plain SQL statement.
 	 */
@@ -1564,4 +2095,70 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream,
+	 * mapping each row on demand. The observation of the query, if any, is
+	 * completed once the Stream is closed, with the number of rows read.
+	 * @since 5.0.16
+	 */
+	private class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		@Nullable
+		private final JdbcObservation observation;
+
+		private int rowNum = 0;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper, @Nullable JdbcObservation observation) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+			this.observation = observation;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				return false;
+			}
+			catch (SQLException ex) {
+				throw observeFailure(this.observation, translateException("ResultSetSpliterator", null, ex));
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+		public Stream<T> stream() {
+			return StreamSupport.stream(this, false);
+		}
+
+		public void completeObservation() {
+			if (this.observation != null && !this.observation.isCompleted()) {
+				this.observation.setRowCount(this.rowNum);
+				observeCompletion(this.observation);
+			}
+		}
+	}
+
 }
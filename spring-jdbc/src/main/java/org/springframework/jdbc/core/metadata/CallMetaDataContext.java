@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -98,6 +98,10 @@ public class CallMetaDataContext {
 	@Nullable
 	private CallMetaDataProvider metaDataProvider;
 
+	// The cache to obtain the provider of call meta-data from, if any
+	@Nullable
+	private JdbcMetaDataCache metaDataCache;
+
 
 	/**
 	 * Specify the name used for the return value of the function.
@@ -245,12 +249,32 @@ public class CallMetaDataContext {
 	}
 
 
+	/**
+	 * Specify a cache to obtain call meta-data from, shared with other contexts.
+	 * @since 5.0.16
+	 */
+	public void setMetaDataCache(@Nullable JdbcMetaDataCache metaDataCache) {
+		this.metaDataCache = metaDataCache;
+	}
+
+	/**
+	 * Return the cache to obtain call meta-data from, if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public JdbcMetaDataCache getMetaDataCache() {
+		return this.metaDataCache;
+	}
+
+
 	/**
 	 * Initialize this class with meta-data from the database.
 	 * @param dataSource the DataSource used to retrieve meta-data
 	 */
 	public void initializeMetaData(DataSource dataSource) {
-		this.metaDataProvider = CallMetaDataProviderFactory.createMetaDataProvider(dataSource, this);
+		this.metaDataProvider = (this.metaDataCache != null ?
+				this.metaDataCache.getCallMetaDataProvider(dataSource, this) :
+				CallMetaDataProviderFactory.createMetaDataProvider(dataSource, this));
 	}
 
 	private CallMetaDataProvider obtainMetaDataProvider() {
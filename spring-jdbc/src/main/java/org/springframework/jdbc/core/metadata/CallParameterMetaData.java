@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.metadata;
 
+import java.io.Serializable;
 import java.sql.DatabaseMetaData;
 
 import org.springframework.lang.Nullable;
@@ -28,7 +29,8 @@ import org.springframework.lang.Nullable;
  * @since 2.5
  * @see GenericCallMetaDataProvider
  */
-public class CallParameterMetaData {
+@SuppressWarnings("serial")
+public class CallParameterMetaData implements Serializable {
 
 	@Nullable
 	private String parameterName;
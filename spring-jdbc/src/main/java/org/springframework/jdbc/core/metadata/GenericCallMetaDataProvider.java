@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.metadata;
 
+import java.io.Serializable;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -41,7 +42,8 @@ import org.springframework.util.StringUtils;
  * @author Juergen Hoeller
  * @since 2.5
  */
-public class GenericCallMetaDataProvider implements CallMetaDataProvider {
+@SuppressWarnings("serial")
+public class GenericCallMetaDataProvider implements CallMetaDataProvider, Serializable {
 
 	/** Logger available to subclasses */
 	protected static final Log logger = LogFactory.getLog(CallMetaDataProvider.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.metadata;
 
+import java.io.Serializable;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -41,11 +42,29 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 2.5
  */
-public class GenericTableMetaDataProvider implements TableMetaDataProvider {
+@SuppressWarnings("serial")
+public class GenericTableMetaDataProvider implements TableMetaDataProvider, Serializable {
 
 	/** Logger available to subclasses */
 	protected static final Log logger = LogFactory.getLog(TableMetaDataProvider.class);
 
+	/**
+	 * Database products we know supporting multi-row VALUES clauses,
+	 * along with the maximum number of parameters per statement
+	 */
+	private static final Map<String, Integer> productsSupportingMultiRowInsert = new HashMap<>(8);
+
+	static {
+		productsSupportingMultiRowInsert.put("PostgreSQL", 32767);
+		productsSupportingMultiRowInsert.put("MySQL", 65535);
+		productsSupportingMultiRowInsert.put("MariaDB", 65535);
+		productsSupportingMultiRowInsert.put("H2", 32767);
+		productsSupportingMultiRowInsert.put("HSQL Database Engine", 32767);
+		// Derby compiles multi-row VALUES into generated code subject to class file limits
+		productsSupportingMultiRowInsert.put("Apache Derby", 1000);
+		productsSupportingMultiRowInsert.put("Microsoft SQL Server", 2000);
+	}
+
 	/** indicator whether column meta-data should be used */
 	private boolean tableColumnMetaDataUsed = false;
 
@@ -73,6 +92,12 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 	private List<String> productsNotSupportingGeneratedKeysColumnNameArray =
 			Arrays.asList("Apache Derby", "HSQL Database Engine");
 
+	/** indicates whether multi-row VALUES clauses are supported */
+	private boolean multiRowInsertSupported = false;
+
+	/** the maximum number of parameters per statement */
+	private int maxStatementParameterCount = 1000;
+
 	/** Collection of TableParameterMetaData objects */
 	private List<TableParameterMetaData> tableParameterMetaData = new ArrayList<>();
 
@@ -142,6 +167,24 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 		return this.generatedKeysColumnNameArraySupported;
 	}
 
+	public void setMultiRowInsertSupported(boolean multiRowInsertSupported) {
+		this.multiRowInsertSupported = multiRowInsertSupported;
+	}
+
+	@Override
+	public boolean isMultiRowInsertSupported() {
+		return this.multiRowInsertSupported;
+	}
+
+	public void setMaxStatementParameterCount(int maxStatementParameterCount) {
+		this.maxStatementParameterCount = maxStatementParameterCount;
+	}
+
+	@Override
+	public int getMaxStatementParameterCount() {
+		return this.maxStatementParameterCount;
+	}
+
 
 	@Override
 	public void initializeWithMetaData(DatabaseMetaData databaseMetaData) throws SQLException {
@@ -179,6 +222,14 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 					setGeneratedKeysColumnNameArraySupported(false);
 				}
 			}
+			Integer maxParameterCount = productsSupportingMultiRowInsert.get(databaseProductName);
+			if (maxParameterCount != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Multi-row insert is supported for " + databaseProductName);
+				}
+				setMultiRowInsertSupported(true);
+				setMaxStatementParameterCount(maxParameterCount);
+			}
 		}
 		catch (SQLException ex) {
 			if (logger.isWarnEnabled()) {
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.metadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Cache of initialized {@link TableMetaDataProvider} and {@link CallMetaDataProvider}
+ * instances, to be shared between {@link org.springframework.jdbc.core.simple.SimpleJdbcInsert}
+ * and {@link org.springframework.jdbc.core.simple.SimpleJdbcCall} instances which
+ * operate on the same DataSource, so that the database meta-data for a given table
+ * or procedure is only retrieved once rather than on every compilation.
+ *
+ * <p>Entries are keyed by DataSource identity, catalog, schema and table or
+ * procedure name, as well as the meta-data options of the respective context.
+ * The number of entries is bounded through {@link #setCacheLimit}, discarding the
+ * least recently used entry when exceeded. Entries never expire on their own:
+ * after a schema change, call {@link #invalidate(DataSource, String, String, String)},
+ * {@link #invalidate(DataSource)} or {@link #clear()}.
+ *
+ * <p>For warm restarts, the cached meta-data can be written to a snapshot through
+ * {@link #writeSnapshot} and restored through {@link #readSnapshot}, using
+ * application-defined names for the DataSources involved.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see org.springframework.jdbc.core.simple.AbstractJdbcInsert#setMetaDataCache
+ * @see org.springframework.jdbc.core.simple.AbstractJdbcCall#setMetaDataCache
+ */
+public class JdbcMetaDataCache {
+
+	/** Default maximum number of entries for the cache: 1024 */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+	private static final Log logger = LogFactory.getLog(JdbcMetaDataCache.class);
+
+
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	/** Cache of meta-data providers by key */
+	@SuppressWarnings("serial")
+	private final Map<CacheKey, Object> cache = new LinkedHashMap<CacheKey, Object>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, Object> eldest) {
+			return size() > getCacheLimit();
+		}
+	};
+
+
+	/**
+	 * Specify the maximum number of entries for the cache.
+	 * Default is 1024.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		Assert.isTrue(cacheLimit > 0, "Cache limit must be positive");
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of entries for the cache.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+
+	/**
+	 * Obtain a {@link TableMetaDataProvider} for the given context,
+	 * creating and caching it if not cached yet.
+	 * @param dataSource the DataSource to retrieve meta-data from
+	 * @param context the context that holds the configuration
+	 * @return the initialized TableMetaDataProvider
+	 * @see TableMetaDataProviderFactory#createMetaDataProvider
+	 */
+	public TableMetaDataProvider getTableMetaDataProvider(DataSource dataSource, TableMetaDataContext context) {
+		CacheKey key = new CacheKey(dataSource, CacheKey.TABLE, context.getCatalogName(), context.getSchemaName(),
+				context.getTableName(), context.isAccessTableColumnMetaData(), context.isOverrideIncludeSynonymsDefault());
+		TableMetaDataProvider provider = (TableMetaDataProvider) get(key);
+		if (provider == null) {
+			provider = (TableMetaDataProvider) put(key,
+					TableMetaDataProviderFactory.createMetaDataProvider(dataSource, context));
+		}
+		return provider;
+	}
+
+	/**
+	 * Obtain a {@link CallMetaDataProvider} for the given context,
+	 * creating and caching it if not cached yet.
+	 * @param dataSource the DataSource to retrieve meta-data from
+	 * @param context the context that holds the configuration
+	 * @return the initialized CallMetaDataProvider
+	 * @see CallMetaDataProviderFactory#createMetaDataProvider
+	 */
+	public CallMetaDataProvider getCallMetaDataProvider(DataSource dataSource, CallMetaDataContext context) {
+		CacheKey key = new CacheKey(dataSource, (context.isFunction() ? CacheKey.FUNCTION : CacheKey.PROCEDURE),
+				context.getCatalogName(), context.getSchemaName(), context.getProcedureName(),
+				context.isAccessCallParameterMetaData(), false);
+		CallMetaDataProvider provider = (CallMetaDataProvider) get(key);
+		if (provider == null) {
+			provider = (CallMetaDataProvider) put(key,
+					CallMetaDataProviderFactory.createMetaDataProvider(dataSource, context));
+		}
+		return provider;
+	}
+
+	@Nullable
+	private Object get(CacheKey key) {
+		synchronized (this.cache) {
+			return this.cache.get(key);
+		}
+	}
+
+	private Object put(CacheKey key, Object provider) {
+		// Retrieved outside of the lock: keep a concurrently cached provider, if any
+		synchronized (this.cache) {
+			Object existing = this.cache.putIfAbsent(key, provider);
+			return (existing != null ? existing : provider);
+		}
+	}
+
+
+	/**
+	 * Remove the cached meta-data for the given table or procedure,
+	 * for all meta-data options.
+	 * @param dataSource the DataSource that the meta-data was retrieved from
+	 * @param catalogName the catalog name, as specified for the context
+	 * @param schemaName the schema name, as specified for the context
+	 * @param name the table or procedure name, as specified for the context
+	 */
+	public void invalidate(DataSource dataSource, @Nullable String catalogName, @Nullable String schemaName,
+			String name) {
+
+		synchronized (this.cache) {
+			this.cache.keySet().removeIf(key -> key.dataSource == dataSource &&
+					ObjectUtils.nullSafeEquals(key.catalogName, catalogName) &&
+					ObjectUtils.nullSafeEquals(key.schemaName, schemaName) &&
+					ObjectUtils.nullSafeEquals(key.name, name));
+		}
+	}
+
+	/**
+	 * Remove all cached meta-data for the given DataSource.
+	 * @param dataSource the DataSource that the meta-data was retrieved from
+	 */
+	public void invalidate(DataSource dataSource) {
+		synchronized (this.cache) {
+			this.cache.keySet().removeIf(key -> key.dataSource == dataSource);
+		}
+	}
+
+	/**
+	 * Remove all cached meta-data.
+	 */
+	public void clear() {
+		synchronized (this.cache) {
+			this.cache.clear();
+		}
+	}
+
+	/**
+	 * Return the number of currently cached entries.
+	 */
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+
+	/**
+	 * Write a snapshot of the cached meta-data to the given stream,
+	 * in Java serialization format.
+	 * <p>Entries for DataSources without a name are not included, and
+	 * neither are entries for custom provider implementations which are
+	 * not {@link Serializable}. The given stream is not closed.
+	 * @param out the stream to write to
+	 * @param dataSourceNames a function returning a stable name for each
+	 * DataSource across restarts, or {@code null} if not to be included
+	 * @return the number of entries written
+	 * @throws IOException in case of I/O errors
+	 * @see #readSnapshot
+	 */
+	public int writeSnapshot(OutputStream out, Function<DataSource, String> dataSourceNames) throws IOException {
+		List<SnapshotEntry> entries = new ArrayList<>();
+		synchronized (this.cache) {
+			for (Map.Entry<CacheKey, Object> entry : this.cache.entrySet()) {
+				String dataSourceName = dataSourceNames.apply(entry.getKey().dataSource);
+				if (dataSourceName != null && entry.getValue() instanceof Serializable) {
+					entries.add(new SnapshotEntry(dataSourceName, entry.getKey(), entry.getValue()));
+				}
+			}
+		}
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(entries);
+		oos.flush();
+		return entries.size();
+	}
+
+	/**
+	 * Populate this cache from a snapshot previously written through
+	 * {@link #writeSnapshot}, without overriding existing entries.
+	 * <p>A snapshot which cannot be read, e.g. after an upgrade of the
+	 * provider implementations, is ignored with a warning, leaving the
+	 * meta-data to be retrieved from the database on first access.
+	 * Since the snapshot is deserialized, it must come from a trusted location.
+	 * The given stream is not closed.
+	 * @param in the stream to read from
+	 * @param dataSources a function resolving each DataSource name from the
+	 * snapshot to the current DataSource, or {@code null} to skip its entries
+	 * @return the number of entries restored
+	 * @throws IOException in case of I/O errors while accessing the stream
+	 */
+	public int readSnapshot(InputStream in, Function<String, DataSource> dataSources) throws IOException {
+		List<SnapshotEntry> entries = new ArrayList<>();
+		try {
+			for (Object element : (List<?>) new ObjectInputStream(in).readObject()) {
+				entries.add((SnapshotEntry) element);
+			}
+		}
+		catch (ClassNotFoundException | ClassCastException | ObjectStreamException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Ignoring incompatible JDBC meta-data snapshot: " + ex);
+			}
+			return 0;
+		}
+		int count = 0;
+		synchronized (this.cache) {
+			for (SnapshotEntry entry : entries) {
+				DataSource dataSource = dataSources.apply(entry.dataSourceName);
+				if (dataSource != null &&
+						this.cache.putIfAbsent(entry.key.withDataSource(dataSource), entry.provider) == null) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Key for a cached meta-data provider, with the DataSource compared by identity.
+	 */
+	@SuppressWarnings("serial")
+	private static final class CacheKey implements Serializable {
+
+		static final int TABLE = 0;
+
+		static final int PROCEDURE = 1;
+
+		static final int FUNCTION = 2;
+
+		@Nullable
+		private final transient DataSource dataSource;
+
+		private final int type;
+
+		@Nullable
+		private final String catalogName;
+
+		@Nullable
+		private final String schemaName;
+
+		@Nullable
+		private final String name;
+
+		private final boolean accessColumnMetaData;
+
+		private final boolean overrideIncludeSynonymsDefault;
+
+		CacheKey(@Nullable DataSource dataSource, int type, @Nullable String catalogName,
+				@Nullable String schemaName, @Nullable String name, boolean accessColumnMetaData,
+				boolean overrideIncludeSynonymsDefault) {
+
+			this.dataSource = dataSource;
+			this.type = type;
+			this.catalogName = catalogName;
+			this.schemaName = schemaName;
+			this.name = name;
+			this.accessColumnMetaData = accessColumnMetaData;
+			this.overrideIncludeSynonymsDefault = overrideIncludeSynonymsDefault;
+		}
+
+		CacheKey withDataSource(DataSource dataSource) {
+			return new CacheKey(dataSource, this.type, this.catalogName, this.schemaName, this.name,
+					this.accessColumnMetaData, this.overrideIncludeSynonymsDefault);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return (this.dataSource == otherKey.dataSource && this.type == otherKey.type &&
+					ObjectUtils.nullSafeEquals(this.catalogName, otherKey.catalogName) &&
+					ObjectUtils.nullSafeEquals(this.schemaName, otherKey.schemaName) &&
+					ObjectUtils.nullSafeEquals(this.name, otherKey.name) &&
+					this.accessColumnMetaData == otherKey.accessColumnMetaData &&
+					this.overrideIncludeSynonymsDefault == otherKey.overrideIncludeSynonymsDefault);
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(this.dataSource) * 29 + this.type * 17 +
+					ObjectUtils.nullSafeHashCode(this.catalogName) * 13 +
+					ObjectUtils.nullSafeHashCode(this.schemaName) * 7 + ObjectUtils.nullSafeHashCode(this.name));
+		}
+	}
+
+
+	/**
+	 * Serializable snapshot of a cache entry, with the DataSource replaced by its name.
+	 */
+	@SuppressWarnings("serial")
+	private static final class SnapshotEntry implements Serializable {
+
+		private final String dataSourceName;
+
+		private final CacheKey key;
+
+		private final Object provider;
+
+		SnapshotEntry(String dataSourceName, CacheKey key, Object provider) {
+			this.dataSourceName = dataSourceName;
+			this.key = key;
+			this.provider = provider;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -73,6 +73,10 @@ public class TableMetaDataContext {
 	@Nullable
 	private TableMetaDataProvider metaDataProvider;
 
+	// The cache to obtain the provider of table meta-data from, if any
+	@Nullable
+	private JdbcMetaDataCache metaDataCache;
+
 	// Are we using generated key columns
 	private boolean generatedKeyColumnsUsed = false;
 
@@ -151,6 +155,23 @@ public class TableMetaDataContext {
 		return this.overrideIncludeSynonymsDefault;
 	}
 
+	/**
+	 * Specify a cache to obtain table meta-data from, shared with other contexts.
+	 * @since 5.0.16
+	 */
+	public void setMetaDataCache(@Nullable JdbcMetaDataCache metaDataCache) {
+		this.metaDataCache = metaDataCache;
+	}
+
+	/**
+	 * Return the cache to obtain table meta-data from, if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public JdbcMetaDataCache getMetaDataCache() {
+		return this.metaDataCache;
+	}
+
 	/**
 	 * Get a List of the table column names.
 	 */
@@ -166,10 +187,32 @@ public class TableMetaDataContext {
 	 * @param generatedKeyNames name of generated keys
 	 */
 	public void processMetaData(DataSource dataSource, List<String> declaredColumns, String[] generatedKeyNames) {
-		this.metaDataProvider = TableMetaDataProviderFactory.createMetaDataProvider(dataSource, this);
+		this.metaDataProvider = (this.metaDataCache != null ?
+				this.metaDataCache.getTableMetaDataProvider(dataSource, this) :
+				TableMetaDataProviderFactory.createMetaDataProvider(dataSource, this));
 		this.tableColumns = reconcileColumnsToUse(declaredColumns, generatedKeyNames);
 	}
 
+	/**
+	 * Return the name of the table, qualified with the catalog and schema names
+	 * if specified, each in the identifier case used by the database.
+	 * @since 5.0.16
+	 */
+	public String getQualifiedTableName() {
+		TableMetaDataProvider provider = obtainMetaDataProvider();
+		StringBuilder qualifiedName = new StringBuilder();
+		String catalogName = provider.catalogNameToUse(getCatalogName());
+		if (catalogName != null) {
+			qualifiedName.append(catalogName).append('.');
+		}
+		String schemaName = provider.schemaNameToUse(getSchemaName());
+		if (schemaName != null) {
+			qualifiedName.append(schemaName).append('.');
+		}
+		qualifiedName.append(provider.tableNameToUse(getTableName()));
+		return qualifiedName.toString();
+	}
+
 	private TableMetaDataProvider obtainMetaDataProvider() {
 		Assert.state(this.metaDataProvider != null, "No TableMetaDataProvider - call processMetaData first");
 		return this.metaDataProvider;
@@ -268,6 +311,24 @@ public class TableMetaDataContext {
 	 * @return the insert string to be used
 	 */
 	public String createInsertString(String... generatedKeyNames) {
+		return buildInsertString(1, generatedKeyNames);
+	}
+
+	/**
+	 * Build an insert string for the given number of rows, with a parenthesized
+	 * list of placeholders per row in its {@code VALUES} clause.
+	 * @param rowCount the number of rows to insert per statement
+	 * @param generatedKeyNames the names of generated key columns to leave out
+	 * @return the insert string to be used
+	 * @since 5.0.16
+	 * @see #isMultiRowInsertSupported()
+	 */
+	public String createMultiRowInsertString(int rowCount, String... generatedKeyNames) {
+		Assert.isTrue(rowCount > 0, "Row count must be greater than 0");
+		return buildInsertString(rowCount, generatedKeyNames);
+	}
+
+	private String buildInsertString(int rowCount, String[] generatedKeyNames) {
 		Set<String> keys = new LinkedHashSet<>(generatedKeyNames.length);
 		for (String key : generatedKeyNames) {
 			keys.add(key.toUpperCase());
@@ -290,7 +351,7 @@ public class TableMetaDataContext {
 				insertStatement.append(columnName);
 			}
 		}
-		insertStatement.append(") VALUES(");
+		insertStatement.append(") VALUES");
 		if (columnCount < 1) {
 			if (this.generatedKeyColumnsUsed) {
 				if (logger.isInfoEnabled()) {
@@ -303,13 +364,16 @@ public class TableMetaDataContext {
 						getTableName() + "' so an insert statement can't be generated");
 			}
 		}
-		for (int i = 0; i < columnCount; i++) {
-			if (i > 0) {
-				insertStatement.append(", ");
+		for (int row = 0; row < rowCount; row++) {
+			insertStatement.append(row > 0 ? ", (" : "(");
+			for (int i = 0; i < columnCount; i++) {
+				if (i > 0) {
+					insertStatement.append(", ");
+				}
+				insertStatement.append("?");
 			}
-			insertStatement.append("?");
+			insertStatement.append(")");
 		}
-		insertStatement.append(")");
 		return insertStatement.toString();
 	}
 
@@ -383,6 +447,24 @@ public class TableMetaDataContext {
 		return obtainMetaDataProvider().getSimpleQueryForGetGeneratedKey(tableName, keyColumnName);
 	}
 
+	/**
+	 * Does this database support inserting several rows through a single
+	 * {@code INSERT ... VALUES (...), (...)} statement?
+	 * @since 5.0.16
+	 * @see #createMultiRowInsertString
+	 */
+	public boolean isMultiRowInsertSupported() {
+		return obtainMetaDataProvider().isMultiRowInsertSupported();
+	}
+
+	/**
+	 * Return the maximum number of parameters to bind to a single statement.
+	 * @since 5.0.16
+	 */
+	public int getMaxStatementParameterCount() {
+		return obtainMetaDataProvider().getMaxStatementParameterCount();
+	}
+
 	/**
 	 * Is a column name String array for retrieving generated keys supported:
 	 * {@link java.sql.Connection#createStruct(String, Object[])}?
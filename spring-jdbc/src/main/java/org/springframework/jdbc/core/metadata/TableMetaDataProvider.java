@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -123,4 +123,24 @@ public interface TableMetaDataProvider {
 	 */
 	List<TableParameterMetaData> getTableParameterMetaData();
 
+	/**
+	 * Does this database support inserting several rows through a single
+	 * {@code INSERT ... VALUES (...), (...)} statement?
+	 * <p>The default implementation returns {@code false}.
+	 * @since 5.0.16
+	 */
+	default boolean isMultiRowInsertSupported() {
+		return false;
+	}
+
+	/**
+	 * Return the maximum number of parameters that may be bound to a single
+	 * statement, as imposed by the database or its driver.
+	 * <p>The default implementation returns a conservative 1000.
+	 * @since 5.0.16
+	 */
+	default int getMaxStatementParameterCount() {
+		return 1000;
+	}
+
 }
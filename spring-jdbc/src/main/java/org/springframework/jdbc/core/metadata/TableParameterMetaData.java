@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.jdbc.core.metadata;
 
+import java.io.Serializable;
+
 /**
  * Holder of meta-data for a specific parameter that is used for table processing.
  *
@@ -23,7 +25,8 @@ package org.springframework.jdbc.core.metadata;
  * @since 2.5
  * @see GenericTableMetaDataProvider
  */
-public class TableParameterMetaData {
+@SuppressWarnings("serial")
+public class TableParameterMetaData implements Serializable {
 
 	private final String parameterName;
 
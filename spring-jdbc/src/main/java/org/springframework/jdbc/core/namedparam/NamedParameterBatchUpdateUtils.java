@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,10 +18,13 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Iterator;
 
+import org.springframework.jdbc.core.BatchChunkCallback;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.BatchUpdateUtils;
 import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.lang.Nullable;
 
 /**
  * Generic utility methods for working with JDBC batch statements using named parameters.
@@ -57,4 +60,44 @@ public class NamedParameterBatchUpdateUtils extends BatchUpdateUtils {
 				});
 	}
 
+	/**
+	 * Execute a streaming batch update, preparing the SQL statement based on
+	 * the first of the given arguments.
+	 * @since 5.0.16
+	 * @see JdbcOperations#batchUpdate(String, Iterator, int, org.springframework.jdbc.core.ParameterizedPreparedStatementSetter, BatchChunkCallback)
+	 */
+	public static long executeBatchUpdateWithNamedParameters(final ParsedSql parsedSql,
+			Iterator<? extends SqlParameterSource> batchArgs, int batchSize,
+			@Nullable BatchChunkCallback chunkCallback, JdbcOperations jdbcOperations) {
+
+		if (!batchArgs.hasNext()) {
+			return 0;
+		}
+
+		SqlParameterSource first = batchArgs.next();
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, first);
+		Iterator<SqlParameterSource> allArgs = new Iterator<SqlParameterSource>() {
+			@Nullable
+			private SqlParameterSource next = first;
+			@Override
+			public boolean hasNext() {
+				return (this.next != null || batchArgs.hasNext());
+			}
+			@Override
+			public SqlParameterSource next() {
+				SqlParameterSource current = this.next;
+				if (current != null) {
+					this.next = null;
+					return current;
+				}
+				return batchArgs.next();
+			}
+		};
+		return jdbcOperations.batchUpdate(sqlToUse, allArgs, batchSize, (ps, paramSource) -> {
+			Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+			int[] columnTypes = NamedParameterUtils.buildSqlTypeArray(parsedSql, paramSource);
+			setStatementParameters(values, ps, columnTypes);
+		}, chunkCallback);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,15 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchChunkCallback;
+import org.springframework.jdbc.core.BatchChunkResult;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.jdbc.core.ResultSetExtractor;
@@ -28,6 +33,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * Interface specifying a basic set of JDBC operations allowing the use
@@ -213,6 +219,55 @@ public interface NamedParameterJdbcOperations {
 	<T> List<T> query(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
 			throws DataAccessException;
 
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are mapped lazily as the Stream is consumed, and the underlying
+	 * JDBC resources are held until the Stream is closed.
+	 * <p>The default implementation runs the corresponding {@code query} method
+	 * and streams over the resulting List, i.e. holds all rows in memory.
+	 * {@link NamedParameterJdbcTemplate} overrides it with a Stream over the
+	 * open ResultSet.
+	 * @param sql SQL query to execute
+	 * @param paramSource container of arguments to bind to the query
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws org.springframework.dao.DataAccessException if the query fails
+	 * @since 5.0.16
+	 * @see JdbcOperations#queryForStream(String, RowMapper)
+	 */
+	default <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return query(sql, paramSource, rowMapper).stream();
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>The default implementation runs the corresponding {@code query} method
+	 * and streams over the resulting List, i.e. holds all rows in memory.
+	 * {@link NamedParameterJdbcTemplate} overrides it with a Stream over the
+	 * open ResultSet.
+	 * @param sql SQL query to execute
+	 * @param paramMap map of parameters to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type)
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws org.springframework.dao.DataAccessException if the query fails
+	 * @since 5.0.16
+	 * @see #queryForStream(String, SqlParameterSource, RowMapper)
+	 */
+	default <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL,
 	 * mapping each row to a Java object via a RowMapper.
@@ -509,4 +564,55 @@ public interface NamedParameterJdbcOperations {
 	 */
 	int[] batchUpdate(String sql, SqlParameterSource[] batchArgs);
 
+	/**
+	 * Execute multiple batches using the supplied SQL statement, consuming the
+	 * arguments from the given Iterator as the batches are sent, so that no more
+	 * than one batch of arguments needs to be held in memory.
+	 * <p>The SQL statement is prepared based on the first argument; collection
+	 * values are therefore expected to be of the same size for all arguments.
+	 * <p>The default implementation collects one batch of arguments at a time
+	 * and executes it through {@link #batchUpdate(String, SqlParameterSource[])}.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the Iterator over the {@link SqlParameterSource} arguments
+	 * @param batchSize the number of arguments per batch
+	 * @param chunkCallback callback notified with the update counts and timing
+	 * of each batch, or with the failure and the position of the failed item
+	 * (may be {@code null})
+	 * @return the number of arguments that have been executed
+	 * @since 5.0.16
+	 * @see JdbcOperations#batchUpdate(String, Iterator, int, org.springframework.jdbc.core.ParameterizedPreparedStatementSetter, BatchChunkCallback)
+	 */
+	default long batchUpdate(String sql, Iterator<? extends SqlParameterSource> batchArgs, int batchSize,
+			@Nullable BatchChunkCallback chunkCallback) {
+
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		long position = 0;
+		int chunkIndex = 0;
+		while (batchArgs.hasNext()) {
+			List<SqlParameterSource> chunk = new ArrayList<>(batchSize);
+			while (chunk.size() < batchSize && batchArgs.hasNext()) {
+				chunk.add(batchArgs.next());
+			}
+			long chunkStart = System.nanoTime();
+			int[] counts;
+			try {
+				counts = batchUpdate(sql, chunk.toArray(new SqlParameterSource[0]));
+			}
+			catch (RuntimeException ex) {
+				if (chunkCallback != null) {
+					chunkCallback.chunkCompleted(new BatchChunkResult(
+							chunkIndex, position, chunk.size(), ex, -1, System.nanoTime() - chunkStart));
+				}
+				throw ex;
+			}
+			if (chunkCallback != null) {
+				chunkCallback.chunkCompleted(
+						new BatchChunkResult(chunkIndex, position, chunk.size(), counts, System.nanoTime() - chunkStart));
+			}
+			position += chunk.size();
+			chunkIndex++;
+		}
+		return position;
+	}
+
 }
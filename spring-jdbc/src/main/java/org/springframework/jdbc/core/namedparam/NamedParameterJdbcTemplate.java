@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,17 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.BatchChunkCallback;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -37,6 +40,7 @@ import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.metrics.JdbcObservationHandler;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -141,6 +145,18 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return this.cacheLimit;
 	}
 
+	/**
+	 * Set a handler to observe each JDBC operation performed through this template.
+	 * <p>Applies to the wrapped {@link JdbcTemplate}, which observes each statement
+	 * with its named parameters already expanded into JDBC placeholders.
+	 * @throws IllegalStateException if this template does not wrap a {@code JdbcTemplate}
+	 * @since 5.0.16
+	 * @see JdbcTemplate#setObservationHandler
+	 */
+	public void setObservationHandler(@Nullable JdbcObservationHandler observationHandler) {
+		getJdbcTemplate().setObservationHandler(observationHandler);
+	}
+
 
 	@Override
 	@Nullable
@@ -219,6 +235,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, new MapSqlParameterSource(paramMap), rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	public <T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException {
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
@@ -356,6 +386,14 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 				getParsedSql(sql), batchArgs, getJdbcOperations());
 	}
 
+	@Override
+	public long batchUpdate(String sql, Iterator<? extends SqlParameterSource> batchArgs, int batchSize,
+			@Nullable BatchChunkCallback chunkCallback) {
+
+		return NamedParameterBatchUpdateUtils.executeBatchUpdateWithNamedParameters(
+				getParsedSql(sql), batchArgs, batchSize, chunkCallback, getJdbcOperations());
+	}
+
 
 	/**
 	 * Build a {@link PreparedStatementCreator} based on the given SQL and named parameters.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.metadata.CallMetaDataContext;
+import org.springframework.jdbc.core.metadata.JdbcMetaDataCache;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -222,6 +223,17 @@ public abstract class AbstractJdbcCall {
 		this.callMetaDataContext.setAccessCallParameterMetaData(accessCallParameterMetaData);
 	}
 
+	/**
+	 * Specify a cache to obtain the call meta-data from, typically shared
+	 * with other call objects for the same DataSource, instead of
+	 * retrieving the meta-data from the database on every compilation.
+	 * @since 5.0.16
+	 * @see JdbcMetaDataCache#invalidate
+	 */
+	public void setMetaDataCache(@Nullable JdbcMetaDataCache metaDataCache) {
+		this.callMetaDataContext.setMetaDataCache(metaDataCache);
+	}
+
 	/**
 	 * Get the call string that should be used based on parameters and meta-data.
 	 */
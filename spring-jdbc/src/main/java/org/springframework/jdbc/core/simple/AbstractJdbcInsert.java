@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,6 +40,7 @@ import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.SqlTypeValue;
 import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.metadata.JdbcMetaDataCache;
 import org.springframework.jdbc.core.metadata.TableMetaDataContext;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
@@ -87,6 +88,13 @@ public abstract class AbstractJdbcInsert {
 	/** The SQL type information for the insert columns */
 	private int[] insertTypes = new int[0];
 
+	/** The maximum number of rows per multi-row insert statement */
+	private int maxRowsPerStatement = 1000;
+
+	/** Strategy for bulk inserts through a vendor-specific protocol, if any */
+	@Nullable
+	private BulkInsertHandler bulkInsertHandler;
+
 
 	/**
 	 * Constructor to be used when initializing using a {@link DataSource}.
@@ -220,6 +228,58 @@ public abstract class AbstractJdbcInsert {
 		this.tableMetaDataContext.setOverrideIncludeSynonymsDefault(override);
 	}
 
+	/**
+	 * Specify a cache to obtain the table meta-data from, typically shared
+	 * with other insert objects for the same DataSource, instead of
+	 * retrieving the meta-data from the database on every compilation.
+	 * @since 5.0.16
+	 * @see JdbcMetaDataCache#invalidate
+	 */
+	public void setMetaDataCache(@Nullable JdbcMetaDataCache metaDataCache) {
+		checkIfConfigurationModificationIsAllowed();
+		this.tableMetaDataContext.setMetaDataCache(metaDataCache);
+	}
+
+	/**
+	 * Specify the maximum number of rows to insert through a single multi-row
+	 * statement in {@link #doExecuteBulk bulk inserts}. The actual number may be
+	 * lower in order to stay within the database's parameter limit per statement.
+	 * <p>The default is 1000.
+	 * @since 5.0.16
+	 */
+	public void setMaxRowsPerStatement(int maxRowsPerStatement) {
+		checkIfConfigurationModificationIsAllowed();
+		Assert.isTrue(maxRowsPerStatement > 0, "Max rows per statement must be greater than 0");
+		this.maxRowsPerStatement = maxRowsPerStatement;
+	}
+
+	/**
+	 * Get the maximum number of rows to insert through a single multi-row statement.
+	 * @since 5.0.16
+	 */
+	public int getMaxRowsPerStatement() {
+		return this.maxRowsPerStatement;
+	}
+
+	/**
+	 * Specify a strategy for {@link #doExecuteBulk bulk inserts} through a
+	 * vendor-specific bulk-load protocol, replacing multi-row statements.
+	 * @since 5.0.16
+	 */
+	public void setBulkInsertHandler(@Nullable BulkInsertHandler bulkInsertHandler) {
+		checkIfConfigurationModificationIsAllowed();
+		this.bulkInsertHandler = bulkInsertHandler;
+	}
+
+	/**
+	 * Get the strategy for bulk inserts through a vendor-specific protocol, if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public BulkInsertHandler getBulkInsertHandler() {
+		return this.bulkInsertHandler;
+	}
+
 	/**
 	 * Get the insert string to be used.
 	 */
@@ -581,6 +641,135 @@ public abstract class AbstractJdbcInsert {
 				});
 	}
 
+	/**
+	 * Delegate method that executes a bulk insert using the passed-in Maps of parameters.
+	 * @param batch array of Maps with parameter names and values to be used in bulk insert
+	 * @return the total number of rows inserted
+	 * @since 5.0.16
+	 * @see #setBulkInsertHandler
+	 * @see #setMaxRowsPerStatement
+	 */
+	@SuppressWarnings("unchecked")
+	protected int doExecuteBulk(Map<String, ?>... batch) {
+		checkCompiled();
+		List<List<Object>> rows = new ArrayList<>(batch.length);
+		for (Map<String, ?> args : batch) {
+			rows.add(matchInParameterValuesWithInsertColumns(args));
+		}
+		return executeBulkInternal(rows);
+	}
+
+	/**
+	 * Delegate method that executes a bulk insert using the passed-in {@link SqlParameterSource}s.
+	 * @param batch array of SqlParameterSource with parameter names and values to be used in bulk insert
+	 * @return the total number of rows inserted
+	 * @since 5.0.16
+	 * @see #setBulkInsertHandler
+	 * @see #setMaxRowsPerStatement
+	 */
+	protected int doExecuteBulk(SqlParameterSource... batch) {
+		checkCompiled();
+		List<List<Object>> rows = new ArrayList<>(batch.length);
+		for (SqlParameterSource parameterSource : batch) {
+			rows.add(matchInParameterValuesWithInsertColumns(parameterSource));
+		}
+		return executeBulkInternal(rows);
+	}
+
+	/**
+	 * Delegate method to execute the bulk insert: through the {@link BulkInsertHandler}
+	 * if specified, else through multi-row statements where supported by the database,
+	 * else through a regular batch insert.
+	 */
+	private int executeBulkInternal(final List<List<Object>> rows) {
+		if (rows.isEmpty()) {
+			return 0;
+		}
+
+		BulkInsertHandler handler = this.bulkInsertHandler;
+		if (handler != null) {
+			String tableName = this.tableMetaDataContext.getQualifiedTableName();
+			List<String> columnNames = Collections.unmodifiableList(this.tableMetaDataContext.getTableColumns());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing bulk insert of " + rows.size() + " rows into table [" + tableName +
+						"] through " + handler);
+			}
+			Integer count = getJdbcTemplate().execute((ConnectionCallback<Integer>) con ->
+					handler.insert(con, tableName, columnNames, getInsertTypes(), rows));
+			Assert.state(count != null, "No row count returned from BulkInsertHandler");
+			return count;
+		}
+
+		int columnCount = rows.get(0).size();
+		if (columnCount == 0 || !this.tableMetaDataContext.isMultiRowInsertSupported()) {
+			return sumRowCounts(executeBatchInternal(rows), 1);
+		}
+
+		int rowsPerStatement = Math.max(1, Math.min(this.maxRowsPerStatement,
+				this.tableMetaDataContext.getMaxStatementParameterCount() / columnCount));
+		int fullStatements = rows.size() / rowsPerStatement;
+		int remainder = rows.size() % rowsPerStatement;
+		int count = 0;
+		if (fullStatements > 0) {
+			String sql = this.tableMetaDataContext.createMultiRowInsertString(
+					rowsPerStatement, getGeneratedKeyNames());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing multi-row insert for " + rowsPerStatement + " rows per statement " +
+						"with batch of size: " + fullStatements);
+			}
+			int[] counts = getJdbcTemplate().batchUpdate(sql, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					setParameterValues(ps, rows.subList(i * rowsPerStatement, (i + 1) * rowsPerStatement));
+				}
+				@Override
+				public int getBatchSize() {
+					return fullStatements;
+				}
+			});
+			count += sumRowCounts(counts, rowsPerStatement);
+		}
+		if (remainder > 0) {
+			String sql = this.tableMetaDataContext.createMultiRowInsertString(remainder, getGeneratedKeyNames());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing multi-row insert for " + remainder + " rows");
+			}
+			count += getJdbcTemplate().update(sql,
+					ps -> setParameterValues(ps, rows.subList(rows.size() - remainder, rows.size())));
+		}
+		return count;
+	}
+
+	private static int sumRowCounts(int[] counts, int rowsPerStatement) {
+		int sum = 0;
+		for (int count : counts) {
+			sum += (count == Statement.SUCCESS_NO_INFO ? rowsPerStatement : Math.max(count, 0));
+		}
+		return sum;
+	}
+
+	/**
+	 * Internal implementation for setting the parameter values of several rows
+	 * for a multi-row insert statement.
+	 * @param preparedStatement the PreparedStatement
+	 * @param rows the values to be set, one List per row
+	 */
+	private void setParameterValues(PreparedStatement preparedStatement, List<List<Object>> rows)
+			throws SQLException {
+
+		int[] columnTypes = getInsertTypes();
+		int colIndex = 0;
+		for (List<Object> values : rows) {
+			int valueIndex = 0;
+			for (Object value : values) {
+				colIndex++;
+				int sqlType = (valueIndex < columnTypes.length ? columnTypes[valueIndex] : SqlTypeValue.TYPE_UNKNOWN);
+				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, sqlType, value);
+				valueIndex++;
+			}
+		}
+	}
+
 	/**
 	 * Internal implementation for setting parameter values.
 	 * @param preparedStatement the PreparedStatement
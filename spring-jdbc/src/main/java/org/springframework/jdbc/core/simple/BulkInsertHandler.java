@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Strategy interface for inserting many rows at once through a vendor-specific
+ * bulk-load protocol, e.g. PostgreSQL's {@code COPY FROM STDIN} through the
+ * driver's {@code CopyManager}, instead of through {@code INSERT} statements.
+ *
+ * <p>Used by {@link SimpleJdbcInsert#executeBulk} if configured through
+ * {@link AbstractJdbcInsert#setBulkInsertHandler}. The given Connection is
+ * obtained through the insert's {@code JdbcTemplate}, and participates in
+ * the current transaction, if any.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see SimpleJdbcInsertOperations#usingBulkInsertHandler
+ */
+@FunctionalInterface
+public interface BulkInsertHandler {
+
+	/**
+	 * Insert the given rows into the given table.
+	 * @param con the JDBC Connection to use
+	 * @param tableName the name of the table, qualified with the catalog and schema
+	 * names if specified, each in the identifier case used by the database
+	 * @param columnNames the names of the columns to insert, in the order of the row values
+	 * @param columnTypes the SQL types of the columns as defined in {@link java.sql.Types},
+	 * with {@link org.springframework.jdbc.core.SqlTypeValue#TYPE_UNKNOWN} where unknown
+	 * @param rows the values of the rows to insert, one value per column
+	 * @return the number of rows inserted
+	 * @throws SQLException if thrown by JDBC methods, to be translated by the caller
+	 */
+	int insert(Connection con, String tableName, List<String> columnNames, int[] columnTypes,
+			List<List<Object>> rows) throws SQLException;
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.Map;
 
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.metadata.JdbcMetaDataCache;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
 /**
@@ -108,6 +109,18 @@ public interface SimpleJdbcCallOperations {
 	 */
 	SimpleJdbcCallOperations withNamedBinding();
 
+	/**
+	 * Obtain the procedure meta-data from the given cache, shared with other
+	 * SimpleJdbcCall instances, instead of retrieving it on compilation.
+	 * <p>The default implementation ignores the cache and returns this instance.
+	 * @param metaDataCache the cache to use
+	 * @return the instance of this SimpleJdbcCall
+	 * @since 5.0.16
+	 */
+	default SimpleJdbcCallOperations withMetaDataCache(JdbcMetaDataCache metaDataCache) {
+		return this;
+	}
+
 
 	/**
 	 * Execute the stored function and return the results obtained as an Object of the
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Map;
 import javax.sql.DataSource;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.metadata.JdbcMetaDataCache;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.KeyHolder;
 
@@ -111,6 +112,18 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return this;
 	}
 
+	@Override
+	public SimpleJdbcInsertOperations usingBulkInsertHandler(BulkInsertHandler bulkInsertHandler) {
+		setBulkInsertHandler(bulkInsertHandler);
+		return this;
+	}
+
+	@Override
+	public SimpleJdbcInsertOperations withMetaDataCache(JdbcMetaDataCache metaDataCache) {
+		setMetaDataCache(metaDataCache);
+		return this;
+	}
+
 	@Override
 	public int execute(Map<String, ?> args) {
 		return doExecute(args);
@@ -152,4 +165,15 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return doExecuteBatch(batch);
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public int executeBulk(Map<String, ?>... batch) {
+		return doExecuteBulk(batch);
+	}
+
+	@Override
+	public int executeBulk(SqlParameterSource... batch) {
+		return doExecuteBulk(batch);
+	}
+
 }
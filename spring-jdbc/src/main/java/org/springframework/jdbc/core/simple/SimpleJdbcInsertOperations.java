@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
 
 package org.springframework.jdbc.core.simple;
 
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Map;
 
+import org.springframework.jdbc.core.metadata.JdbcMetaDataCache;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.KeyHolder;
 
@@ -80,6 +83,32 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	SimpleJdbcInsertOperations includeSynonymsForTableColumnMetaData();
 
+	/**
+	 * Specify a strategy for {@link #executeBulk bulk inserts} through a
+	 * vendor-specific bulk-load protocol.
+	 * <p>The default implementation ignores the handler and returns this
+	 * instance, leaving bulk inserts to the default {@code executeBulk}
+	 * methods, i.e. to a regular batch insert of the rows.
+	 * @param bulkInsertHandler the strategy to use
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.0.16
+	 */
+	default SimpleJdbcInsertOperations usingBulkInsertHandler(BulkInsertHandler bulkInsertHandler) {
+		return this;
+	}
+
+	/**
+	 * Obtain the table meta-data from the given cache, shared with other
+	 * SimpleJdbcInsert instances, instead of retrieving it on compilation.
+	 * <p>The default implementation ignores the cache and returns this instance.
+	 * @param metaDataCache the cache to use
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.0.16
+	 */
+	default SimpleJdbcInsertOperations withMetaDataCache(JdbcMetaDataCache metaDataCache) {
+		return this;
+	}
+
 
 	/**
 	 * Execute the insert using the values passed in.
@@ -150,4 +179,35 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	int[] executeBatch(SqlParameterSource... batch);
 
+	/**
+	 * Execute a bulk insert using the batch of values passed in.
+	 * <p>Unless a {@link #usingBulkInsertHandler BulkInsertHandler} has been
+	 * specified, the rows are inserted through multi-row {@code INSERT} statements
+	 * sized to the database's parameter limit, on databases known to support them,
+	 * falling back to a regular batch insert otherwise. Consider executing a bulk
+	 * insert within a transaction, since it may involve several statements.
+	 * <p>The default implementation delegates to {@link #executeBatch(Map[])},
+	 * for implementations that predate this method.
+	 * @param batch an array of Maps containing a batch of column names and corresponding value
+	 * @return the total number of rows inserted
+	 * @since 5.0.16
+	 */
+	@SuppressWarnings("unchecked")
+	default int executeBulk(Map<String, ?>... batch) {
+		return Arrays.stream(executeBatch(batch))
+				.map(count -> (count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0))).sum();
+	}
+
+	/**
+	 * Execute a bulk insert using the batch of values passed in.
+	 * @param batch an array of SqlParameterSource containing values for the batch
+	 * @return the total number of rows inserted
+	 * @since 5.0.16
+	 * @see #executeBulk(Map[])
+	 */
+	default int executeBulk(SqlParameterSource... batch) {
+		return Arrays.stream(executeBatch(batch))
+				.map(count -> (count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0))).sum();
+	}
+
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.BatchChunkCallback;
+import org.springframework.jdbc.core.BatchChunkResult;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Executes a batch update over a potentially very large sequence of items in
+ * chunks, each chunk as a separate JDBC batch, optionally in its own
+ * transaction and optionally concurrently on separate connections.
+ *
+ * <p>Items are read from the given {@link Iterator} or {@link Stream} on the
+ * calling thread, and at most {@link #setConcurrencyLimit concurrencyLimit}
+ * chunks are buffered or in execution at any time, so memory consumption is
+ * bounded by the chunk size rather than by the number of items. Chunks are
+ * handed to the configured {@link TaskExecutor}; with the default
+ * {@link SyncTaskExecutor} they are executed one after the other on the
+ * calling thread.
+ *
+ * <p>With a {@link #setTransactionManager transaction manager} each chunk is
+ * executed in a new transaction and committed on its own, so a failure only
+ * rolls back the failed chunk. The {@link BatchChunkResult} reported for each
+ * chunk carries the position of its items within the overall sequence, which
+ * allows for resuming a load after the last committed chunk. Once a chunk has
+ * failed no further chunks are started, and the failure is rethrown after
+ * the chunks in progress have completed.
+ *
+ * <p>For a single connection and transaction, use
+ * {@link JdbcTemplate#batchUpdate(String, Iterator, int, ParameterizedPreparedStatementSetter, BatchChunkCallback)}
+ * directly.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see JdbcTemplate#batchUpdate(String, java.util.Collection, int, ParameterizedPreparedStatementSetter)
+ */
+public class ChunkedBatchUpdateExecutor {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Nullable
+	private TransactionTemplate transactionTemplate;
+
+	private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
+	private int concurrencyLimit = 1;
+
+
+	/**
+	 * Create a new executor for the given DataSource.
+	 * @param dataSource the JDBC DataSource to obtain connections from
+	 */
+	public ChunkedBatchUpdateExecutor(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	/**
+	 * Create a new executor for the given JdbcTemplate.
+	 * @param jdbcTemplate the JdbcTemplate to execute the chunks with
+	 */
+	public ChunkedBatchUpdateExecutor(JdbcTemplate jdbcTemplate) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+
+	/**
+	 * Set the transaction manager to execute each chunk in a new transaction
+	 * with. By default, chunks execute without a transaction of their own,
+	 * i.e. in auto-commit mode unless the calling thread has a transaction
+	 * which chunks executed on that thread participate in.
+	 */
+	public void setTransactionManager(@Nullable PlatformTransactionManager transactionManager) {
+		if (transactionManager != null) {
+			this.transactionTemplate = new TransactionTemplate(transactionManager);
+			this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		}
+		else {
+			this.transactionTemplate = null;
+		}
+	}
+
+	/**
+	 * Set the TaskExecutor to execute chunks on.
+	 * <p>Default is a {@link SyncTaskExecutor}. For concurrent execution, specify
+	 * an asynchronous executor along with a {@link #setConcurrencyLimit
+	 * concurrency limit} greater than 1, and make sure the DataSource provides
+	 * enough connections for that many chunks.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		Assert.notNull(taskExecutor, "TaskExecutor must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set the maximum number of chunks buffered or in execution at the same
+	 * time. Default is 1.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "Concurrency limit must be greater than 0");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	/**
+	 * Return the maximum number of chunks buffered or in execution at the same time.
+	 */
+	public int getConcurrencyLimit() {
+		return this.concurrencyLimit;
+	}
+
+
+	/**
+	 * Execute the given SQL statement for all items of the given Stream.
+	 * <p>The Stream is closed once all items have been consumed.
+	 * @see #execute(String, Iterator, int, ParameterizedPreparedStatementSetter, BatchChunkCallback)
+	 */
+	public <T> long execute(String sql, Stream<T> items, int chunkSize,
+			ParameterizedPreparedStatementSetter<T> pss, @Nullable BatchChunkCallback chunkCallback) {
+
+		try (Stream<T> stream = items) {
+			return execute(sql, stream.iterator(), chunkSize, pss, chunkCallback);
+		}
+	}
+
+	/**
+	 * Execute the given SQL statement for all items of the given Iterator.
+	 * @param sql the SQL statement to execute
+	 * @param items the items to execute the statement for
+	 * @param chunkSize the number of items per chunk
+	 * @param pss the ParameterizedPreparedStatementSetter to use
+	 * @param chunkCallback callback notified after each chunk (may be {@code null});
+	 * needs to be thread-safe for concurrent execution
+	 * @return the number of items that have been executed successfully
+	 * @throws RuntimeException the failure of the first failed chunk, typically a
+	 * {@link org.springframework.dao.DataAccessException}
+	 */
+	public <T> long execute(String sql, Iterator<T> items, int chunkSize,
+			ParameterizedPreparedStatementSetter<T> pss, @Nullable BatchChunkCallback chunkCallback) {
+
+		Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0");
+		Semaphore permits = new Semaphore(this.concurrencyLimit);
+		AtomicReference<BatchChunkResult> failure = new AtomicReference<>();
+		AtomicLong executed = new AtomicLong();
+		long position = 0;
+		int chunkIndex = 0;
+		try {
+			while (failure.get() == null && items.hasNext()) {
+				// Acquire before reading the chunk: the permit covers buffering as well as execution
+				ChunkPermit permit = new ChunkPermit(permits);
+				if (failure.get() != null || !items.hasNext()) {
+					permit.release();
+					break;
+				}
+				List<T> chunk = new ArrayList<>(chunkSize);
+				try {
+					while (chunk.size() < chunkSize && items.hasNext()) {
+						chunk.add(items.next());
+					}
+					this.taskExecutor.execute(new ChunkTask<>(sql, chunk, pss, chunkIndex, position,
+							chunkCallback, permit, failure, executed));
+				}
+				catch (RuntimeException | Error ex) {
+					// Not handed over, or the task failed on the calling thread
+					permit.release();
+					throw ex;
+				}
+				position += chunk.size();
+				chunkIndex++;
+			}
+		}
+		finally {
+			// Wait for the chunks in progress
+			permits.acquireUninterruptibly(this.concurrencyLimit);
+		}
+
+		BatchChunkResult failed = failure.get();
+		if (failed != null) {
+			RuntimeException ex = failed.getFailure();
+			Assert.state(ex != null, "No failure");
+			throw ex;
+		}
+		return executed.get();
+	}
+
+	private <T> int[] executeChunk(String sql, List<T> chunk, ParameterizedPreparedStatementSetter<T> pss) {
+		if (this.transactionTemplate != null) {
+			int[] counts = this.transactionTemplate.execute(status -> doExecuteChunk(sql, chunk, pss));
+			Assert.state(counts != null, "No update counts");
+			return counts;
+		}
+		return doExecuteChunk(sql, chunk, pss);
+	}
+
+	private <T> int[] doExecuteChunk(String sql, List<T> chunk, ParameterizedPreparedStatementSetter<T> pss) {
+		int[][] counts = this.jdbcTemplate.batchUpdate(sql, chunk, chunk.size(), pss);
+		if (counts.length == 1) {
+			return counts[0];
+		}
+		// Separate updates if the driver does not support batch updates
+		int[] result = new int[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			result[i] = counts[i][0];
+		}
+		return result;
+	}
+
+
+	/**
+	 * Executes a single chunk and records its outcome.
+	 */
+	private class ChunkTask<T> implements Runnable {
+
+		private final String sql;
+
+		private final List<T> chunk;
+
+		private final ParameterizedPreparedStatementSetter<T> pss;
+
+		private final int chunkIndex;
+
+		private final long position;
+
+		@Nullable
+		private final BatchChunkCallback chunkCallback;
+
+		private final ChunkPermit permit;
+
+		private final AtomicReference<BatchChunkResult> failure;
+
+		private final AtomicLong executed;
+
+		public ChunkTask(String sql, List<T> chunk, ParameterizedPreparedStatementSetter<T> pss,
+				int chunkIndex, long position, @Nullable BatchChunkCallback chunkCallback,
+				ChunkPermit permit, AtomicReference<BatchChunkResult> failure, AtomicLong executed) {
+
+			this.sql = sql;
+			this.chunk = chunk;
+			this.pss = pss;
+			this.chunkIndex = chunkIndex;
+			this.position = position;
+			this.chunkCallback = chunkCallback;
+			this.permit = permit;
+			this.failure = failure;
+			this.executed = executed;
+		}
+
+		@Override
+		public void run() {
+			try {
+				long start = System.nanoTime();
+				BatchChunkResult result;
+				try {
+					int[] counts = executeChunk(this.sql, this.chunk, this.pss);
+					result = new BatchChunkResult(this.chunkIndex, this.position, this.chunk.size(),
+							counts, System.nanoTime() - start);
+					this.executed.addAndGet(this.chunk.size());
+				}
+				catch (RuntimeException ex) {
+					result = new BatchChunkResult(this.chunkIndex, this.position, this.chunk.size(),
+							ex, -1, System.nanoTime() - start);
+					BatchChunkResult previous;
+					do {
+						previous = this.failure.get();
+					}
+					while ((previous == null || previous.getChunkIndex() > this.chunkIndex) &&
+							!this.failure.compareAndSet(previous, result));
+				}
+				if (this.chunkCallback != null) {
+					this.chunkCallback.chunkCompleted(result);
+				}
+			}
+			finally {
+				this.permit.release();
+			}
+		}
+	}
+
+
+	/**
+	 * Permit for a single chunk, released exactly once no matter whether that
+	 * happens on the reading thread or on the thread executing the chunk.
+	 */
+	private static class ChunkPermit {
+
+		private final Semaphore permits;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		public ChunkPermit(Semaphore permits) {
+			permits.acquireUninterruptibly();
+			this.permits = permits;
+		}
+
+		public void release() {
+			if (this.released.compareAndSet(false, true)) {
+				this.permits.release();
+			}
+		}
+	}
+
+}
@@ -198,10 +198,14 @@ public class ConnectionHolder extends ResourceHolderSupport {
 	public void released() {
 		super.released();
 		if (!isOpen() && this.currentConnection != null) {
-			if (this.connectionHandle != null) {
-				this.connectionHandle.releaseConnection(this.currentConnection);
+			try {
+				if (this.connectionHandle != null) {
+					this.connectionHandle.releaseConnection(this.currentConnection);
+				}
+			}
+			finally {
+				this.currentConnection = null;
 			}
-			this.currentConnection = null;
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,13 @@ package org.springframework.jdbc.datasource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.support.metrics.JdbcObservation;
+import org.springframework.jdbc.support.metrics.JdbcObservationHandler;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.transaction.TransactionDefinition;
@@ -77,6 +81,8 @@ import org.springframework.util.Assert;
  * without any JDBC statements executed. A LazyConnectionDataSourceProxy will not fetch
  * an actual JDBC Connection from the target DataSource until a Statement gets executed,
  * lazily applying the specified transaction settings to the target Connection.
+ * Alternatively, switch this transaction manager to {@link #setLazyBegin "lazyBegin"}
+ * mode, deferring the Connection retrieval for new transactions to first use.
  *
  * <p>This transaction manager supports nested transactions via the JDBC 3.0
  * {@link java.sql.Savepoint} mechanism. The
@@ -123,6 +129,19 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	 */
 	private boolean enforceReadOnly = false;
 
+	@Nullable
+	private JdbcObservationHandler observationHandler;
+
+	private boolean lazyBegin = false;
+
+	private boolean releaseReadOnlyConnectionsEarly = true;
+
+	private final LongAdder lazyTransactionCount = new LongAdder();
+
+	private final LongAdder unusedConnectionCount = new LongAdder();
+
+	private final LongAdder earlyReleaseCount = new LongAdder();
+
 
 	/**
 	 * 创建事务管理器实例
@@ -208,6 +227,112 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		return this.enforceReadOnly;
 	}
 
+	/**
+	 * Set a handler to observe each transaction that this transaction manager
+	 * opens a JDBC transaction for, from begin to completion.
+	 * <p>The observation reports the time spent obtaining the JDBC Connection,
+	 * the time spent preparing it for the transaction, and the remaining time
+	 * until completion as execution time.
+	 * <p>Default is none, in which case no observations are created at all.
+	 * @since 5.0.16
+	 * @see org.springframework.jdbc.support.metrics.JdbcObservation#TRANSACTION
+	 * @see org.springframework.jdbc.support.metrics.SqlStatisticsCollector
+	 */
+	public void setObservationHandler(@Nullable JdbcObservationHandler observationHandler) {
+		this.observationHandler = observationHandler;
+	}
+
+	/**
+	 * Return the handler to observe each transaction, if any.
+	 * @since 5.0.16
+	 */
+	@Nullable
+	public JdbcObservationHandler getObservationHandler() {
+		return this.observationHandler;
+	}
+
+	/**
+	 * Specify whether to begin new transactions lazily: binding a transactional
+	 * Connection handle right away, but only obtaining and preparing the actual
+	 * JDBC Connection from the DataSource on first use within the transaction,
+	 * e.g. on the first statement executed through a
+	 * {@link org.springframework.jdbc.core.JdbcTemplate}.
+	 * <p>Transactions which do not touch the database at all, e.g. since their
+	 * result is served from a cache, do not occupy a pooled Connection then,
+	 * and neither commit nor roll back anything. This also allows a routing
+	 * DataSource to see the transaction's read-only flag and isolation level
+	 * through {@link TransactionSynchronizationManager} on Connection retrieval.
+	 * <p>Default is "false", obtaining the Connection on transaction begin.
+	 * @since 5.0.16
+	 * @see #setReleaseReadOnlyConnectionsEarly
+	 * @see #getUnusedConnectionCount()
+	 */
+	public void setLazyBegin(boolean lazyBegin) {
+		this.lazyBegin = lazyBegin;
+	}
+
+	/**
+	 * Return whether to begin new transactions lazily.
+	 * @since 5.0.16
+	 */
+	public boolean isLazyBegin() {
+		return this.lazyBegin;
+	}
+
+	/**
+	 * Specify whether to release the Connection of a lazily begun read-only
+	 * transaction as soon as it is not in use anymore, e.g. after each
+	 * {@link org.springframework.jdbc.core.JdbcTemplate} operation, re-obtaining
+	 * a Connection on further use within the same transaction.
+	 * <p>This only applies to read-only transactions with the default isolation
+	 * level and without {@link #setEnforceReadOnly enforced read-only mode},
+	 * since it gives up read consistency across the statements within the
+	 * transaction in favor of reduced pool occupancy.
+	 * <p>Default is "true". Only relevant in {@link #setLazyBegin "lazyBegin"} mode.
+	 * @since 5.0.16
+	 */
+	public void setReleaseReadOnlyConnectionsEarly(boolean releaseReadOnlyConnectionsEarly) {
+		this.releaseReadOnlyConnectionsEarly = releaseReadOnlyConnectionsEarly;
+	}
+
+	/**
+	 * Return whether to release the Connection of a lazily begun read-only
+	 * transaction as soon as it is not in use anymore.
+	 * @since 5.0.16
+	 */
+	public boolean isReleaseReadOnlyConnectionsEarly() {
+		return this.releaseReadOnlyConnectionsEarly;
+	}
+
+	/**
+	 * Return the number of transactions begun lazily so far.
+	 * @since 5.0.16
+	 * @see #setLazyBegin
+	 */
+	public long getLazyTransactionCount() {
+		return this.lazyTransactionCount.sum();
+	}
+
+	/**
+	 * Return the number of lazily begun transactions which completed
+	 * without ever obtaining a JDBC Connection.
+	 * @since 5.0.16
+	 * @see #setLazyBegin
+	 */
+	public long getUnusedConnectionCount() {
+		return this.unusedConnectionCount.sum();
+	}
+
+	/**
+	 * Return the number of Connections released early from lazily begun
+	 * read-only transactions.
+	 * @since 5.0.16
+	 * @see #setReleaseReadOnlyConnectionsEarly
+	 */
+	public long getEarlyReleaseCount() {
+		return this.earlyReleaseCount.sum();
+	}
+
 	@Override
 	public void afterPropertiesSet() {
 		if (getDataSource() == null) {
@@ -244,41 +369,44 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	protected void doBegin(Object transaction, TransactionDefinition definition) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) transaction;
 		Connection con = null;
+		JdbcObservation observation =
+				(this.observationHandler != null ? new JdbcObservation(JdbcObservation.TRANSACTION, null) : null);
 
 		try {
 			//没有持有数据库连接或,数据库连接已被占用
 			if (!txObject.hasConnectionHolder() ||
 					txObject.getConnectionHolder().isSynchronizedWithTransaction()) {
-				Connection newCon = obtainDataSource().getConnection();
-				if (logger.isDebugEnabled()) {
-					logger.debug("Acquired Connection [" + newCon + "] for JDBC transaction");
+				if (isLazyBegin()) {
+					LazyTransactionalConnectionHandle handle =
+							new LazyTransactionalConnectionHandle(txObject, definition, observation);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Deferring JDBC Connection retrieval for lazily begun transaction");
+					}
+					txObject.setConnectionHolder(new ConnectionHolder(handle), true);
+					txObject.setLazyConnectionHandle(handle);
+					this.lazyTransactionCount.increment();
+				}
+				else {
+					Connection newCon = obtainDataSource().getConnection();
+					if (logger.isDebugEnabled()) {
+						logger.debug("Acquired Connection [" + newCon + "] for JDBC transaction");
+					}
+					txObject.setConnectionHolder(new ConnectionHolder(newCon), true);
 				}
-				txObject.setConnectionHolder(new ConnectionHolder(newCon), true);
 			}
 
 			//标记连接被事务占用
 			txObject.getConnectionHolder().setSynchronizedWithTransaction(true);
-			//获取数据库连接
-			con = txObject.getConnectionHolder().getConnection();
-
-			logger.info("设置事务只读属性和隔离级别");
-			Integer previousIsolationLevel = DataSourceUtils.prepareConnectionForTransaction(con, definition);
-			txObject.setPreviousIsolationLevel(previousIsolationLevel);
-
-			// Switch to manual commit if necessary. This is very expensive in some JDBC drivers,
-			// so we don't want to do it unnecessarily (for example if we've explicitly
-			// configured the connection pool to set it already).
-			//是否自动提交
-			if (con.getAutoCommit()) {
-				txObject.setMustRestoreAutoCommit(true);
-				if (logger.isDebugEnabled()) {
-					logger.debug("Switching JDBC Connection [" + con + "] to manual commit");
+
+			if (txObject.getLazyConnectionHandle() == null) {
+				if (observation != null) {
+					observation.connectionAcquired();
 				}
-				con.setAutoCommit(false);
+				//获取数据库连接
+				con = txObject.getConnectionHolder().getConnection();
+				prepareConnectionForTransaction(txObject, con, definition);
 			}
 
-			logger.info("准备事务的连接,如果事务只读,执行 SET TRANSACTION READ ONLY");
-			prepareTransactionalConnection(con, definition);
 			//设置事务开始
 			txObject.getConnectionHolder().setTransactionActive(true);
 
@@ -293,17 +421,56 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			if (txObject.isNewConnectionHolder()) {
 				TransactionSynchronizationManager.bindResource(obtainDataSource(), txObject.getConnectionHolder());
 			}
+
+			if (observation != null) {
+				if (txObject.getLazyConnectionHandle() == null) {
+					observation.statementPrepared();
+				}
+				txObject.setObservation(observation);
+			}
 		}
 
 		catch (Throwable ex) {
+			if (observation != null) {
+				completeObservation(observation, ex);
+			}
 			if (txObject.isNewConnectionHolder()) {
 				DataSourceUtils.releaseConnection(con, obtainDataSource());
 				txObject.setConnectionHolder(null, false);
+				txObject.setLazyConnectionHandle(null);
 			}
 			throw new CannotCreateTransactionException("Could not open JDBC Connection for transaction", ex);
 		}
 	}
 
+	/**
+	 * Prepare the given Connection for the transaction: applying the read-only flag
+	 * and isolation level, switching to manual commit and calling
+	 * {@link #prepareTransactionalConnection}.
+	 */
+	private void prepareConnectionForTransaction(DataSourceTransactionObject txObject, Connection con,
+			TransactionDefinition definition) throws SQLException {
+
+		logger.info("设置事务只读属性和隔离级别");
+		Integer previousIsolationLevel = DataSourceUtils.prepareConnectionForTransaction(con, definition);
+		txObject.setPreviousIsolationLevel(previousIsolationLevel);
+
+		// Switch to manual commit if necessary. This is very expensive in some JDBC drivers,
+		// so we don't want to do it unnecessarily (for example if we've explicitly
+		// configured the connection pool to set it already).
+		//是否自动提交
+		if (con.getAutoCommit()) {
+			txObject.setMustRestoreAutoCommit(true);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Switching JDBC Connection [" + con + "] to manual commit");
+			}
+			con.setAutoCommit(false);
+		}
+
+		logger.info("准备事务的连接,如果事务只读,执行 SET TRANSACTION READ ONLY");
+		prepareTransactionalConnection(con, definition);
+	}
+
 	/**
 	 * 事务挂起,并与当前线程解绑
 	 * @param transaction transaction object returned by {@code doGetTransaction}
@@ -331,6 +498,12 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	@Override
 	protected void doCommit(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
+		if (!txObject.hasTransactionalConnection()) {
+			if (status.isDebug()) {
+				logger.debug("No JDBC Connection in use for lazily begun transaction - nothing to commit");
+			}
+			return;
+		}
 		//获取连接
 		Connection con = txObject.getConnectionHolder().getConnection();
 		if (status.isDebug()) {
@@ -348,6 +521,12 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	@Override
 	protected void doRollback(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
+		if (!txObject.hasTransactionalConnection()) {
+			if (status.isDebug()) {
+				logger.debug("No JDBC Connection in use for lazily begun transaction - nothing to roll back");
+			}
+			return;
+		}
 		//获取数据库连接
 		Connection con = txObject.getConnectionHolder().getConnection();
 		if (status.isDebug()) {
@@ -366,8 +545,8 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	protected void doSetRollbackOnly(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
 		if (status.isDebug()) {
-			logger.debug("Setting JDBC transaction [" + txObject.getConnectionHolder().getConnection() +
-					"] rollback-only");
+			logger.debug("Setting JDBC transaction [" + (txObject.hasTransactionalConnection() ?
+					txObject.getConnectionHolder().getConnection() : "without Connection") + "] rollback-only");
 		}
 		txObject.setRollbackOnly();
 	}
@@ -386,8 +565,34 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			TransactionSynchronizationManager.unbindResource(obtainDataSource());
 		}
 
-		// Reset connection.
-		Connection con = txObject.getConnectionHolder().getConnection();
+		if (txObject.hasTransactionalConnection()) {
+			// Reset connection.
+			Connection con = txObject.getConnectionHolder().getConnection();
+			resetConnectionAfterTransaction(txObject, con);
+
+			//如果是新创建的连接,那么释放掉
+			if (txObject.isNewConnectionHolder()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Releasing JDBC Connection [" + con + "] after transaction");
+				}
+				DataSourceUtils.releaseConnection(con, this.dataSource);
+			}
+		}
+
+		LazyTransactionalConnectionHandle handle = txObject.getLazyConnectionHandle();
+		if (handle != null && !handle.isUsed()) {
+			this.unusedConnectionCount.increment();
+		}
+
+		txObject.getConnectionHolder().clear();
+
+		JdbcObservation observation = txObject.getObservation();
+		if (observation != null) {
+			completeObservation(observation, null);
+		}
+	}
+
+	private void resetConnectionAfterTransaction(DataSourceTransactionObject txObject, Connection con) {
 		try {
 			if (txObject.isMustRestoreAutoCommit()) {
 				con.setAutoCommit(true);
@@ -398,16 +603,14 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		catch (Throwable ex) {
 			logger.debug("Could not reset JDBC Connection after transaction", ex);
 		}
+	}
 
-		//如果是新创建的连接,那么释放掉
-		if (txObject.isNewConnectionHolder()) {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Releasing JDBC Connection [" + con + "] after transaction");
-			}
-			DataSourceUtils.releaseConnection(con, this.dataSource);
+	private void completeObservation(JdbcObservation observation, @Nullable Throwable failure) {
+		observation.completed(failure);
+		JdbcObservationHandler handler = this.observationHandler;
+		if (handler != null) {
+			handler.observe(observation);
 		}
-
-		txObject.getConnectionHolder().clear();
 	}
 
 
@@ -452,6 +655,12 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		 */
 		private boolean mustRestoreAutoCommit;
 
+		@Nullable
+		private JdbcObservation observation;
+
+		@Nullable
+		private LazyTransactionalConnectionHandle lazyConnectionHandle;
+
 		public void setConnectionHolder(@Nullable ConnectionHolder connectionHolder, boolean newConnectionHolder) {
 			super.setConnectionHolder(connectionHolder);
 			this.newConnectionHolder = newConnectionHolder;
@@ -469,6 +678,33 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			return this.mustRestoreAutoCommit;
 		}
 
+		public void setObservation(@Nullable JdbcObservation observation) {
+			this.observation = observation;
+		}
+
+		@Nullable
+		public JdbcObservation getObservation() {
+			return this.observation;
+		}
+
+		public void setLazyConnectionHandle(@Nullable LazyTransactionalConnectionHandle lazyConnectionHandle) {
+			this.lazyConnectionHandle = lazyConnectionHandle;
+		}
+
+		@Nullable
+		public LazyTransactionalConnectionHandle getLazyConnectionHandle() {
+			return this.lazyConnectionHandle;
+		}
+
+		/**
+		 * Return whether a JDBC Connection is currently held for the transaction,
+		 * i.e. whether the transaction has not been begun lazily or has obtained
+		 * its Connection already.
+		 */
+		public boolean hasTransactionalConnection() {
+			return (this.lazyConnectionHandle == null || this.lazyConnectionHandle.hasConnection());
+		}
+
 		public void setRollbackOnly() {
 			getConnectionHolder().setRollbackOnly();
 		}
@@ -486,4 +722,119 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		}
 	}
 
+
+	/**
+	 * ConnectionHandle for a lazily begun transaction, obtaining and preparing
+	 * the JDBC Connection on first use. For read-only transactions, the Connection
+	 * may be released whenever the transaction's ConnectionHolder is not in use.
+	 */
+	private class LazyTransactionalConnectionHandle implements ConnectionHandle {
+
+		private final DataSourceTransactionObject txObject;
+
+		private final TransactionDefinition definition;
+
+		@Nullable
+		private final JdbcObservation observation;
+
+		private final boolean releaseEarly;
+
+		@Nullable
+		private Connection connection;
+
+		private boolean used;
+
+		public LazyTransactionalConnectionHandle(DataSourceTransactionObject txObject,
+				TransactionDefinition definition, @Nullable JdbcObservation observation) {
+
+			this.txObject = txObject;
+			this.definition = definition;
+			this.observation = observation;
+			this.releaseEarly = (isReleaseReadOnlyConnectionsEarly() && definition.isReadOnly() &&
+					definition.getIsolationLevel() == TransactionDefinition.ISOLATION_DEFAULT && !isEnforceReadOnly());
+		}
+
+		@Override
+		public Connection getConnection() {
+			if (this.connection == null) {
+				DataSource dataSource = obtainDataSource();
+				Connection con = null;
+				try {
+					con = dataSource.getConnection();
+					if (logger.isDebugEnabled()) {
+						logger.debug("Acquired Connection [" + con + "] for lazily begun JDBC transaction");
+					}
+					if (this.observation != null && !this.used) {
+						this.observation.connectionAcquired();
+					}
+					prepareConnectionForTransaction(this.txObject, con, this.definition);
+					if (this.observation != null && !this.used) {
+						this.observation.statementPrepared();
+					}
+				}
+				catch (SQLException ex) {
+					closeConnection(con, dataSource);
+					throw new CannotGetJdbcConnectionException(
+							"Could not open JDBC Connection for lazily begun transaction", ex);
+				}
+				catch (RuntimeException | Error ex) {
+					closeConnection(con, dataSource);
+					throw ex;
+				}
+				this.connection = con;
+				this.used = true;
+			}
+			return this.connection;
+		}
+
+		@Override
+		public void releaseConnection(Connection con) {
+			// Called by the ConnectionHolder whenever not in use anymore
+			Connection connection = this.connection;
+			if (this.releaseEarly && connection != null) {
+				this.connection = null;
+				try {
+					if (this.txObject.getConnectionHolder().isRollbackOnly()) {
+						connection.rollback();
+					}
+					else {
+						connection.commit();
+					}
+				}
+				catch (SQLException ex) {
+					throw new TransactionSystemException("Could not complete JDBC Connection for early release", ex);
+				}
+				finally {
+					resetConnectionAfterTransaction(this.txObject, connection);
+					this.txObject.setMustRestoreAutoCommit(false);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Releasing JDBC Connection [" + connection + "] early from read-only transaction");
+					}
+					closeConnection(connection, obtainDataSource());
+					earlyReleaseCount.increment();
+				}
+			}
+		}
+
+		public boolean hasConnection() {
+			return (this.connection != null);
+		}
+
+		public boolean isUsed() {
+			return this.used;
+		}
+
+		private void closeConnection(@Nullable Connection con, DataSource dataSource) {
+			// Not through DataSourceUtils.releaseConnection: the transaction's ConnectionHolder is bound
+			if (con != null) {
+				try {
+					DataSourceUtils.doCloseConnection(con, dataSource);
+				}
+				catch (Throwable ex) {
+					logger.debug("Could not close JDBC Connection", ex);
+				}
+			}
+		}
+	}
+
 }
@@ -236,6 +236,7 @@ public class TransactionAwareDataSourceProxy extends DelegatingDataSource {
 			}
 
 			// Invoke method on target Connection.
+			Throwable failure = null;
 			try {
 				Object retVal = method.invoke(actualTarget, args);
 
@@ -248,11 +249,26 @@ public class TransactionAwareDataSourceProxy extends DelegatingDataSource {
 				return retVal;
 			}
 			catch (InvocationTargetException ex) {
-				throw ex.getTargetException();
+				failure = ex.getTargetException();
+				throw failure;
+			}
+			catch (Throwable ex) {
+				failure = ex;
+				throw ex;
 			}
 			finally {
 				if (actualTarget != this.target) {
-					DataSourceUtils.doReleaseConnection(actualTarget, this.targetDataSource);
+					try {
+						DataSourceUtils.doReleaseConnection(actualTarget, this.targetDataSource);
+					}
+					catch (Throwable ex) {
+						// Do not let a release failure (e.g. from an early release of a
+						// lazily begun transaction's Connection) mask the original exception.
+						if (failure == null) {
+							throw ex;
+						}
+						failure.addSuppressed(ex);
+					}
 				}
 			}
 		}
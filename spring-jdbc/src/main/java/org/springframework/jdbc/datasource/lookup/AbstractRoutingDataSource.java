@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,8 @@ package org.springframework.jdbc.datasource.lookup;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.sql.DataSource;
 
@@ -117,7 +118,7 @@ public abstract class AbstractRoutingDataSource extends AbstractDataSource imple
 		if (this.targetDataSources == null) {
 			throw new IllegalArgumentException("Property 'targetDataSources' is required");
 		}
-		this.resolvedDataSources = new HashMap<>(this.targetDataSources.size());
+		this.resolvedDataSources = new LinkedHashMap<>(this.targetDataSources.size());
 		this.targetDataSources.forEach((key, value) -> {
 			Object lookupKey = resolveSpecifiedLookupKey(key);
 			DataSource dataSource = resolveSpecifiedDataSource(value);
@@ -163,6 +164,28 @@ public abstract class AbstractRoutingDataSource extends AbstractDataSource imple
 		}
 	}
 
+	/**
+	 * Return the resolved target DataSources, keyed by resolved lookup key,
+	 * in the order of the specified target DataSources.
+	 * @throws IllegalStateException if the router has not been initialized yet
+	 * @since 5.0.16
+	 * @see #afterPropertiesSet()
+	 */
+	protected Map<Object, DataSource> getResolvedDataSources() {
+		Assert.state(this.resolvedDataSources != null, "DataSources not resolved yet - call afterPropertiesSet");
+		return Collections.unmodifiableMap(this.resolvedDataSources);
+	}
+
+	/**
+	 * Return the resolved default target DataSource, if any.
+	 * @since 5.0.16
+	 * @see #setDefaultTargetDataSource
+	 */
+	@Nullable
+	protected DataSource getResolvedDefaultDataSource() {
+		return this.resolvedDefaultDataSource;
+	}
+
 
 	@Override
 	public Connection getConnection() throws SQLException {
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * DataSource that routes read-only transactions to one of several read replicas,
+ * and everything else to the primary DataSource. Read-only transactions are
+ * detected through {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()},
+ * i.e. as declared through {@code @Transactional(readOnly = true)}.
+ *
+ * <p>Replicas are selected through a {@link ReplicaSelector}, round robin by default.
+ * Each replica is guarded by a circuit breaker: after a number of consecutive
+ * failures to obtain a Connection, it is skipped for a configurable period,
+ * after which it is given another chance. A failure to obtain a replica
+ * Connection, as well as the absence of any available replica, falls back
+ * to the primary DataSource.
+ *
+ * <p>If a {@link #setHealthCheckInterval health check interval} is specified,
+ * replicas are checked periodically in the background: by running a
+ * {@link #setReplicationLagQuery replication lag query}, skipping replicas
+ * which lag behind by more than the {@link #setMaxReplicationLag maximum lag},
+ * or through {@link Connection#isValid} otherwise.
+ *
+ * <p><b>NOTE:</b> Transaction managers such as
+ * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager}
+ * obtain their Connection before the read-only flag of the transaction has
+ * been exposed. Switch the {@code DataSourceTransactionManager} to
+ * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager#setLazyBegin
+ * "lazyBegin"} mode, or wrap this router in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * for the transaction manager, deferring the Connection retrieval to the
+ * first actual statement within the transaction:
+ *
+ * <pre class="code">
+ * ReadReplicaRoutingDataSource router = new ReadReplicaRoutingDataSource();
+ * router.setPrimaryDataSource(primary);
+ * router.setReplicaDataSources(Collections.singletonMap("replica1", replica1));
+ * router.afterPropertiesSet();
+ * DataSource dataSource = new LazyConnectionDataSourceProxy(router);</pre>
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see ReplicaSelector
+ * @see org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+	private ReplicaSelector replicaSelector = ReplicaSelector.roundRobin();
+
+	private int failureThreshold = 3;
+
+	private long circuitOpenTime = 30000;
+
+	private long healthCheckInterval = 0;
+
+	@Nullable
+	private String replicationLagQuery;
+
+	private long maxReplicationLag = 0;
+
+	private int validationTimeout = 5;
+
+	private List<Replica> replicas = Collections.emptyList();
+
+	@Nullable
+	private ScheduledExecutorService healthCheckExecutor;
+
+
+	/**
+	 * Specify the primary DataSource, used for all operations outside of
+	 * read-only transactions as well as for fallback.
+	 * <p>Can either be a {@link DataSource} instance or a data source name,
+	 * to be resolved through the {@link #setDataSourceLookup DataSourceLookup}.
+	 * @see #setDefaultTargetDataSource
+	 */
+	public void setPrimaryDataSource(Object primaryDataSource) {
+		setDefaultTargetDataSource(primaryDataSource);
+	}
+
+	/**
+	 * Specify the read replicas, with a name for each replica as key.
+	 * <p>The values can either be {@link DataSource} instances or data source
+	 * names, to be resolved through the {@link #setDataSourceLookup DataSourceLookup}.
+	 * @see #setTargetDataSources
+	 */
+	public void setReplicaDataSources(Map<String, ?> replicaDataSources) {
+		setTargetDataSources(new LinkedHashMap<>(replicaDataSources));
+	}
+
+	/**
+	 * Specify the strategy for selecting among the available replicas.
+	 * <p>Default is {@link ReplicaSelector#roundRobin()}.
+	 */
+	public void setReplicaSelector(ReplicaSelector replicaSelector) {
+		Assert.notNull(replicaSelector, "ReplicaSelector must not be null");
+		this.replicaSelector = replicaSelector;
+	}
+
+	/**
+	 * Specify the number of consecutive failures after which a replica is
+	 * skipped for the {@link #setCircuitOpenTime circuit open time}.
+	 * <p>Default is 3.
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		Assert.isTrue(failureThreshold > 0, "Failure threshold must be positive");
+		this.failureThreshold = failureThreshold;
+	}
+
+	/**
+	 * Specify the time in milliseconds for which a failing replica is skipped.
+	 * <p>Default is 30000 milliseconds.
+	 */
+	public void setCircuitOpenTime(long circuitOpenTime) {
+		this.circuitOpenTime = circuitOpenTime;
+	}
+
+	/**
+	 * Specify the interval in milliseconds for background health checks
+	 * of the replicas, started on {@link #afterPropertiesSet()}.
+	 * <p>Default is 0, not performing any background health checks:
+	 * replicas are only skipped after failures to obtain a Connection then.
+	 * @see #checkReplicas()
+	 */
+	public void setHealthCheckInterval(long healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
+	/**
+	 * Specify a query which returns the replication lag of a replica in
+	 * milliseconds, as a single numeric value, e.g. on PostgreSQL:
+	 * {@code SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000}.
+	 * A {@code null} result is interpreted as no lag.
+	 * @see #setMaxReplicationLag
+	 */
+	public void setReplicationLagQuery(@Nullable String replicationLagQuery) {
+		this.replicationLagQuery = replicationLagQuery;
+	}
+
+	/**
+	 * Specify the maximum replication lag in milliseconds, beyond which
+	 * a replica is skipped until its next health check.
+	 * <p>Default is 0, not enforcing any maximum lag.
+	 * @see #setReplicationLagQuery
+	 */
+	public void setMaxReplicationLag(long maxReplicationLag) {
+		this.maxReplicationLag = maxReplicationLag;
+	}
+
+	/**
+	 * Specify the timeout in seconds for {@link Connection#isValid} health checks.
+	 * <p>Default is 5 seconds.
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		this.validationTimeout = validationTimeout;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		if (getResolvedDefaultDataSource() == null) {
+			throw new IllegalArgumentException("Property 'primaryDataSource' is required");
+		}
+		List<Replica> replicas = new ArrayList<>();
+		getResolvedDataSources().forEach((key, dataSource) -> replicas.add(new Replica(key, dataSource)));
+		this.replicas = Collections.unmodifiableList(replicas);
+		if (this.healthCheckInterval > 0 && !replicas.isEmpty()) {
+			this.healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "ReadReplicaHealthCheck");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.healthCheckExecutor.scheduleWithFixedDelay(this::checkReplicas,
+					this.healthCheckInterval, this.healthCheckInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.healthCheckExecutor != null) {
+			this.healthCheckExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Return the configured replicas, with their current state.
+	 */
+	public List<Replica> getReplicas() {
+		return this.replicas;
+	}
+
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return doGetConnection(null, null);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return doGetConnection(username, password);
+	}
+
+	private Connection doGetConnection(@Nullable String username, @Nullable String password) throws SQLException {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			Replica replica = selectReplica();
+			if (replica != null) {
+				long startTime = System.nanoTime();
+				try {
+					Connection con = (username != null ? replica.dataSource.getConnection(username, password) :
+							replica.dataSource.getConnection());
+					replica.recordSuccess(System.nanoTime() - startTime);
+					return createInFlightProxy(con, replica);
+				}
+				catch (SQLException | RuntimeException ex) {
+					replica.recordFailure(this.failureThreshold, this.circuitOpenTime);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to obtain Connection from replica '" + replica.getName() +
+								"' - falling back to primary DataSource", ex);
+					}
+				}
+			}
+		}
+		DataSource primary = obtainPrimaryDataSource();
+		return (username != null ? primary.getConnection(username, password) : primary.getConnection());
+	}
+
+	@Override
+	@Nullable
+	protected Object determineCurrentLookupKey() {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			Replica replica = selectReplica();
+			if (replica != null) {
+				return replica.lookupKey;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Select an available replica for the current read-only transaction.
+	 * @return the selected replica, or {@code null} to use the primary DataSource
+	 * @see #setReplicaSelector
+	 */
+	@Nullable
+	protected Replica selectReplica() {
+		List<Replica> candidates = new ArrayList<>(this.replicas.size());
+		long now = System.currentTimeMillis();
+		for (Replica replica : this.replicas) {
+			if (replica.isAvailable(now)) {
+				candidates.add(replica);
+			}
+		}
+		return (!candidates.isEmpty() ? this.replicaSelector.select(candidates) : null);
+	}
+
+	private DataSource obtainPrimaryDataSource() {
+		DataSource primary = getResolvedDefaultDataSource();
+		Assert.state(primary != null, "No primary DataSource - call afterPropertiesSet first");
+		return primary;
+	}
+
+	private Connection createInFlightProxy(Connection con, Replica replica) {
+		replica.inFlight.incrementAndGet();
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class}, new InFlightTrackingInvocationHandler(con, replica));
+	}
+
+
+	/**
+	 * Check the health of all replicas, measuring their replication lag if a
+	 * {@link #setReplicationLagQuery replication lag query} has been specified.
+	 * <p>Called periodically if a {@link #setHealthCheckInterval health check interval}
+	 * has been specified, but may also be called by application-level scheduling.
+	 */
+	public void checkReplicas() {
+		for (Replica replica : this.replicas) {
+			long startTime = System.nanoTime();
+			try (Connection con = replica.dataSource.getConnection()) {
+				boolean healthy;
+				if (this.replicationLagQuery != null) {
+					long lag = queryReplicationLag(con, this.replicationLagQuery);
+					replica.replicationLag = lag;
+					healthy = (this.maxReplicationLag <= 0 || lag <= this.maxReplicationLag);
+				}
+				else {
+					healthy = con.isValid(this.validationTimeout);
+				}
+				replica.lagging = !healthy;
+				if (healthy) {
+					replica.recordSuccess(System.nanoTime() - startTime);
+				}
+				else if (logger.isDebugEnabled()) {
+					logger.debug("Replica '" + replica.getName() + "' failed health check" +
+							(replica.replicationLag >= 0 ? " with replication lag of " + replica.replicationLag + " ms" : ""));
+				}
+			}
+			catch (SQLException | RuntimeException ex) {
+				replica.recordFailure(this.failureThreshold, this.circuitOpenTime);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Replica '" + replica.getName() + "' failed health check", ex);
+				}
+			}
+		}
+	}
+
+	private static long queryReplicationLag(Connection con, String query) throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+			if (rs.next()) {
+				double lag = rs.getDouble(1);
+				return (rs.wasNull() ? 0 : Math.max(0, (long) lag));
+			}
+			return 0;
+		}
+	}
+
+
+	/**
+	 * State of a read replica: Connections in use, average Connection acquisition
+	 * latency, replication lag and circuit breaker state.
+	 */
+	public static final class Replica {
+
+		private final Object lookupKey;
+
+		private final String name;
+
+		private final DataSource dataSource;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+		private volatile long averageLatency = 0;
+
+		private volatile long circuitOpenUntil = 0;
+
+		private volatile long replicationLag = -1;
+
+		private volatile boolean lagging = false;
+
+		Replica(Object lookupKey, DataSource dataSource) {
+			this.lookupKey = lookupKey;
+			this.name = lookupKey.toString();
+			this.dataSource = dataSource;
+		}
+
+		/**
+		 * Return the name of this replica, as specified for the router.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Return the target DataSource of this replica.
+		 */
+		public DataSource getDataSource() {
+			return this.dataSource;
+		}
+
+		/**
+		 * Return the number of Connections from this replica currently in use.
+		 */
+		public int getInFlightCount() {
+			return this.inFlight.get();
+		}
+
+		/**
+		 * Return the moving average of the Connection acquisition latency
+		 * in nanoseconds, or 0 if not measured yet.
+		 */
+		public long getAverageLatencyNanos() {
+			return this.averageLatency;
+		}
+
+		/**
+		 * Return the replication lag in milliseconds as of the last health check,
+		 * or -1 if not measured.
+		 */
+		public long getReplicationLag() {
+			return this.replicationLag;
+		}
+
+		/**
+		 * Return whether this replica is currently considered for selection.
+		 */
+		public boolean isAvailable() {
+			return isAvailable(System.currentTimeMillis());
+		}
+
+		boolean isAvailable(long now) {
+			return (!this.lagging && now >= this.circuitOpenUntil);
+		}
+
+		void recordSuccess(long latency) {
+			this.consecutiveFailures.set(0);
+			this.circuitOpenUntil = 0;
+			long average = this.averageLatency;
+			// Exponentially weighted moving average with a weight of 1/8 for the new value
+			this.averageLatency = (average == 0 ? latency : average + (latency - average) / 8);
+		}
+
+		void recordFailure(int failureThreshold, long circuitOpenTime) {
+			// Keeps counting while open, so that a failed retry after expiry re-opens the circuit
+			if (this.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+				this.circuitOpenUntil = System.currentTimeMillis() + circuitOpenTime;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Replica '" + this.name + "': in-flight=" + getInFlightCount() +
+					", latency=" + this.averageLatency + "ns, lag=" + this.replicationLag +
+					"ms, available=" + isAvailable();
+		}
+	}
+
+
+	/**
+	 * Invocation handler that tracks a replica Connection as in use until closed.
+	 */
+	private static class InFlightTrackingInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private final Replica replica;
+
+		private boolean closed = false;
+
+		public InFlightTrackingInvocationHandler(Connection target, Replica replica) {
+			this.target = target;
+			this.replica = replica;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			if (method.getName().equals("equals")) {
+				// Only considered as equal when proxies are identical.
+				return (proxy == args[0]);
+			}
+			else if (method.getName().equals("hashCode")) {
+				// Use hashCode of Connection proxy.
+				return System.identityHashCode(proxy);
+			}
+			else if (method.getName().equals("getTargetConnection")) {
+				// Handle getTargetConnection method: return underlying Connection.
+				return this.target;
+			}
+			else if (method.getName().equals("unwrap")) {
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return proxy;
+				}
+			}
+			else if (method.getName().equals("isWrapperFor")) {
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return true;
+				}
+			}
+			else if (method.getName().equals("close")) {
+				// Handle close method: no longer in use, even if closing fails.
+				if (!this.closed) {
+					this.closed = true;
+					this.replica.inFlight.decrementAndGet();
+				}
+			}
+
+			// Invoke method on target Connection.
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.jdbc.datasource.lookup.ReadReplicaRoutingDataSource.Replica;
+
+/**
+ * Strategy interface for selecting one of several available read replicas
+ * in a {@link ReadReplicaRoutingDataSource}.
+ *
+ * <p>Provides factory methods for the common balancing strategies:
+ * {@link #roundRobin()}, {@link #leastInFlight()} and {@link #latencyWeighted()}.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see ReadReplicaRoutingDataSource#setReplicaSelector
+ */
+@FunctionalInterface
+public interface ReplicaSelector {
+
+	/**
+	 * Select one of the given replicas.
+	 * @param candidates the currently available replicas (never empty)
+	 * @return the selected replica, one of the given candidates
+	 */
+	Replica select(List<Replica> candidates);
+
+
+	/**
+	 * Return a selector which cycles through the available replicas.
+	 */
+	static ReplicaSelector roundRobin() {
+		AtomicInteger counter = new AtomicInteger();
+		return candidates -> candidates.get(Math.floorMod(counter.getAndIncrement(), candidates.size()));
+	}
+
+	/**
+	 * Return a selector which prefers the replica with the fewest Connections
+	 * currently in use, cycling through replicas with the same number.
+	 */
+	static ReplicaSelector leastInFlight() {
+		AtomicInteger counter = new AtomicInteger();
+		return candidates -> {
+			int size = candidates.size();
+			int offset = Math.floorMod(counter.getAndIncrement(), size);
+			Replica selected = candidates.get(offset);
+			for (int i = 1; i < size; i++) {
+				Replica candidate = candidates.get((offset + i) % size);
+				if (candidate.getInFlightCount() < selected.getInFlightCount()) {
+					selected = candidate;
+				}
+			}
+			return selected;
+		};
+	}
+
+	/**
+	 * Return a selector which picks replicas at random, weighted by the inverse
+	 * of their average Connection acquisition latency, so that faster replicas
+	 * receive proportionally more traffic. Replicas without latency measurements
+	 * yet are weighted like the fastest measured replica.
+	 */
+	static ReplicaSelector latencyWeighted() {
+		return candidates -> {
+			int size = candidates.size();
+			long minLatency = Long.MAX_VALUE;
+			for (Replica candidate : candidates) {
+				long latency = candidate.getAverageLatencyNanos();
+				if (latency > 0 && latency < minLatency) {
+					minLatency = latency;
+				}
+			}
+			double[] weights = new double[size];
+			double total = 0;
+			for (int i = 0; i < size; i++) {
+				long latency = candidates.get(i).getAverageLatencyNanos();
+				weights[i] = 1d / (latency > 0 ? latency : (minLatency != Long.MAX_VALUE ? minLatency : 1));
+				total += weights[i];
+			}
+			double point = ThreadLocalRandom.current().nextDouble(total);
+			for (int i = 0; i < size; i++) {
+				point -= weights[i];
+				if (point < 0) {
+					return candidates.get(i);
+				}
+			}
+			return candidates.get(size - 1);
+		};
+	}
+
+}
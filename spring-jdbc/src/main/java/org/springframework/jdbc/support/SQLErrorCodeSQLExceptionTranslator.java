@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,8 @@ package org.springframework.jdbc.support;
 import java.lang.reflect.Constructor;
 import java.sql.BatchUpdateException;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import javax.sql.DataSource;
 
 import org.springframework.dao.CannotAcquireLockException;
@@ -34,6 +35,8 @@ import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.InvalidResultSetAccessException;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Implementation of {@link SQLExceptionTranslator} that analyzes vendor-specific error codes.
@@ -46,6 +49,8 @@ import org.springframework.lang.Nullable;
  * <li>Apply error code matching. Error codes are obtained from the SQLErrorCodesFactory
  * by default. This factory loads a "sql-error-codes.xml" file from the class path,
  * defining error code mappings for database names from database meta-data.
+ * Matching happens against a lookup table precomputed once per SQLErrorCodes
+ * instance, i.e. once per database product, rather than per error code group.
  * <li>Fallback to a fallback translator. {@link SQLStateSQLExceptionTranslator} is the
  * default fallback translator, analyzing the exception's SQL state only. On Java 6
  * which introduces its own {@code SQLException} subclass hierarchy, we will
@@ -72,6 +77,8 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 	private static final int MESSAGE_SQL_THROWABLE_CONSTRUCTOR = 4;
 	private static final int MESSAGE_SQL_SQLEX_CONSTRUCTOR = 5;
 
+	private static final Map<Class<?>, Integer> constructorTypeCache = new ConcurrentReferenceHashMap<>(16);
+
 
 	/** Error codes used by this translator */
 	@Nullable
@@ -213,14 +220,15 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 			}
 
 			if (errorCode != null) {
+				ErrorCodeTable errorCodeTable = getErrorCodeTable(this.sqlErrorCodes);
 				// Look for defined custom translations first.
-				CustomSQLErrorCodesTranslation[] customTranslations = this.sqlErrorCodes.getCustomTranslations();
+				CustomSQLErrorCodesTranslation[] customTranslations = errorCodeTable.getCustomTranslations(errorCode);
 				if (customTranslations != null) {
 					for (CustomSQLErrorCodesTranslation customTranslation : customTranslations) {
-						if (Arrays.binarySearch(customTranslation.getErrorCodes(), errorCode) >= 0 &&
-								customTranslation.getExceptionClass() != null) {
+						Class<?> exceptionClass = customTranslation.getExceptionClass();
+						if (exceptionClass != null) {
 							DataAccessException customException = createCustomException(
-									task, sql, sqlEx, customTranslation.getExceptionClass());
+									task, sql, sqlEx, exceptionClass);
 							if (customException != null) {
 								logTranslation(task, sql, sqlEx, true);
 								return customException;
@@ -229,45 +237,10 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 					}
 				}
 				// Next, look for grouped error codes.
-				if (Arrays.binarySearch(this.sqlErrorCodes.getBadSqlGrammarCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new BadSqlGrammarException(task, (sql != null ? sql : ""), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getInvalidResultSetAccessCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new InvalidResultSetAccessException(task, (sql != null ? sql : ""), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDuplicateKeyCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DuplicateKeyException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDataIntegrityViolationCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DataIntegrityViolationException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getPermissionDeniedCodes(), errorCode) >= 0) {
+				ExceptionFactory exceptionFactory = errorCodeTable.getExceptionFactory(errorCode);
+				if (exceptionFactory != null) {
 					logTranslation(task, sql, sqlEx, false);
-					return new PermissionDeniedDataAccessException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDataAccessResourceFailureCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DataAccessResourceFailureException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getTransientDataAccessResourceCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new TransientDataAccessResourceException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getCannotAcquireLockCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new CannotAcquireLockException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDeadlockLoserCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DeadlockLoserDataAccessException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getCannotSerializeTransactionCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new CannotSerializeTransactionException(buildMessage(task, sql, sqlEx), sqlEx);
+					return exceptionFactory.createException(this, task, sql, sqlEx);
 				}
 			}
 		}
@@ -322,35 +295,8 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 
 		// Find appropriate constructor for the given exception class
 		try {
-			int constructorType = 0;
-			Constructor<?>[] constructors = exceptionClass.getConstructors();
-			for (Constructor<?> constructor : constructors) {
-				Class<?>[] parameterTypes = constructor.getParameterTypes();
-				if (parameterTypes.length == 1 && String.class == parameterTypes[0] &&
-						constructorType < MESSAGE_ONLY_CONSTRUCTOR) {
-					constructorType = MESSAGE_ONLY_CONSTRUCTOR;
-				}
-				if (parameterTypes.length == 2 && String.class == parameterTypes[0] &&
-						Throwable.class == parameterTypes[1] &&
-						constructorType < MESSAGE_THROWABLE_CONSTRUCTOR) {
-					constructorType = MESSAGE_THROWABLE_CONSTRUCTOR;
-				}
-				if (parameterTypes.length == 2 && String.class == parameterTypes[0] &&
-						SQLException.class == parameterTypes[1] &&
-						constructorType < MESSAGE_SQLEX_CONSTRUCTOR) {
-					constructorType = MESSAGE_SQLEX_CONSTRUCTOR;
-				}
-				if (parameterTypes.length == 3 && String.class == parameterTypes[0] &&
-						String.class == parameterTypes[1] && Throwable.class == parameterTypes[2] &&
-						constructorType < MESSAGE_SQL_THROWABLE_CONSTRUCTOR) {
-					constructorType = MESSAGE_SQL_THROWABLE_CONSTRUCTOR;
-				}
-				if (parameterTypes.length == 3 && String.class == parameterTypes[0] &&
-						String.class == parameterTypes[1] && SQLException.class == parameterTypes[2] &&
-						constructorType < MESSAGE_SQL_SQLEX_CONSTRUCTOR) {
-					constructorType = MESSAGE_SQL_SQLEX_CONSTRUCTOR;
-				}
-			}
+			int constructorType = constructorTypeCache.computeIfAbsent(
+					exceptionClass, SQLErrorCodeSQLExceptionTranslator::determineConstructorType);
 
 			// invoke constructor
 			Constructor<?> exceptionConstructor;
@@ -396,6 +342,59 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 		}
 	}
 
+	/**
+	 * Determine the most specific supported constructor of the given exception class.
+	 * @param exceptionClass the custom exception class
+	 * @return one of the constructor type constants, or 0 if none applies
+	 */
+	private static int determineConstructorType(Class<?> exceptionClass) {
+		int constructorType = 0;
+		Constructor<?>[] constructors = exceptionClass.getConstructors();
+		for (Constructor<?> constructor : constructors) {
+			Class<?>[] parameterTypes = constructor.getParameterTypes();
+			if (parameterTypes.length == 1 && String.class == parameterTypes[0] &&
+					constructorType < MESSAGE_ONLY_CONSTRUCTOR) {
+				constructorType = MESSAGE_ONLY_CONSTRUCTOR;
+			}
+			if (parameterTypes.length == 2 && String.class == parameterTypes[0] &&
+					Throwable.class == parameterTypes[1] &&
+					constructorType < MESSAGE_THROWABLE_CONSTRUCTOR) {
+				constructorType = MESSAGE_THROWABLE_CONSTRUCTOR;
+			}
+			if (parameterTypes.length == 2 && String.class == parameterTypes[0] &&
+					SQLException.class == parameterTypes[1] &&
+					constructorType < MESSAGE_SQLEX_CONSTRUCTOR) {
+				constructorType = MESSAGE_SQLEX_CONSTRUCTOR;
+			}
+			if (parameterTypes.length == 3 && String.class == parameterTypes[0] &&
+					String.class == parameterTypes[1] && Throwable.class == parameterTypes[2] &&
+					constructorType < MESSAGE_SQL_THROWABLE_CONSTRUCTOR) {
+				constructorType = MESSAGE_SQL_THROWABLE_CONSTRUCTOR;
+			}
+			if (parameterTypes.length == 3 && String.class == parameterTypes[0] &&
+					String.class == parameterTypes[1] && SQLException.class == parameterTypes[2] &&
+					constructorType < MESSAGE_SQL_SQLEX_CONSTRUCTOR) {
+				constructorType = MESSAGE_SQL_SQLEX_CONSTRUCTOR;
+			}
+		}
+		return constructorType;
+	}
+
+	/**
+	 * Return the precomputed lookup table for the given error codes,
+	 * building it on first access after any change to the error codes.
+	 */
+	private static ErrorCodeTable getErrorCodeTable(SQLErrorCodes sqlErrorCodes) {
+		ErrorCodeTable errorCodeTable = sqlErrorCodes.getErrorCodeTable();
+		if (errorCodeTable == null) {
+			// Read the version first: a table built from codes changed meanwhile is not used again
+			int codesVersion = sqlErrorCodes.getCodesVersion();
+			errorCodeTable = new ErrorCodeTable(sqlErrorCodes, codesVersion);
+			sqlErrorCodes.setErrorCodeTable(errorCodeTable);
+		}
+		return errorCodeTable;
+	}
+
 	private void logTranslation(String task, @Nullable String sql, SQLException sqlEx, boolean custom) {
 		if (logger.isDebugEnabled()) {
 			String intro = custom ? "Custom translation of" : "Translating";
@@ -405,4 +404,87 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 		}
 	}
 
+
+
+	/**
+	 * Factory for the exception that a group of error codes translates to.
+	 */
+	@FunctionalInterface
+	private interface ExceptionFactory {
+
+		DataAccessException createException(
+				SQLErrorCodeSQLExceptionTranslator translator, String task, @Nullable String sql, SQLException ex);
+	}
+
+
+	/**
+	 * Lookup table from error code to custom translations and to exception
+	 * factory, precomputed from a {@link SQLErrorCodes} instance in order to
+	 * replace a binary search per error code group with a single hash lookup.
+	 * <p>Shared by all translators for the same {@code SQLErrorCodes} instance,
+	 * i.e. per database product when obtained from the {@link SQLErrorCodesFactory}.
+	 */
+	static final class ErrorCodeTable {
+
+		private final Map<String, CustomSQLErrorCodesTranslation[]> customTranslations = new HashMap<>();
+
+		private final Map<String, ExceptionFactory> exceptionFactories = new HashMap<>();
+
+		private final int codesVersion;
+
+		ErrorCodeTable(SQLErrorCodes sec, int codesVersion) {
+			this.codesVersion = codesVersion;
+			CustomSQLErrorCodesTranslation[] customTranslations = sec.getCustomTranslations();
+			if (customTranslations != null) {
+				for (CustomSQLErrorCodesTranslation customTranslation : customTranslations) {
+					for (String errorCode : customTranslation.getErrorCodes()) {
+						this.customTranslations.merge(errorCode, new CustomSQLErrorCodesTranslation[] {customTranslation},
+								(existing, added) -> ObjectUtils.addObjectToArray(existing, added[0]));
+					}
+				}
+			}
+			// Registered in order of precedence: the first group containing a code wins.
+			register(sec.getBadSqlGrammarCodes(), (translator, task, sql, ex) ->
+					new BadSqlGrammarException(task, (sql != null ? sql : ""), ex));
+			register(sec.getInvalidResultSetAccessCodes(), (translator, task, sql, ex) ->
+					new InvalidResultSetAccessException(task, (sql != null ? sql : ""), ex));
+			register(sec.getDuplicateKeyCodes(), (translator, task, sql, ex) ->
+					new DuplicateKeyException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getDataIntegrityViolationCodes(), (translator, task, sql, ex) ->
+					new DataIntegrityViolationException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getPermissionDeniedCodes(), (translator, task, sql, ex) ->
+					new PermissionDeniedDataAccessException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getDataAccessResourceFailureCodes(), (translator, task, sql, ex) ->
+					new DataAccessResourceFailureException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getTransientDataAccessResourceCodes(), (translator, task, sql, ex) ->
+					new TransientDataAccessResourceException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getCannotAcquireLockCodes(), (translator, task, sql, ex) ->
+					new CannotAcquireLockException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getDeadlockLoserCodes(), (translator, task, sql, ex) ->
+					new DeadlockLoserDataAccessException(translator.buildMessage(task, sql, ex), ex));
+			register(sec.getCannotSerializeTransactionCodes(), (translator, task, sql, ex) ->
+					new CannotSerializeTransactionException(translator.buildMessage(task, sql, ex), ex));
+		}
+
+		int getCodesVersion() {
+			return this.codesVersion;
+		}
+
+		private void register(String[] errorCodes, ExceptionFactory exceptionFactory) {
+			for (String errorCode : errorCodes) {
+				this.exceptionFactories.putIfAbsent(errorCode, exceptionFactory);
+			}
+		}
+
+		@Nullable
+		CustomSQLErrorCodesTranslation[] getCustomTranslations(String errorCode) {
+			return this.customTranslations.get(errorCode);
+		}
+
+		@Nullable
+		ExceptionFactory getExceptionFactory(String errorCode) {
+			return this.exceptionFactories.get(errorCode);
+		}
+	}
+
 }
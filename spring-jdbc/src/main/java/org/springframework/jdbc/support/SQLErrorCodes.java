@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.jdbc.support;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.springframework.lang.Nullable;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -66,6 +68,13 @@ public class SQLErrorCodes {
 	@Nullable
 	private SQLExceptionTranslator customSqlExceptionTranslator;
 
+	/** Incremented on any change to the codes above, invalidating the lookup table */
+	private final AtomicInteger codesVersion = new AtomicInteger();
+
+	/** Lookup table derived from the codes above */
+	@Nullable
+	private volatile SQLErrorCodeSQLExceptionTranslator.ErrorCodeTable errorCodeTable;
+
 
 	/**
 	 * Set this property if the database name contains spaces,
@@ -108,6 +117,7 @@ public class SQLErrorCodes {
 
 	public void setBadSqlGrammarCodes(String... badSqlGrammarCodes) {
 		this.badSqlGrammarCodes = StringUtils.sortStringArray(badSqlGrammarCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getBadSqlGrammarCodes() {
@@ -116,6 +126,7 @@ public class SQLErrorCodes {
 
 	public void setInvalidResultSetAccessCodes(String... invalidResultSetAccessCodes) {
 		this.invalidResultSetAccessCodes = StringUtils.sortStringArray(invalidResultSetAccessCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getInvalidResultSetAccessCodes() {
@@ -128,10 +139,12 @@ public class SQLErrorCodes {
 
 	public void setDuplicateKeyCodes(String... duplicateKeyCodes) {
 		this.duplicateKeyCodes = duplicateKeyCodes;
+		this.codesVersion.incrementAndGet();
 	}
 
 	public void setDataIntegrityViolationCodes(String... dataIntegrityViolationCodes) {
 		this.dataIntegrityViolationCodes = StringUtils.sortStringArray(dataIntegrityViolationCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getDataIntegrityViolationCodes() {
@@ -140,6 +153,7 @@ public class SQLErrorCodes {
 
 	public void setPermissionDeniedCodes(String... permissionDeniedCodes) {
 		this.permissionDeniedCodes = StringUtils.sortStringArray(permissionDeniedCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getPermissionDeniedCodes() {
@@ -148,6 +162,7 @@ public class SQLErrorCodes {
 
 	public void setDataAccessResourceFailureCodes(String... dataAccessResourceFailureCodes) {
 		this.dataAccessResourceFailureCodes = StringUtils.sortStringArray(dataAccessResourceFailureCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getDataAccessResourceFailureCodes() {
@@ -156,6 +171,7 @@ public class SQLErrorCodes {
 
 	public void setTransientDataAccessResourceCodes(String... transientDataAccessResourceCodes) {
 		this.transientDataAccessResourceCodes = StringUtils.sortStringArray(transientDataAccessResourceCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getTransientDataAccessResourceCodes() {
@@ -164,6 +180,7 @@ public class SQLErrorCodes {
 
 	public void setCannotAcquireLockCodes(String... cannotAcquireLockCodes) {
 		this.cannotAcquireLockCodes = StringUtils.sortStringArray(cannotAcquireLockCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getCannotAcquireLockCodes() {
@@ -172,6 +189,7 @@ public class SQLErrorCodes {
 
 	public void setDeadlockLoserCodes(String... deadlockLoserCodes) {
 		this.deadlockLoserCodes = StringUtils.sortStringArray(deadlockLoserCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getDeadlockLoserCodes() {
@@ -180,6 +198,7 @@ public class SQLErrorCodes {
 
 	public void setCannotSerializeTransactionCodes(String... cannotSerializeTransactionCodes) {
 		this.cannotSerializeTransactionCodes = StringUtils.sortStringArray(cannotSerializeTransactionCodes);
+		this.codesVersion.incrementAndGet();
 	}
 
 	public String[] getCannotSerializeTransactionCodes() {
@@ -188,6 +207,7 @@ public class SQLErrorCodes {
 
 	public void setCustomTranslations(CustomSQLErrorCodesTranslation... customTranslations) {
 		this.customTranslations = customTranslations;
+		this.codesVersion.incrementAndGet();
 	}
 
 	@Nullable
@@ -219,4 +239,23 @@ public class SQLErrorCodes {
 		return this.customSqlExceptionTranslator;
 	}
 
+	/**
+	 * Return the lookup table for the current codes, or {@code null} if it needs
+	 * to be built, also in case of a table built from codes changed since.
+	 */
+	@Nullable
+	SQLErrorCodeSQLExceptionTranslator.ErrorCodeTable getErrorCodeTable() {
+		SQLErrorCodeSQLExceptionTranslator.ErrorCodeTable errorCodeTable = this.errorCodeTable;
+		return (errorCodeTable != null && errorCodeTable.getCodesVersion() == this.codesVersion.get() ?
+				errorCodeTable : null);
+	}
+
+	int getCodesVersion() {
+		return this.codesVersion.get();
+	}
+
+	void setErrorCodeTable(SQLErrorCodeSQLExceptionTranslator.ErrorCodeTable errorCodeTable) {
+		this.errorCodeTable = errorCodeTable;
+	}
+
 }
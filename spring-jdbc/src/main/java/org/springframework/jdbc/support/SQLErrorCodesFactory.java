@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,9 @@ package org.springframework.jdbc.support;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
@@ -89,6 +92,12 @@ public class SQLErrorCodesFactory {
 	 */
 	private final Map<DataSource, SQLErrorCodes> dataSourceCache = new ConcurrentReferenceHashMap<>(16);
 
+	/**
+	 * Lookups in progress for DataSources not cached yet.
+	 */
+	private final ConcurrentMap<DataSource, CompletableFuture<SQLErrorCodes>> pendingLookups =
+			new ConcurrentHashMap<>(16);
+
 
 	/**
 	 * Create a new instance of the {@link SQLErrorCodesFactory} class.
@@ -202,26 +211,29 @@ public class SQLErrorCodesFactory {
 			logger.debug("Looking up default SQLErrorCodes for DataSource [" + identify(dataSource) + "]");
 		}
 
-		// Try efficient lock-free access for existing cache entry
+		// Lock-free access for existing cache entry
 		SQLErrorCodes sec = this.dataSourceCache.get(dataSource);
 		if (sec == null) {
-			synchronized (this.dataSourceCache) {
-				// Double-check within full dataSourceCache lock
+			// We could not find it - got to look it up, once per DataSource: concurrent
+			// callers wait for that lookup rather than all accessing the database.
+			CompletableFuture<SQLErrorCodes> lookup = new CompletableFuture<>();
+			CompletableFuture<SQLErrorCodes> existingLookup = this.pendingLookups.putIfAbsent(dataSource, lookup);
+			if (existingLookup != null) {
+				SQLErrorCodes result = existingLookup.join();
+				// Fallback is to return an empty SQLErrorCodes instance.
+				return (result != null ? result : new SQLErrorCodes());
+			}
+			try {
+				// Double-check: a lookup may have completed in the meantime
 				sec = this.dataSourceCache.get(dataSource);
 				if (sec == null) {
-					// We could not find it - got to look it up.
-					try {
-						String name = JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
-						if (StringUtils.hasLength(name)) {
-							return registerDatabase(dataSource, name);
-						}
-					}
-					catch (MetaDataAccessException ex) {
-						logger.warn("Error while extracting database name - falling back to empty error codes", ex);
-					}
-					// Fallback is to return an empty SQLErrorCodes instance.
-					return new SQLErrorCodes();
+					sec = lookupErrorCodes(dataSource);
 				}
+				return sec;
+			}
+			finally {
+				this.pendingLookups.remove(dataSource, lookup);
+				lookup.complete(sec);
 			}
 		}
 
@@ -232,6 +244,20 @@ public class SQLErrorCodesFactory {
 		return sec;
 	}
 
+	private SQLErrorCodes lookupErrorCodes(DataSource dataSource) {
+		try {
+			String name = JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+			if (StringUtils.hasLength(name)) {
+				return registerDatabase(dataSource, name);
+			}
+		}
+		catch (MetaDataAccessException ex) {
+			logger.warn("Error while extracting database name - falling back to empty error codes", ex);
+		}
+		// Fallback is to return an empty SQLErrorCodes instance.
+		return new SQLErrorCodes();
+	}
+
 	/**
 	 * Associate the specified database name with the given {@link DataSource}.
 	 * @param dataSource the {@code DataSource} identifying the database
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.metrics;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Timing and outcome of a single JDBC operation, passed to a
+ * {@link JdbcObservationHandler} once the operation has completed.
+ *
+ * <p>An observation is started on creation and marks the following points
+ * as the operation progresses, each of them optional:
+ * <ol>
+ * <li>{@link #connectionAcquired()}: the JDBC Connection has been obtained
+ * <li>{@link #statementPrepared()}: the JDBC Statement has been created and
+ * configured
+ * <li>{@link #statementExecuted()}: the JDBC Statement has been executed,
+ * with any result extraction still to follow
+ * <li>{@link #completed}: the operation has completed, successfully or not
+ * </ol>
+ * The duration of each phase is derived from these points; phases whose end
+ * has not been marked are reported as 0.
+ *
+ * <p>Instances are created and marked by the component performing the
+ * operation, e.g. {@link org.springframework.jdbc.core.JdbcTemplate}, on a
+ * single thread, and are not meant to be modified by a handler.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see JdbcObservationHandler
+ */
+public class JdbcObservation {
+
+	/** Operation name for queries */
+	public static final String QUERY = "query";
+
+	/** Operation name for updates */
+	public static final String UPDATE = "update";
+
+	/** Operation name for batch updates */
+	public static final String BATCH_UPDATE = "batchUpdate";
+
+	/** Operation name for stored procedure calls */
+	public static final String CALL = "call";
+
+	/** Operation name for generic callback executions */
+	public static final String EXECUTE = "execute";
+
+	/** Operation name for transactions, from begin to completion */
+	public static final String TRANSACTION = "transaction";
+
+
+	private final String operation;
+
+	@Nullable
+	private final String sql;
+
+	private final long startTime = System.nanoTime();
+
+	private long connectionAcquiredTime;
+
+	private long statementPreparedTime;
+
+	private long statementExecutedTime;
+
+	private long endTime;
+
+	private long rowCount = -1;
+
+	@Nullable
+	private Throwable failure;
+
+
+	/**
+	 * Start a new observation for the given operation.
+	 * @param operation the kind of operation, e.g. {@link #QUERY}
+	 * @param sql the SQL statement, or {@code null} if not known
+	 * (e.g. for a transaction)
+	 */
+	public JdbcObservation(String operation, @Nullable String sql) {
+		this.operation = operation;
+		this.sql = sql;
+	}
+
+
+	/**
+	 * Return the kind of operation, e.g. {@link #QUERY} or {@link #TRANSACTION}.
+	 */
+	public String getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * Return the SQL statement, if known.
+	 */
+	@Nullable
+	public String getSql() {
+		return this.sql;
+	}
+
+	/**
+	 * Mark the point where the JDBC Connection has been obtained.
+	 */
+	public void connectionAcquired() {
+		this.connectionAcquiredTime = System.nanoTime();
+	}
+
+	/**
+	 * Mark the point where the JDBC Statement has been created and configured.
+	 */
+	public void statementPrepared() {
+		this.statementPreparedTime = System.nanoTime();
+	}
+
+	/**
+	 * Mark the point where the JDBC Statement has been executed.
+	 */
+	public void statementExecuted() {
+		this.statementExecutedTime = System.nanoTime();
+	}
+
+	/**
+	 * Specify the number of rows returned or affected by the operation.
+	 */
+	public void setRowCount(long rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * Return the number of rows returned or affected by the operation,
+	 * or -1 if not known.
+	 */
+	public long getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Mark the operation as completed.
+	 * @param failure the exception that the operation failed with,
+	 * or {@code null} if it completed successfully
+	 */
+	public void completed(@Nullable Throwable failure) {
+		this.endTime = System.nanoTime();
+		this.failure = failure;
+	}
+
+	/**
+	 * Return whether the operation has completed.
+	 */
+	public boolean isCompleted() {
+		return (this.endTime != 0);
+	}
+
+	/**
+	 * Return the exception that the operation failed with, if any.
+	 */
+	@Nullable
+	public Throwable getFailure() {
+		return this.failure;
+	}
+
+	/**
+	 * Return whether the operation completed successfully.
+	 */
+	public boolean isSuccessful() {
+		return (isCompleted() && this.failure == null);
+	}
+
+
+	/**
+	 * Return the time spent waiting for a JDBC Connection, in nanoseconds.
+	 */
+	public long getConnectionAcquisitionNanos() {
+		return elapsed(this.startTime, this.connectionAcquiredTime);
+	}
+
+	/**
+	 * Return the time spent creating and configuring the JDBC Statement,
+	 * in nanoseconds.
+	 */
+	public long getPreparationNanos() {
+		return elapsed(this.connectionAcquiredTime, this.statementPreparedTime);
+	}
+
+	/**
+	 * Return the time spent executing the JDBC Statement, in nanoseconds.
+	 * If the end of execution has not been marked separately, this includes
+	 * any further processing until the operation completed.
+	 */
+	public long getExecutionNanos() {
+		return elapsed(this.statementPreparedTime,
+				(this.statementExecutedTime != 0 ? this.statementExecutedTime : this.endTime));
+	}
+
+	/**
+	 * Return the time spent extracting results after execution, in nanoseconds.
+	 */
+	public long getExtractionNanos() {
+		return elapsed(this.statementExecutedTime, this.endTime);
+	}
+
+	/**
+	 * Return the total time of the operation, in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return elapsed(this.startTime, this.endTime);
+	}
+
+	private static long elapsed(long from, long to) {
+		return (from != 0 && to != 0 ? Math.max(0, to - from) : 0);
+	}
+
+
+	@Override
+	public String toString() {
+		return "JdbcObservation: " + this.operation + (this.sql != null ? " [" + this.sql + "]" : "") +
+				" took " + getTotalNanos() + " ns" + (this.rowCount >= 0 ? " for " + this.rowCount + " rows" : "") +
+				(this.failure != null ? " and failed with " + this.failure : "");
+	}
+
+}
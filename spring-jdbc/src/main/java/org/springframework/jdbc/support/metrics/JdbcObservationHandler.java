@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.metrics;
+
+/**
+ * Callback interface for observing completed JDBC operations, e.g. in order
+ * to record metrics about them.
+ *
+ * <p>Can be set on {@link org.springframework.jdbc.core.JdbcTemplate},
+ * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate}
+ * and {@link org.springframework.jdbc.datasource.DataSourceTransactionManager}.
+ * No observations are created unless a handler has been set.
+ *
+ * <p>Implementations are invoked on the thread that performed the operation,
+ * right after its completion, and need to be thread-safe as well as fast.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see SqlStatisticsCollector
+ */
+@FunctionalInterface
+public interface JdbcObservationHandler {
+
+	/**
+	 * Handle the given completed observation.
+	 * @param observation the observation of a JDBC operation or transaction
+	 */
+	void observe(JdbcObservation observation);
+
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link JdbcObservationHandler} that aggregates latency histograms, row counts
+ * and failure counts per SQL shape: the SQL statement with its literals replaced
+ * by placeholders, whitespace normalized, and {@code IN} lists collapsed to a
+ * single placeholder, so that statements differing only in their values share
+ * their statistics. Transactions are aggregated under {@code "[transaction]"}.
+ *
+ * <p>The number of distinct shapes is bounded through {@link #setMaxShapes};
+ * further shapes are aggregated under {@link #OTHER_SHAPE}.
+ *
+ * <pre class="code">
+ * SqlStatisticsCollector collector = new SqlStatisticsCollector();
+ * jdbcTemplate.setObservationHandler(collector);
+ * ...
+ * SqlStatisticsCollector.SqlStatistics stats = collector.getStatistics("SELECT * FROM orders WHERE id = 1");
+ * long p99 = stats.getExecutionTime().getPercentileNanos(0.99);</pre>
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see org.springframework.jdbc.core.JdbcTemplate#setObservationHandler
+ */
+public class SqlStatisticsCollector implements JdbcObservationHandler {
+
+	/** Default maximum number of distinct SQL shapes: 1000 */
+	public static final int DEFAULT_MAX_SHAPES = 1000;
+
+	/** Shape under which statistics beyond the maximum number of shapes are aggregated */
+	public static final String OTHER_SHAPE = "[other]";
+
+
+	private volatile int maxShapes = DEFAULT_MAX_SHAPES;
+
+	private final ConcurrentMap<String, SqlStatistics> statistics = new ConcurrentHashMap<>(64);
+
+	/** Cache of SQL statement to shape, bounded like the statistics themselves */
+	private final ConcurrentMap<String, String> shapeCache = new ConcurrentHashMap<>(64);
+
+
+	/**
+	 * Specify the maximum number of distinct SQL shapes to keep statistics for.
+	 * Default is 1000.
+	 */
+	public void setMaxShapes(int maxShapes) {
+		Assert.isTrue(maxShapes > 0, "Maximum number of shapes must be positive");
+		this.maxShapes = maxShapes;
+	}
+
+	/**
+	 * Return the maximum number of distinct SQL shapes to keep statistics for.
+	 */
+	public int getMaxShapes() {
+		return this.maxShapes;
+	}
+
+
+	@Override
+	public void observe(JdbcObservation observation) {
+		String shape = determineShape(observation);
+		SqlStatistics stats = this.statistics.get(shape);
+		if (stats == null) {
+			if (this.statistics.size() >= this.maxShapes) {
+				shape = OTHER_SHAPE;
+			}
+			stats = this.statistics.computeIfAbsent(shape, SqlStatistics::new);
+		}
+		stats.record(observation);
+	}
+
+	/**
+	 * Determine the shape to aggregate the given observation under.
+	 * <p>The default implementation returns the operation name in square
+	 * brackets for observations without SQL, and the normalized SQL otherwise.
+	 * @param observation the observation to aggregate
+	 * @return the shape (never {@code null})
+	 * @see #normalizeSql
+	 */
+	protected String determineShape(JdbcObservation observation) {
+		String sql = observation.getSql();
+		if (sql == null) {
+			return "[" + observation.getOperation() + "]";
+		}
+		String shape = this.shapeCache.get(sql);
+		if (shape == null) {
+			shape = normalizeSql(sql);
+			if (this.shapeCache.size() < this.maxShapes * 4) {
+				this.shapeCache.put(sql, shape);
+			}
+		}
+		return shape;
+	}
+
+	/**
+	 * Return the statistics for all shapes observed so far, keyed by shape.
+	 */
+	public Map<String, SqlStatistics> getStatistics() {
+		return Collections.unmodifiableMap(this.statistics);
+	}
+
+	/**
+	 * Return the statistics for the shape of the given SQL statement.
+	 * @param sql the SQL statement, in any form sharing its shape
+	 * @return the statistics, or {@code null} if no such statement
+	 * has been observed yet
+	 */
+	@Nullable
+	public SqlStatistics getStatistics(String sql) {
+		return this.statistics.get(normalizeSql(sql));
+	}
+
+	/**
+	 * Discard all statistics collected so far.
+	 */
+	public void reset() {
+		this.statistics.clear();
+		this.shapeCache.clear();
+	}
+
+
+	/**
+	 * Normalize the given SQL statement into its shape: string and numeric
+	 * literals are replaced by {@code ?}, whitespace outside of literals is
+	 * collapsed into single blanks, and lists of placeholders following
+	 * {@code IN} are collapsed into a single placeholder.
+	 * @param sql the SQL statement
+	 * @return the shape of the statement
+	 */
+	public static String normalizeSql(String sql) {
+		StringBuilder shape = new StringBuilder(sql.length());
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				// String literal, with '' as escaped quote
+				i++;
+				while (i < length) {
+					if (sql.charAt(i) == '\'') {
+						if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				i++;
+				appendPlaceholder(shape);
+			}
+			else if (c == '"') {
+				// Quoted identifier: keep as is
+				int end = sql.indexOf('"', i + 1);
+				end = (end != -1 ? end + 1 : length);
+				shape.append(sql, i, end);
+				i = end;
+			}
+			else if (Character.isWhitespace(c)) {
+				while (i < length && Character.isWhitespace(sql.charAt(i))) {
+					i++;
+				}
+				if (shape.length() > 0 && i < length) {
+					shape.append(' ');
+				}
+			}
+			else if (Character.isDigit(c) && !isIdentifierPart(shape)) {
+				while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+					i++;
+				}
+				appendPlaceholder(shape);
+			}
+			else if (c == '?') {
+				i++;
+				appendPlaceholder(shape);
+			}
+			else {
+				shape.append(c);
+				i++;
+			}
+		}
+		return shape.toString();
+	}
+
+	private static boolean isIdentifierPart(StringBuilder shape) {
+		if (shape.length() == 0) {
+			return false;
+		}
+		char last = shape.charAt(shape.length() - 1);
+		return (Character.isLetterOrDigit(last) || last == '_' || last == '$' || last == '.');
+	}
+
+	/**
+	 * Append a placeholder, unless it continues an {@code IN} list of placeholders.
+	 */
+	private static void appendPlaceholder(StringBuilder shape) {
+		int end = shape.length();
+		while (end > 0 && shape.charAt(end - 1) == ' ') {
+			end--;
+		}
+		if (end > 0 && shape.charAt(end - 1) == ',') {
+			int start = end - 1;
+			while (start > 0 && shape.charAt(start - 1) == ' ') {
+				start--;
+			}
+			if (start > 0 && shape.charAt(start - 1) == '?' && isInList(shape, start - 1)) {
+				// Drop the separator: "IN (?, ?" stays "IN (?"
+				shape.setLength(start);
+				return;
+			}
+		}
+		shape.append('?');
+	}
+
+	private static boolean isInList(StringBuilder shape, int placeholderIndex) {
+		int index = placeholderIndex - 1;
+		while (index >= 0 && shape.charAt(index) == ' ') {
+			index--;
+		}
+		if (index < 0 || shape.charAt(index) != '(') {
+			return false;
+		}
+		index--;
+		while (index >= 0 && shape.charAt(index) == ' ') {
+			index--;
+		}
+		return (index >= 1 && Character.toUpperCase(shape.charAt(index)) == 'N' &&
+				Character.toUpperCase(shape.charAt(index - 1)) == 'I' &&
+				(index == 1 || !Character.isLetterOrDigit(shape.charAt(index - 2))));
+	}
+
+
+	/**
+	 * Statistics for a single SQL shape.
+	 */
+	public static class SqlStatistics {
+
+		private final String shape;
+
+		private final LatencyHistogram totalTime = new LatencyHistogram();
+
+		private final LatencyHistogram connectionAcquisitionTime = new LatencyHistogram();
+
+		private final LatencyHistogram executionTime = new LatencyHistogram();
+
+		private final LatencyHistogram extractionTime = new LatencyHistogram();
+
+		private final LongAdder rowCount = new LongAdder();
+
+		private final LongAdder failureCount = new LongAdder();
+
+		SqlStatistics(String shape) {
+			this.shape = shape;
+		}
+
+		void record(JdbcObservation observation) {
+			this.totalTime.record(observation.getTotalNanos());
+			this.connectionAcquisitionTime.record(observation.getConnectionAcquisitionNanos());
+			this.executionTime.record(observation.getExecutionNanos());
+			this.extractionTime.record(observation.getExtractionNanos());
+			if (observation.getRowCount() > 0) {
+				this.rowCount.add(observation.getRowCount());
+			}
+			if (observation.getFailure() != null) {
+				this.failureCount.increment();
+			}
+		}
+
+		/**
+		 * Return the SQL shape that these statistics apply to.
+		 */
+		public String getShape() {
+			return this.shape;
+		}
+
+		/**
+		 * Return the number of observed operations.
+		 */
+		public long getCount() {
+			return this.totalTime.getCount();
+		}
+
+		/**
+		 * Return the number of observed operations that failed.
+		 */
+		public long getFailureCount() {
+			return this.failureCount.sum();
+		}
+
+		/**
+		 * Return the total number of rows returned or affected.
+		 */
+		public long getRowCount() {
+			return this.rowCount.sum();
+		}
+
+		/**
+		 * Return the distribution of total operation times.
+		 */
+		public LatencyHistogram getTotalTime() {
+			return this.totalTime;
+		}
+
+		/**
+		 * Return the distribution of times spent waiting for a Connection.
+		 */
+		public LatencyHistogram getConnectionAcquisitionTime() {
+			return this.connectionAcquisitionTime;
+		}
+
+		/**
+		 * Return the distribution of statement execution times.
+		 */
+		public LatencyHistogram getExecutionTime() {
+			return this.executionTime;
+		}
+
+		/**
+		 * Return the distribution of result extraction times.
+		 */
+		public LatencyHistogram getExtractionTime() {
+			return this.extractionTime;
+		}
+
+		@Override
+		public String toString() {
+			return "SqlStatistics for [" + this.shape + "]: count=" + getCount() + ", failures=" +
+					getFailureCount() + ", rows=" + getRowCount() + ", total=" + this.totalTime +
+					", connection=" + this.connectionAcquisitionTime + ", execution=" + this.executionTime +
+					", extraction=" + this.extractionTime;
+		}
+	}
+
+
+	/**
+	 * Lock-free histogram of nanosecond durations, with buckets on powers of 2.
+	 * Percentiles are reported as the upper bound of the bucket containing them,
+	 * i.e. with a relative error of at most a factor of 2.
+	 */
+	public static class LatencyHistogram {
+
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		/**
+		 * Record the given duration.
+		 * @param nanos the duration in nanoseconds
+		 */
+		public void record(long nanos) {
+			long value = Math.max(0, nanos);
+			this.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+			this.totalNanos.add(value);
+			if (value > this.maxNanos.get()) {
+				this.maxNanos.accumulateAndGet(value, Math::max);
+			}
+		}
+
+		/**
+		 * Return the number of recorded durations.
+		 */
+		public long getCount() {
+			long count = 0;
+			for (int i = 0; i < this.buckets.length(); i++) {
+				count += this.buckets.get(i);
+			}
+			return count;
+		}
+
+		/**
+		 * Return the sum of all recorded durations, in nanoseconds.
+		 */
+		public long getTotalNanos() {
+			return this.totalNanos.sum();
+		}
+
+		/**
+		 * Return the largest recorded duration, in nanoseconds.
+		 */
+		public long getMaxNanos() {
+			return this.maxNanos.get();
+		}
+
+		/**
+		 * Return the mean of all recorded durations, in nanoseconds.
+		 */
+		public long getMeanNanos() {
+			long count = getCount();
+			return (count > 0 ? getTotalNanos() / count : 0);
+		}
+
+		/**
+		 * Return the given percentile of the recorded durations, in nanoseconds.
+		 * @param percentile the percentile between 0 and 1, e.g. 0.99
+		 * @return the upper bound of the bucket containing the percentile,
+		 * capped at the largest recorded duration
+		 */
+		public long getPercentileNanos(double percentile) {
+			Assert.isTrue(percentile >= 0 && percentile <= 1, "Percentile must be between 0 and 1");
+			long count = getCount();
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile * count));
+			long seen = 0;
+			for (int i = 0; i < this.buckets.length(); i++) {
+				seen += this.buckets.get(i);
+				if (seen >= rank) {
+					long upperBound = (i == 0 ? 0 : (i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1));
+					return Math.min(upperBound, getMaxNanos());
+				}
+			}
+			return getMaxNanos();
+		}
+
+		/**
+		 * Return the number of recorded durations per bucket, where bucket {@code i}
+		 * holds durations from {@code 2^(i-1)} to {@code 2^i - 1} nanoseconds.
+		 */
+		public long[] getBucketCounts() {
+			long[] counts = new long[this.buckets.length()];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = this.buckets.get(i);
+			}
+			return counts;
+		}
+
+		@Override
+		public String toString() {
+			return "[mean=" + getMeanNanos() + "ns, p50=" + getPercentileNanos(0.5) + "ns, p99=" +
+					getPercentileNanos(0.99) + "ns, max=" + getMaxNanos() + "ns]";
+		}
+	}
+
+}
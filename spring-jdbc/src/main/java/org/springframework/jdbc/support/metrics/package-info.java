@@ -0,0 +1,11 @@
+/**
+ * Observation of JDBC operations performed by JdbcTemplate and of
+ * transactions driven by DataSourceTransactionManager, with a handler
+ * that aggregates latency histograms and row counts per SQL shape.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.jdbc.support.metrics;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,19 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyEditorSupport;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.test.ConcretePerson;
@@ -29,8 +36,13 @@ import org.springframework.jdbc.core.test.DatePerson;
 import org.springframework.jdbc.core.test.ExtendedPerson;
 import org.springframework.jdbc.core.test.Person;
 import org.springframework.jdbc.core.test.SpacePerson;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
 
 import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
 
 /**
  * @author Thomas Risberg
@@ -141,4 +153,117 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		Mock mock = new Mock(MockType.TWO);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals("Bubba", result.get(0).getName());
+		assertEquals(0L, result.get(0).getAge());
+	}
+
+	@Test
+	public void testMappingWithCustomBeanWrapper() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<Person>(Person.class) {
+			@Override
+			protected void initBeanWrapper(BeanWrapper bw) {
+				super.initBeanWrapper(bw);
+				bw.registerCustomEditor(String.class, new PropertyEditorSupport() {
+					@Override
+					public void setAsText(String text) {
+						setValue(text.toUpperCase());
+					}
+				});
+			}
+		};
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals("BUBBA", result.get(0).getName());
+		assertEquals(22L, result.get(0).getAge());
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingPlanReusedForAllRows() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(2);
+		given(rsmd.getColumnLabel(1)).willReturn("NAME");
+		given(rsmd.getColumnLabel(2)).willReturn("balance");
+		given(rs.getString(1)).willReturn("Bubba", "Billy", "Bobby");
+		given(rs.getBigDecimal(2)).willReturn(new BigDecimal("1.5"));
+
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		assertEquals("Bubba", mapper.mapRow(rs, 0).getName());
+		assertEquals("Billy", mapper.mapRow(rs, 1).getName());
+		Person person = mapper.mapRow(rs, 2);
+		assertEquals("Bobby", person.getName());
+		assertEquals(new BigDecimal("1.5"), person.getBalance());
+		verify(rs, times(1)).getMetaData();
+
+		ResultSet rs2 = mock(ResultSet.class);
+		given(rs2.getMetaData()).willReturn(rsmd);
+		given(rs2.getString(1)).willReturn("Bert");
+		assertEquals("Bert", mapper.mapRow(rs2, 0).getName());
+		verify(rs2, times(1)).getMetaData();
+	}
+
+	@Test
+	public void testMappingPerformance() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		try {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+			jdbcTemplate.execute("CREATE TABLE people (name VARCHAR(50), age BIGINT, " +
+					"birth_date TIMESTAMP, balance DECIMAL(10,2))");
+			jdbcTemplate.batchUpdate("INSERT INTO people VALUES (?, ?, CURRENT_TIMESTAMP, ?)",
+					IntStream.range(0, 100000).boxed().collect(Collectors.toList()),
+					1000, (ps, i) -> {
+						ps.setString(1, "person" + i);
+						ps.setLong(2, i % 100);
+						ps.setBigDecimal(3, BigDecimal.valueOf(i, 2));
+					});
+
+			BeanPropertyRowMapper<Person> direct = new BeanPropertyRowMapper<>(Person.class);
+			BeanPropertyRowMapper<Person> withBeanWrapper = new BeanPropertyRowMapper<Person>(Person.class) {
+				@Override
+				protected void initBeanWrapper(BeanWrapper bw) {
+					super.initBeanWrapper(bw);
+				}
+			};
+			String sql = "SELECT name, age, birth_date, balance FROM people ORDER BY name";
+
+			long directNanos = Long.MAX_VALUE;
+			long beanWrapperNanos = Long.MAX_VALUE;
+			for (int i = 0; i < 5; i++) {
+				long start = System.nanoTime();
+				List<Person> viaBeanWrapper = jdbcTemplate.query(sql, withBeanWrapper);
+				beanWrapperNanos = Math.min(beanWrapperNanos, System.nanoTime() - start);
+				start = System.nanoTime();
+				List<Person> viaSetters = jdbcTemplate.query(sql, direct);
+				directNanos = Math.min(directNanos, System.nanoTime() - start);
+
+				assertEquals(100000, viaSetters.size());
+				assertEquals(viaBeanWrapper.size(), viaSetters.size());
+				for (int j = 0; j < viaSetters.size(); j++) {
+					assertEquals(viaBeanWrapper.get(j).getName(), viaSetters.get(j).getName());
+					assertEquals(viaBeanWrapper.get(j).getAge(), viaSetters.get(j).getAge());
+					assertEquals(viaBeanWrapper.get(j).getBalance(), viaSetters.get(j).getBalance());
+				}
+			}
+			assertTrue("Direct property access should not be slower than a BeanWrapper per row",
+					directNanos <= beanWrapperNanos);
+		}
+		finally {
+			database.shutdown();
+		}
+	}
+
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ColumnarResultSetExtractor} against an embedded HSQL database.
+ *
+ * @author agent
+ */
+public class ColumnarResultSetExtractorTests {
+
+	private static final int ROWS = 1000;
+
+	private static final String[] REGIONS = {"north", "south", "east", "west"};
+
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("CREATE TABLE sales (id BIGINT, quantity INTEGER, amount DOUBLE, " +
+				"region VARCHAR(20), price DECIMAL(10,2), code NUMERIC(9,0))");
+		this.jdbcTemplate.batchUpdate("INSERT INTO sales VALUES (?, ?, ?, ?, ?, ?)",
+				IntStream.range(0, ROWS).boxed().collect(Collectors.toList()), 100, (ps, i) -> {
+					ps.setLong(1, i);
+					ps.setObject(2, (i % 100 == 7 ? null : i % 10));
+					ps.setDouble(3, i * 0.5);
+					ps.setString(4, (i % 5 == 4 ? null : REGIONS[i % 5]));
+					ps.setBigDecimal(5, BigDecimal.valueOf(i, 2));
+					ps.setInt(6, i * 3);
+				});
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void vectorTypes() {
+		ColumnarResult result = this.jdbcTemplate.query(
+				"SELECT id, quantity, amount, region, price, code FROM sales ORDER BY id",
+				new ColumnarResultSetExtractor());
+
+		assertEquals(ROWS, result.getRowCount());
+		assertEquals(Arrays.asList("ID", "QUANTITY", "AMOUNT", "REGION", "PRICE", "CODE"), result.getColumnNames());
+		assertTrue(result.getColumn("id") instanceof ColumnVector.LongVector);
+		assertTrue(result.getColumn("quantity") instanceof ColumnVector.IntVector);
+		assertTrue(result.getColumn("amount") instanceof ColumnVector.DoubleVector);
+		assertTrue(result.getColumn("region") instanceof ColumnVector.StringVector);
+		assertTrue(result.getColumn("price") instanceof ColumnVector.ObjectVector);
+		assertTrue(result.getColumn("code") instanceof ColumnVector.LongVector);
+	}
+
+	@Test
+	public void primitiveValues() {
+		ColumnarResult result = this.jdbcTemplate.query(
+				"SELECT id, quantity, amount, code FROM sales ORDER BY id", new ColumnarResultSetExtractor());
+
+		ColumnVector.LongVector id = result.getColumn("ID", ColumnVector.LongVector.class);
+		ColumnVector.IntVector quantity = result.getColumn("Quantity", ColumnVector.IntVector.class);
+		ColumnVector.DoubleVector amount = result.getColumn("amount", ColumnVector.DoubleVector.class);
+		ColumnVector.LongVector code = result.getColumn("code", ColumnVector.LongVector.class);
+
+		long idSum = 0;
+		double amountSum = 0;
+		for (int row = 0; row < result.getRowCount(); row++) {
+			idSum += id.getLong(row);
+			amountSum += amount.getDouble(row);
+		}
+		assertEquals(ROWS * (ROWS - 1) / 2, idSum);
+		assertEquals(ROWS * (ROWS - 1) / 4.0, amountSum, 0.0);
+		assertEquals(2997, code.getLong(999));
+		assertEquals(ROWS, id.toArray().length);
+		assertFalse(id.hasNulls());
+
+		assertTrue(quantity.hasNulls());
+		assertTrue(quantity.isNull(7));
+		assertTrue(quantity.isNull(907));
+		assertFalse(quantity.isNull(0));
+		assertFalse(quantity.isNull(17));
+		assertEquals(0, quantity.getInt(7));
+		assertNull(quantity.getObject(7));
+		assertEquals(7, quantity.getInt(17));
+		assertEquals(7, quantity.getObject(17));
+	}
+
+	@Test
+	public void dictionaryEncodedStrings() {
+		ColumnarResult result = this.jdbcTemplate.query(
+				"SELECT region FROM sales ORDER BY id", new ColumnarResultSetExtractor());
+
+		ColumnVector.StringVector region = result.getColumn("region", ColumnVector.StringVector.class);
+		assertEquals(ROWS, region.size());
+		assertEquals(Arrays.asList("north", "south", "east", "west"), region.getDictionary());
+		assertEquals("east", region.getString(2));
+		assertEquals(2, region.getCode(2));
+		assertEquals(region.getCode(2), region.getCode(502));
+		assertNull(region.getString(4));
+		assertEquals(-1, region.getCode(4));
+		assertTrue(region.isNull(4));
+		assertNull(result.getObject(999, "region"));
+	}
+
+	@Test
+	public void explicitColumnTypes() {
+		ColumnarResultSetExtractor extractor = new ColumnarResultSetExtractor();
+		extractor.setColumnType("price", double.class);
+		extractor.setColumnType("id", Object.class);
+		extractor.setInitialCapacity(1);
+		ColumnarResult result = this.jdbcTemplate.query("SELECT id, price FROM sales ORDER BY id", extractor);
+
+		assertEquals(9.99, result.getColumn("price", ColumnVector.DoubleVector.class).getDouble(999), 0.0);
+		assertEquals(999L, result.getObject(999, "id"));
+	}
+
+	@Test
+	public void emptyResult() {
+		ColumnarResult result = this.jdbcTemplate.query(
+				"SELECT id, region FROM sales WHERE id < 0", new ColumnarResultSetExtractor());
+
+		assertEquals(0, result.getRowCount());
+		assertEquals(2, result.getColumnCount());
+		assertEquals(0, result.getColumn(1).size());
+	}
+
+	@Test(expected = InvalidDataAccessApiUsageException.class)
+	public void unknownColumn() {
+		ColumnarResult result = this.jdbcTemplate.query("SELECT id FROM sales", new ColumnarResultSetExtractor());
+		result.getColumn("region");
+	}
+
+	@Test(expected = InvalidDataAccessApiUsageException.class)
+	public void wrongVectorType() {
+		ColumnarResult result = this.jdbcTemplate.query("SELECT id FROM sales", new ColumnarResultSetExtractor());
+		result.getColumn("id", ColumnVector.DoubleVector.class);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void rowOutOfBounds() {
+		ColumnarResult result = this.jdbcTemplate.query("SELECT id FROM sales", new ColumnarResultSetExtractor());
+		result.getColumn(0).isNull(ROWS);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.test.ConstructorPerson;
+import org.springframework.jdbc.core.test.ConstructorPersonWithSetters;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class DataClassRowMapperTests extends AbstractRowMapperTests {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+
+	@Test
+	public void testStaticQueryWithDataClass() throws Exception {
+		Mock mock = new Mock();
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new DataClassRowMapper<>(ConstructorPerson.class));
+		assertEquals(1, result.size());
+		ConstructorPerson person = result.get(0);
+		assertEquals("Bubba", person.name());
+		assertEquals(22L, person.age());
+		assertEquals(new Date(1221222L), person.birth_date());
+		assertEquals(new BigDecimal("1234.56"), person.balance());
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testStaticQueryWithDataClassAndSetters() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<ConstructorPersonWithSetters> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new DataClassRowMapper<>(ConstructorPersonWithSetters.class));
+		assertEquals(1, result.size());
+		ConstructorPersonWithSetters person = result.get(0);
+		assertEquals("Bubba", person.getLastName());
+		assertEquals(22L, person.getAge());
+		assertEquals(new Timestamp(1221222L).toLocalDateTime(), person.getBirthDate());
+		assertEquals(new BigDecimal("1234.56"), person.getBalance());
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithConstructorAndSettersFullyPopulated() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		DataClassRowMapper<ConstructorPersonWithSetters> mapper =
+				new DataClassRowMapper<>(ConstructorPersonWithSetters.class);
+		mapper.setCheckFullyPopulated(true);
+		List<ConstructorPersonWithSetters> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+	}
+
+	@Test
+	public void testMappingWithMissingConstructorColumn() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		thrown.expect(InvalidDataAccessApiUsageException.class);
+		mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new DataClassRowMapper<>(ConstructorPerson.class));
+	}
+
+	@Test
+	public void testMappingNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		thrown.expect(TypeMismatchException.class);
+		mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people",
+				new DataClassRowMapper<>(ConstructorPerson.class));
+	}
+
+	@Test
+	public void testMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		DataClassRowMapper<ConstructorPerson> mapper = new DataClassRowMapper<>(ConstructorPerson.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals("Bubba", result.get(0).name());
+		assertEquals(0L, result.get(0).age());
+	}
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.support.metrics.JdbcObservation;
+import org.springframework.jdbc.support.metrics.SqlStatisticsCollector;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for observing {@link JdbcTemplate} operations and transactions
+ * through a {@link org.springframework.jdbc.support.metrics.JdbcObservationHandler}.
+ *
+ * @author agent
+ */
+public class JdbcTemplateObservationTests {
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<JdbcObservation> observations = new ArrayList<>();
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("CREATE TABLE item (id INTEGER, name VARCHAR(50))");
+		this.jdbcTemplate.setObservationHandler(this.observations::add);
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void queryAndUpdate() {
+		this.jdbcTemplate.update("INSERT INTO item VALUES (1, 'a')");
+		this.jdbcTemplate.update("INSERT INTO item VALUES (?, ?)", 2, "b");
+		List<String> names = this.jdbcTemplate.queryForList("SELECT name FROM item ORDER BY id", String.class);
+
+		assertEquals(Arrays.asList("a", "b"), names);
+		assertEquals(3, this.observations.size());
+		JdbcObservation insert = this.observations.get(0);
+		assertEquals(JdbcObservation.UPDATE, insert.getOperation());
+		assertEquals("INSERT INTO item VALUES (1, 'a')", insert.getSql());
+		assertEquals(1, insert.getRowCount());
+		assertTrue(insert.isSuccessful());
+		assertEquals(JdbcObservation.UPDATE, this.observations.get(1).getOperation());
+		JdbcObservation query = this.observations.get(2);
+		assertEquals(JdbcObservation.QUERY, query.getOperation());
+		assertEquals(2, query.getRowCount());
+		assertTrue(query.getTotalNanos() > 0);
+		assertTrue(query.getTotalNanos() >= query.getExecutionNanos() + query.getExtractionNanos());
+	}
+
+	@Test
+	public void batchUpdate() {
+		SqlStatisticsCollector collector = new SqlStatisticsCollector();
+		List<Long> observedRowCounts = new ArrayList<>();
+		this.jdbcTemplate.setObservationHandler(observation -> {
+			observedRowCounts.add(observation.getRowCount());
+			collector.observe(observation);
+		});
+
+		int[] counts = this.jdbcTemplate.batchUpdate("INSERT INTO item VALUES (?, ?)",
+				Arrays.asList(new Object[] {1, "a"}, new Object[] {2, "b"}, new Object[] {3, "c"}));
+		assertEquals(3, counts.length);
+		counts = this.jdbcTemplate.batchUpdate(
+				"INSERT INTO item VALUES (4, 'd')", "INSERT INTO item VALUES (5, 'e')");
+		assertEquals(2, counts.length);
+
+		assertEquals(Arrays.asList(3L, 2L), observedRowCounts);
+		assertEquals(3, collector.getStatistics("INSERT INTO item VALUES (?, ?)").getRowCount());
+		assertEquals(2, collector.getStatistics(
+				"INSERT INTO item VALUES (4, 'd'); INSERT INTO item VALUES (5, 'e')").getRowCount());
+	}
+
+	@Test
+	public void streamQueryCompletedOnClose() {
+		this.jdbcTemplate.batchUpdate("INSERT INTO item VALUES (?, ?)",
+				Arrays.asList(new Object[] {1, "a"}, new Object[] {2, "b"}, new Object[] {3, "c"}));
+		this.observations.clear();
+
+		try (Stream<String> names = this.jdbcTemplate.queryForStream(
+				"SELECT name FROM item WHERE id > ? ORDER BY id", (rs, rowNum) -> rs.getString(1), 0)) {
+			assertEquals(Arrays.asList("a", "b"), names.limit(2).collect(Collectors.toList()));
+			assertTrue(this.observations.isEmpty());
+		}
+
+		assertEquals(1, this.observations.size());
+		JdbcObservation query = this.observations.get(0);
+		assertEquals(JdbcObservation.QUERY, query.getOperation());
+		assertTrue(query.isSuccessful());
+		assertEquals(2, query.getRowCount());
+		assertTrue(query.getTotalNanos() >= query.getExecutionNanos() + query.getExtractionNanos());
+	}
+
+	@Test
+	public void failure() {
+		try {
+			this.jdbcTemplate.queryForList("SELECT name FROM no_such_table");
+			fail("Should have thrown BadSqlGrammarException");
+		}
+		catch (BadSqlGrammarException ex) {
+			assertEquals(1, this.observations.size());
+			JdbcObservation observation = this.observations.get(0);
+			assertTrue(observation.isCompleted());
+			assertFalse(observation.isSuccessful());
+			assertSame(ex, observation.getFailure());
+		}
+	}
+
+	@Test
+	public void connectionFailure() {
+		JdbcTemplate template = new JdbcTemplate(new DriverManagerDataSource("jdbc:no-such-driver:test"));
+		template.setObservationHandler(this.observations::add);
+		try {
+			template.update("INSERT INTO item VALUES (1, 'a')");
+			fail("Should have thrown CannotGetJdbcConnectionException");
+		}
+		catch (CannotGetJdbcConnectionException ex) {
+			assertEquals(1, this.observations.size());
+			JdbcObservation observation = this.observations.get(0);
+			assertEquals(JdbcObservation.UPDATE, observation.getOperation());
+			assertFalse(observation.isSuccessful());
+			assertSame(ex, observation.getFailure());
+		}
+	}
+
+	@Test
+	public void statisticsCollector() {
+		SqlStatisticsCollector collector = new SqlStatisticsCollector();
+		this.jdbcTemplate.setObservationHandler(collector);
+		for (int i = 0; i < 10; i++) {
+			this.jdbcTemplate.update("INSERT INTO item VALUES (" + i + ", 'item" + i + "')");
+		}
+		this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item WHERE id > 4", Integer.class);
+
+		assertEquals(2, collector.getStatistics().size());
+		SqlStatisticsCollector.SqlStatistics inserts = collector.getStatistics("INSERT INTO item VALUES (0, 'x')");
+		assertEquals(10, inserts.getCount());
+		assertEquals(10, inserts.getRowCount());
+		assertEquals(0, inserts.getFailureCount());
+		assertEquals(10, inserts.getConnectionAcquisitionTime().getCount());
+		assertEquals(1, collector.getStatistics("SELECT COUNT(*) FROM item WHERE id > ?").getCount());
+	}
+
+	@Test
+	public void namedParameterJdbcTemplate() {
+		SqlStatisticsCollector collector = new SqlStatisticsCollector();
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+		namedTemplate.setObservationHandler(collector);
+
+		namedTemplate.queryForList("SELECT name FROM item WHERE id IN (:ids)",
+				Collections.singletonMap("ids", Arrays.asList(1, 2, 3)), String.class);
+		namedTemplate.queryForList("SELECT name FROM item WHERE id IN (:ids)",
+				Collections.singletonMap("ids", Arrays.asList(1, 2)), String.class);
+
+		assertSame(collector, this.jdbcTemplate.getObservationHandler());
+		assertEquals(1, collector.getStatistics().size());
+		assertEquals(2, collector.getStatistics("SELECT name FROM item WHERE id IN (?)").getCount());
+	}
+
+	@Test
+	public void transaction() {
+		SqlStatisticsCollector collector = new SqlStatisticsCollector();
+		DataSourceTransactionManager tm = new DataSourceTransactionManager(this.database);
+		tm.setObservationHandler(collector);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+
+		tt.execute(status -> this.jdbcTemplate.update("INSERT INTO item VALUES (1, 'a')"));
+		try {
+			tt.execute(status -> {
+				throw new IllegalStateException();
+			});
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+
+		SqlStatisticsCollector.SqlStatistics stats = collector.getStatistics().get("[transaction]");
+		assertEquals(2, stats.getCount());
+		assertEquals(2, stats.getTotalTime().getCount());
+		assertEquals(1, this.observations.size());
+	}
+
+	@Test
+	public void overriddenExecuteMethodsInvoked() {
+		List<String> executed = new ArrayList<>();
+		JdbcTemplate template = new JdbcTemplate(this.database) {
+			@Override
+			public <T> T execute(StatementCallback<T> action) {
+				executed.add("statement");
+				return super.execute(action);
+			}
+			@Override
+			public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action) {
+				executed.add("prepared");
+				return super.execute(psc, action);
+			}
+		};
+		template.setObservationHandler(this.observations::add);
+
+		template.update("INSERT INTO item VALUES (1, 'a')");
+		template.update("INSERT INTO item VALUES (?, ?)", 2, "b");
+		template.batchUpdate("INSERT INTO item VALUES (?, ?)", Collections.singletonList(new Object[] {3, "c"}));
+		template.query("SELECT name FROM item", (ResultSetExtractor<Object>) rs -> null);
+
+		assertEquals(Arrays.asList("statement", "prepared", "prepared", "statement"), executed);
+		assertEquals(4, this.observations.size());
+		assertEquals(JdbcObservation.UPDATE, this.observations.get(0).getOperation());
+		assertEquals(JdbcObservation.UPDATE, this.observations.get(1).getOperation());
+		assertEquals(JdbcObservation.BATCH_UPDATE, this.observations.get(2).getOperation());
+		assertEquals(1, this.observations.get(2).getRowCount());
+		assertEquals(JdbcObservation.QUERY, this.observations.get(3).getOperation());
+	}
+
+	@Test
+	public void noHandler() {
+		this.jdbcTemplate.setObservationHandler(null);
+		this.jdbcTemplate.update("INSERT INTO item VALUES (1, 'a')");
+		assertTrue(this.observations.isEmpty());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,8 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -785,6 +787,122 @@ public class JdbcTemplateTests {
 		verify(this.connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testStreamingBatchUpdate() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Integer> ids = Arrays.asList(100, 200, 300);
+		final int[] rowsAffected1 = new int[] {1, 2};
+		final int[] rowsAffected2 = new int[] {3};
+
+		given(this.preparedStatement.executeBatch()).willReturn(rowsAffected1, rowsAffected2);
+		mockDatabaseMetaData(true);
+
+		ParameterizedPreparedStatementSetter<Integer> setter = (ps, argument) -> ps.setInt(1, argument.intValue());
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		List<BatchChunkResult> results = new ArrayList<>();
+
+		long count = template.batchUpdate(sql, ids.stream(), 2, setter, results::add);
+		assertEquals(3, count);
+		assertEquals(2, results.size());
+		assertEquals(0, results.get(0).getChunkIndex());
+		assertEquals(0, results.get(0).getFirstItemPosition());
+		assertEquals(2, results.get(0).getItemCount());
+		assertSame(rowsAffected1, results.get(0).getUpdateCounts());
+		assertEquals(1, results.get(1).getChunkIndex());
+		assertEquals(2, results.get(1).getFirstItemPosition());
+		assertEquals(1, results.get(1).getItemCount());
+		assertSame(rowsAffected2, results.get(1).getUpdateCounts());
+		assertTrue(results.get(1).isSuccessful());
+
+		verify(this.preparedStatement, times(3)).addBatch();
+		verify(this.preparedStatement, times(2)).executeBatch();
+		verify(this.preparedStatement).setInt(1, ids.get(2));
+		verify(this.preparedStatement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testStreamingBatchUpdateWithFailure() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Integer> ids = Arrays.asList(100, 200, 300, 400, 500);
+		BatchUpdateException failure = new BatchUpdateException("Duplicate key", "23505", new int[] {1});
+
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1}).willThrow(failure);
+		mockDatabaseMetaData(true);
+
+		ParameterizedPreparedStatementSetter<Integer> setter = (ps, argument) -> ps.setInt(1, argument.intValue());
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		List<BatchChunkResult> results = new ArrayList<>();
+
+		try {
+			template.batchUpdate(sql, ids.iterator(), 2, setter, results::add);
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertSame(failure, ex.getCause());
+			assertEquals(2, results.size());
+			assertFalse(results.get(1).isSuccessful());
+			assertSame(ex, results.get(1).getFailure());
+			assertEquals(3, results.get(1).getFailedItemPosition());
+			assertNull(results.get(1).getUpdateCounts());
+		}
+
+		verify(this.preparedStatement, times(4)).addBatch();
+		verify(this.preparedStatement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testStreamingBatchUpdateWithNoBatchSupport() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Integer> ids = Arrays.asList(100, 200, 300);
+
+		given(this.preparedStatement.executeUpdate()).willReturn(1, 1, 1);
+		mockDatabaseMetaData(false);
+
+		ParameterizedPreparedStatementSetter<Integer> setter = (ps, argument) -> ps.setInt(1, argument.intValue());
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		List<BatchChunkResult> results = new ArrayList<>();
+
+		assertEquals(3, template.batchUpdate(sql, ids.iterator(), 2, setter, results::add));
+		assertEquals(2, results.size());
+		assertArrayEquals(new int[] {1, 1}, results.get(0).getUpdateCounts());
+		assertArrayEquals(new int[] {1}, results.get(1).getUpdateCounts());
+		verify(this.preparedStatement, never()).addBatch();
+		verify(this.preparedStatement, times(3)).executeUpdate();
+	}
+
+	@Test
+	public void testQueryForStreamDefaultMethod() {
+		String sql = "SELECT FORENAME FROM CUSTMR WHERE ID = ?";
+		RowMapper<String> rowMapper = (rs, rowNum) -> rs.getString(1);
+		JdbcOperations operations = mock(JdbcOperations.class, CALLS_REAL_METHODS);
+		willReturn(Arrays.asList("rod", "juergen")).given(operations).query(sql, rowMapper, 1);
+
+		try (Stream<String> names = operations.queryForStream(sql, rowMapper, 1)) {
+			assertEquals(Arrays.asList("rod", "juergen"), names.collect(Collectors.toList()));
+		}
+	}
+
+	@Test
+	public void testStreamingBatchUpdateDefaultMethod() {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Integer> ids = Arrays.asList(100, 200, 300);
+		ParameterizedPreparedStatementSetter<Integer> setter = (ps, argument) -> ps.setInt(1, argument.intValue());
+		JdbcOperations operations = mock(JdbcOperations.class, CALLS_REAL_METHODS);
+		willReturn(new int[][] {{1, 1}}).willReturn(new int[][] {{1}}).given(operations)
+				.batchUpdate(eq(sql), anyCollection(), eq(2), same(setter));
+		List<BatchChunkResult> results = new ArrayList<>();
+
+		assertEquals(3, operations.batchUpdate(sql, ids.stream(), 2, setter, results::add));
+		assertEquals(2, results.size());
+		assertArrayEquals(new int[] {1, 1}, results.get(0).getUpdateCounts());
+		assertEquals(2, results.get(1).getFirstItemPosition());
+		assertArrayEquals(new int[] {1}, results.get(1).getUpdateCounts());
+		verify(operations).batchUpdate(sql, Arrays.asList(100, 200), 2, setter);
+		verify(operations).batchUpdate(sql, Collections.singletonList(300), 2, setter);
+	}
+
 	@Test
 	public void testCouldNotGetConnectionForOperationOrExceptionTranslator() throws SQLException {
 		SQLException sqlException = new SQLException("foo", "07xxx");
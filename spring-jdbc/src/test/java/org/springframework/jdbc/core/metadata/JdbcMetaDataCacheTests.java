@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcCall;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link JdbcMetaDataCache}.
+ *
+ * @author agent
+ */
+public class JdbcMetaDataCacheTests {
+
+	private EmbeddedDatabase database;
+
+	private CountingDataSource dataSource;
+
+	private final JdbcMetaDataCache cache = new JdbcMetaDataCache();
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+		jdbcTemplate.execute("CREATE TABLE item (id INTEGER, name VARCHAR(50))");
+		jdbcTemplate.execute("CREATE TABLE other (id INTEGER)");
+		this.dataSource = new CountingDataSource(this.database);
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void sharedAcrossInserts() {
+		insert(this.dataSource, "item").compile();
+		assertEquals(1, this.dataSource.connections.get());
+		assertEquals(1, this.cache.size());
+
+		SimpleJdbcInsert insert = insert(this.dataSource, "item");
+		insert.compile();
+		assertEquals(1, this.dataSource.connections.get());
+		assertEquals(1, insert.execute(Collections.singletonMap("name", "a")));
+
+		insert(new CountingDataSource(this.database), "item").compile();
+		assertEquals(2, this.cache.size());
+	}
+
+	@Test
+	public void separateEntriesForDifferentOptions() {
+		insert(this.dataSource, "item").compile();
+		SimpleJdbcInsert insert = insert(this.dataSource, "item");
+		insert.setAccessTableColumnMetaData(false);
+		insert.setColumnNames(Collections.singletonList("name"));
+		insert.compile();
+
+		assertEquals(2, this.dataSource.connections.get());
+		assertEquals(2, this.cache.size());
+	}
+
+	@Test
+	public void sharedAcrossCalls() {
+		new SimpleJdbcCall(this.dataSource).withProcedureName("my_proc").withMetaDataCache(this.cache).compile();
+		new SimpleJdbcCall(this.dataSource).withProcedureName("my_proc").withMetaDataCache(this.cache).compile();
+		assertEquals(1, this.dataSource.connections.get());
+
+		new SimpleJdbcCall(this.dataSource).withFunctionName("my_proc").withMetaDataCache(this.cache).compile();
+		assertEquals(2, this.dataSource.connections.get());
+		assertEquals(2, this.cache.size());
+	}
+
+	@Test
+	public void invalidate() {
+		CountingDataSource otherDataSource = new CountingDataSource(this.database);
+		insert(this.dataSource, "item").compile();
+		insert(this.dataSource, "other").compile();
+		insert(otherDataSource, "item").compile();
+		assertEquals(3, this.cache.size());
+
+		this.cache.invalidate(this.dataSource, null, null, "item");
+		assertEquals(2, this.cache.size());
+		insert(this.dataSource, "item").compile();
+		assertEquals(3, this.dataSource.connections.get());
+
+		this.cache.invalidate(this.dataSource);
+		assertEquals(1, this.cache.size());
+		this.cache.clear();
+		assertEquals(0, this.cache.size());
+	}
+
+	@Test
+	public void cacheLimit() {
+		this.cache.setCacheLimit(1);
+		insert(this.dataSource, "item").compile();
+		insert(this.dataSource, "other").compile();
+		assertEquals(1, this.cache.size());
+
+		insert(this.dataSource, "other").compile();
+		assertEquals(2, this.dataSource.connections.get());
+		insert(this.dataSource, "item").compile();
+		assertEquals(3, this.dataSource.connections.get());
+	}
+
+	@Test
+	public void snapshot() throws Exception {
+		insert(this.dataSource, "item").compile();
+		insert(this.dataSource, "other").compile();
+		insert(new CountingDataSource(this.database), "other").compile();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(2, this.cache.writeSnapshot(out, ds -> (ds == this.dataSource ? "main" : null)));
+
+		CountingDataSource restartedDataSource = new CountingDataSource(this.database);
+		JdbcMetaDataCache restartedCache = new JdbcMetaDataCache();
+		assertEquals(2, restartedCache.readSnapshot(new ByteArrayInputStream(out.toByteArray()),
+				name -> ("main".equals(name) ? restartedDataSource : null)));
+
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(restartedDataSource).withTableName("item");
+		insert.withMetaDataCache(restartedCache);
+		insert.compile();
+		assertEquals(0, restartedDataSource.connections.get());
+		assertEquals("INSERT INTO item (ID, NAME) VALUES(?, ?)", insert.getInsertString());
+	}
+
+	@Test
+	public void incompatibleSnapshot() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ObjectOutputStream(out).writeObject("no snapshot");
+		assertEquals(0, this.cache.readSnapshot(new ByteArrayInputStream(out.toByteArray()), name -> this.dataSource));
+		assertEquals(0, this.cache.size());
+	}
+
+	@Test
+	public void snapshotWithIncompatibleEntries() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ObjectOutputStream(out).writeObject(new ArrayList<>(Arrays.asList("no", "entries")));
+		assertEquals(0, this.cache.readSnapshot(new ByteArrayInputStream(out.toByteArray()), name -> this.dataSource));
+		assertEquals(0, this.cache.size());
+	}
+
+
+	private SimpleJdbcInsert insert(DataSource dataSource, String tableName) {
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(dataSource).withTableName(tableName);
+		insert.setMetaDataCache(this.cache);
+		return insert;
+	}
+
+
+	private static class CountingDataSource extends DelegatingDataSource {
+
+		final AtomicInteger connections = new AtomicInteger();
+
+		CountingDataSource(DataSource targetDataSource) {
+			super(targetDataSource);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			this.connections.incrementAndGet();
+			return super.getConnection();
+		}
+	}
+
+}
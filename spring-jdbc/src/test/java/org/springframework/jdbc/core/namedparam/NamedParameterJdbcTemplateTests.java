@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,12 +22,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -37,6 +39,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import org.springframework.jdbc.Customer;
+import org.springframework.jdbc.core.BatchChunkResult;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
@@ -331,6 +334,34 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		params.put("country", "UK");
+		try (Stream<Customer> customers = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			verify(preparedStatement, never()).close();
+			Customer customer = customers.findFirst().get();
+			assertTrue("Customer id was assigned correctly", customer.getId() == 1);
+			assertTrue("Customer forename was assigned correctly", customer.getForename().equals("rod"));
+		}
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(resultSet).close();
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryWithRowMapperNoParameters() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
@@ -468,6 +499,58 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testStreamingBatchUpdateWithSqlParameterSource() throws Exception {
+		List<SqlParameterSource> ids = new ArrayList<>();
+		ids.add(new MapSqlParameterSource("id", 100));
+		ids.add(new MapSqlParameterSource("id", 200));
+		ids.add(new MapSqlParameterSource("id", 300));
+
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 1}, new int[] {1});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		List<BatchChunkResult> results = new ArrayList<>();
+
+		long count = namedParameterTemplate.batchUpdate(
+				"UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = :id", ids.iterator(), 2, results::add);
+		assertEquals(3, count);
+		assertEquals(2, results.size());
+		assertEquals(2, results.get(1).getFirstItemPosition());
+		verify(connection).prepareStatement("UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?");
+		verify(preparedStatement).setObject(1, 100);
+		verify(preparedStatement).setObject(1, 200);
+		verify(preparedStatement).setObject(1, 300);
+		verify(preparedStatement, times(3)).addBatch();
+		verify(preparedStatement, times(2)).executeBatch();
+		verify(preparedStatement, atLeastOnce()).close();
+		verify(connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testStreamingBatchUpdateWithoutArguments() {
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		assertEquals(0, namedParameterTemplate.batchUpdate("UPDATE NOSUCHTABLE SET NAME = :name",
+				Collections.<SqlParameterSource>emptyIterator(), 10, null));
+	}
+
+	@Test
+	public void testStreamingBatchUpdateDefaultMethod() {
+		String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = :id";
+		List<SqlParameterSource> ids = new ArrayList<>();
+		ids.add(new MapSqlParameterSource("id", 100));
+		ids.add(new MapSqlParameterSource("id", 200));
+		ids.add(new MapSqlParameterSource("id", 300));
+		NamedParameterJdbcOperations operations = mock(NamedParameterJdbcOperations.class, CALLS_REAL_METHODS);
+		willReturn(new int[] {1, 1}, new int[] {1}).given(operations).batchUpdate(eq(sql), any(SqlParameterSource[].class));
+		List<BatchChunkResult> results = new ArrayList<>();
+
+		assertEquals(3, operations.batchUpdate(sql, ids.iterator(), 2, results::add));
+		assertEquals(2, results.size());
+		assertArrayEquals(new int[] {1}, results.get(1).getUpdateCounts());
+		verify(operations).batchUpdate(sql, new SqlParameterSource[] {ids.get(0), ids.get(1)});
+		verify(operations).batchUpdate(sql, new SqlParameterSource[] {ids.get(2)});
+	}
+
 	@Test
 	public void testBatchUpdateWithSqlParameterSourcePlusTypeInfo() throws Exception {
 		SqlParameterSource[] ids = new SqlParameterSource[2];
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for bulk inserts through {@link SimpleJdbcInsert} against the
+ * embedded databases supported by {@link EmbeddedDatabaseBuilder}.
+ *
+ * @author agent
+ */
+@RunWith(Parameterized.class)
+public class SimpleJdbcInsertBulkTests {
+
+	@Parameters(name = "{0}")
+	public static List<Object[]> databaseTypes() {
+		return Arrays.asList(new Object[][] {
+				{EmbeddedDatabaseType.HSQL}, {EmbeddedDatabaseType.H2}, {EmbeddedDatabaseType.DERBY}});
+	}
+
+
+	@Parameter
+	public EmbeddedDatabaseType databaseType;
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().setType(this.databaseType).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("CREATE TABLE item (id INTEGER GENERATED BY DEFAULT AS IDENTITY, " +
+				"name VARCHAR(50), quantity INTEGER)");
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void multiRowStatements() {
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.database).withTableName("item")
+				.usingGeneratedKeyColumns("id");
+		insert.setMaxRowsPerStatement(7);
+
+		int count = insert.executeBulk(items(30).toArray(new Map[0]));
+
+		assertEquals(30, count);
+		assertEquals(Integer.valueOf(30), this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class));
+		assertEquals(Integer.valueOf(29 * 30 / 2),
+				this.jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM item", Integer.class));
+		assertEquals("item29", this.jdbcTemplate.queryForObject(
+				"SELECT name FROM item WHERE quantity = 29", String.class));
+	}
+
+	@Test
+	public void multiRowStatementsWithParameterSources() {
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.database).withTableName("item")
+				.usingGeneratedKeyColumns("id");
+		SqlParameterSource[] batch = new SqlParameterSource[2500];
+		for (int i = 0; i < batch.length; i++) {
+			batch[i] = new MapSqlParameterSource("name", "item" + i).addValue("quantity", i % 10);
+		}
+
+		int count = insert.executeBulk(batch);
+
+		assertEquals(2500, count);
+		assertEquals(Integer.valueOf(250),
+				this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item WHERE quantity = 3", Integer.class));
+	}
+
+	@Test
+	public void multiRowStatementsWithSingleRow() {
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.database).withTableName("item")
+				.usingColumns("name");
+
+		int count = insert.executeBulk(new MapSqlParameterSource("name", "single"));
+
+		assertEquals(1, count);
+		assertEquals("single", this.jdbcTemplate.queryForObject("SELECT name FROM item", String.class));
+	}
+
+	@Test
+	public void emptyBulk() {
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.database).withTableName("item");
+		assertEquals(0, insert.executeBulk(new SqlParameterSource[0]));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void bulkInsertHandler() {
+		List<String> invocations = new ArrayList<>();
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.database).withTableName("item")
+				.usingGeneratedKeyColumns("id");
+		insert.usingBulkInsertHandler((con, tableName, columnNames, columnTypes, rows) -> {
+			invocations.add(tableName + columnNames);
+			assertEquals(columnNames.size(), columnTypes.length);
+			try (PreparedStatement ps = con.prepareStatement("INSERT INTO item (" +
+					String.join(", ", columnNames) + ") VALUES (?, ?)")) {
+				for (List<Object> row : rows) {
+					ps.setObject(1, row.get(0));
+					ps.setObject(2, row.get(1));
+					ps.addBatch();
+				}
+				return ps.executeBatch().length;
+			}
+		});
+
+		int count = insert.executeBulk(items(5).toArray(new Map[0]));
+
+		assertEquals(5, count);
+		assertEquals(1, invocations.size());
+		assertEquals("ITEM[NAME, QUANTITY]", invocations.get(0));
+		assertEquals(Integer.valueOf(5), this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void bulkInsertHandlerWithSchemaName() {
+		this.jdbcTemplate.execute("CREATE SCHEMA bulk");
+		this.jdbcTemplate.execute("CREATE TABLE bulk.item (name VARCHAR(50), quantity INTEGER)");
+		List<String> tableNames = new ArrayList<>();
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(this.database).withSchemaName("bulk").withTableName("item");
+		insert.usingBulkInsertHandler((con, tableName, columnNames, columnTypes, rows) -> {
+			tableNames.add(tableName);
+			return rows.size();
+		});
+
+		assertEquals(3, insert.executeBulk(items(3).toArray(new Map[0])));
+		assertEquals(Collections.singletonList("BULK.ITEM"), tableNames);
+	}
+
+
+	private static List<Map<String, Object>> items(int count) {
+		List<Map<String, Object>> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> item = new HashMap<>(2);
+			item.put("name", "item" + i);
+			item.put("quantity", i);
+			items.add(Collections.unmodifiableMap(item));
+		}
+		return items;
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchChunkResult;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Integration tests for {@link ChunkedBatchUpdateExecutor} against an
+ * embedded HSQL database.
+ *
+ * @author agent
+ */
+public class ChunkedBatchUpdateExecutorTests {
+
+	private static final String INSERT = "INSERT INTO item (id, name) VALUES (?, ?)";
+
+	private static final ParameterizedPreparedStatementSetter<Integer> SETTER = (ps, id) -> {
+		ps.setInt(1, id);
+		ps.setString(2, "item" + id);
+	};
+
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private ChunkedBatchUpdateExecutor executor;
+
+	private final List<BatchChunkResult> results = new CopyOnWriteArrayList<>();
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("CREATE TABLE item (id INTEGER PRIMARY KEY, name VARCHAR(50))");
+		this.executor = new ChunkedBatchUpdateExecutor(this.jdbcTemplate);
+		this.executor.setTransactionManager(new DataSourceTransactionManager(this.database));
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void sequentialChunks() {
+		long count = this.executor.execute(INSERT, IntStream.range(0, 250).boxed(), 100, SETTER, this.results::add);
+
+		assertEquals(250, count);
+		assertEquals(250, rowCount());
+		assertEquals(3, this.results.size());
+		assertEquals(200, this.results.get(2).getFirstItemPosition());
+		assertEquals(50, this.results.get(2).getItemCount());
+		assertEquals(50, this.results.get(2).getUpdateCounts().length);
+	}
+
+	@Test
+	public void concurrentChunks() {
+		this.executor.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		this.executor.setConcurrencyLimit(4);
+
+		long count = this.executor.execute(INSERT, IntStream.range(0, 1000).boxed(), 64, SETTER, this.results::add);
+
+		assertEquals(1000, count);
+		assertEquals(1000, rowCount());
+		assertEquals(16, this.results.size());
+		assertTrue(this.results.stream().allMatch(BatchChunkResult::isSuccessful));
+		assertEquals(1000, this.results.stream().mapToInt(BatchChunkResult::getItemCount).sum());
+	}
+
+	@Test
+	public void failedChunkIsRolledBack() {
+		try {
+			this.executor.execute(INSERT, IntStream.range(0, 400).map(i -> (i == 250 ? 3 : i)).boxed(),
+					100, SETTER, this.results::add);
+			fail("Should have thrown DuplicateKeyException");
+		}
+		catch (DuplicateKeyException ex) {
+			assertEquals(3, this.results.size());
+			BatchChunkResult failed = this.results.get(2);
+			assertFalse(failed.isSuccessful());
+			assertSame(ex, failed.getFailure());
+			assertEquals(250, failed.getFailedItemPosition());
+		}
+		assertEquals(200, rowCount());
+	}
+
+	@Test
+	public void chunkReadOnlyOncePermitAvailable() throws Exception {
+		this.executor.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		AtomicInteger consumed = new AtomicInteger();
+		Iterator<Integer> items = new Iterator<Integer>() {
+			@Override
+			public boolean hasNext() {
+				return consumed.get() < 30;
+			}
+			@Override
+			public Integer next() {
+				return consumed.getAndIncrement();
+			}
+		};
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		ParameterizedPreparedStatementSetter<Integer> setter = (ps, id) -> {
+			if (id == 0) {
+				started.countDown();
+				try {
+					proceed.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			SETTER.setValues(ps, id);
+		};
+
+		AtomicReference<Long> count = new AtomicReference<>();
+		Thread caller = new Thread(() -> count.set(this.executor.execute(INSERT, items, 10, setter, null)));
+		caller.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		assertEquals(10, consumed.get());
+
+		proceed.countDown();
+		caller.join(5000);
+		assertEquals(Long.valueOf(30), count.get());
+		assertEquals(30, rowCount());
+	}
+
+	@Test
+	public void failingCallbackOnCallingThread() {
+		try {
+			this.executor.execute(INSERT, IntStream.range(0, 250).boxed(), 100, SETTER, result -> {
+				this.results.add(result);
+				throw new IllegalStateException("callback");
+			});
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("callback", ex.getMessage());
+		}
+		assertEquals(1, this.results.size());
+		assertEquals(100, rowCount());
+	}
+
+	@Test
+	public void withoutTransactionManager() {
+		this.executor.setTransactionManager(null);
+
+		long count = this.executor.execute(INSERT, IntStream.range(0, 10).boxed().iterator(), 3, SETTER, null);
+
+		assertEquals(10, count);
+		assertEquals(10, rowCount());
+	}
+
+
+	private int rowCount() {
+		Integer count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+		return (count != null ? count : 0);
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * @author agent
+ */
+public class ConstructorPersonWithSetters {
+
+	private final String lastName;
+
+	private final long age;
+
+	private LocalDateTime birthDate;
+
+	private BigDecimal balance;
+
+
+	public ConstructorPersonWithSetters(String lastName, long age) {
+		this.lastName = lastName;
+		this.age = age;
+	}
+
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public long getAge() {
+		return this.age;
+	}
+
+	public LocalDateTime getBirthDate() {
+		return this.birthDate;
+	}
+
+	public void setBirthDate(LocalDateTime birthDate) {
+		this.birthDate = birthDate;
+	}
+
+	public BigDecimal getBalance() {
+		return this.balance;
+	}
+
+	public void setBalance(BigDecimal balance) {
+		this.balance = balance;
+	}
+
+}
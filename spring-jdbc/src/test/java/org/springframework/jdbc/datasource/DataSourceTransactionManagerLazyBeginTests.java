@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.lookup.ReadReplicaRoutingDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link DataSourceTransactionManager} in lazy begin mode.
+ *
+ * @author agent
+ */
+public class DataSourceTransactionManagerLazyBeginTests {
+
+	private EmbeddedDatabase database;
+
+	private CountingDataSource dataSource;
+
+	private DataSourceTransactionManager tm;
+
+	private TransactionTemplate tt;
+
+	private JdbcTemplate jdbcTemplate;
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		new JdbcTemplate(this.database).execute("CREATE TABLE item (id INTEGER)");
+		this.dataSource = new CountingDataSource(this.database);
+		this.tm = new DataSourceTransactionManager(this.dataSource);
+		this.tm.setLazyBegin(true);
+		this.tt = new TransactionTemplate(this.tm);
+		this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+	}
+
+	@After
+	public void shutdown() {
+		assertFalse(TransactionSynchronizationManager.hasResource(this.dataSource));
+		assertEquals(this.dataSource.opened.get(), this.dataSource.closed.get());
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void transactionWithoutConnectionUse() {
+		this.tt.execute(status -> {
+			assertTrue(TransactionSynchronizationManager.hasResource(this.dataSource));
+			return null;
+		});
+
+		assertEquals(0, this.dataSource.opened.get());
+		assertEquals(1, this.tm.getLazyTransactionCount());
+		assertEquals(1, this.tm.getUnusedConnectionCount());
+	}
+
+	@Test
+	public void transactionWithoutConnectionUseAndRollback() {
+		this.tt.execute(status -> {
+			status.setRollbackOnly();
+			return null;
+		});
+
+		assertEquals(0, this.dataSource.opened.get());
+		assertEquals(1, this.tm.getUnusedConnectionCount());
+	}
+
+	@Test
+	public void transactionWithCommit() {
+		this.tt.execute(status -> {
+			this.jdbcTemplate.update("INSERT INTO item VALUES (1)");
+			this.jdbcTemplate.update("INSERT INTO item VALUES (2)");
+			assertTrue(this.dataSource.lastConnectionManualCommit);
+			return null;
+		});
+
+		assertEquals(1, this.dataSource.opened.get());
+		assertEquals(0, this.tm.getUnusedConnectionCount());
+		assertEquals(Integer.valueOf(2), this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class));
+	}
+
+	@Test
+	public void transactionWithRollback() {
+		this.tt.execute(status -> {
+			this.jdbcTemplate.update("INSERT INTO item VALUES (1)");
+			status.setRollbackOnly();
+			return null;
+		});
+
+		assertEquals(Integer.valueOf(0), this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class));
+	}
+
+	@Test
+	public void readOnlyTransactionWithEarlyRelease() {
+		this.tt.setReadOnly(true);
+		this.tt.execute(status -> {
+			this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+			assertEquals(1, this.dataSource.opened.get());
+			assertEquals(1, this.dataSource.closed.get());
+			this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+			return null;
+		});
+
+		assertEquals(2, this.dataSource.opened.get());
+		assertEquals(2, this.tm.getEarlyReleaseCount());
+	}
+
+	@Test
+	public void earlyReleaseFailureDoesNotMaskOriginalException() {
+		TransactionAwareDataSourceProxy proxy = new TransactionAwareDataSourceProxy(this.dataSource);
+		proxy.setReobtainTransactionalConnections(true);
+		this.dataSource.commitFailure = true;
+		this.tt.setReadOnly(true);
+		this.tt.execute(status -> {
+			try {
+				proxy.getConnection().prepareStatement("SELECT * FROM no_such_table");
+				fail("Should have thrown SQLException");
+			}
+			catch (SQLException ex) {
+				assertEquals(1, ex.getSuppressed().length);
+				assertTrue(ex.getSuppressed()[0] instanceof TransactionSystemException);
+			}
+			return null;
+		});
+
+		assertEquals(1, this.dataSource.closed.get());
+		assertEquals(1, this.tm.getEarlyReleaseCount());
+	}
+
+	@Test
+	public void readOnlyTransactionWithIsolationLevel() {
+		this.tt.setReadOnly(true);
+		this.tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+		this.tt.execute(status -> {
+			this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+			this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+			assertEquals(0, this.dataSource.closed.get());
+			return null;
+		});
+
+		assertEquals(1, this.dataSource.opened.get());
+		assertEquals(0, this.tm.getEarlyReleaseCount());
+	}
+
+	@Test
+	public void readOnlyTransactionWithoutEarlyRelease() {
+		this.tm.setReleaseReadOnlyConnectionsEarly(false);
+		this.tt.setReadOnly(true);
+		this.tt.execute(status -> {
+			this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+			this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+			return null;
+		});
+
+		assertEquals(1, this.dataSource.opened.get());
+		assertEquals(0, this.tm.getEarlyReleaseCount());
+	}
+
+	@Test
+	public void connectionFailureOnFirstUse() {
+		this.dataSource.failure = true;
+		this.tt.execute(status -> {
+			try {
+				this.jdbcTemplate.update("INSERT INTO item VALUES (1)");
+				fail("Should have thrown CannotGetJdbcConnectionException");
+			}
+			catch (CannotGetJdbcConnectionException ex) {
+				// expected
+			}
+			return null;
+		});
+	}
+
+	@Test
+	public void readReplicaRoutingWithoutLazyConnectionProxy() {
+		EmbeddedDatabase replica = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		try {
+			new JdbcTemplate(replica).execute("CREATE TABLE item (id INTEGER)");
+			new JdbcTemplate(replica).update("INSERT INTO item VALUES (1)");
+			ReadReplicaRoutingDataSource router = new ReadReplicaRoutingDataSource();
+			router.setPrimaryDataSource(this.database);
+			router.setReplicaDataSources(Collections.singletonMap("replica", replica));
+			router.afterPropertiesSet();
+			DataSourceTransactionManager tm = new DataSourceTransactionManager(router);
+			tm.setLazyBegin(true);
+			TransactionTemplate tt = new TransactionTemplate(tm);
+			tt.setReadOnly(true);
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(router);
+
+			assertEquals(Integer.valueOf(1), tt.execute(status ->
+					jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class)));
+		}
+		finally {
+			replica.shutdown();
+		}
+	}
+
+
+	private static class CountingDataSource extends DelegatingDataSource {
+
+		final AtomicInteger opened = new AtomicInteger();
+
+		final AtomicInteger closed = new AtomicInteger();
+
+		volatile boolean lastConnectionManualCommit;
+
+		volatile boolean failure;
+
+		volatile boolean commitFailure;
+
+		CountingDataSource(DataSource targetDataSource) {
+			super(targetDataSource);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (this.failure) {
+				throw new SQLException("Connection refused");
+			}
+			Connection target = super.getConnection();
+			this.opened.incrementAndGet();
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+					(proxy, method, args) -> {
+						if (method.getName().equals("close")) {
+							this.closed.incrementAndGet();
+						}
+						else if (method.getName().equals("commit") && this.commitFailure) {
+							throw new SQLException("Commit failed");
+						}
+						else if (method.getName().equals("setAutoCommit")) {
+							this.lastConnectionManualCommit = !((Boolean) args[0]);
+						}
+						try {
+							return method.invoke(target, args);
+						}
+						catch (InvocationTargetException ex) {
+							throw ex.getTargetException();
+						}
+					});
+		}
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link ReadReplicaRoutingDataSource}.
+ *
+ * @author agent
+ */
+public class ReadReplicaRoutingDataSourceTests {
+
+	private EmbeddedDatabase primary;
+
+	private EmbeddedDatabase replica1;
+
+	private EmbeddedDatabase replica2;
+
+	private final ReadReplicaRoutingDataSource router = new ReadReplicaRoutingDataSource();
+
+
+	@Before
+	public void setup() {
+		this.primary = createDatabase("primary", 0);
+		this.replica1 = createDatabase("replica1", 100);
+		this.replica2 = createDatabase("replica2", 5000);
+		this.router.setPrimaryDataSource(this.primary);
+	}
+
+	@After
+	public void shutdown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		this.router.destroy();
+		this.primary.shutdown();
+		this.replica1.shutdown();
+		this.replica2.shutdown();
+	}
+
+
+	@Test
+	public void routeReadOnlyTransactionsToReplicas() {
+		initRouter(this.replica1, this.replica2);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(this.router));
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+		assertEquals("primary", tt.execute(status -> queryName(jdbcTemplate)));
+		assertEquals("primary", queryName(jdbcTemplate));
+
+		tt.setReadOnly(true);
+		Set<String> names = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			names.add(tt.execute(status -> queryName(jdbcTemplate)));
+		}
+		assertEquals(new HashSet<>(Arrays.asList("replica1", "replica2")), names);
+		for (ReadReplicaRoutingDataSource.Replica replica : this.router.getReplicas()) {
+			assertEquals(0, replica.getInFlightCount());
+			assertTrue(replica.getAverageLatencyNanos() > 0);
+		}
+	}
+
+	@Test
+	public void replicasInSpecifiedOrder() {
+		DataSource[] replicas = new DataSource[20];
+		for (int i = 0; i < replicas.length; i++) {
+			replicas[i] = mock(DataSource.class);
+		}
+		initRouter(replicas);
+
+		List<ReadReplicaRoutingDataSource.Replica> resolved = this.router.getReplicas();
+		assertEquals(replicas.length, resolved.size());
+		for (int i = 0; i < replicas.length; i++) {
+			assertEquals("replica" + (i + 1), resolved.get(i).getName());
+		}
+	}
+
+	@Test
+	public void fallbackToPrimaryWithCircuitBreaker() throws SQLException {
+		DataSource failing = mock(DataSource.class);
+		given(failing.getConnection()).willThrow(new SQLException("down"));
+		this.router.setFailureThreshold(2);
+		this.router.setCircuitOpenTime(60000);
+		initRouter(failing);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.router);
+
+		assertEquals("primary", queryName(jdbcTemplate));
+		assertTrue(this.router.getReplicas().get(0).isAvailable());
+		assertEquals("primary", queryName(jdbcTemplate));
+		assertFalse(this.router.getReplicas().get(0).isAvailable());
+		assertEquals("primary", queryName(jdbcTemplate));
+		verify(failing, times(2)).getConnection();
+	}
+
+	@Test
+	public void circuitClosesAfterOpenTime() throws Exception {
+		DataSource flaky = mock(DataSource.class);
+		given(flaky.getConnection()).willThrow(new SQLException("down")).willAnswer(invocation -> this.replica1.getConnection());
+		this.router.setFailureThreshold(1);
+		this.router.setCircuitOpenTime(500);
+		initRouter(flaky);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.router);
+
+		assertEquals("primary", queryName(jdbcTemplate));
+		assertFalse(this.router.getReplicas().get(0).isAvailable());
+		Thread.sleep(600);
+		assertEquals("replica1", queryName(jdbcTemplate));
+		assertTrue(this.router.getReplicas().get(0).isAvailable());
+	}
+
+	@Test
+	public void leastInFlight() throws SQLException {
+		this.router.setReplicaSelector(ReplicaSelector.leastInFlight());
+		initRouter(this.replica1, this.replica2);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		try (Connection con1 = this.router.getConnection(); Connection con2 = this.router.getConnection()) {
+			List<ReadReplicaRoutingDataSource.Replica> replicas = this.router.getReplicas();
+			assertEquals(1, replicas.get(0).getInFlightCount());
+			assertEquals(1, replicas.get(1).getInFlightCount());
+			assertNotSame(con1, con2);
+			try (Connection con3 = this.router.getConnection()) {
+				assertEquals(3, replicas.get(0).getInFlightCount() + replicas.get(1).getInFlightCount());
+				con3.close();
+			}
+			assertEquals(2, replicas.get(0).getInFlightCount() + replicas.get(1).getInFlightCount());
+		}
+		for (ReadReplicaRoutingDataSource.Replica replica : this.router.getReplicas()) {
+			assertEquals(0, replica.getInFlightCount());
+		}
+	}
+
+	@Test
+	public void latencyWeighted() throws SQLException {
+		this.router.setReplicaSelector(ReplicaSelector.latencyWeighted());
+		initRouter(this.replica1, this.replica2);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.router);
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(queryName(jdbcTemplate).startsWith("replica"));
+		}
+	}
+
+	@Test
+	public void replicationLag() {
+		this.router.setReplicationLagQuery("SELECT lag FROM replication_status");
+		this.router.setMaxReplicationLag(1000);
+		initRouter(this.replica1, this.replica2);
+		this.router.checkReplicas();
+
+		List<ReadReplicaRoutingDataSource.Replica> replicas = this.router.getReplicas();
+		ReadReplicaRoutingDataSource.Replica lagging =
+				(replicas.get(0).getDataSource() == this.replica2 ? replicas.get(0) : replicas.get(1));
+		assertEquals(5000, lagging.getReplicationLag());
+		assertFalse(lagging.isAvailable());
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.router);
+		for (int i = 0; i < 4; i++) {
+			assertEquals("replica1", queryName(jdbcTemplate));
+		}
+
+		new JdbcTemplate(this.replica2).update("UPDATE replication_status SET lag = 10");
+		this.router.checkReplicas();
+		assertTrue(lagging.isAvailable());
+	}
+
+	@Test
+	public void backgroundHealthCheck() throws Exception {
+		this.router.setHealthCheckInterval(10);
+		initRouter(this.replica1);
+		ReadReplicaRoutingDataSource.Replica replica = this.router.getReplicas().get(0);
+		for (int i = 0; i < 100 && replica.getAverageLatencyNanos() == 0; i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(replica.getAverageLatencyNanos() > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void primaryRequired() {
+		ReadReplicaRoutingDataSource router = new ReadReplicaRoutingDataSource();
+		router.setReplicaDataSources(Collections.singletonMap("replica1", this.replica1));
+		router.afterPropertiesSet();
+	}
+
+
+	private void initRouter(DataSource... replicas) {
+		Map<String, DataSource> replicaMap = new LinkedHashMap<>();
+		for (int i = 0; i < replicas.length; i++) {
+			replicaMap.put("replica" + (i + 1), replicas[i]);
+		}
+		this.router.setReplicaDataSources(replicaMap);
+		this.router.afterPropertiesSet();
+	}
+
+	private static EmbeddedDatabase createDatabase(String name, int lag) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(50))");
+		jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+		jdbcTemplate.execute("CREATE TABLE replication_status (lag INTEGER)");
+		jdbcTemplate.update("INSERT INTO replication_status VALUES (?)", lag);
+		return database;
+	}
+
+	private static String queryName(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+	}
+
+}
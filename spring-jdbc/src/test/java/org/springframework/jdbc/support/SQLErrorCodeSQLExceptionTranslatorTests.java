@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,12 @@ package org.springframework.jdbc.support;
 import java.sql.BatchUpdateException;
 import java.sql.DataTruncation;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -34,6 +40,8 @@ import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.InvalidResultSetAccessException;
 import org.springframework.lang.Nullable;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
 
 import static org.junit.Assert.*;
 
@@ -181,4 +189,90 @@ public class SQLErrorCodeSQLExceptionTranslatorTests {
 		customTranslation.setExceptionClass(String.class);
 	}
 
+	@Test
+	public void errorCodeChangesAfterTranslation() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setBadSqlGrammarCodes("1");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		checkTranslation(sext, 1, BadSqlGrammarException.class);
+
+		errorCodes.setBadSqlGrammarCodes("2");
+		errorCodes.setDeadlockLoserCodes("1");
+		checkTranslation(sext, 1, DeadlockLoserDataAccessException.class);
+		checkTranslation(sext, 2, BadSqlGrammarException.class);
+	}
+
+	@Test
+	public void errorCodeInSeveralGroups() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setCannotAcquireLockCodes("1");
+		errorCodes.setDataIntegrityViolationCodes("1");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		assertEquals(DataIntegrityViolationException.class,
+				sext.translate("task", "SQL", new SQLException("", "", 1)).getClass());
+	}
+
+	@Test
+	public void unsortedDuplicateKeyCodes() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setDuplicateKeyCodes("30", "20", "10");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		checkTranslation(sext, 30, DuplicateKeyException.class);
+		checkTranslation(sext, 10, DuplicateKeyException.class);
+	}
+
+	@Test
+	public void errorCodeTableBuiltBeforeConcurrentChangeNotUsed() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setBadSqlGrammarCodes("1");
+		SQLErrorCodeSQLExceptionTranslator.ErrorCodeTable staleTable =
+				new SQLErrorCodeSQLExceptionTranslator.ErrorCodeTable(errorCodes, errorCodes.getCodesVersion());
+		errorCodes.setBadSqlGrammarCodes("2");
+		errorCodes.setErrorCodeTable(staleTable);
+		assertNull(errorCodes.getErrorCodeTable());
+
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		checkTranslation(sext, 2, BadSqlGrammarException.class);
+		assertNotNull(errorCodes.getErrorCodeTable());
+	}
+
+	@Test
+	public void translationPerformanceUnderExceptionStorm() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		SQLErrorCodes errorCodes = SQLErrorCodesFactory.getInstance().getErrorCodes("Oracle");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		SQLException[] exceptions = {new SQLException("connection reset", "08006", 17002),
+				new SQLException("deadlock", "61000", 60), new SQLException("unique", "23000", 1),
+				new SQLException("unknown", "99999", 99999)};
+		Class<?>[] expectedTypes = {DataAccessResourceFailureException.class,
+				DeadlockLoserDataAccessException.class, DuplicateKeyException.class, null};
+		expectedTypes[3] = sext.translate("task", "SQL", exceptions[3]).getClass();
+		int threads = Runtime.getRuntime().availableProcessors();
+		int translations = 200000;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int run = 0; run < 5; run++) {
+				List<Callable<Object>> tasks = new ArrayList<>(threads);
+				for (int t = 0; t < threads; t++) {
+					tasks.add(() -> {
+						for (int i = 0; i < translations; i++) {
+							int index = i % exceptions.length;
+							assertSame(expectedTypes[index], sext.translate("task", "SQL", exceptions[index]).getClass());
+						}
+						return null;
+					});
+				}
+				for (Future<Object> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertNotNull(errorCodes.getErrorCodeTable());
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,12 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.sql.DataSource;
 
 import org.junit.Test;
@@ -252,6 +258,35 @@ public class SQLErrorCodesFactoryTests {
 		assertIsEmpty(sec);
 	}
 
+	@Test
+	public void testConcurrentLookupFromDataSource() throws Exception {
+		DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+		given(databaseMetaData.getDatabaseProductName()).willAnswer(invocation -> {
+			// Slow meta-data access: concurrent lookups need to wait for this one
+			Thread.sleep(200);
+			return "Oracle";
+		});
+		Connection connection = mock(Connection.class);
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+		DataSource dataSource = mock(DataSource.class);
+		given(dataSource.getConnection()).willReturn(connection);
+
+		SQLErrorCodesFactory factory = new SQLErrorCodesFactory();
+		Callable<SQLErrorCodes> lookup = () -> factory.getErrorCodes(dataSource);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<SQLErrorCodes>> futures = executor.invokeAll(Collections.nCopies(8, lookup));
+			for (Future<SQLErrorCodes> future : futures) {
+				assertIsOracle(future.get());
+				assertSame(factory.getErrorCodes(dataSource), future.get());
+			}
+			verify(dataSource, times(1)).getConnection();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void assertIsEmpty(SQLErrorCodes sec) {
 		// Codes should be empty
 		assertEquals(0, sec.getBadSqlGrammarCodes().length);
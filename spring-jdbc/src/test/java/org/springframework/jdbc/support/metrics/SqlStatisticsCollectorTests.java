@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.metrics;
+
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SqlStatisticsCollector}.
+ *
+ * @author agent
+ */
+public class SqlStatisticsCollectorTests {
+
+	@Test
+	public void normalizeLiterals() {
+		assertEquals("SELECT * FROM orders WHERE id = ? AND status = ?",
+				SqlStatisticsCollector.normalizeSql("SELECT * FROM orders WHERE id = 42 AND status = 'it''s open'"));
+		assertEquals("SELECT t1.col2 FROM t1 WHERE amount > ?",
+				SqlStatisticsCollector.normalizeSql("SELECT t1.col2 FROM t1 WHERE amount > 1.5e3"));
+		assertEquals("SELECT \"Col 1\" FROM t WHERE x = ?",
+				SqlStatisticsCollector.normalizeSql("SELECT \"Col 1\" FROM t WHERE x = 7"));
+	}
+
+	@Test
+	public void normalizeWhitespace() {
+		assertEquals("SELECT a, b FROM t WHERE c = ?",
+				SqlStatisticsCollector.normalizeSql("  SELECT a,\n\tb\r\n FROM   t WHERE c = ?  "));
+	}
+
+	@Test
+	public void normalizeInLists() {
+		assertEquals("SELECT * FROM t WHERE id IN (?) AND x NOT IN (?)",
+				SqlStatisticsCollector.normalizeSql("SELECT * FROM t WHERE id IN (?, ?, ?) AND x NOT IN (1,2)"));
+		assertEquals("SELECT * FROM t WHERE id in(?)",
+				SqlStatisticsCollector.normalizeSql("SELECT * FROM t WHERE id in(?,?)"));
+		assertEquals("INSERT INTO t (a, b) VALUES (?, ?)",
+				SqlStatisticsCollector.normalizeSql("INSERT INTO t (a, b) VALUES (1, 'x')"));
+		assertEquals("SELECT * FROM t JOIN (?, ?)",
+				SqlStatisticsCollector.normalizeSql("SELECT * FROM t JOIN (?, ?)"));
+	}
+
+	@Test
+	public void aggregateByShape() {
+		SqlStatisticsCollector collector = new SqlStatisticsCollector();
+		collector.observe(observation(JdbcObservation.QUERY, "SELECT * FROM t WHERE id = 1", 1, null));
+		collector.observe(observation(JdbcObservation.QUERY, "SELECT * FROM t WHERE id = 2", 0, null));
+		collector.observe(observation(JdbcObservation.QUERY, "SELECT * FROM t WHERE id = 3", -1, new SQLException()));
+		collector.observe(observation(JdbcObservation.TRANSACTION, null, -1, null));
+
+		assertEquals(2, collector.getStatistics().size());
+		SqlStatisticsCollector.SqlStatistics stats = collector.getStatistics("SELECT * FROM t WHERE id = 99");
+		assertNotNull(stats);
+		assertEquals("SELECT * FROM t WHERE id = ?", stats.getShape());
+		assertEquals(3, stats.getCount());
+		assertEquals(1, stats.getFailureCount());
+		assertEquals(1, stats.getRowCount());
+		assertEquals(3, stats.getExecutionTime().getCount());
+		assertEquals(1, collector.getStatistics().get("[transaction]").getCount());
+
+		collector.reset();
+		assertTrue(collector.getStatistics().isEmpty());
+	}
+
+	@Test
+	public void maxShapes() {
+		SqlStatisticsCollector collector = new SqlStatisticsCollector();
+		collector.setMaxShapes(2);
+		collector.observe(observation(JdbcObservation.UPDATE, "DELETE FROM a", 1, null));
+		collector.observe(observation(JdbcObservation.UPDATE, "DELETE FROM b", 1, null));
+		collector.observe(observation(JdbcObservation.UPDATE, "DELETE FROM c", 1, null));
+		collector.observe(observation(JdbcObservation.UPDATE, "DELETE FROM d", 1, null));
+		collector.observe(observation(JdbcObservation.UPDATE, "DELETE FROM a", 1, null));
+
+		assertEquals(3, collector.getStatistics().size());
+		assertEquals(2, collector.getStatistics("DELETE FROM a").getCount());
+		assertEquals(2, collector.getStatistics().get(SqlStatisticsCollector.OTHER_SHAPE).getCount());
+		assertNull(collector.getStatistics("DELETE FROM c"));
+	}
+
+	@Test
+	public void latencyHistogram() {
+		SqlStatisticsCollector.LatencyHistogram histogram = new SqlStatisticsCollector.LatencyHistogram();
+		assertEquals(0, histogram.getPercentileNanos(0.5));
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050000, histogram.getTotalNanos());
+		assertEquals(50500, histogram.getMeanNanos());
+		assertEquals(100000, histogram.getMaxNanos());
+		long p50 = histogram.getPercentileNanos(0.5);
+		assertTrue(p50 >= 50000 && p50 < 100000);
+		assertEquals(100000, histogram.getPercentileNanos(1.0));
+		assertEquals(1023, histogram.getPercentileNanos(0.0));
+		long total = 0;
+		for (long count : histogram.getBucketCounts()) {
+			total += count;
+		}
+		assertEquals(100, total);
+	}
+
+	@Test
+	public void observationPhases() throws Exception {
+		JdbcObservation observation = new JdbcObservation(JdbcObservation.QUERY, "SELECT 1");
+		assertFalse(observation.isCompleted());
+		observation.connectionAcquired();
+		observation.statementPrepared();
+		Thread.sleep(2);
+		observation.statementExecuted();
+		observation.setRowCount(1);
+		observation.completed(null);
+
+		assertTrue(observation.isSuccessful());
+		assertTrue(observation.getExecutionNanos() >= 2000000);
+		assertTrue(observation.getTotalNanos() >= observation.getConnectionAcquisitionNanos() +
+				observation.getPreparationNanos() + observation.getExecutionNanos());
+		assertEquals(1, observation.getRowCount());
+	}
+
+
+	private static JdbcObservation observation(String operation, String sql, long rows, Throwable failure) {
+		JdbcObservation observation = new JdbcObservation(operation, sql);
+		observation.connectionAcquired();
+		observation.statementPrepared();
+		observation.setRowCount(rows);
+		observation.completed(failure);
+		return observation;
+	}
+
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Compact {@link Map} backing {@link MessageHeaders}.
+ *
+ * <p>Keys and values are kept side by side in a single open-addressed array
+ * with linear probing, which for the handful of headers a typical message
+ * carries is considerably smaller than a {@link java.util.HashMap} with its
+ * entry nodes. Copies created through {@link #CompactHeaderMap(Map)} from
+ * another {@code CompactHeaderMap} take over that array through a single
+ * array copy, so deriving a message from another one does not rehash any
+ * headers and leaves the source map untouched. The array is not shared
+ * between copies: a derived message always rewrites its {@code ID} and
+ * {@code TIMESTAMP} headers right away, which would trigger a copy anyway.
+ *
+ * <p>A value may also be registered as {@link #putLazyId lazily generated ID},
+ * in which case the {@link IdGenerator} is only invoked on first access.
+ * An {@code IdGenerator} returning {@link MessageHeaders#ID_VALUE_NONE}
+ * leads to a {@code null} ID value.
+ *
+ * <p>Not thread-safe for modifications, just like the {@code HashMap} it replaces;
+ * concurrent reads of a map that is no longer modified are safe. Like that
+ * {@code HashMap}, {@code null} keys and values are supported.
+ *
+ * @author agent
+ * @since 5.0.16
+ */
+final class CompactHeaderMap extends AbstractMap<String, Object> {
+
+	private static final int MINIMUM_CAPACITY = 8;
+
+	private static final Object REMOVED = new Object();
+
+	private static final Object NULL_KEY = new Object();
+
+
+	/** Keys at even, values at odd positions; {@code null} key for an empty slot. */
+	private Object[] table;
+
+	private int size;
+
+	/** Number of slots occupied by a {@link #REMOVED} marker. */
+	private int removed;
+
+	private int modCount;
+
+	@Nullable
+	private transient Set<Map.Entry<String, Object>> entrySet;
+
+
+	/**
+	 * Create an empty map.
+	 */
+	CompactHeaderMap() {
+		this.table = new Object[MINIMUM_CAPACITY * 2];
+	}
+
+	/**
+	 * Create a map with the entries of the given map. For another
+	 * {@code CompactHeaderMap} the underlying table is copied as is.
+	 */
+	CompactHeaderMap(@Nullable Map<String, ?> source) {
+		if (source instanceof CompactHeaderMap) {
+			CompactHeaderMap other = (CompactHeaderMap) source;
+			this.table = other.table.clone();
+			this.size = other.size;
+			this.removed = other.removed;
+		}
+		else {
+			int count = (source != null ? source.size() : 0);
+			this.table = new Object[capacityFor(count) * 2];
+			if (source != null) {
+				source.forEach(this::put);
+			}
+		}
+	}
+
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (indexOf(key) >= 0);
+	}
+
+	@Override
+	@Nullable
+	public Object get(Object key) {
+		int index = indexOf(key);
+		return (index >= 0 ? valueAt(index) : null);
+	}
+
+	@Override
+	@Nullable
+	public Object put(String key, Object value) {
+		return doPut(key, value);
+	}
+
+	/**
+	 * Register the given key with an ID value that is generated through the
+	 * given {@code IdGenerator} only once it is first accessed.
+	 */
+	void putLazyId(String key, IdGenerator idGenerator) {
+		doPut(key, new LazyId(idGenerator));
+	}
+
+	@Override
+	@Nullable
+	public Object remove(Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		Object oldValue = valueAt(index);
+		removeAt(index);
+		return oldValue;
+	}
+
+	@Override
+	public void clear() {
+		if (this.size == 0 && this.removed == 0) {
+			return;
+		}
+		this.table = new Object[MINIMUM_CAPACITY * 2];
+		this.size = 0;
+		this.removed = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		Set<Map.Entry<String, Object>> entrySet = this.entrySet;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+			this.entrySet = entrySet;
+		}
+		return entrySet;
+	}
+
+
+	@Nullable
+	private Object doPut(@Nullable String key, Object value) {
+		int index = indexOf(key);
+		if (index >= 0) {
+			Object oldValue = valueAt(index);
+			this.table[index + 1] = value;
+			return oldValue;
+		}
+		if ((this.size + this.removed + 1) * 4 > (this.table.length / 2) * 3) {
+			resize(capacityFor(this.size + 1));
+		}
+		Object[] tab = this.table;
+		int mask = tab.length - 1;
+		Object maskedKey = maskNull(key);
+		int i = hash(maskedKey, tab.length);
+		while (tab[i] != null && tab[i] != REMOVED) {
+			i = (i + 2) & mask;
+		}
+		if (tab[i] == REMOVED) {
+			this.removed--;
+		}
+		tab[i] = maskedKey;
+		tab[i + 1] = value;
+		this.size++;
+		this.modCount++;
+		return null;
+	}
+
+	private int indexOf(@Nullable Object key) {
+		Object maskedKey = maskNull(key);
+		Object[] tab = this.table;
+		int mask = tab.length - 1;
+		int i = hash(maskedKey, tab.length);
+		Object candidate;
+		while ((candidate = tab[i]) != null) {
+			if (candidate == maskedKey || (candidate != REMOVED && candidate.equals(maskedKey))) {
+				return i;
+			}
+			i = (i + 2) & mask;
+		}
+		return -1;
+	}
+
+	@Nullable
+	private Object valueAt(int index) {
+		Object value = this.table[index + 1];
+		return (value instanceof LazyId ? ((LazyId) value).get() : value);
+	}
+
+	private void removeAt(int index) {
+		this.table[index] = REMOVED;
+		this.table[index + 1] = null;
+		this.size--;
+		this.removed++;
+		this.modCount++;
+	}
+
+	private void resize(int capacity) {
+		Object[] oldTable = this.table;
+		Object[] newTable = new Object[capacity * 2];
+		int mask = newTable.length - 1;
+		for (int j = 0; j < oldTable.length; j += 2) {
+			Object key = oldTable[j];
+			if (key != null && key != REMOVED) {
+				int i = hash(key, newTable.length);
+				while (newTable[i] != null) {
+					i = (i + 2) & mask;
+				}
+				newTable[i] = key;
+				newTable[i + 1] = oldTable[j + 1];
+			}
+		}
+		this.table = newTable;
+		this.removed = 0;
+	}
+
+	private static int capacityFor(int size) {
+		int capacity = MINIMUM_CAPACITY;
+		while (size * 4 >= capacity * 3) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static Object maskNull(@Nullable Object key) {
+		return (key != null ? key : NULL_KEY);
+	}
+
+	@Nullable
+	private static String unmaskNull(Object key) {
+		return (key != NULL_KEY ? (String) key : null);
+	}
+
+	private static int hash(Object key, int length) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return ((h << 1) & (length - 1));
+	}
+
+
+	private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+		@Override
+		public Iterator<Map.Entry<String, Object>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return CompactHeaderMap.this.size;
+		}
+
+		@Override
+		public void clear() {
+			CompactHeaderMap.this.clear();
+		}
+	}
+
+
+	private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+		private int next;
+
+		private int current = -1;
+
+		private int expectedModCount = modCount;
+
+		EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			Object[] tab = table;
+			while (this.next < tab.length && (tab[this.next] == null || tab[this.next] == REMOVED)) {
+				this.next += 2;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (this.next < table.length);
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.current = this.next;
+			this.next += 2;
+			advance();
+			return new Entry(this.current);
+		}
+
+		@Override
+		public void remove() {
+			if (this.current < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(this.current);
+			this.current = -1;
+			this.expectedModCount = modCount;
+		}
+	}
+
+
+	private class Entry implements Map.Entry<String, Object> {
+
+		private final int index;
+
+		private final Object maskedKey;
+
+		Entry(int index) {
+			this.index = index;
+			this.maskedKey = table[index];
+		}
+
+		@Override
+		@Nullable
+		public String getKey() {
+			return unmaskNull(this.maskedKey);
+		}
+
+		@Override
+		@Nullable
+		public Object getValue() {
+			return (table[this.index] == this.maskedKey ? valueAt(this.index) : get(getKey()));
+		}
+
+		@Override
+		@Nullable
+		public Object setValue(Object value) {
+			return put(getKey(), value);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> otherEntry = (Map.Entry<?, ?>) other;
+			return (ObjectUtils.nullSafeEquals(getKey(), otherEntry.getKey()) &&
+					ObjectUtils.nullSafeEquals(getValue(), otherEntry.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			return (ObjectUtils.nullSafeHashCode(getKey()) ^ ObjectUtils.nullSafeHashCode(getValue()));
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+
+	/**
+	 * Placeholder for an ID value that is generated on first access.
+	 * Safe to resolve concurrently: all callers see the same ID.
+	 */
+	private static final class LazyId {
+
+		private final IdGenerator idGenerator;
+
+		@Nullable
+		private UUID id;
+
+		private volatile boolean resolved;
+
+		LazyId(IdGenerator idGenerator) {
+			this.idGenerator = idGenerator;
+		}
+
+		@Nullable
+		UUID get() {
+			if (!this.resolved) {
+				synchronized (this) {
+					if (!this.resolved) {
+						UUID id = this.idGenerator.generateId();
+						// Same as for eager generation: no ID at all for ID_VALUE_NONE
+						this.id = (id != MessageHeaders.ID_VALUE_NONE ? id : null);
+						this.resolved = true;
+					}
+				}
+			}
+			return this.id;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -119,13 +119,15 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	 * @param timestamp the {@link #TIMESTAMP} header value
 	 */
 	protected MessageHeaders(@Nullable Map<String, Object> headers, @Nullable UUID id, @Nullable Long timestamp) {
-		this.headers = (headers != null ? new HashMap<>(headers) : new HashMap<>());
+		this.headers = new CompactHeaderMap(headers instanceof MessageHeaders ?
+				((MessageHeaders) headers).headers : headers);
 
 		if (id == null) {
 			this.headers.put(ID, getIdGenerator().generateId());
 		}
 		else if (id == ID_VALUE_NONE) {
-			this.headers.remove(ID);
+			// Remove via key set: no need to resolve a lazily generated ID
+			this.headers.keySet().remove(ID);
 		}
 		else {
 			this.headers.put(ID, id);
@@ -162,6 +164,25 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 		return this.headers;
 	}
 
+	/**
+	 * Set the {@link #ID} header to a value that is only generated through the
+	 * given {@code IdGenerator} when first accessed, avoiding the cost of ID
+	 * generation for messages whose ID is never looked at.
+	 * <p>Like {@link #getRawHeaders()}, this is meant for subclasses that
+	 * prepare the headers before they are exposed.
+	 * @param idGenerator the generator to obtain the ID from on first access
+	 * @since 5.0.16
+	 */
+	protected void setLazyId(IdGenerator idGenerator) {
+		Map<String, Object> rawHeaders = getRawHeaders();
+		if (rawHeaders instanceof CompactHeaderMap) {
+			((CompactHeaderMap) rawHeaders).putLazyId(ID, idGenerator);
+		}
+		else {
+			rawHeaders.put(ID, idGenerator.generateId());
+		}
+	}
+
 	protected static IdGenerator getIdGenerator() {
 		IdGenerator generator = idGenerator;
 		return (generator != null ? generator : defaultIdGenerator);
@@ -285,8 +306,11 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 		});
 
 		if (keysToIgnore.isEmpty()) {
-			// All entries are serializable -> serialize the regular MessageHeaders instance
-			out.defaultWriteObject();
+			// All entries are serializable -> serialize the regular MessageHeaders instance,
+			// exposing the headers as a HashMap for compatibility with the established form
+			ObjectOutputStream.PutField fields = out.putFields();
+			fields.put("headers", new HashMap<>(this.headers));
+			out.writeFields();
 		}
 		else {
 			// Some non-serializable entries -> serialize a temporary MessageHeaders copy
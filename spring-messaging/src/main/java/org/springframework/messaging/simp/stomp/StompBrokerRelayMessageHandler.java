@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,13 +17,19 @@
 package org.springframework.messaging.simp.stomp;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -74,6 +80,12 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * <li>{@link #setSystemHeartbeatReceiveInterval}</li>
  * </ul>
  *
+ * <p>Alternatively, client sessions may be multiplexed over a fixed number of shared
+ * TCP connections to the broker, see {@link #setMultiplexedConnectionCount}. In that
+ * mode subscription ids, receipts and transaction ids of each client are rewritten to
+ * be unique per shared connection, and frames from the broker are routed back to the
+ * client session they belong to.
+ *
  * @author Rossen Stoyanchev
  * @author Andy Wilkinson
  * @since 4.0
@@ -97,6 +109,10 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 	private static final Message<byte[]> HEARTBEAT_MESSAGE;
 
+	private static final String MULTIPLEXED_SESSION_ID_PREFIX = "_relay_";
+
+	private static final String STOMP_TRANSACTION_HEADER = "transaction";
+
 
 	static {
 		EMPTY_TASK.run();
@@ -136,6 +152,12 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 	private final Map<String, StompConnectionHandler> connectionHandlers = new ConcurrentHashMap<>();
 
+	private int multiplexedConnectionCount = 0;
+
+	private int multiplexedSendLimit = 1000;
+
+	private final List<MultiplexedConnectionHandler> multiplexedConnections = new CopyOnWriteArrayList<>();
+
 
 	/**
 	 * Create a StompBrokerRelayMessageHandler instance with the given message channels
@@ -376,6 +398,56 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		return this.headerInitializer;
 	}
 
+	/**
+	 * Configure the number of shared TCP connections over which client sessions
+	 * are multiplexed. Each client session is assigned to the shared connection
+	 * with the fewest sessions when its CONNECT frame is handled, and the relay
+	 * responds with a CONNECTED frame itself rather than opening a connection.
+	 * <p>Since the broker only sees the shared connections, all client sessions
+	 * use the {@link #setClientLogin client login} and the
+	 * {@link #setSystemHeartbeatSendInterval system heartbeat settings}, and
+	 * heartbeats are not relayed to clients. An ERROR frame from the broker ends
+	 * the client session it can be correlated with through its {@code receipt-id}
+	 * or {@code subscription} header, whereas the loss of a shared connection
+	 * ends all client sessions on it.
+	 * <p>By default this is set to 0 which means a separate TCP connection is
+	 * opened for every client session.
+	 * @since 5.0.16
+	 */
+	public void setMultiplexedConnectionCount(int multiplexedConnectionCount) {
+		Assert.isTrue(multiplexedConnectionCount >= 0, "multiplexedConnectionCount must not be negative");
+		this.multiplexedConnectionCount = multiplexedConnectionCount;
+	}
+
+	/**
+	 * Return the configured number of multiplexed connections.
+	 * @since 5.0.16
+	 */
+	public int getMultiplexedConnectionCount() {
+		return this.multiplexedConnectionCount;
+	}
+
+	/**
+	 * Configure the maximum number of frames that may be pending, i.e. written
+	 * but not yet flushed, on a single multiplexed connection. Once reached,
+	 * further client frames are not queued: the frame is dropped and its client
+	 * session is ended with an ERROR frame, without blocking the caller.
+	 * <p>By default this is set to 1000.
+	 * @since 5.0.16
+	 */
+	public void setMultiplexedSendLimit(int multiplexedSendLimit) {
+		Assert.isTrue(multiplexedSendLimit > 0, "multiplexedSendLimit must be greater than 0");
+		this.multiplexedSendLimit = multiplexedSendLimit;
+	}
+
+	/**
+	 * Return the configured send limit per multiplexed connection.
+	 * @since 5.0.16
+	 */
+	public int getMultiplexedSendLimit() {
+		return this.multiplexedSendLimit;
+	}
+
 	/**
 	 * Return a String describing internal state and counters.
 	 */
@@ -385,11 +457,40 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 	/**
 	 * Return the current count of TCP connection to the broker.
+	 * <p>With {@link #setMultiplexedConnectionCount multiplexing} enabled,
+	 * this is the number of currently open system and shared connections.
 	 */
 	public int getConnectionCount() {
+		if (this.multiplexedConnectionCount > 0) {
+			int count = 0;
+			StompConnectionHandler systemHandler = this.connectionHandlers.get(SYSTEM_SESSION_ID);
+			if (systemHandler != null && systemHandler.getTcpConnection() != null) {
+				count++;
+			}
+			for (MultiplexedConnectionHandler handler : this.multiplexedConnections) {
+				if (handler.getTcpConnection() != null) {
+					count++;
+				}
+			}
+			return count;
+		}
 		return this.connectionHandlers.size();
 	}
 
+	/**
+	 * Return a snapshot of the throughput counters of each multiplexed
+	 * connection, or an empty list if multiplexing is not enabled.
+	 * @since 5.0.16
+	 * @see #setMultiplexedConnectionCount
+	 */
+	public List<MultiplexedConnectionStats> getMultiplexedConnectionStats() {
+		List<MultiplexedConnectionStats> result = new ArrayList<>(this.multiplexedConnections.size());
+		for (MultiplexedConnectionHandler handler : this.multiplexedConnections) {
+			result.add(handler.getStats());
+		}
+		return result;
+	}
+
 
 	@Override
 	protected void startInternal() {
@@ -425,11 +526,28 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 		this.stats.incrementConnectCount();
 		this.tcpClient.connect(handler, new FixedIntervalReconnectStrategy(5000));
+
+		for (int i = 0; i < this.multiplexedConnectionCount; i++) {
+			StompHeaderAccessor relayAccessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+			relayAccessor.setAcceptVersion("1.1,1.2");
+			relayAccessor.setLogin(this.clientLogin);
+			relayAccessor.setPasscode(this.clientPasscode);
+			relayAccessor.setHeartbeat(this.systemHeartbeatSendInterval, this.systemHeartbeatReceiveInterval);
+			if (virtualHost != null) {
+				relayAccessor.setHost(virtualHost);
+			}
+			relayAccessor.setSessionId(MULTIPLEXED_SESSION_ID_PREFIX + i);
+			MultiplexedConnectionHandler relayHandler = new MultiplexedConnectionHandler(relayAccessor);
+			this.multiplexedConnections.add(relayHandler);
+			this.stats.incrementConnectCount();
+			this.tcpClient.connect(relayHandler, new FixedIntervalReconnectStrategy(5000));
+		}
 	}
 
 	@Override
 	protected void stopInternal() {
 		publishBrokerUnavailableEvent();
+		this.multiplexedConnections.clear();
 		if (this.tcpClient != null) {
 			try {
 				this.tcpClient.shutdown().get(5000, TimeUnit.MILLISECONDS);
@@ -521,6 +639,13 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			if (getVirtualHost() != null) {
 				stompAccessor.setHost(getVirtualHost());
 			}
+			if (this.multiplexedConnectionCount > 0) {
+				MultiplexedSessionHandler handler = new MultiplexedSessionHandler(sessionId, stompAccessor);
+				this.connectionHandlers.put(sessionId, handler);
+				this.stats.incrementConnectCount();
+				handler.connect(selectMultiplexedConnection());
+				return;
+			}
 			StompConnectionHandler handler = new StompConnectionHandler(sessionId, stompAccessor);
 			this.connectionHandlers.put(sessionId, handler);
 			this.stats.incrementConnectCount();
@@ -550,6 +675,21 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		}
 	}
 
+	/**
+	 * Select the STOMP connected multiplexed connection with the fewest sessions.
+	 */
+	@Nullable
+	private MultiplexedConnectionHandler selectMultiplexedConnection() {
+		MultiplexedConnectionHandler selected = null;
+		for (MultiplexedConnectionHandler handler : this.multiplexedConnections) {
+			if (handler.isStompConnected() &&
+					(selected == null || handler.getSessionCount() < selected.getSessionCount())) {
+				selected = handler;
+			}
+		}
+		return selected;
+	}
+
 	@Override
 	public String toString() {
 		return "StompBrokerRelay[" + getTcpClientInfo() + "]";
@@ -595,6 +735,19 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			return this.tcpConnection;
 		}
 
+		public boolean isStompConnected() {
+			return this.isStompConnected;
+		}
+
+		@Nullable
+		protected Principal getUser() {
+			return this.connectHeaders.getUser();
+		}
+
+		protected StompHeaderAccessor getConnectHeaders() {
+			return this.connectHeaders;
+		}
+
 		@Override
 		public void afterConnected(TcpConnection<byte[]> connection) {
 			if (logger.isDebugEnabled()) {
@@ -638,7 +791,7 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			}
 		}
 
-		private void sendStompErrorFrameToClient(String errorText) {
+		protected void sendStompErrorFrameToClient(String errorText) {
 			if (this.isRemoteClientSession) {
 				StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
 				if (getHeaderInitializer() != null) {
@@ -988,6 +1141,537 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	}
 
 
+	/**
+	 * Shared TCP connection that carries the frames of many client sessions.
+	 */
+	private class MultiplexedConnectionHandler extends StompConnectionHandler {
+
+		/* Client sessions by session id */
+		private final Map<String, MultiplexedSessionHandler> sessions = new ConcurrentHashMap<>();
+
+		/* Client sessions by the subscription id used on the shared connection */
+		private final Map<String, MultiplexedSessionHandler> subscriptions = new ConcurrentHashMap<>();
+
+		/* Client sessions by the receipt used on the shared connection */
+		private final Map<String, MultiplexedSessionHandler> receipts = new ConcurrentHashMap<>();
+
+		private final Semaphore sendPermits = new Semaphore(multiplexedSendLimit);
+
+		private final AtomicLong forwardedFrames = new AtomicLong();
+
+		private final AtomicLong forwardedBytes = new AtomicLong();
+
+		private final AtomicLong receivedFrames = new AtomicLong();
+
+		private final AtomicLong receivedBytes = new AtomicLong();
+
+		private final AtomicLong throttledFrames = new AtomicLong();
+
+		public MultiplexedConnectionHandler(StompHeaderAccessor connectHeaders) {
+			super(connectHeaders.getSessionId(), connectHeaders, false);
+		}
+
+		public int getSessionCount() {
+			return this.sessions.size();
+		}
+
+		public MultiplexedConnectionStats getStats() {
+			return new MultiplexedConnectionStats(getSessionId(), isStompConnected(), this.sessions.size(),
+					this.subscriptions.size(), multiplexedSendLimit - this.sendPermits.availablePermits(),
+					this.forwardedFrames.get(), this.forwardedBytes.get(), this.receivedFrames.get(),
+					this.receivedBytes.get(), this.throttledFrames.get());
+		}
+
+		public void attach(MultiplexedSessionHandler session) {
+			this.sessions.put(session.getSessionId(), session);
+		}
+
+		public void detach(MultiplexedSessionHandler session) {
+			this.sessions.remove(session.getSessionId(), session);
+			this.subscriptions.values().removeIf(candidate -> candidate == session);
+			this.receipts.values().removeIf(candidate -> candidate == session);
+		}
+
+		public void registerSubscription(String relaySubscriptionId, MultiplexedSessionHandler session) {
+			this.subscriptions.put(relaySubscriptionId, session);
+		}
+
+		public void unregisterSubscription(String relaySubscriptionId) {
+			this.subscriptions.remove(relaySubscriptionId);
+		}
+
+		public void registerReceipt(String relayReceipt, MultiplexedSessionHandler session) {
+			this.receipts.put(relayReceipt, session);
+		}
+
+		@Override
+		protected void afterStompConnected(StompHeaderAccessor connectedHeaders) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Multiplexed connection " + getSessionId() + " connected.");
+			}
+			super.afterStompConnected(connectedHeaders);
+		}
+
+		@Override
+		public void handleMessage(Message<byte[]> message) {
+			this.receivedFrames.incrementAndGet();
+			this.receivedBytes.addAndGet(message.getPayload().length);
+			super.handleMessage(message);
+		}
+
+		@Override
+		protected void handleInboundMessage(Message<?> message) {
+			StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+			if (accessor == null) {
+				return;
+			}
+			StompCommand command = accessor.getCommand();
+			if (StompCommand.MESSAGE.equals(command)) {
+				String relaySubscriptionId = accessor.getSubscriptionId();
+				MultiplexedSessionHandler session =
+						(relaySubscriptionId != null ? this.subscriptions.get(relaySubscriptionId) : null);
+				if (session == null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("No client session for subscription " + relaySubscriptionId +
+								" on multiplexed connection " + getSessionId());
+					}
+					return;
+				}
+				accessor.setSubscriptionId(session.toClientId(relaySubscriptionId));
+				session.handleInboundMessage(message);
+			}
+			else if (StompCommand.RECEIPT.equals(command)) {
+				String relayReceipt = accessor.getReceiptId();
+				MultiplexedSessionHandler session =
+						(relayReceipt != null ? this.receipts.remove(relayReceipt) : null);
+				if (session != null) {
+					accessor.setReceiptId(session.toClientId(relayReceipt));
+					session.handleInboundMessage(message);
+				}
+			}
+			else if (StompCommand.ERROR.equals(command)) {
+				// Only end the client session the error concerns: if the broker closes
+				// the shared connection, the other sessions are ended on connection loss
+				MultiplexedSessionHandler session = findErrorSession(accessor);
+				if (session == null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("No client session for ERROR on multiplexed connection " + getSessionId());
+					}
+					return;
+				}
+				String errorText = accessor.getMessage();
+				session.sendStompErrorFrameToClient(errorText != null ? errorText : "Error from broker.");
+				session.clearConnection();
+			}
+		}
+
+		@Nullable
+		private MultiplexedSessionHandler findErrorSession(StompHeaderAccessor accessor) {
+			String relayReceipt = accessor.getReceiptId();
+			if (relayReceipt != null) {
+				MultiplexedSessionHandler session = this.receipts.remove(relayReceipt);
+				if (session != null) {
+					return session;
+				}
+			}
+			String relaySubscriptionId = accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+			return (relaySubscriptionId != null ? this.subscriptions.get(relaySubscriptionId) : null);
+		}
+
+		@Override
+		protected void handleTcpConnectionFailure(String error, @Nullable Throwable ex) {
+			super.handleTcpConnectionFailure(error, ex);
+			failSessions(error);
+		}
+
+		@Override
+		public void afterConnectionClosed() {
+			super.afterConnectionClosed();
+			failSessions("Connection to broker closed.");
+		}
+
+		private void failSessions(String errorText) {
+			for (MultiplexedSessionHandler session : this.sessions.values()) {
+				session.sendStompErrorFrameToClient(errorText);
+				session.clearConnection();
+			}
+		}
+
+		@Override
+		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
+			if (!this.sendPermits.tryAcquire()) {
+				this.throttledFrames.incrementAndGet();
+				throw new MessageDeliveryException(message, "Send limit of " + multiplexedSendLimit +
+						" pending frames exceeded on multiplexed connection " + getSessionId());
+			}
+			ListenableFuture<Void> future;
+			try {
+				future = super.forward(message, accessor);
+			}
+			catch (RuntimeException ex) {
+				this.sendPermits.release();
+				throw ex;
+			}
+			this.forwardedFrames.incrementAndGet();
+			Object payload = message.getPayload();
+			if (payload instanceof byte[]) {
+				this.forwardedBytes.addAndGet(((byte[]) payload).length);
+			}
+			future.addCallback(result -> this.sendPermits.release(), ex -> this.sendPermits.release());
+			return future;
+		}
+
+		@Override
+		public String toString() {
+			return "MultiplexedConnectionHandler[sessionId=" + getSessionId() + "]";
+		}
+	}
+
+
+	/**
+	 * Client session whose frames are carried over a shared connection.
+	 */
+	private class MultiplexedSessionHandler extends StompConnectionHandler {
+
+		@Nullable
+		private volatile MultiplexedConnectionHandler connection;
+
+		/* Client subscription ids, for unsubscribing on the broker after a DISCONNECT */
+		private final Set<String> subscriptionIds = ConcurrentHashMap.newKeySet(4);
+
+		/* Length-prefixed session id, so that relay ids of different sessions cannot collide */
+		private final String relayIdPrefix;
+
+		public MultiplexedSessionHandler(String sessionId, StompHeaderAccessor connectHeaders) {
+			super(sessionId, connectHeaders, true);
+			this.relayIdPrefix = sessionId.length() + ":" + sessionId + "-";
+		}
+
+		/**
+		 * Attach to the given shared connection and confirm the CONNECT to the client.
+		 */
+		public void connect(@Nullable MultiplexedConnectionHandler connection) {
+			if (connection == null || !connection.isStompConnected()) {
+				sendStompErrorFrameToClient("Broker not available.");
+				clearConnection();
+				return;
+			}
+			this.connection = connection;
+			connection.attach(this);
+			afterStompConnected(getConnectHeaders());
+
+			StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+			if (getHeaderInitializer() != null) {
+				getHeaderInitializer().initHeaders(accessor);
+			}
+			Set<String> acceptVersion = getConnectHeaders().getAcceptVersion();
+			if (acceptVersion.contains("1.2")) {
+				accessor.setVersion("1.2");
+			}
+			else if (acceptVersion.contains("1.1")) {
+				accessor.setVersion("1.1");
+			}
+			accessor.setHeartbeat(0, 0);
+			accessor.setSessionId(getSessionId());
+			Principal user = getUser();
+			if (user != null) {
+				accessor.setUser(user);
+			}
+			handleInboundMessage(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()));
+		}
+
+		String toRelayId(String clientId) {
+			return this.relayIdPrefix + clientId;
+		}
+
+		String toClientId(String relayId) {
+			return relayId.substring(this.relayIdPrefix.length());
+		}
+
+		@Override
+		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
+			MultiplexedConnectionHandler connection = this.connection;
+			if (connection == null || !isStompConnected()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Multiplexed session closed already, ignoring " +
+							accessor.getShortLogMessage(message.getPayload()));
+				}
+				return EMPTY_TASK;
+			}
+
+			if (accessor.isHeartbeat()) {
+				// Heartbeats are between the relay and the broker only
+				return EMPTY_TASK;
+			}
+			StompCommand command = accessor.getCommand();
+			if (StompCommand.DISCONNECT.equals(command)) {
+				return disconnect(connection, accessor);
+			}
+
+			StompHeaderAccessor relayAccessor = StompHeaderAccessor.wrap(message);
+			String subscriptionId = relayAccessor.getSubscriptionId();
+			if (subscriptionId != null &&
+					(StompCommand.SUBSCRIBE.equals(command) || StompCommand.UNSUBSCRIBE.equals(command))) {
+				relayAccessor.setSubscriptionId(toRelayId(subscriptionId));
+			}
+			else if (StompCommand.ACK.equals(command) || StompCommand.NACK.equals(command)) {
+				// STOMP 1.1 acknowledgements refer to the subscription, 1.2 ones to a broker issued "ack" id
+				String ackSubscriptionId = relayAccessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+				if (ackSubscriptionId != null) {
+					relayAccessor.setNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, toRelayId(ackSubscriptionId));
+				}
+			}
+			String receipt = relayAccessor.getReceipt();
+			if (receipt != null) {
+				relayAccessor.setReceipt(toRelayId(receipt));
+				connection.registerReceipt(relayAccessor.getReceipt(), this);
+			}
+			String transaction = relayAccessor.getFirstNativeHeader(STOMP_TRANSACTION_HEADER);
+			if (transaction != null) {
+				relayAccessor.setNativeHeader(STOMP_TRANSACTION_HEADER, toRelayId(transaction));
+			}
+			if (StompCommand.SUBSCRIBE.equals(command) && subscriptionId != null) {
+				this.subscriptionIds.add(subscriptionId);
+				connection.registerSubscription(toRelayId(subscriptionId), this);
+			}
+
+			Message<?> relayMessage = MessageBuilder.createMessage(message.getPayload(), relayAccessor.getMessageHeaders());
+			ListenableFuture<Void> future;
+			try {
+				future = connection.forward(relayMessage, relayAccessor);
+			}
+			catch (RuntimeException ex) {
+				handleTcpConnectionFailure("Failed to forward " + accessor.getShortLogMessage(message.getPayload()) +
+						": " + ex.getMessage(), ex);
+				return EMPTY_TASK;
+			}
+			if (StompCommand.UNSUBSCRIBE.equals(command) && subscriptionId != null) {
+				this.subscriptionIds.remove(subscriptionId);
+				connection.unregisterSubscription(toRelayId(subscriptionId));
+			}
+			return future;
+		}
+
+		/**
+		 * Unsubscribe on the broker instead of forwarding the DISCONNECT, which
+		 * would end the shared connection, and confirm a requested receipt once
+		 * the preceding frames have been written.
+		 */
+		private ListenableFuture<Void> disconnect(MultiplexedConnectionHandler connection, StompHeaderAccessor accessor) {
+			ListenableFuture<Void> lastFuture = unsubscribeAll(connection);
+			String receipt = accessor.getReceipt();
+			if (receipt == null) {
+				clearConnection();
+				return lastFuture;
+			}
+			lastFuture.addCallback(result -> sendReceipt(receipt), ex -> clearConnection());
+			return lastFuture;
+		}
+
+		/**
+		 * Remove the subscriptions of this session on the broker.
+		 */
+		private ListenableFuture<Void> unsubscribeAll(MultiplexedConnectionHandler connection) {
+			ListenableFuture<Void> lastFuture = EMPTY_TASK;
+			for (String subscriptionId : this.subscriptionIds) {
+				this.subscriptionIds.remove(subscriptionId);
+				connection.unregisterSubscription(toRelayId(subscriptionId));
+				StompHeaderAccessor unsubscribe = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+				unsubscribe.setSubscriptionId(toRelayId(subscriptionId));
+				unsubscribe.setSessionId(connection.getSessionId());
+				try {
+					lastFuture = connection.forward(
+							MessageBuilder.createMessage(EMPTY_PAYLOAD, unsubscribe.getMessageHeaders()), unsubscribe);
+				}
+				catch (RuntimeException ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to unsubscribe " + subscriptionId + " in session " + getSessionId(), ex);
+					}
+				}
+			}
+			return lastFuture;
+		}
+
+		private void sendReceipt(String receipt) {
+			StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.RECEIPT);
+			if (getHeaderInitializer() != null) {
+				getHeaderInitializer().initHeaders(accessor);
+			}
+			accessor.setReceiptId(receipt);
+			accessor.setSessionId(getSessionId());
+			Principal user = getUser();
+			if (user != null) {
+				accessor.setUser(user);
+			}
+			try {
+				handleInboundMessage(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()));
+			}
+			finally {
+				clearConnection();
+			}
+		}
+
+		@Override
+		protected void handleInboundMessage(Message<?> message) {
+			StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+			if (accessor != null && accessor.isMutable()) {
+				accessor.setSessionId(getSessionId());
+				Principal user = getUser();
+				if (user != null) {
+					accessor.setUser(user);
+				}
+			}
+			super.handleInboundMessage(message);
+		}
+
+		@Override
+		public void clearConnection() {
+			super.clearConnection();
+			MultiplexedConnectionHandler connection = this.connection;
+			this.connection = null;
+			if (connection != null) {
+				if (connection.isStompConnected()) {
+					// Ended while the shared connection stays open, e.g. after an ERROR
+					unsubscribeAll(connection);
+				}
+				connection.detach(this);
+			}
+			this.subscriptionIds.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "MultiplexedSessionHandler[sessionId=" + getSessionId() + "]";
+		}
+	}
+
+
+	/**
+	 * Snapshot of the state and throughput counters of a multiplexed connection.
+	 * @since 5.0.16
+	 * @see #getMultiplexedConnectionStats()
+	 */
+	public static class MultiplexedConnectionStats {
+
+		private final String id;
+
+		private final boolean connected;
+
+		private final int sessionCount;
+
+		private final int subscriptionCount;
+
+		private final int pendingFrames;
+
+		private final long forwardedFrames;
+
+		private final long forwardedBytes;
+
+		private final long receivedFrames;
+
+		private final long receivedBytes;
+
+		private final long throttledFrames;
+
+		MultiplexedConnectionStats(String id, boolean connected, int sessionCount, int subscriptionCount,
+				int pendingFrames, long forwardedFrames, long forwardedBytes, long receivedFrames,
+				long receivedBytes, long throttledFrames) {
+
+			this.id = id;
+			this.connected = connected;
+			this.sessionCount = sessionCount;
+			this.subscriptionCount = subscriptionCount;
+			this.pendingFrames = pendingFrames;
+			this.forwardedFrames = forwardedFrames;
+			this.forwardedBytes = forwardedBytes;
+			this.receivedFrames = receivedFrames;
+			this.receivedBytes = receivedBytes;
+			this.throttledFrames = throttledFrames;
+		}
+
+		/**
+		 * The id of the connection, also used as its session id.
+		 */
+		public String getId() {
+			return this.id;
+		}
+
+		/**
+		 * Whether the connection has received a STOMP CONNECTED frame.
+		 */
+		public boolean isConnected() {
+			return this.connected;
+		}
+
+		/**
+		 * The number of client sessions carried over the connection.
+		 */
+		public int getSessionCount() {
+			return this.sessionCount;
+		}
+
+		/**
+		 * The number of client subscriptions registered on the connection.
+		 */
+		public int getSubscriptionCount() {
+			return this.subscriptionCount;
+		}
+
+		/**
+		 * The number of frames written but not yet flushed.
+		 */
+		public int getPendingFrames() {
+			return this.pendingFrames;
+		}
+
+		/**
+		 * The number of frames forwarded to the broker.
+		 */
+		public long getForwardedFrames() {
+			return this.forwardedFrames;
+		}
+
+		/**
+		 * The number of payload bytes forwarded to the broker.
+		 */
+		public long getForwardedBytes() {
+			return this.forwardedBytes;
+		}
+
+		/**
+		 * The number of frames received from the broker.
+		 */
+		public long getReceivedFrames() {
+			return this.receivedFrames;
+		}
+
+		/**
+		 * The number of payload bytes received from the broker.
+		 */
+		public long getReceivedBytes() {
+			return this.receivedBytes;
+		}
+
+		/**
+		 * The number of frames rejected with a
+		 * {@link org.springframework.messaging.MessageDeliveryException}
+		 * and dropped because the send limit was exceeded.
+		 */
+		public long getThrottledFrames() {
+			return this.throttledFrames;
+		}
+
+		@Override
+		public String toString() {
+			return this.id + "[" + (this.connected ? "connected" : "not connected") + ", " +
+					this.sessionCount + " sessions, " + this.subscriptionCount + " subscriptions, " +
+					this.pendingFrames + " pending, " + this.forwardedFrames + " frames (" +
+					this.forwardedBytes + " bytes) forwarded, " + this.receivedFrames + " frames (" +
+					this.receivedBytes + " bytes) received, " + this.throttledFrames + " throttled]";
+		}
+	}
+
+
 	private static class VoidCallable implements Callable<Void> {
 
 		@Override
@@ -1021,7 +1705,8 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			return (connectionHandlers.size() + " sessions, " + getTcpClientInfo() +
 					(isBrokerAvailable() ? " (available)" : " (not available)") +
 					", processed CONNECT(" + this.connect.get() + ")-CONNECTED(" +
-					this.connected.get() + ")-DISCONNECT(" + this.disconnect.get() + ")");
+					this.connected.get() + ")-DISCONNECT(" + this.disconnect.get() + ")" +
+					(multiplexedConnections.isEmpty() ? "" : ", multiplexed " + getMultiplexedConnectionStats()));
 		}
 	}
 
@@ -157,6 +157,17 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 		return result;
 	}
 
+	@Override
+	public Set<SimpSubscription> findSubscriptionsByDestination(String destination) {
+		Set<SimpSubscription> result = new HashSet<>();
+		for (UserRegistrySnapshot registry : this.remoteRegistries.values()) {
+			result.addAll(registry.findSubscriptions(
+					subscription -> destination.equals(subscription.getDestination())));
+		}
+		result.addAll(this.localRegistry.findSubscriptionsByDestination(destination));
+		return result;
+	}
+
 
 	// Internal methods for UserRegistryMessageHandler to manage broadcasts
 
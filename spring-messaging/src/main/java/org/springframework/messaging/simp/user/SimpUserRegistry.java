@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -57,4 +57,17 @@ public interface SimpUserRegistry {
 	 */
 	Set<SimpSubscription> findSubscriptions(SimpSubscriptionMatcher matcher);
 
+	/**
+	 * Find subscriptions to the given destination.
+	 * <p>The default implementation delegates to
+	 * {@link #findSubscriptions(SimpSubscriptionMatcher)}; registries that keep
+	 * their subscriptions indexed by destination may provide a faster lookup.
+	 * @param destination the destination to find subscriptions for
+	 * @return a set of matching subscriptions, or an empty set if none
+	 * @since 5.0.16
+	 */
+	default Set<SimpSubscription> findSubscriptionsByDestination(String destination) {
+		return findSubscriptions(subscription -> destination.equals(subscription.getDestination()));
+	}
+
 }
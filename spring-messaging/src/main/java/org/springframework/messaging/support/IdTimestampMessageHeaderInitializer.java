@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,8 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 
 	private boolean enableTimestamp;
 
+	private boolean lazyIdGeneration;
+
 
 	/**
 	 * Configure the IdGenerator strategy to initialize {@code MessageHeaderAccessor}
@@ -82,6 +84,27 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 		return this.enableTimestamp;
 	}
 
+	/**
+	 * Whether to defer the generation of the
+	 * {@link org.springframework.messaging.MessageHeaders#ID} header until it
+	 * is first accessed, e.g. when a message passes through several
+	 * {@code MessageHeaderAccessor} instances but only the last one's ID is used.
+	 * <p>By default this property is set to false. It has no effect if
+	 * {@link #setDisableIdGeneration() ID generation is disabled}.
+	 * @since 5.0.16
+	 */
+	public void setLazyIdGeneration(boolean lazyIdGeneration) {
+		this.lazyIdGeneration = lazyIdGeneration;
+	}
+
+	/**
+	 * Return whether the ID header is generated lazily.
+	 * @since 5.0.16
+	 */
+	public boolean isLazyIdGeneration() {
+		return this.lazyIdGeneration;
+	}
+
 
 	@Override
 	public void initHeaders(MessageHeaderAccessor headerAccessor) {
@@ -90,6 +113,7 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 			headerAccessor.setIdGenerator(idGenerator);
 		}
 		headerAccessor.setEnableTimestamp(isEnableTimestamp());
+		headerAccessor.setLazyIdGeneration(isLazyIdGeneration() && idGenerator != ID_VALUE_NONE_GENERATOR);
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -133,6 +133,8 @@ public class MessageHeaderAccessor {
 	@Nullable
 	private IdGenerator idGenerator;
 
+	private boolean lazyIdGeneration = false;
+
 
 	/**
 	 * A constructor to create new headers.
@@ -239,6 +241,18 @@ public class MessageHeaderAccessor {
 		this.idGenerator = idGenerator;
 	}
 
+	/**
+	 * A package-private mechanism to defer the generation of the
+	 * {@link org.springframework.messaging.MessageHeaders#ID} header
+	 * until it is first accessed.
+	 * <p>By default, this property is set to {@code false}.
+	 * @since 5.0.16
+	 * @see IdTimestampMessageHeaderInitializer
+	 */
+	void setLazyIdGeneration(boolean lazyIdGeneration) {
+		this.lazyIdGeneration = lazyIdGeneration;
+	}
+
 
 	// Accessors for the resulting MessageHeaders
 
@@ -645,9 +659,14 @@ public class MessageHeaderAccessor {
 			if (getId() == null) {
 				IdGenerator idGenerator = (MessageHeaderAccessor.this.idGenerator != null ?
 						MessageHeaderAccessor.this.idGenerator : MessageHeaders.getIdGenerator());
-				UUID id = idGenerator.generateId();
-				if (id != MessageHeaders.ID_VALUE_NONE) {
-					getRawHeaders().put(ID, id);
+				if (MessageHeaderAccessor.this.lazyIdGeneration) {
+					setLazyId(idGenerator);
+				}
+				else {
+					UUID id = idGenerator.generateId();
+					if (id != MessageHeaders.ID_VALUE_NONE) {
+						getRawHeaders().put(ID, id);
+					}
 				}
 			}
 
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompactHeaderMap}.
+ *
+ * @author agent
+ */
+public class CompactHeaderMapTests {
+
+	@Test
+	public void putGetRemove() {
+		CompactHeaderMap map = new CompactHeaderMap();
+		assertNull(map.put("foo", "bar"));
+		assertEquals("bar", map.put("foo", "baz"));
+		assertEquals("baz", map.get("foo"));
+		assertEquals(1, map.size());
+		assertTrue(map.containsKey("foo"));
+		assertFalse(map.containsKey("bar"));
+		assertNull(map.get(null));
+
+		assertEquals("baz", map.remove("foo"));
+		assertNull(map.remove("foo"));
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey("foo"));
+	}
+
+	@Test
+	public void nullKeyAndValue() {
+		CompactHeaderMap map = new CompactHeaderMap();
+		assertNull(map.put(null, "foo"));
+		assertNull(map.put("bar", null));
+		assertEquals(2, map.size());
+		assertTrue(map.containsKey(null));
+		assertTrue(map.containsKey("bar"));
+		assertEquals("foo", map.get(null));
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put(null, "foo");
+		expected.put("bar", null);
+		assertEquals(expected, map);
+		assertEquals(expected.hashCode(), map.hashCode());
+		assertEquals(expected, new CompactHeaderMap(map));
+		assertEquals(expected, new CompactHeaderMap(expected));
+
+		assertEquals("foo", map.remove(null));
+		assertFalse(map.containsKey(null));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void sameContentAsHashMap() {
+		Map<String, Object> expected = new HashMap<>();
+		CompactHeaderMap map = new CompactHeaderMap();
+		for (int i = 0; i < 500; i++) {
+			expected.put("header" + i, i);
+			map.put("header" + i, i);
+			if (i % 3 == 0) {
+				expected.remove("header" + (i / 2));
+				map.remove("header" + (i / 2));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		assertEquals(expected.hashCode(), map.hashCode());
+		assertEquals(expected, new HashMap<>(map));
+	}
+
+	@Test
+	public void iteratorRemove() {
+		CompactHeaderMap map = new CompactHeaderMap();
+		for (int i = 0; i < 20; i++) {
+			map.put("header" + i, i);
+		}
+		Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			if (((Integer) iterator.next().getValue()) % 2 == 0) {
+				iterator.remove();
+			}
+		}
+		assertEquals(10, map.size());
+		map.keySet().remove("header1");
+		assertEquals(9, map.size());
+		map.values().forEach(value -> assertTrue(((Integer) value) % 2 == 1));
+	}
+
+	@Test
+	public void copyIsIndependentOfSource() {
+		CompactHeaderMap source = new CompactHeaderMap();
+		source.put("foo", "bar");
+		source.put("bar", "baz");
+
+		CompactHeaderMap copy = new CompactHeaderMap(source);
+		assertEquals(source, copy);
+
+		copy.put("foo", "qux");
+		copy.remove("bar");
+		assertEquals("bar", source.get("foo"));
+		assertEquals("baz", source.get("bar"));
+		assertEquals("qux", copy.get("foo"));
+		assertFalse(copy.containsKey("bar"));
+
+		source.put("foo", "quux");
+		assertEquals("qux", copy.get("foo"));
+
+		CompactHeaderMap copyOfCopy = new CompactHeaderMap(copy);
+		copyOfCopy.clear();
+		assertEquals(1, copy.size());
+	}
+
+	@Test
+	public void lazyIdGeneratedOnce() {
+		AtomicInteger count = new AtomicInteger();
+		CompactHeaderMap map = new CompactHeaderMap();
+		map.putLazyId(MessageHeaders.ID, () -> new UUID(0L, count.incrementAndGet()));
+		assertEquals(1, map.size());
+		assertTrue(map.containsKey(MessageHeaders.ID));
+		assertEquals(0, count.get());
+
+		CompactHeaderMap copy = new CompactHeaderMap(map);
+		assertEquals(new UUID(0L, 1L), copy.get(MessageHeaders.ID));
+		assertEquals(new UUID(0L, 1L), map.get(MessageHeaders.ID));
+		assertEquals(new UUID(0L, 1L), map.entrySet().iterator().next().getValue());
+		assertEquals("{id=00000000-0000-0000-0000-000000000001}", map.toString());
+		assertEquals(1, count.get());
+	}
+
+}
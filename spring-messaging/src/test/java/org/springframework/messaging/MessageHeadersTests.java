@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -183,6 +183,41 @@ public class MessageHeadersTests {
 		assertSame(address, input.get("address"));
 	}
 
+	@Test
+	public void copyIsIndependentOfSource() {
+		Map<String, Object> map = new HashMap<>();
+		map.put("name", "joe");
+		MessageHeaders source = new MessageHeaders(map);
+		Map<String, Object> copy = new HashMap<>(source);
+		copy.put("name", "jane");
+		MessageHeaders target = new MessageHeaders(copy);
+		MessageHeaders sameContent = new MessageHeaders(source);
+
+		assertEquals("joe", source.get("name"));
+		assertEquals("jane", target.get("name"));
+		assertEquals("joe", sameContent.get("name"));
+		assertNotEquals(source.getId(), sameContent.getId());
+		assertEquals(3, sameContent.size());
+	}
+
+	@Test
+	public void subclassWithLazyId() {
+		final AtomicLong id = new AtomicLong();
+		@SuppressWarnings("serial")
+		class MyMH extends MessageHeaders {
+			public MyMH() {
+				super(null, ID_VALUE_NONE, -1L);
+				setLazyId(() -> new UUID(0, id.incrementAndGet()));
+			}
+		}
+		MessageHeaders headers = new MyMH();
+		assertEquals(0, id.get());
+		assertEquals(1, headers.size());
+		assertEquals("00000000-0000-0000-0000-000000000001", headers.getId().toString());
+		assertEquals(headers.getId(), headers.get(MessageHeaders.ID));
+		assertEquals(1, id.get());
+	}
+
 	@Test
 	public void subclassWithCustomIdAndNoTimestamp() {
 		final AtomicLong id = new AtomicLong();
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.StubMessageChannel;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler.MultiplexedConnectionStats;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnection;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+import org.springframework.messaging.tcp.TcpOperations;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link StompBrokerRelayMessageHandler} with client sessions
+ * multiplexed over shared connections to an in-process STOMP broker stand-in.
+ *
+ * @author agent
+ */
+public class StompBrokerRelayMessageHandlerMultiplexingTests {
+
+	private StompBrokerRelayMessageHandler brokerRelay;
+
+	private StubMessageChannel outboundChannel;
+
+	private InProcessStompBroker broker;
+
+
+	@Before
+	public void setup() {
+		this.outboundChannel = new StubMessageChannel();
+		this.brokerRelay = new StompBrokerRelayMessageHandler(new StubMessageChannel(),
+				this.outboundChannel, new StubMessageChannel(), Collections.singletonList("/topic"));
+		this.broker = new InProcessStompBroker();
+		this.brokerRelay.setTcpClient(this.broker);
+	}
+
+
+	@Test
+	public void sessionsShareConnections() {
+		this.brokerRelay.setMultiplexedConnectionCount(2);
+		this.brokerRelay.start();
+
+		for (int i = 0; i < 5; i++) {
+			this.brokerRelay.handleMessage(connectMessage("sess" + i));
+		}
+
+		assertEquals(3, this.broker.connections.size());
+		assertEquals(3, this.brokerRelay.getConnectionCount());
+		assertEquals(5, this.outboundChannel.getMessages().size());
+		for (int i = 0; i < 5; i++) {
+			StompHeaderAccessor accessor = outboundHeaders(i);
+			assertEquals(StompCommand.CONNECTED, accessor.getCommand());
+			assertEquals("sess" + i, accessor.getSessionId());
+			assertEquals("1.2", accessor.getVersion());
+		}
+
+		List<MultiplexedConnectionStats> stats = this.brokerRelay.getMultiplexedConnectionStats();
+		assertEquals(2, stats.size());
+		assertTrue(stats.get(0).isConnected());
+		assertEquals(3, stats.get(0).getSessionCount());
+		assertEquals(2, stats.get(1).getSessionCount());
+	}
+
+	@Test
+	public void messagesRoutedToSubscribedSession() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.brokerRelay.handleMessage(connectMessage("sess2"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "0", "/topic/foo"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess2", "0", "/topic/bar"));
+		this.outboundChannel.getMessages().clear();
+
+		this.brokerRelay.handleMessage(sendMessage("sess2", "/topic/foo", "hello"));
+
+		assertEquals(Collections.singleton("/topic/foo"), this.broker.subscriptions.get("5:sess1-0"));
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		StompHeaderAccessor accessor = outboundHeaders(0);
+		assertEquals(StompCommand.MESSAGE, accessor.getCommand());
+		assertEquals("sess1", accessor.getSessionId());
+		assertEquals("0", accessor.getSubscriptionId());
+		assertEquals("0", accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER));
+		assertEquals("hello", new String((byte[]) this.outboundChannel.getMessages().get(0).getPayload(),
+				StandardCharsets.UTF_8));
+
+		MultiplexedConnectionStats stats = this.brokerRelay.getMultiplexedConnectionStats().get(0);
+		assertEquals(2, stats.getSessionCount());
+		assertEquals(2, stats.getSubscriptionCount());
+		assertEquals(3, stats.getForwardedFrames());
+		assertEquals(5, stats.getForwardedBytes());
+		assertEquals(2, stats.getReceivedFrames());
+		assertEquals(0, stats.getPendingFrames());
+	}
+
+	@Test
+	public void collidingSessionAndSubscriptionIdsKeptApart() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("a"));
+		this.brokerRelay.handleMessage(connectMessage("a-b"));
+		this.brokerRelay.handleMessage(subscribeMessage("a", "b-c", "/topic/foo"));
+		this.brokerRelay.handleMessage(subscribeMessage("a-b", "c", "/topic/bar"));
+		this.outboundChannel.getMessages().clear();
+
+		this.brokerRelay.handleMessage(sendMessage("a-b", "/topic/foo", "foo"));
+		this.brokerRelay.handleMessage(sendMessage("a", "/topic/bar", "bar"));
+
+		assertEquals(2, this.broker.subscriptions.size());
+		assertEquals(2, this.outboundChannel.getMessages().size());
+		StompHeaderAccessor first = outboundHeaders(0);
+		assertEquals("a", first.getSessionId());
+		assertEquals("b-c", first.getSubscriptionId());
+		StompHeaderAccessor second = outboundHeaders(1);
+		assertEquals("a-b", second.getSessionId());
+		assertEquals("c", second.getSubscriptionId());
+	}
+
+	@Test
+	public void receiptRoutedToSession() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.brokerRelay.handleMessage(connectMessage("sess2"));
+		this.outboundChannel.getMessages().clear();
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+		accessor.setSessionId("sess2");
+		accessor.setDestination("/topic/foo");
+		accessor.setReceipt("r1");
+		this.brokerRelay.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		StompHeaderAccessor receipt = outboundHeaders(0);
+		assertEquals(StompCommand.RECEIPT, receipt.getCommand());
+		assertEquals("sess2", receipt.getSessionId());
+		assertEquals("r1", receipt.getReceiptId());
+	}
+
+	@Test
+	public void disconnectUnsubscribesAndKeepsConnection() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "0", "/topic/foo"));
+		this.outboundChannel.getMessages().clear();
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+		accessor.setSessionId("sess1");
+		accessor.setReceipt("r1");
+		this.brokerRelay.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+		assertTrue(this.broker.subscriptions.isEmpty());
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		assertEquals(StompCommand.RECEIPT, outboundHeaders(0).getCommand());
+		assertEquals("r1", outboundHeaders(0).getReceiptId());
+
+		List<StompCommand> commands = this.broker.connections.get(1).received.stream()
+				.map(message -> StompHeaderAccessor.wrap(message).getCommand()).collect(Collectors.toList());
+		assertFalse(commands.contains(StompCommand.DISCONNECT));
+		assertFalse(this.broker.connections.get(1).closed);
+		assertEquals(0, this.brokerRelay.getMultiplexedConnectionStats().get(0).getSessionCount());
+
+		this.brokerRelay.handleMessage(connectMessage("sess2"));
+		assertEquals(StompCommand.CONNECTED, outboundHeaders(1).getCommand());
+		assertEquals(2, this.brokerRelay.getConnectionCount());
+	}
+
+	@Test
+	public void ackSubscriptionMappedToRelayId() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "0", "/topic/foo"));
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ACK);
+		accessor.setSessionId("sess1");
+		accessor.setNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, "0");
+		accessor.setNativeHeader(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, "m1");
+		this.brokerRelay.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+		List<Message<byte[]>> received = this.broker.connections.get(1).received;
+		StompHeaderAccessor ack = StompHeaderAccessor.wrap(received.get(received.size() - 1));
+		assertEquals(StompCommand.ACK, ack.getCommand());
+		assertEquals("5:sess1-0", ack.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER));
+		assertEquals("m1", ack.getFirstNativeHeader(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER));
+	}
+
+	@Test
+	public void brokerErrorEndsConcernedSessionOnly() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.brokerRelay.handleMessage(connectMessage("sess2"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "0", "/topic/foo"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess2", "0", "/topic/foo"));
+		this.outboundChannel.getMessages().clear();
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+		accessor.setMessage("Boom");
+		accessor.setNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, "5:sess1-0");
+		this.broker.connections.get(1).deliver(accessor, new byte[0]);
+
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		assertEquals(StompCommand.ERROR, outboundHeaders(0).getCommand());
+		assertEquals("sess1", outboundHeaders(0).getSessionId());
+		assertEquals("Boom", outboundHeaders(0).getMessage());
+		assertEquals(Collections.singleton("5:sess2-0"), this.broker.subscriptions.keySet());
+		assertEquals(1, this.brokerRelay.getMultiplexedConnectionStats().get(0).getSessionCount());
+
+		accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+		accessor.setMessage("Unrelated");
+		this.broker.connections.get(1).deliver(accessor, new byte[0]);
+		assertEquals(1, this.outboundChannel.getMessages().size());
+
+		this.outboundChannel.getMessages().clear();
+		this.brokerRelay.handleMessage(sendMessage("sess1", "/topic/foo", "hello"));
+		assertTrue(this.outboundChannel.getMessages().isEmpty());
+		this.brokerRelay.handleMessage(sendMessage("sess2", "/topic/foo", "hello"));
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		assertEquals("sess2", outboundHeaders(0).getSessionId());
+	}
+
+	@Test
+	public void sendLimitExceededEndsSessionWithoutBlocking() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.setMultiplexedSendLimit(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.outboundChannel.getMessages().clear();
+		this.broker.holdSends = true;
+
+		this.brokerRelay.handleMessage(sendMessage("sess1", "/topic/foo", "one"));
+		assertTrue(this.outboundChannel.getMessages().isEmpty());
+		this.brokerRelay.handleMessage(sendMessage("sess1", "/topic/foo", "two"));
+
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		assertEquals(StompCommand.ERROR, outboundHeaders(0).getCommand());
+		MultiplexedConnectionStats stats = this.brokerRelay.getMultiplexedConnectionStats().get(0);
+		assertEquals(1, stats.getThrottledFrames());
+		assertEquals(1, stats.getPendingFrames());
+		assertEquals(0, stats.getSessionCount());
+	}
+
+	@Test
+	public void connectionLossEndsAllSessions() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+		this.brokerRelay.handleMessage(connectMessage("sess2"));
+		this.outboundChannel.getMessages().clear();
+
+		this.broker.connections.get(1).handler.afterConnectionClosed();
+
+		assertEquals(2, this.outboundChannel.getMessages().size());
+		for (int i = 0; i < 2; i++) {
+			assertEquals(StompCommand.ERROR, outboundHeaders(i).getCommand());
+		}
+		assertEquals(0, this.brokerRelay.getMultiplexedConnectionStats().get(0).getSessionCount());
+		assertEquals(1, this.brokerRelay.getConnectionCount());
+	}
+
+	@Test
+	public void brokerNotAvailable() {
+		this.broker.connectedLimit = 1;
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1"));
+
+		assertEquals(1, this.outboundChannel.getMessages().size());
+		StompHeaderAccessor accessor = outboundHeaders(0);
+		assertEquals(StompCommand.ERROR, accessor.getCommand());
+		assertEquals("sess1", accessor.getSessionId());
+		assertFalse(this.brokerRelay.getMultiplexedConnectionStats().get(0).isConnected());
+	}
+
+
+	private StompHeaderAccessor outboundHeaders(int index) {
+		Message<?> message = this.outboundChannel.getMessages().get(index);
+		StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+		assertNotNull(accessor);
+		return accessor;
+	}
+
+	private static Message<byte[]> connectMessage(String sessionId) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+		accessor.setAcceptVersion("1.1,1.2");
+		accessor.setSessionId(sessionId);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> sendMessage(String sessionId, String destination, String payload) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+		accessor.setSessionId(sessionId);
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+	}
+
+	private static ListenableFutureTask<Void> getVoidFuture() {
+		ListenableFutureTask<Void> futureTask = new ListenableFutureTask<>(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				return null;
+			}
+		});
+		futureTask.run();
+		return futureTask;
+	}
+
+
+	/**
+	 * Minimal STOMP broker that answers CONNECT and receipts, and delivers
+	 * SEND frames as MESSAGE frames to subscriptions on any of its connections.
+	 */
+	private static class InProcessStompBroker implements TcpOperations<byte[]> {
+
+		private final List<BrokerConnection> connections = new CopyOnWriteArrayList<>();
+
+		/* Destinations by subscription id, subscription ids are assumed unique */
+		private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+
+		private final Map<String, BrokerConnection> subscriptionConnections = new ConcurrentHashMap<>();
+
+		/* How many connections to send a CONNECTED frame to */
+		private volatile int connectedLimit = Integer.MAX_VALUE;
+
+		/* Whether to leave the futures of sent frames other than CONNECT pending */
+		private volatile boolean holdSends;
+
+		@Override
+		public ListenableFuture<Void> connect(TcpConnectionHandler<byte[]> handler) {
+			BrokerConnection connection = new BrokerConnection(handler);
+			this.connections.add(connection);
+			handler.afterConnected(connection);
+			return getVoidFuture();
+		}
+
+		@Override
+		public ListenableFuture<Void> connect(TcpConnectionHandler<byte[]> handler, ReconnectStrategy strategy) {
+			return connect(handler);
+		}
+
+		@Override
+		public ListenableFuture<Void> shutdown() {
+			return getVoidFuture();
+		}
+
+
+		private class BrokerConnection implements TcpConnection<byte[]> {
+
+			private final TcpConnectionHandler<byte[]> handler;
+
+			private final List<Message<byte[]>> received = new ArrayList<>();
+
+			private volatile boolean closed;
+
+			BrokerConnection(TcpConnectionHandler<byte[]> handler) {
+				this.handler = handler;
+			}
+
+			@Override
+			public ListenableFuture<Void> send(Message<byte[]> message) {
+				this.received.add(message);
+				StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+				StompCommand command = accessor.getCommand();
+				if (StompCommand.CONNECT.equals(command)) {
+					if (connections.indexOf(this) < connectedLimit) {
+						StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+						connected.setVersion("1.2");
+						connected.setHeartbeat(0, 0);
+						deliver(connected, new byte[0]);
+					}
+				}
+				else if (StompCommand.SUBSCRIBE.equals(command)) {
+					subscriptions.put(accessor.getSubscriptionId(), Collections.singleton(accessor.getDestination()));
+					subscriptionConnections.put(accessor.getSubscriptionId(), this);
+				}
+				else if (StompCommand.UNSUBSCRIBE.equals(command)) {
+					subscriptions.remove(accessor.getSubscriptionId());
+					subscriptionConnections.remove(accessor.getSubscriptionId());
+				}
+				else if (StompCommand.SEND.equals(command)) {
+					subscriptions.forEach((subscriptionId, destinations) -> {
+						if (destinations.contains(accessor.getDestination())) {
+							StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+							headers.setSubscriptionId(subscriptionId);
+							headers.setDestination(accessor.getDestination());
+							subscriptionConnections.get(subscriptionId).deliver(headers, message.getPayload());
+						}
+					});
+				}
+				String receipt = accessor.getReceipt();
+				if (receipt != null) {
+					StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.RECEIPT);
+					headers.setReceiptId(receipt);
+					deliver(headers, new byte[0]);
+				}
+				if (holdSends && !StompCommand.CONNECT.equals(command)) {
+					return new SettableListenableFuture<>();
+				}
+				return getVoidFuture();
+			}
+
+			void deliver(StompHeaderAccessor accessor, byte[] payload) {
+				accessor.setLeaveMutable(true);
+				this.handler.handleMessage(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+			}
+
+			@Override
+			public void onReadInactivity(Runnable runnable, long duration) {
+			}
+
+			@Override
+			public void onWriteInactivity(Runnable runnable, long duration) {
+			}
+
+			@Override
+			public void close() {
+				this.closed = true;
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -130,6 +130,7 @@ public class MultiServerUserRegistryTests {
 		sessionIds.add(iterator.next().getSession().getId());
 		sessionIds.add(iterator.next().getSession().getId());
 		assertEquals(new HashSet<>(Arrays.asList("sess1", "sess2")), sessionIds);
+		assertEquals(matches, this.registry.findSubscriptionsByDestination("/match"));
 	}
 
 	@Test  // SPR-13800
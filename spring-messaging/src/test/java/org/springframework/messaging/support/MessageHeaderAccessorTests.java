@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -296,6 +297,60 @@ public class MessageHeaderAccessorTests {
 	}
 
 
+	@Test
+	public void idGeneratorLazy() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+		accessor.setIdGenerator(() -> new UUID(0L, count.incrementAndGet()));
+		accessor.setLazyIdGeneration(true);
+		accessor.setHeader("foo", "bar");
+		MessageHeaders headers = accessor.getMessageHeaders();
+
+		assertEquals(0, count.get());
+		assertEquals(2, headers.size());
+		assertTrue(headers.containsKey(MessageHeaders.ID));
+		assertEquals(new UUID(0L, 1L), headers.getId());
+		assertEquals(new UUID(0L, 1L), headers.get(MessageHeaders.ID));
+		assertEquals(1, count.get());
+
+		MessageHeaders output = (MessageHeaders) SerializationTestUtils.serializeAndDeserialize(headers);
+		assertEquals("bar", output.get("foo"));
+		assertNotNull(output.getId());
+	}
+
+	@Test
+	public void idGeneratorLazyWithNoneValue() {
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+		accessor.setIdGenerator(() -> MessageHeaders.ID_VALUE_NONE);
+		accessor.setLazyIdGeneration(true);
+		MessageHeaders headers = accessor.getMessageHeaders();
+
+		assertNull(headers.getId());
+		assertNull(headers.get(MessageHeaders.ID));
+	}
+
+	@Test
+	public void idGeneratorLazyAfterCopy() {
+		AtomicInteger count = new AtomicInteger();
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+		accessor.setIdGenerator(() -> new UUID(0L, count.incrementAndGet()));
+		accessor.setLazyIdGeneration(true);
+		accessor.setHeader("foo", "bar");
+		Message<?> message = MessageBuilder.createMessage("payload", accessor.getMessageHeaders());
+
+		MessageHeaderAccessor copy = new MessageHeaderAccessor(message);
+		copy.setIdGenerator(() -> new UUID(0L, count.incrementAndGet()));
+		copy.setLazyIdGeneration(true);
+		copy.setHeader("foo", "baz");
+		MessageHeaders copyHeaders = copy.getMessageHeaders();
+
+		assertEquals(0, count.get());
+		assertEquals("bar", message.getHeaders().get("foo"));
+		assertEquals("baz", copyHeaders.get("foo"));
+		assertEquals(new UUID(0L, 1L), copyHeaders.getId());
+		assertEquals(new UUID(0L, 2L), message.getHeaders().getId());
+	}
+
 	@Test
 	public void idTimestampWithMutableHeaders() {
 		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.NoTransactionException;
@@ -37,6 +38,7 @@ import org.springframework.transaction.support.CallbackPreferringPlatformTransac
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -144,12 +146,24 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	private final ConcurrentMap<Object, PlatformTransactionManager> transactionManagerCache =
 			new ConcurrentReferenceHashMap<>(4);
 
+	private final ConcurrentMap<MethodClassKey, InvocationPlan> invocationPlanCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	/**
+	 * Whether {@link #determineTransactionManager} is not overridden, i.e. whether
+	 * the transaction manager may be resolved once per method and target class.
+	 */
+	private final boolean defaultTransactionManagerResolution = (ReflectionUtils.findMethod(getClass(),
+			"determineTransactionManager", TransactionAttribute.class).getDeclaringClass() ==
+			TransactionAspectSupport.class);
+
 
 	/**
 	 * Specify the name of the default transaction manager bean.
 	 */
 	public void setTransactionManagerBeanName(@Nullable String transactionManagerBeanName) {
 		this.transactionManagerBeanName = transactionManagerBeanName;
+		this.invocationPlanCache.clear();
 	}
 
 	/**
@@ -169,6 +183,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionManager(@Nullable PlatformTransactionManager transactionManager) {
 		this.transactionManager = transactionManager;
+		this.invocationPlanCache.clear();
 	}
 
 	/**
@@ -195,6 +210,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
 		tas.setProperties(transactionAttributes);
 		this.transactionAttributeSource = tas;
+		this.invocationPlanCache.clear();
 	}
 
 	/**
@@ -207,6 +223,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSources(TransactionAttributeSource... transactionAttributeSources) {
 		this.transactionAttributeSource = new CompositeTransactionAttributeSource(transactionAttributeSources);
+		this.invocationPlanCache.clear();
 	}
 
 	/**
@@ -220,6 +237,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSource(@Nullable TransactionAttributeSource transactionAttributeSource) {
 		this.transactionAttributeSource = transactionAttributeSource;
+		this.invocationPlanCache.clear();
 	}
 
 	/**
@@ -236,6 +254,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Override
 	public void setBeanFactory(@Nullable BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		this.invocationPlanCache.clear();
 	}
 
 	/**
@@ -268,6 +287,15 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 * General delegate for around-advice-based subclasses, delegating to several other template
 	 * methods on this class. Able to handle {@link CallbackPreferringPlatformTransactionManager}
 	 * as well as regular {@link PlatformTransactionManager} implementations.
+	 * <p>The transaction attribute and joinpoint identification are resolved once
+	 * per method and target class, as is the transaction manager unless
+	 * {@link #determineTransactionManager} is overridden.
+	 * <p>Only invocations of methods without a transaction attribute proceed
+	 * without any transaction bookkeeping, and only if no outer TransactionInfo
+	 * is bound to the thread. Methods with a transaction attribute always go
+	 * through the transaction manager, including {@code PROPAGATION_SUPPORTS},
+	 * {@code PROPAGATION_NOT_SUPPORTED} and {@code PROPAGATION_NEVER} methods,
+	 * so that {@link #currentTransactionStatus()} is available within them.
 	 * @param method the Method being invoked
 	 * @param targetClass the target class that we're invoking the method on
 	 * @param invocation the callback to use for proceeding with the target invocation
@@ -279,10 +307,16 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			final InvocationCallback invocation) throws Throwable {
 
 		// If the transaction attribute is null, the method is non-transactional.
-		TransactionAttributeSource tas = getTransactionAttributeSource();
-		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
-		final PlatformTransactionManager tm = determineTransactionManager(txAttr);
-		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		InvocationPlan plan = getInvocationPlan(method, targetClass);
+		final TransactionAttribute txAttr = plan.transactionAttribute;
+		if (txAttr == null && transactionInfoHolder.get() == null) {
+			// Nothing to demarcate and no outer TransactionInfo to preserve:
+			// proceed without any transaction bookkeeping.
+			return invocation.proceedWithInvocation();
+		}
+		final PlatformTransactionManager tm = (plan.transactionManagerResolved ?
+				plan.transactionManager : determineTransactionManager(txAttr));
+		final String joinpointIdentification = plan.joinpointIdentification;
 
 		if (txAttr == null || !(tm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
@@ -367,9 +401,38 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	protected void clearTransactionManagerCache() {
 		this.transactionManagerCache.clear();
+		this.invocationPlanCache.clear();
 		this.beanFactory = null;
 	}
 
+	/**
+	 * Determine the invocation plan for the given method, resolving its
+	 * transaction attribute and joinpoint identification once and caching
+	 * them for subsequent invocations.
+	 * <p>The transaction manager is resolved once per method and target class
+	 * as well, until the cache gets reset through a configuration change or
+	 * {@link #clearTransactionManagerCache()}. Subclasses that override
+	 * {@link #determineTransactionManager} may have per-invocation semantics,
+	 * so it is called for every invocation there.
+	 */
+	private InvocationPlan getInvocationPlan(Method method, @Nullable Class<?> targetClass) {
+		MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+		InvocationPlan plan = this.invocationPlanCache.get(cacheKey);
+		if (plan == null) {
+			TransactionAttributeSource tas = getTransactionAttributeSource();
+			TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+			String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+			if (txAttr != null && this.defaultTransactionManagerResolution) {
+				plan = new InvocationPlan(txAttr, joinpointIdentification, determineTransactionManager(txAttr));
+			}
+			else {
+				plan = new InvocationPlan(txAttr, joinpointIdentification);
+			}
+			this.invocationPlanCache.put(cacheKey, plan);
+		}
+		return plan;
+	}
+
 	/**
 	 * Determine the specific transaction manager to use for the given transaction.
 	 */
@@ -675,6 +738,41 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	}
 
 
+	/**
+	 * Precomputed per-method invocation state: the resolved transaction attribute
+	 * and joinpoint identification, plus the transaction manager if it may be
+	 * resolved once for the method.
+	 */
+	private static final class InvocationPlan {
+
+		@Nullable
+		final TransactionAttribute transactionAttribute;
+
+		final String joinpointIdentification;
+
+		@Nullable
+		final PlatformTransactionManager transactionManager;
+
+		final boolean transactionManagerResolved;
+
+		InvocationPlan(@Nullable TransactionAttribute transactionAttribute, String joinpointIdentification) {
+			this.transactionAttribute = transactionAttribute;
+			this.joinpointIdentification = joinpointIdentification;
+			this.transactionManager = null;
+			this.transactionManagerResolved = false;
+		}
+
+		InvocationPlan(TransactionAttribute transactionAttribute, String joinpointIdentification,
+				@Nullable PlatformTransactionManager transactionManager) {
+
+			this.transactionAttribute = transactionAttribute;
+			this.joinpointIdentification = joinpointIdentification;
+			this.transactionManager = transactionManager;
+			this.transactionManagerResolved = true;
+		}
+	}
+
+
 	/**
 	 * Simple callback interface for proceeding with the target invocation.
 	 * Concrete interceptors/aspects adapt this to their invocation mechanism.
@@ -569,18 +569,12 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	protected void prepareSynchronization(DefaultTransactionStatus status, TransactionDefinition definition) {
 		//如果是新事务
 		if (status.isNewSynchronization()) {
-			//是否需要事务
-			TransactionSynchronizationManager.setActualTransactionActive(status.hasTransaction());
-			//设置隔离级别
-			TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(
-					definition.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT ?
-							definition.getIsolationLevel() : null);
-			//是否只读
-			TransactionSynchronizationManager.setCurrentTransactionReadOnly(definition.isReadOnly());
-			//设置事务名称
-			TransactionSynchronizationManager.setCurrentTransactionName(definition.getName());
-			//初始化事务到当前线程
-			TransactionSynchronizationManager.initSynchronization();
+			//设置事务名称, 是否只读, 隔离级别, 是否需要事务, 并初始化事务到当前线程
+			TransactionSynchronizationManager.initSynchronization(
+					definition.getName(), definition.isReadOnly(),
+					(definition.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT ?
+							definition.getIsolationLevel() : null),
+					status.hasTransaction());
 		}
 	}
 
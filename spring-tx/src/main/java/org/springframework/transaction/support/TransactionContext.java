@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.lang.Nullable;
+
+/**
+ * Opaque holder for the transactional state of a thread, as managed by
+ * {@link TransactionSynchronizationManager}: bound resources, registered
+ * synchronizations and the current transaction characteristics.
+ *
+ * <p>A context can be detached from one thread via
+ * {@link TransactionSynchronizationManager#detachContext()} and attached to
+ * another thread via {@link TransactionSynchronizationManager#attachContext},
+ * handing over the entire transactional state at once. A context is not
+ * thread-safe: it must only be attached to one thread at any given time.
+ *
+ * @author agent
+ * @since 5.0.16
+ * @see TransactionSynchronizationManager#detachContext()
+ * @see TransactionSynchronizationManager#attachContext
+ */
+public final class TransactionContext {
+
+	@Nullable
+	Map<Object, Object> resources;
+
+	@Nullable
+	Set<TransactionSynchronization> synchronizations;
+
+	@Nullable
+	private List<TransactionSynchronization> sortedSynchronizations;
+
+	@Nullable
+	String transactionName;
+
+	boolean readOnly;
+
+	@Nullable
+	Integer isolationLevel;
+
+	boolean actualTransactionActive;
+
+
+	TransactionContext() {
+	}
+
+
+	/**
+	 * Register the given synchronization, invalidating the sorted snapshot.
+	 * To be called with synchronization active only.
+	 */
+	void addSynchronization(TransactionSynchronization synchronization) {
+		Set<TransactionSynchronization> synchs = this.synchronizations;
+		if (synchs != null && synchs.add(synchronization)) {
+			this.sortedSynchronizations = null;
+		}
+	}
+
+	/**
+	 * Return a sorted snapshot of the registered synchronizations, reusing
+	 * the previous snapshot as long as no further synchronization got registered.
+	 * To be called with synchronization active only.
+	 */
+	List<TransactionSynchronization> getSortedSynchronizations() {
+		List<TransactionSynchronization> sortedSynchs = this.sortedSynchronizations;
+		if (sortedSynchs == null) {
+			Set<TransactionSynchronization> synchs = this.synchronizations;
+			if (synchs == null || synchs.isEmpty()) {
+				sortedSynchs = Collections.emptyList();
+			}
+			else {
+				// Sort lazily here, not in registerSynchronization.
+				List<TransactionSynchronization> list = new ArrayList<>(synchs);
+				AnnotationAwareOrderComparator.sort(list);
+				sortedSynchs = Collections.unmodifiableList(list);
+			}
+			this.sortedSynchronizations = sortedSynchs;
+		}
+		return sortedSynchs;
+	}
+
+	/**
+	 * Deactivate synchronization, dropping all registered synchronizations.
+	 */
+	void clearSynchronizations() {
+		this.synchronizations = null;
+		this.sortedSynchronizations = null;
+	}
+
+	/**
+	 * Reset the synchronizations and transaction characteristics,
+	 * keeping bound resources.
+	 */
+	void clearSynchronizationState() {
+		clearSynchronizations();
+		this.transactionName = null;
+		this.readOnly = false;
+		this.isolationLevel = null;
+		this.actualTransactionActive = false;
+	}
+
+	/**
+	 * Return whether this context does not hold any state at all.
+	 */
+	boolean isEmpty() {
+		return (this.resources == null && this.synchronizations == null && this.transactionName == null &&
+				!this.readOnly && this.isolationLevel == null && !this.actualTransactionActive);
+	}
+
+
+	@Override
+	public String toString() {
+		return "TransactionContext: resources=" + (this.resources != null ? this.resources.keySet() : "[]") +
+				", synchronizationActive=" + (this.synchronizations != null) +
+				", name=" + this.transactionName + ", readOnly=" + this.readOnly +
+				", isolationLevel=" + this.isolationLevel + ", actualTransactionActive=" + this.actualTransactionActive;
+	}
+
+}
@@ -16,19 +16,16 @@
 
 package org.springframework.transaction.support;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.NamedThreadLocal;
-import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -64,6 +61,10 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>As of 5.0.16, all of this state is kept in a single {@link TransactionContext}
+ * per thread, which can be handed over to another thread through
+ * {@link #detachContext()} and {@link #attachContext}.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +79,31 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
-
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
+	private static final ThreadLocal<TransactionContext> transactionContext =
+			new NamedThreadLocal<>("Transaction context");
 
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
-
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
+	/**
+	 * Return the context for the current thread, creating it if necessary.
+	 */
+	private static TransactionContext obtainContext() {
+		TransactionContext context = transactionContext.get();
+		if (context == null) {
+			context = new TransactionContext();
+			transactionContext.set(context);
+		}
+		return context;
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Remove the given context from the current thread if it does not hold
+	 * any state anymore.
+	 */
+	private static void removeContextIfEmpty(TransactionContext context) {
+		if (context.isEmpty()) {
+			transactionContext.remove();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -111,7 +120,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = transactionContext.get();
+		Map<Object, Object> map = (context != null ? context.resources : null);
 		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
 	}
 
@@ -147,7 +157,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = transactionContext.get();
+		Map<Object, Object> map = (context != null ? context.resources : null);
 		if (map == null) {
 			return null;
 		}
@@ -155,9 +166,10 @@ public abstract class TransactionSynchronizationManager {
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			map.remove(actualKey);
-			// Remove entire ThreadLocal if empty...
+			// Remove entire Map (and ThreadLocal) if empty...
 			if (map.isEmpty()) {
-				resources.remove();
+				context.resources = null;
+				removeContextIfEmpty(context);
 			}
 			value = null;
 		}
@@ -174,11 +186,12 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
+		TransactionContext context = obtainContext();
+		Map<Object, Object> map = context.resources;
+		// set context Map if none found
 		if (map == null) {
 			map = new HashMap<>();
-			resources.set(map);
+			context.resources = map;
 		}
 		//将value绑定到当前线程
 		Object oldValue = map.put(actualKey, value);
@@ -229,14 +242,16 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = transactionContext.get();
+		Map<Object, Object> map = (context != null ? context.resources : null);
 		if (map == null) {
 			return null;
 		}
 		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
+		// Remove entire Map (and ThreadLocal) if empty...
 		if (map.isEmpty()) {
-			resources.remove();
+			context.resources = null;
+			removeContextIfEmpty(context);
 		}
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
@@ -260,7 +275,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionContext context = transactionContext.get();
+		return (context != null && context.synchronizations != null);
 	}
 
 	/**
@@ -269,11 +285,46 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is already active
 	 */
 	public static void initSynchronization() throws IllegalStateException {
-		if (isSynchronizationActive()) {
+		doInitSynchronization(obtainContext());
+	}
+
+	/**
+	 * Expose the given transaction characteristics and activate transaction
+	 * synchronization for the current thread, all in one step.
+	 * Called by a transaction manager on transaction begin.
+	 * @param name the name of the transaction, or {@code null} if none
+	 * @param readOnly whether to mark the current transaction as read-only
+	 * @param isolationLevel the isolation level to expose, or {@code null} if none
+	 * @param actualTransactionActive whether the current thread is associated
+	 * with an actual transaction
+	 * @throws IllegalStateException if synchronization is already active
+	 * @since 5.0.16
+	 * @see #setCurrentTransactionName
+	 * @see #setCurrentTransactionReadOnly
+	 * @see #setCurrentTransactionIsolationLevel
+	 * @see #setActualTransactionActive
+	 * @see #initSynchronization()
+	 */
+	public static void initSynchronization(@Nullable String name, boolean readOnly,
+			@Nullable Integer isolationLevel, boolean actualTransactionActive) throws IllegalStateException {
+
+		TransactionContext context = obtainContext();
+		if (context.synchronizations != null) {
+			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
+		}
+		context.actualTransactionActive = actualTransactionActive;
+		context.isolationLevel = isolationLevel;
+		context.readOnly = readOnly;
+		context.transactionName = name;
+		doInitSynchronization(context);
+	}
+
+	private static void doInitSynchronization(TransactionContext context) {
+		if (context.synchronizations != null) {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		context.synchronizations = new LinkedHashSet<>();
 	}
 
 	/**
@@ -290,31 +341,23 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionContext context = transactionContext.get();
+		if (context == null || context.synchronizations == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		synchs.add(synchronization);
+		context.addSynchronization(synchronization);
 	}
 
 	/**
 	 * 返回一个不可修改的列表,内容为注册到当前线程上的,需要同步处理的操作
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionContext context = transactionContext.get();
+		if (context == null || context.synchronizations == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		// 返回一个不可修改的快照,
-		if (synchs.isEmpty()) {
-			return Collections.emptyList();
-		}
-		else {
-			// Sort lazily here, not in registerSynchronization.
-			List<TransactionSynchronization> sortedSynchs = new ArrayList<>(synchs);
-			AnnotationAwareOrderComparator.sort(sortedSynchs);
-			return Collections.unmodifiableList(sortedSynchs);
-		}
+		// 返回一个不可修改的快照, 在注册新的同步操作之前可以重复使用
+		return context.getSortedSynchronizations();
 	}
 
 	/**
@@ -323,11 +366,13 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is not active
 	 */
 	public static void clearSynchronization() throws IllegalStateException {
-		if (!isSynchronizationActive()) {
+		TransactionContext context = transactionContext.get();
+		if (context == null || context.synchronizations == null) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		context.clearSynchronizations();
+		removeContextIfEmpty(context);
 	}
 
 
@@ -342,7 +387,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		TransactionContext context = (name != null ? obtainContext() : transactionContext.get());
+		if (context != null) {
+			context.transactionName = name;
+			removeContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -353,7 +402,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionContext context = transactionContext.get();
+		return (context != null ? context.transactionName : null);
 	}
 
 	/**
@@ -364,7 +414,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		TransactionContext context = (readOnly ? obtainContext() : transactionContext.get());
+		if (context != null) {
+			context.readOnly = readOnly;
+			removeContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -380,7 +434,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionContext context = transactionContext.get();
+		return (context != null && context.readOnly);
 	}
 
 	/**
@@ -400,7 +455,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		TransactionContext context = (isolationLevel != null ? obtainContext() : transactionContext.get());
+		if (context != null) {
+			context.isolationLevel = isolationLevel;
+			removeContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -422,7 +481,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionContext context = transactionContext.get();
+		return (context != null ? context.isolationLevel : null);
 	}
 
 	/**
@@ -432,7 +492,11 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		TransactionContext context = (active ? obtainContext() : transactionContext.get());
+		if (context != null) {
+			context.actualTransactionActive = active;
+			removeContextIfEmpty(context);
+		}
 	}
 
 	/**
@@ -447,7 +511,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionContext context = transactionContext.get();
+		return (context != null && context.actualTransactionActive);
 	}
 
 
@@ -461,11 +526,67 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		TransactionContext context = transactionContext.get();
+		if (context != null) {
+			context.clearSynchronizationState();
+			removeContextIfEmpty(context);
+		}
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Transfer of the entire transaction context between threads
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Detach the entire transactional state from the current thread:
+	 * bound resources, registered synchronizations as well as the various
+	 * transaction characteristics, leaving the current thread without any
+	 * transactional state.
+	 * <p>The returned context can be attached to another thread via
+	 * {@link #attachContext}, e.g. when transactional work continues on a
+	 * different executor thread, without re-binding each resource.
+	 * @return the detached context, or {@code null} if the current thread
+	 * did not hold any transactional state
+	 * @since 5.0.16
+	 * @see #attachContext
+	 */
+	@Nullable
+	public static TransactionContext detachContext() {
+		TransactionContext context = transactionContext.get();
+		if (context != null) {
+			transactionContext.remove();
+			if (logger.isTraceEnabled()) {
+				logger.trace("Detached " + context + " from thread [" + Thread.currentThread().getName() + "]");
+			}
+		}
+		return context;
+	}
+
+	/**
+	 * Attach the given transactional state, as previously detached from
+	 * another thread via {@link #detachContext()}, to the current thread.
+	 * <p>The context must not be attached to any other thread at the same time;
+	 * the caller is expected to detach it again once the transactional work on
+	 * the current thread is done (unless the transaction completes here).
+	 * @param context the context to attach (may be {@code null} for no state)
+	 * @throws IllegalStateException if the current thread already holds
+	 * transactional state of its own
+	 * @since 5.0.16
+	 * @see #detachContext()
+	 */
+	public static void attachContext(@Nullable TransactionContext context) throws IllegalStateException {
+		TransactionContext existingContext = transactionContext.get();
+		if (existingContext != null && existingContext != context) {
+			throw new IllegalStateException("Already " + existingContext + " bound to thread [" +
+					Thread.currentThread().getName() + "]");
+		}
+		if (context != null && !context.isEmpty()) {
+			transactionContext.set(context);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Attached " + context + " to thread [" + Thread.currentThread().getName() + "]");
+			}
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,9 @@
 package org.springframework.transaction.interceptor;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -27,10 +29,19 @@ import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.lang.Nullable;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.transaction.IllegalTransactionStateException;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.SerializationTestUtils;
 
 import static org.junit.Assert.*;
@@ -262,6 +273,219 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		verify(beanFactory, times(1)).getBean(PlatformTransactionManager.class);
 	}
 
+	@Test
+	public void invocationPlanResolvedOnce() throws Exception {
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		TransactionInfoRecordingBean target = new TransactionInfoRecordingBean();
+		ITestBean itb = (ITestBean) advised(target, ptm, tas);
+
+		itb.getName();
+		itb.getName();
+		itb.getName();
+
+		verify(tas, times(1)).getTransactionAttribute(getNameMethod, TransactionInfoRecordingBean.class);
+		assertEquals(3, target.invocations.get());
+		assertNull(target.transactionInfo);
+		verifyZeroInteractions(ptm);
+	}
+
+	@Test
+	public void invocationPlanResetOnTransactionManagerChange() throws Exception {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		tas.register(getNameMethod, txatt);
+		PlatformTransactionManager ptm1 = mock(PlatformTransactionManager.class);
+		PlatformTransactionManager ptm2 = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm1.getTransaction(txatt)).willReturn(status);
+		given(ptm2.getTransaction(txatt)).willReturn(status);
+
+		TransactionInterceptor ti = new TransactionInterceptor(ptm1, tas);
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean itb = (ITestBean) pf.getProxy();
+
+		itb.getName();
+		verify(ptm1).commit(status);
+		ti.setTransactionManager(ptm2);
+		itb.getName();
+		verify(ptm2).commit(status);
+		verify(ptm1, times(1)).commit(status);
+	}
+
+	@Test
+	public void supportsWithoutExistingTransactionExposesTransactionStatus() throws Exception {
+		ResourceLocalTransactionManager ptm = new ResourceLocalTransactionManager();
+		ptm.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+		TransactionInfoRecordingBean target = new TransactionInfoRecordingBean();
+		ITestBean itb = (ITestBean) advised(target, ptm,
+				attributeSource(getNameMethod, TransactionDefinition.PROPAGATION_SUPPORTS));
+
+		itb.getName();
+		itb.getName();
+
+		assertEquals(2, target.invocations.get());
+		assertNotNull(target.transactionInfo);
+		assertNotNull(target.transactionStatus);
+		assertFalse(target.transactionStatus.isNewTransaction());
+		assertFalse(target.synchronizationActive);
+		assertEquals(2, ptm.getTransactionCount.get());
+	}
+
+	@Test
+	public void transactionManagerDeterminedPerInvocationForSubclass() throws Exception {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		tas.register(getNameMethod, txatt);
+		PlatformTransactionManager ptm1 = mock(PlatformTransactionManager.class);
+		PlatformTransactionManager ptm2 = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm1.getTransaction(txatt)).willReturn(status);
+		given(ptm2.getTransaction(txatt)).willReturn(status);
+		AtomicInteger determined = new AtomicInteger();
+
+		@SuppressWarnings("serial")
+		TransactionInterceptor ti = new TransactionInterceptor(ptm1, tas) {
+			@Override
+			protected PlatformTransactionManager determineTransactionManager(@Nullable TransactionAttribute txAttr) {
+				return (determined.incrementAndGet() % 2 == 1 ? ptm1 : ptm2);
+			}
+		};
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean itb = (ITestBean) pf.getProxy();
+
+		itb.getName();
+		itb.getName();
+
+		assertEquals(2, determined.get());
+		verify(ptm1).commit(status);
+		verify(ptm2).commit(status);
+	}
+
+	@Test
+	public void transactionManagerResolvedOnceForSubclassWithoutCustomResolution() throws Exception {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		tas.register(getNameMethod, txatt);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm.getTransaction(txatt)).willReturn(status);
+		AtomicInteger lookups = new AtomicInteger();
+
+		@SuppressWarnings("serial")
+		TransactionInterceptor ti = new TransactionInterceptor(ptm, tas) {
+			@Override
+			public PlatformTransactionManager getTransactionManager() {
+				lookups.incrementAndGet();
+				return super.getTransactionManager();
+			}
+		};
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean itb = (ITestBean) pf.getProxy();
+
+		itb.getName();
+		itb.getName();
+
+		assertEquals(1, lookups.get());
+		verify(ptm, times(2)).commit(status);
+	}
+
+	@Test
+	public void supportsWithSynchronizationAlwaysUsesTransactionManager() throws Exception {
+		ResourceLocalTransactionManager ptm = new ResourceLocalTransactionManager();
+		TransactionInfoRecordingBean target = new TransactionInfoRecordingBean();
+		ITestBean itb = (ITestBean) advised(target, ptm,
+				attributeSource(getNameMethod, TransactionDefinition.PROPAGATION_SUPPORTS));
+
+		itb.getName();
+
+		assertNotNull(target.transactionInfo);
+		assertFalse(target.transactionInfo.getTransactionStatus().isNewTransaction());
+		assertTrue(target.synchronizationActive);
+		assertEquals(1, ptm.getTransactionCount.get());
+	}
+
+	@Test
+	public void supportsWithExistingTransactionUsesTransactionManager() throws Exception {
+		ResourceLocalTransactionManager ptm = new ResourceLocalTransactionManager();
+		ptm.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+		TransactionInfoRecordingBean target = new TransactionInfoRecordingBean();
+		ITestBean itb = (ITestBean) advised(target, ptm,
+				attributeSource(getNameMethod, TransactionDefinition.PROPAGATION_SUPPORTS));
+
+		TransactionSynchronizationManager.bindResource(ptm.getResourceFactory(), "existing");
+		try {
+			itb.getName();
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(ptm.getResourceFactory());
+		}
+
+		assertNotNull(target.transactionInfo);
+		assertEquals(1, ptm.getTransactionCount.get());
+	}
+
+	@Test
+	public void neverWithExistingTransactionStillRejected() throws Exception {
+		ResourceLocalTransactionManager ptm = new ResourceLocalTransactionManager();
+		ptm.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+		ITestBean itb = (ITestBean) advised(new TestBean(), ptm,
+				attributeSource(getNameMethod, TransactionDefinition.PROPAGATION_NEVER));
+
+		itb.getName();
+		TransactionSynchronizationManager.bindResource(ptm.getResourceFactory(), "existing");
+		try {
+			thrown.expect(IllegalTransactionStateException.class);
+			itb.getName();
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(ptm.getResourceFactory());
+		}
+	}
+
+	@Test
+	public void proxiedServiceCallPerformance() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		ResourceLocalTransactionManager ptm = new ResourceLocalTransactionManager();
+		ptm.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(getNameMethod, new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_SUPPORTS));
+		tas.register(setNameMethod, new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED));
+		ITestBean itb = (ITestBean) advised(new TestBean(), ptm, tas);
+		ITestBean plain = (ITestBean) new ProxyFactory(new TestBean()).getProxy();
+
+		int iterations = 1000000;
+		long plainNanos = Long.MAX_VALUE;
+		long nonTransactionalNanos = Long.MAX_VALUE;
+		for (int round = 0; round < 2; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				plain.getAge();
+			}
+			plainNanos = Math.min(plainNanos, System.nanoTime() - start);
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				itb.getAge();
+			}
+			nonTransactionalNanos = Math.min(nonTransactionalNanos, System.nanoTime() - start);
+			for (int i = 0; i < iterations; i++) {
+				itb.getName();
+			}
+			for (int i = 0; i < iterations; i++) {
+				itb.setName("name");
+			}
+		}
+
+		assertEquals("Only PROPAGATION_SUPPORTS and PROPAGATION_REQUIRED calls use the transaction manager",
+				4 * iterations, ptm.getTransactionCount.get());
+		assertTrue("Non-transactional calls should cost about as much as plain proxy calls",
+				nonTransactionalNanos < 5 * plainNanos);
+	}
+
 
 	private TransactionInterceptor createTransactionInterceptor(BeanFactory beanFactory,
 			String transactionManagerName, PlatformTransactionManager transactionManager) {
@@ -298,6 +522,12 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		return createTransactionInterceptor(beanFactory, null, null);
 	}
 
+	private TransactionAttributeSource attributeSource(Method method, int propagationBehavior) {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(method, new DefaultTransactionAttribute(propagationBehavior));
+		return tas;
+	}
+
 	private PlatformTransactionManager associateTransactionManager(BeanFactory beanFactory, String name) {
 		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
 		given(beanFactory.containsBean(name)).willReturn(true);
@@ -306,6 +536,67 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 	}
 
 
+	private static class TransactionInfoRecordingBean extends TestBean {
+
+		final AtomicInteger invocations = new AtomicInteger();
+
+		TransactionAspectSupport.TransactionInfo transactionInfo;
+
+		TransactionStatus transactionStatus;
+
+		boolean synchronizationActive;
+
+		@Override
+		public String getName() {
+			this.invocations.incrementAndGet();
+			this.transactionInfo = TransactionAspectSupport.currentTransactionInfo();
+			if (this.transactionInfo != null && this.transactionInfo.hasTransaction()) {
+				this.transactionStatus = TransactionAspectSupport.currentTransactionStatus();
+			}
+			this.synchronizationActive = TransactionSynchronizationManager.isSynchronizationActive();
+			return super.getName();
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class ResourceLocalTransactionManager extends AbstractPlatformTransactionManager
+			implements ResourceTransactionManager {
+
+		private final Object resourceFactory = new Object();
+
+		final AtomicInteger getTransactionCount = new AtomicInteger();
+
+		@Override
+		public Object getResourceFactory() {
+			return this.resourceFactory;
+		}
+
+		@Override
+		protected Object doGetTransaction() {
+			this.getTransactionCount.incrementAndGet();
+			return new Object();
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return TransactionSynchronizationManager.hasResource(this.resourceFactory);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+
+
 	/**
 	 * We won't use this: we just want to know it's serializable.
 	 */
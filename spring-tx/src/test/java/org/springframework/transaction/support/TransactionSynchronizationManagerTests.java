@@ -0,0 +1,220 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class TransactionSynchronizationManagerTests {
+
+	@After
+	public void verifyTransactionSynchronizationManagerState() {
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		assertNull(TransactionSynchronizationManager.detachContext());
+	}
+
+
+	@Test
+	public void initSynchronizationWithCharacteristics() {
+		TransactionSynchronizationManager.initSynchronization("tx", true, 2, true);
+		try {
+			assertTrue(TransactionSynchronizationManager.isSynchronizationActive());
+			assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+			assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+			assertEquals(Integer.valueOf(2), TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+			assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+		}
+		finally {
+			TransactionSynchronizationManager.clear();
+		}
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+		assertFalse(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void initSynchronizationWhenAlreadyActive() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			TransactionSynchronizationManager.initSynchronization("tx", false, null, true);
+		}
+		finally {
+			TransactionSynchronizationManager.clear();
+		}
+	}
+
+	@Test
+	public void synchronizationSnapshotReusedUntilRegistration() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			OrderedSynchronization second = new OrderedSynchronization(2);
+			OrderedSynchronization first = new OrderedSynchronization(1);
+			TransactionSynchronizationManager.registerSynchronization(second);
+			List<TransactionSynchronization> synchs = TransactionSynchronizationManager.getSynchronizations();
+			assertEquals(1, synchs.size());
+			assertSame(synchs, TransactionSynchronizationManager.getSynchronizations());
+
+			TransactionSynchronizationManager.registerSynchronization(first);
+			List<TransactionSynchronization> newSynchs = TransactionSynchronizationManager.getSynchronizations();
+			assertNotSame(synchs, newSynchs);
+			assertEquals(1, synchs.size());
+			assertSame(first, newSynchs.get(0));
+			assertSame(second, newSynchs.get(1));
+
+			// Registering the same synchronization again is a no-op
+			TransactionSynchronizationManager.registerSynchronization(first);
+			assertSame(newSynchs, TransactionSynchronizationManager.getSynchronizations());
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void contextRemovedWhenEmpty() {
+		Object key = new Object();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.unbindResource(key);
+		assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		// @After verifies that no context is left on the thread
+	}
+
+	@Test
+	public void detachAndAttachContext() throws Exception {
+		Object key = new Object();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationManager.initSynchronization("tx", true, null, true);
+		OrderedSynchronization synch = new OrderedSynchronization(0);
+		TransactionSynchronizationManager.registerSynchronization(synch);
+
+		TransactionContext context = TransactionSynchronizationManager.detachContext();
+		assertNotNull(context);
+		assertFalse(TransactionSynchronizationManager.hasResource(key));
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> result = executor.submit(() -> {
+				TransactionSynchronizationManager.attachContext(context);
+				try {
+					assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+					assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+					assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+					assertSame(synch, TransactionSynchronizationManager.getSynchronizations().get(0));
+					TransactionSynchronizationManager.setCurrentTransactionName("renamed");
+					return TransactionSynchronizationManager.getResource(key);
+				}
+				finally {
+					assertSame(context, TransactionSynchronizationManager.detachContext());
+				}
+			});
+			assertEquals("value", result.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		TransactionSynchronizationManager.attachContext(context);
+		assertEquals("renamed", TransactionSynchronizationManager.getCurrentTransactionName());
+		assertEquals("value", TransactionSynchronizationManager.unbindResource(key));
+		TransactionSynchronizationManager.clear();
+	}
+
+	@Test
+	public void attachContextWithExistingState() {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionContext context = TransactionSynchronizationManager.detachContext();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			TransactionSynchronizationManager.attachContext(context);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		finally {
+			TransactionSynchronizationManager.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("serial")
+	public void transactionManagerExposesCharacteristics() {
+		AbstractPlatformTransactionManager tm = new AbstractPlatformTransactionManager() {
+			@Override
+			protected Object doGetTransaction() {
+				return new Object();
+			}
+			@Override
+			protected void doBegin(Object transaction, TransactionDefinition definition) {
+			}
+			@Override
+			protected void doCommit(DefaultTransactionStatus status) {
+			}
+			@Override
+			protected void doRollback(DefaultTransactionStatus status) {
+			}
+		};
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setName("tx");
+		definition.setReadOnly(true);
+		definition.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+
+		TransactionStatus status = tm.getTransaction(definition);
+		assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+		assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertEquals(Integer.valueOf(TransactionDefinition.ISOLATION_SERIALIZABLE),
+				TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+		assertTrue(TransactionSynchronizationManager.isSynchronizationActive());
+		tm.commit(status);
+	}
+
+
+	private static class OrderedSynchronization extends TransactionSynchronizationAdapter {
+
+		private final int order;
+
+		public OrderedSynchronization(int order) {
+			this.order = order;
+		}
+
+		@Override
+		public int getOrder() {
+			return this.order;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.socket.messaging;
 
 import java.security.Principal;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -42,11 +43,21 @@ import org.springframework.util.Assert;
  * {@link AbstractSubProtocolEvent} application context events to keep
  * track of connected users and their subscriptions.
  *
+ * <p>Users, sessions and subscriptions are indexed by user name, session id
+ * and destination respectively, so that looking up the sessions of a user or
+ * the subscriptions to a destination does not scan all connected users.
+ * Connect, disconnect, subscribe and unsubscribe events are serialized per
+ * user through a fixed set of lock stripes rather than a single registry-wide
+ * lock, keeping the destination index consistent with the registered sessions.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
 public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicationListener {
 
+	private static final int LOCK_STRIPES = 64;
+
+
 	private int order = Ordered.LOWEST_PRECEDENCE;
 
 	/* Primary lookup that holds all users and their sessions */
@@ -55,7 +66,18 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 	/* Secondary lookup across all sessions by id */
 	private final Map<String, LocalSimpSession> sessions = new ConcurrentHashMap<>();
 
-	private final Object sessionLock = new Object();
+	/* Secondary lookup across all subscriptions by destination */
+	private final Map<String, Set<SimpSubscription>> subscriptionsByDestination = new ConcurrentHashMap<>();
+
+	/* Locks guarding the sessions of a user, selected by user name */
+	private final Object[] userLocks = new Object[LOCK_STRIPES];
+
+
+	public DefaultSimpUserRegistry() {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			this.userLocks[i] = new Object();
+		}
+	}
 
 
 	/**
@@ -98,7 +120,17 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 				String id = accessor.getSubscriptionId();
 				String destination = accessor.getDestination();
 				if (id != null && destination != null) {
-					session.addSubscription(id, destination);
+					synchronized (getUserLock(session.getUser().getName())) {
+						// Re-check under the lock: the session may have been disconnected meanwhile
+						if (this.sessions.get(sessionId) == session) {
+							LocalSimpSubscription subscription = new LocalSimpSubscription(id, destination, session);
+							LocalSimpSubscription previous = session.addSubscription(subscription);
+							if (previous != null) {
+								removeFromIndex(previous);
+							}
+							addToIndex(subscription);
+						}
+					}
 				}
 			}
 		}
@@ -111,7 +143,7 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			if (user instanceof DestinationUserNameProvider) {
 				name = ((DestinationUserNameProvider) user).getDestinationUserName();
 			}
-			synchronized (this.sessionLock) {
+			synchronized (getUserLock(name)) {
 				LocalSimpUser simpUser = this.users.get(name);
 				if (simpUser == null) {
 					simpUser = new LocalSimpUser(name);
@@ -123,13 +155,18 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			}
 		}
 		else if (event instanceof SessionDisconnectEvent) {
-			synchronized (this.sessionLock) {
-				LocalSimpSession session = this.sessions.remove(sessionId);
-				if (session != null) {
-					LocalSimpUser user = session.getUser();
-					user.removeSession(sessionId);
-					if (!user.hasSessions()) {
-						this.users.remove(user.getName());
+			LocalSimpSession session = this.sessions.get(sessionId);
+			if (session != null) {
+				LocalSimpUser user = session.getUser();
+				synchronized (getUserLock(user.getName())) {
+					if (this.sessions.remove(sessionId, session)) {
+						user.removeSession(sessionId);
+						if (!user.hasSessions()) {
+							this.users.remove(user.getName(), user);
+						}
+						for (LocalSimpSubscription subscription : session.subscriptions.values()) {
+							removeFromIndex(subscription);
+						}
 					}
 				}
 			}
@@ -139,12 +176,39 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			if (session != null) {
 				String subscriptionId = accessor.getSubscriptionId();
 				if (subscriptionId != null) {
-					session.removeSubscription(subscriptionId);
+					synchronized (getUserLock(session.getUser().getName())) {
+						LocalSimpSubscription subscription = session.removeSubscription(subscriptionId);
+						if (subscription != null) {
+							removeFromIndex(subscription);
+						}
+					}
 				}
 			}
 		}
 	}
 
+	private Object getUserLock(String userName) {
+		int hash = userName.hashCode();
+		return this.userLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+	}
+
+	private void addToIndex(LocalSimpSubscription subscription) {
+		this.subscriptionsByDestination.compute(subscription.getDestination(), (destination, subscriptions) -> {
+			if (subscriptions == null) {
+				subscriptions = ConcurrentHashMap.newKeySet(2);
+			}
+			subscriptions.add(subscription);
+			return subscriptions;
+		});
+	}
+
+	private void removeFromIndex(LocalSimpSubscription subscription) {
+		this.subscriptionsByDestination.computeIfPresent(subscription.getDestination(), (destination, subscriptions) -> {
+			subscriptions.remove(subscription);
+			return (subscriptions.isEmpty() ? null : subscriptions);
+		});
+	}
+
 	@Override
 	public boolean supportsSourceType(@Nullable Class<?> sourceType) {
 		return true;
@@ -169,6 +233,7 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 		return this.users.size();
 	}
 
+	@Override
 	public Set<SimpSubscription> findSubscriptions(SimpSubscriptionMatcher matcher) {
 		Set<SimpSubscription> result = new HashSet<>();
 		for (LocalSimpSession session : this.sessions.values()) {
@@ -181,6 +246,12 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 		return result;
 	}
 
+	@Override
+	public Set<SimpSubscription> findSubscriptionsByDestination(String destination) {
+		Set<SimpSubscription> subscriptions = this.subscriptionsByDestination.get(destination);
+		return (subscriptions != null ? new HashSet<>(subscriptions) : Collections.emptySet());
+	}
+
 
 	@Override
 	public String toString() {
@@ -194,6 +265,9 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 
 		private final Map<String, SimpSession> userSessions = new ConcurrentHashMap<>(1);
 
+		/* Read-only copy of the sessions, replaced whenever a session is added or removed */
+		private volatile Set<SimpSession> sessionsSnapshot = Collections.emptySet();
+
 		public LocalSimpUser(String userName) {
 			Assert.notNull(userName, "User name must not be null");
 			this.name = userName;
@@ -217,15 +291,21 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 
 		@Override
 		public Set<SimpSession> getSessions() {
-			return new HashSet<>(this.userSessions.values());
+			return this.sessionsSnapshot;
 		}
 
 		void addSession(SimpSession session) {
 			this.userSessions.put(session.getId(), session);
+			updateSessionsSnapshot();
 		}
 
 		void removeSession(String sessionId) {
 			this.userSessions.remove(sessionId);
+			updateSessionsSnapshot();
+		}
+
+		private void updateSessionsSnapshot() {
+			this.sessionsSnapshot = Collections.unmodifiableSet(new HashSet<>(this.userSessions.values()));
 		}
 
 		@Override
@@ -252,7 +332,7 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 
 		private final LocalSimpUser user;
 
-		private final Map<String, SimpSubscription> subscriptions = new ConcurrentHashMap<>(4);
+		private final Map<String, LocalSimpSubscription> subscriptions = new ConcurrentHashMap<>(4);
 
 		public LocalSimpSession(String id, LocalSimpUser user) {
 			Assert.notNull(id, "Id must not be null");
@@ -276,12 +356,14 @@ public class DefaultSimpUserRegistry implements SimpUserRegistry, SmartApplicati
 			return new HashSet<>(this.subscriptions.values());
 		}
 
-		void addSubscription(String id, String destination) {
-			this.subscriptions.put(id, new LocalSimpSubscription(id, destination, this));
+		@Nullable
+		LocalSimpSubscription addSubscription(LocalSimpSubscription subscription) {
+			return this.subscriptions.put(subscription.getId(), subscription);
 		}
 
-		void removeSubscription(String id) {
-			this.subscriptions.remove(id);
+		@Nullable
+		LocalSimpSubscription removeSubscription(String id) {
+			return this.subscriptions.remove(id);
 		}
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,12 +21,14 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Test;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.SimpSession;
 import org.springframework.messaging.simp.user.SimpSubscription;
 import org.springframework.messaging.simp.user.SimpSubscriptionMatcher;
 import org.springframework.messaging.simp.user.SimpUser;
@@ -159,6 +161,102 @@ public class DefaultSimpUserRegistryTests {
 		assertEquals(new HashSet<>(Arrays.asList("sub1", "sub2")), sessionIds);
 	}
 
+	@Test
+	public void findSubscriptionsByDestination() throws Exception {
+		DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
+
+		TestPrincipal user = new TestPrincipal("joe");
+		Message<byte[]> message = createMessage(SimpMessageType.CONNECT_ACK, "123");
+		registry.onApplicationEvent(new SessionConnectedEvent(this, message, user));
+		message = createMessage(SimpMessageType.CONNECT_ACK, "456");
+		registry.onApplicationEvent(new SessionConnectedEvent(this, message, user));
+
+		message = createMessage(SimpMessageType.SUBSCRIBE, "123", "sub1", "/match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+		message = createMessage(SimpMessageType.SUBSCRIBE, "123", "sub2", "/match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+		message = createMessage(SimpMessageType.SUBSCRIBE, "456", "sub1", "/match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+		message = createMessage(SimpMessageType.SUBSCRIBE, "456", "sub2", "/not-a-match");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+
+		assertEquals(3, registry.findSubscriptionsByDestination("/match").size());
+		assertEquals(registry.findSubscriptions(s -> s.getDestination().equals("/match")),
+				registry.findSubscriptionsByDestination("/match"));
+
+		message = createMessage(SimpMessageType.UNSUBSCRIBE, "123", "sub2", null);
+		registry.onApplicationEvent(new SessionUnsubscribeEvent(this, message, user));
+		assertEquals(2, registry.findSubscriptionsByDestination("/match").size());
+
+		message = createMessage(SimpMessageType.SUBSCRIBE, "123", "sub1", "/other");
+		registry.onApplicationEvent(new SessionSubscribeEvent(this, message, user));
+		assertEquals(1, registry.findSubscriptionsByDestination("/match").size());
+		assertEquals(1, registry.findSubscriptionsByDestination("/other").size());
+
+		message = createMessage(SimpMessageType.DISCONNECT, "456");
+		registry.onApplicationEvent(
+				new SessionDisconnectEvent(this, message, "456", CloseStatus.NORMAL, user));
+		assertTrue(registry.findSubscriptionsByDestination("/match").isEmpty());
+		assertTrue(registry.findSubscriptionsByDestination("/not-a-match").isEmpty());
+		assertEquals(1, registry.findSubscriptionsByDestination("/other").size());
+	}
+
+	@Test
+	public void subscribeConcurrentWithDisconnect() throws Exception {
+		DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
+		TestPrincipal user = new TestPrincipal("joe");
+
+		for (int i = 0; i < 200; i++) {
+			String sessionId = "session" + i;
+			Message<byte[]> connect = createMessage(SimpMessageType.CONNECT_ACK, sessionId);
+			registry.onApplicationEvent(new SessionConnectedEvent(this, connect, user));
+
+			Message<byte[]> subscribe = createMessage(SimpMessageType.SUBSCRIBE, sessionId, "sub1", "/match");
+			Message<byte[]> disconnect = createMessage(SimpMessageType.DISCONNECT, sessionId);
+			CountDownLatch start = new CountDownLatch(1);
+			Thread subscriber = new Thread(() -> {
+				awaitQuietly(start);
+				registry.onApplicationEvent(new SessionSubscribeEvent(this, subscribe, user));
+			});
+			subscriber.start();
+			start.countDown();
+			registry.onApplicationEvent(
+					new SessionDisconnectEvent(this, disconnect, sessionId, CloseStatus.NORMAL, user));
+			subscriber.join();
+
+			assertTrue(registry.findSubscriptionsByDestination("/match").isEmpty());
+		}
+		assertEquals(0, registry.getUserCount());
+	}
+
+	@Test
+	public void sessionsSnapshot() throws Exception {
+		DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
+
+		TestPrincipal user = new TestPrincipal("joe");
+		Message<byte[]> message = createMessage(SimpMessageType.CONNECT_ACK, "123");
+		registry.onApplicationEvent(new SessionConnectedEvent(this, message, user));
+
+		SimpUser simpUser = registry.getUser("joe");
+		Set<SimpSession> sessions = simpUser.getSessions();
+		assertSame(sessions, simpUser.getSessions());
+
+		message = createMessage(SimpMessageType.CONNECT_ACK, "456");
+		registry.onApplicationEvent(new SessionConnectedEvent(this, message, user));
+		assertEquals(1, sessions.size());
+		assertEquals(2, simpUser.getSessions().size());
+
+		message = createMessage(SimpMessageType.DISCONNECT, "123");
+		registry.onApplicationEvent(
+				new SessionDisconnectEvent(this, message, "123", CloseStatus.NORMAL, user));
+		message = createMessage(SimpMessageType.DISCONNECT, "456");
+		registry.onApplicationEvent(
+				new SessionDisconnectEvent(this, message, "456", CloseStatus.NORMAL, user));
+		assertTrue(simpUser.getSessions().isEmpty());
+		assertNull(registry.getUser("joe"));
+		assertEquals(0, registry.getUserCount());
+	}
+
 	@Test
 	public void nullSessionId() throws Exception {
 		DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
@@ -173,6 +271,15 @@ public class DefaultSimpUserRegistryTests {
 	}
 
 
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	private Message<byte[]> createMessage(SimpMessageType type, String sessionId) {
 		return createMessage(type, sessionId, null, null);
 	}